@@ -8,6 +8,7 @@ public class ProgramArguments {
     // program arg names
     public static final String TOR_DIR = "torDir";
     public static final String USE_LOCALHOST = "useLocalhost";
+    public static final String FAST_TOR_RESTART = "fastTorRestart";
     public static final String DEV_TEST = "devTest";
 
 
@@ -0,0 +1,173 @@
+package io.bitsquare.app;
+
+import io.bitsquare.common.UserThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Runs the startup phases as a dependency graph. A phase starts as soon as all its dependencies are completed, so
+// independent phases (e.g. wallet sync and tor bootstrap) run concurrently.
+// A phase completes by a call to complete(name). Phases without start action are only completed by such a call, e.g.
+// from the listener of the service which was started by another phase. A phase can complete before its
+// dependencies, it is then reported as completed once the dependencies are completed.
+// Start and end of each phase are recorded, the profile is logged when all phases are completed.
+// All handlers are called on the UserThread.
+public class StartupOrchestrator {
+    private static final Logger log = LoggerFactory.getLogger(StartupOrchestrator.class);
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private Runnable readyHandler;
+    private Consumer<Throwable> faultHandler;
+    private long startTs;
+    private long readyTs;
+    private boolean failed;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The dependencies have to be added before
+    public synchronized StartupOrchestrator addPhase(String name, @Nullable Runnable startAction, String... dependencies) {
+        if (phases.containsKey(name))
+            throw new IllegalArgumentException("Phase " + name + " added twice");
+        for (String dependency : dependencies) {
+            if (!phases.containsKey(dependency))
+                throw new IllegalArgumentException("Unknown dependency " + dependency + " of phase " + name);
+        }
+        phases.put(name, new Phase(name, startAction, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    public synchronized void start(Runnable readyHandler, Consumer<Throwable> faultHandler) {
+        this.readyHandler = readyHandler;
+        this.faultHandler = faultHandler;
+        startTs = System.currentTimeMillis();
+        startReadyPhases();
+    }
+
+    // Can be called from any thread and more than once, only the first call counts
+    public synchronized void complete(String name) {
+        Phase phase = getPhase(name);
+        if (phase.completedTs == 0) {
+            phase.completedTs = System.currentTimeMillis();
+            if (phase.startTs != 0)
+                onPhaseCompleted(phase);
+        }
+    }
+
+    public synchronized void fail(String name, Throwable throwable) {
+        log.error("Startup phase " + name + " failed. " + throwable.getMessage());
+        if (!failed) {
+            failed = true;
+            UserThread.execute(() -> faultHandler.accept(throwable));
+        }
+    }
+
+    public synchronized boolean isCompleted(String name) {
+        return getPhase(name).isDone();
+    }
+
+    // Phase name to start and end in ms after the start of the orchestrator. Not yet completed phases are missing.
+    public synchronized Map<String, long[]> getProfile() {
+        Map<String, long[]> profile = new LinkedHashMap<>();
+        phases.values().stream()
+                .filter(Phase::isDone)
+                .forEach(phase -> profile.put(phase.name,
+                        new long[]{phase.startTs - startTs, phase.getEndTs() - startTs}));
+        return profile;
+    }
+
+    // Time to ready in ms or -1 if not all phases are completed
+    public synchronized long getTimeToReady() {
+        return readyTs != 0 ? readyTs - startTs : -1;
+    }
+
+    public synchronized String getProfileAsString() {
+        StringBuilder sb = new StringBuilder("Startup profile (start / end / duration in ms):");
+        getProfile().entrySet().stream().forEach(e -> sb.append(String.format("\n%-20s %6d / %6d / %6d",
+                e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[1] - e.getValue()[0])));
+        sb.append("\nTime to ready: ").append(getTimeToReady()).append(" ms");
+        return sb.toString();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private Phase getPhase(String name) {
+        Phase phase = phases.get(name);
+        if (phase == null)
+            throw new IllegalArgumentException("Unknown phase " + name);
+        return phase;
+    }
+
+    private void startReadyPhases() {
+        phases.values().stream()
+                .filter(phase -> phase.startTs == 0 && phase.dependencies.stream().allMatch(e -> phases.get(e).isDone()))
+                .forEach(this::startPhase);
+    }
+
+    private void startPhase(Phase phase) {
+        phase.startTs = System.currentTimeMillis();
+        log.info("Startup phase {} started", phase.name);
+        if (phase.completedTs != 0) {
+            // Was completed before its dependencies
+            onPhaseCompleted(phase);
+        } else if (phase.startAction != null) {
+            UserThread.execute(() -> {
+                try {
+                    phase.startAction.run();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    fail(phase.name, t);
+                }
+            });
+        }
+    }
+
+    private void onPhaseCompleted(Phase phase) {
+        log.info("Startup phase {} completed after {} ms", phase.name, phase.getEndTs() - phase.startTs);
+        if (phases.values().stream().allMatch(Phase::isDone)) {
+            readyTs = System.currentTimeMillis();
+            log.info(getProfileAsString());
+            if (!failed)
+                UserThread.execute(readyHandler);
+        } else {
+            startReadyPhases();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Phase
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class Phase {
+        private final String name;
+        @Nullable
+        private final Runnable startAction;
+        private final List<String> dependencies;
+        private long startTs;
+        private long completedTs;
+
+        Phase(String name, @Nullable Runnable startAction, List<String> dependencies) {
+            this.name = name;
+            this.startAction = startAction;
+            this.dependencies = dependencies;
+        }
+
+        boolean isDone() {
+            return startTs != 0 && completedTs != 0;
+        }
+
+        // A phase completed before its dependencies ends when it gets started
+        long getEndTs() {
+            return Math.max(startTs, completedTs);
+        }
+    }
+}
@@ -26,9 +26,14 @@ public class Version {
     // The application versions
     public static final String VERSION = "0.3.2.3";
 
-    // The version nr. for the objects sent over the network. A change will break the serialization of old objects.
-    // If objects are used for both network and database the network version is applied.
-    public static final long NETWORK_PROTOCOL_VERSION = 1;
+    // The version nr. of the P2P network protocol. Both peers write it at the start of a connection and a peer with
+    // another version gets disconnected. A change will break the communication with old peers.
+    public static final long NETWORK_PROTOCOL_VERSION = 2;
+
+    // The serialVersionUID of the objects sent over the network. Many of them are stored to disc as well (offers,
+    // contracts, trade messages, disputes), so a change will break the deserialization of the persisted trades,
+    // offers and disputes of our users. Breaking wire changes bump the NETWORK_PROTOCOL_VERSION instead.
+    public static final long NETWORK_OBJECT_VERSION = 1;
 
     // The version nr. of the serialized data stored to disc. A change will break the serialization of old objects.
     public static final long LOCAL_DB_VERSION = 1;
@@ -44,6 +49,7 @@ public class Version {
         log.info("Version{" +
                 "VERSION=" + VERSION +
                 ", NETWORK_PROTOCOL_VERSION=" + NETWORK_PROTOCOL_VERSION +
+                ", NETWORK_OBJECT_VERSION=" + NETWORK_OBJECT_VERSION +
                 ", LOCAL_DB_VERSION=" + LOCAL_DB_VERSION +
                 ", PROTOCOL_VERSION=" + PROTOCOL_VERSION +
                 ", NETWORK_ID=" + NETWORK_ID +
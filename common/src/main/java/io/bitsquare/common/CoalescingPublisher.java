@@ -0,0 +1,88 @@
+package io.bitsquare.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+// Publishes values computed on a background thread to the UserThread, at most once per interval.
+// Only the latest value per key is kept, so a burst of updates for the same key (e.g. the balance of an address
+// during chain sync) results in a single call of the consumer with the most recent value.
+// Values are published in the order their keys were first published since the last flush.
+// The scheduler is only used for the delay, the consumer is always called on the UserThread.
+public class CoalescingPublisher<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingPublisher.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final long intervalMillis;
+    private final BiConsumer<K, V> consumer;
+    // Guarded by itself
+    private final Map<K, V> pending = new LinkedHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public CoalescingPublisher(ScheduledExecutorService scheduler, long intervalMillis, BiConsumer<K, V> consumer) {
+        this.scheduler = scheduler;
+        this.intervalMillis = intervalMillis;
+        this.consumer = consumer;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Can be called from any thread. Replaces a value of the same key which has not been published yet.
+    public void publish(K key, V value) {
+        synchronized (pending) {
+            pending.put(key, value);
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(() -> UserThread.execute(this::flush), intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Scheduler is shut down, we are shutting down as well
+                log.debug("Publish after shut down ignored for key " + key);
+            }
+        }
+    }
+
+    public int getNumPending() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void flush() {
+        // Reset before draining, so a value published while we drain schedules the next flush
+        flushScheduled.set(false);
+        Map<K, V> values;
+        synchronized (pending) {
+            values = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        for (Map.Entry<K, V> entry : values.entrySet()) {
+            try {
+                consumer.accept(entry.getKey(), entry.getValue());
+            } catch (Throwable t) {
+                t.printStackTrace();
+                log.error("Publishing value for key " + entry.getKey() + " failed. " + t.getMessage());
+            }
+        }
+    }
+}
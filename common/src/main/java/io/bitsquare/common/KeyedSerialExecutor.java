@@ -0,0 +1,114 @@
+package io.bitsquare.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+// Runs tasks on a shared thread pool with one serial mailbox per key (e.g. a trade id).
+// Tasks with the same key are executed one after the other in submission order, tasks with different keys run
+// in parallel. Idle mailboxes are removed so we don't keep state for closed trades.
+public class KeyedSerialExecutor {
+    private static final Logger log = LoggerFactory.getLogger(KeyedSerialExecutor.class);
+
+    private final ExecutorService executorService;
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public KeyedSerialExecutor(String name, int numThreads) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat(name + "-%d")
+                .setDaemon(true)
+                .build();
+        executorService = Executors.newFixedThreadPool(numThreads, threadFactory);
+    }
+
+    // Queued tasks are still executed. Tasks added after the shut down are dropped, as the app is closing.
+    public void shutDown() {
+        executorService.shutdown();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void execute(String key, Runnable task) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(key, Mailbox::new);
+            if (mailbox.add(task))
+                return;
+            // The mailbox got closed in the meantime, we retry with a new one
+        }
+    }
+
+    public int getNumMailboxes() {
+        return mailboxes.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Mailbox
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private class Mailbox implements Runnable {
+        private final String key;
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean closed;
+
+        Mailbox(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean add(Runnable task) {
+            if (closed)
+                return false;
+
+            queue.add(task);
+            if (!running) {
+                try {
+                    executorService.execute(this);
+                    running = true;
+                } catch (RejectedExecutionException e) {
+                    log.info("Executor is shut down. We drop the tasks for key {}.", key);
+                    queue.clear();
+                    closed = true;
+                    mailboxes.remove(key, this);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            while ((task = poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    log.error("Executing task for key " + key + " failed. " + t.getMessage());
+                }
+            }
+        }
+
+        // Returns null and closes the mailbox if there are no more tasks
+        private synchronized Runnable poll() {
+            Runnable task = queue.poll();
+            if (task == null) {
+                running = false;
+                closed = true;
+                mailboxes.remove(key, this);
+            }
+            return task;
+        }
+    }
+}
@@ -78,4 +78,21 @@ public class UserThread {
         }, timeUnit.toMillis(delay));
         return timer;
     }
+
+    public static Timer runPeriodically(Runnable runnable, long interval, TimeUnit timeUnit) {
+        Timer timer = new Timer(true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                Thread.currentThread().setName("TimerTask-" + new Random().nextInt(10000));
+                try {
+                    UserThread.execute(() -> runnable.run());
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    log.error("Executing timerTask failed. " + t.getMessage());
+                }
+            }
+        }, timeUnit.toMillis(interval), timeUnit.toMillis(interval));
+        return timer;
+    }
 }
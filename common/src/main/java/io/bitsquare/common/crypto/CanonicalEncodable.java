@@ -0,0 +1,9 @@
+package io.bitsquare.common.crypto;
+
+// Objects which are hashed or signed implement it to provide a compact and stable byte representation, independent
+// of Java serialization (no class descriptors, not affected by serialVersionUID or field order changes in the JVM).
+// Implementations start with a type tag and write all fields relevant for the identity of the object in a fixed order.
+// Changing the encoding changes the hashes, so it has to be treated like a change of the network protocol.
+public interface CanonicalEncodable {
+    void encode(CanonicalEncoder encoder);
+}
@@ -0,0 +1,111 @@
+package io.bitsquare.common.crypto;
+
+import com.google.common.base.Charsets;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.List;
+
+// Writes the canonical encoding of CanonicalEncodable objects: Big endian fixed size numbers and length prefixed
+// strings (UTF-8), byte arrays and lists. Null values are written with a length of -1, so null and empty differ.
+public class CanonicalEncoder {
+    private static final int NULL_LENGTH = -1;
+
+    private final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Static
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static byte[] encode(CanonicalEncodable encodable) {
+        return new CanonicalEncoder().write(encodable).toByteArray();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public CanonicalEncoder writeInt(int value) {
+        try {
+            out.writeInt(value);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    public CanonicalEncoder writeLong(long value) {
+        try {
+            out.writeLong(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    public CanonicalEncoder writeBoolean(boolean value) {
+        byteArrayOutputStream.write(value ? 1 : 0);
+        return this;
+    }
+
+    public CanonicalEncoder writeBytes(@Nullable byte[] value) {
+        if (value != null) {
+            writeInt(value.length);
+            byteArrayOutputStream.write(value, 0, value.length);
+        } else {
+            writeInt(NULL_LENGTH);
+        }
+        return this;
+    }
+
+    public CanonicalEncoder writeString(@Nullable String value) {
+        return writeBytes(value != null ? value.getBytes(Charsets.UTF_8) : null);
+    }
+
+    // Enums are written by name, so reordering the constants does not change the encoding
+    public CanonicalEncoder writeEnum(@Nullable Enum<?> value) {
+        return writeString(value != null ? value.name() : null);
+    }
+
+    public CanonicalEncoder writePublicKey(@Nullable PublicKey value) {
+        return writeBytes(value != null ? value.getEncoded() : null);
+    }
+
+    public CanonicalEncoder writeStrings(@Nullable List<String> values) {
+        if (values != null) {
+            writeInt(values.size());
+            values.stream().forEach(this::writeString);
+        } else {
+            writeInt(NULL_LENGTH);
+        }
+        return this;
+    }
+
+    public CanonicalEncoder writeList(@Nullable List<? extends CanonicalEncodable> values) {
+        if (values != null) {
+            writeInt(values.size());
+            values.stream().forEach(this::write);
+        } else {
+            writeInt(NULL_LENGTH);
+        }
+        return this;
+    }
+
+    public CanonicalEncoder write(@Nullable CanonicalEncodable value) {
+        writeBoolean(value != null);
+        if (value != null)
+            value.encode(this);
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return byteArrayOutputStream.toByteArray();
+    }
+}
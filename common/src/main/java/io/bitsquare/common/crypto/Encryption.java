@@ -20,16 +20,11 @@ package io.bitsquare.common.crypto;
 import io.bitsquare.common.util.Utilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.spongycastle.util.encoders.Hex;
 
-import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
-import javax.crypto.Mac;
-import javax.crypto.SecretKey;
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.Serializable;
+import java.io.*;
 import java.security.*;
 import java.util.Arrays;
 
@@ -44,7 +39,13 @@ public class Encryption {
     public static final String SYM_KEY_ALGO = "AES"; // AES/CTR/NoPadding
     public static final String SYM_CIPHER = "AES";
 
-    public static final String HMAC = "HmacSHA256";
+    // Authenticated encryption used for the payload of SealedAndSigned. The random IV is prepended to the cipher text,
+    // the authentication tag is appended by the cipher.
+    public static final String SYM_AEAD_CIPHER = "AES/GCM/NoPadding";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 16;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
 
     public static KeyPair generateKeyPair() {
         long ts = System.currentTimeMillis();
@@ -88,82 +89,49 @@ public class Encryption {
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
-    // Hmac
+    // Symmetric with authenticated encryption
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private static byte[] getPayloadWithHmac(byte[] payload, SecretKey secretKey) {
-        byte[] payloadWithHmac;
+    // The object is serialized through the cipher, so there is no copy of the plain serialized object
+    public static byte[] encryptPayloadWithAead(Serializable object, SecretKey secretKey) throws CryptoException {
         try {
-
-            ByteArrayOutputStream outputStream = null;
-            try {
-                byte[] hmac = getHmac(payload, secretKey);
-                outputStream = new ByteArrayOutputStream();
-                outputStream.write(payload);
-                outputStream.write(hmac);
-                outputStream.flush();
-                payloadWithHmac = outputStream.toByteArray().clone();
-            } catch (IOException | NoSuchProviderException e) {
-                e.printStackTrace();
-                throw new RuntimeException("Could not create hmac");
-            } finally {
-                if (outputStream != null) {
-                    try {
-                        outputStream.close();
-                    } catch (IOException ignored) {
-                    }
-                }
+            byte[] iv = getRandomIv();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(iv);
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(
+                    new CipherOutputStream(outputStream, getAeadCipher(Cipher.ENCRYPT_MODE, secretKey, iv)))) {
+                objectOutputStream.writeObject(object);
             }
+            return outputStream.toByteArray();
         } catch (Throwable e) {
             e.printStackTrace();
-            throw new RuntimeException("Could not create hmac");
+            throw new CryptoException(e);
         }
-        return payloadWithHmac;
     }
 
-
-    private static boolean verifyHmac(byte[] message, byte[] hmac, SecretKey secretKey) throws CryptoException {
+    // The cipher text is written directly into the result, behind the IV
+    public static byte[] encryptPayloadWithAead(byte[] payload, SecretKey secretKey) throws CryptoException {
         try {
-            byte[] hmacTest = getHmac(message, secretKey);
-            return Arrays.equals(hmacTest, hmac);
+            byte[] iv = getRandomIv();
+            byte[] encryptedPayload = Arrays.copyOf(iv, GCM_IV_LENGTH + payload.length + GCM_TAG_LENGTH);
+            getAeadCipher(Cipher.ENCRYPT_MODE, secretKey, iv).doFinal(payload, 0, payload.length, encryptedPayload, GCM_IV_LENGTH);
+            return encryptedPayload;
         } catch (Throwable e) {
             e.printStackTrace();
-            throw new RuntimeException("Could not create cipher");
+            throw new CryptoException(e);
         }
     }
 
-    private static byte[] getHmac(byte[] payload, SecretKey secretKey) throws NoSuchAlgorithmException, InvalidKeyException, NoSuchProviderException {
-        Mac mac = Mac.getInstance(HMAC, "BC");
-        mac.init(secretKey);
-        return mac.doFinal(payload);
-    }
+    // Fails if the payload or the IV got modified
+    public static byte[] decryptPayloadWithAead(byte[] encryptedPayload, SecretKey secretKey) throws CryptoException {
+        if (encryptedPayload.length < GCM_IV_LENGTH + GCM_TAG_LENGTH)
+            throw new CryptoException("Encrypted payload is too short.");
 
-
-    ///////////////////////////////////////////////////////////////////////////////////////////
-    // Symmetric with Hmac
-    ///////////////////////////////////////////////////////////////////////////////////////////
-
-    public static byte[] encryptPayloadWithHmac(Serializable object, SecretKey secretKey) throws CryptoException {
-        return encryptPayloadWithHmac(Utilities.serialize(object), secretKey);
-    }
-
-    public static byte[] encryptPayloadWithHmac(byte[] payload, SecretKey secretKey) throws CryptoException {
-        return encrypt(getPayloadWithHmac(payload, secretKey), secretKey);
-    }
-
-    public static byte[] decryptPayloadWithHmac(byte[] encryptedPayloadWithHmac, SecretKey secretKey) throws CryptoException {
-        byte[] payloadWithHmac = decrypt(encryptedPayloadWithHmac, secretKey);
-        String payloadWithHmacAsHex = Hex.toHexString(payloadWithHmac);
-        // first part is raw message
-        int length = payloadWithHmacAsHex.length();
-        int sep = length - 64;
-        String payloadAsHex = payloadWithHmacAsHex.substring(0, sep);
-        // last 64 bytes is hmac
-        String hmacAsHex = payloadWithHmacAsHex.substring(sep, length);
-        if (verifyHmac(Hex.decode(payloadAsHex), Hex.decode(hmacAsHex), secretKey)) {
-            return Hex.decode(payloadAsHex);
-        } else {
-            throw new CryptoException("Hmac does not match.");
+        try {
+            return getAeadCipher(Cipher.DECRYPT_MODE, secretKey, encryptedPayload)
+                    .doFinal(encryptedPayload, GCM_IV_LENGTH, encryptedPayload.length - GCM_IV_LENGTH);
+        } catch (Throwable e) {
+            throw new CryptoException(e);
         }
     }
 
@@ -215,15 +183,15 @@ public class Encryption {
         // Encrypt secretKey with receivers publicKey 
         byte[] encryptedSecretKey = encrypt(secretKey.getEncoded(), encryptionPublicKey);
 
-        // Encrypt with sym key payload with appended hmac
-        byte[] encryptedPayloadWithHmac = encryptPayloadWithHmac(payload, secretKey);
+        // Encrypt with sym key payload with authentication tag
+        byte[] encryptedPayload = encryptPayloadWithAead(payload, secretKey);
 
-        // sign hash of encryptedPayloadWithHmac
-        byte[] hash = Hash.getHash(encryptedPayloadWithHmac);
+        // sign hash of encryptedPayload
+        byte[] hash = Hash.getHash(encryptedPayload);
         byte[] signature = Sig.sign(signatureKeyPair.getPrivate(), hash);
 
         // Pack all together
-        return new SealedAndSigned(encryptedSecretKey, encryptedPayloadWithHmac, signature, signatureKeyPair.getPublic());
+        return new SealedAndSigned(encryptedSecretKey, encryptedPayload, signature, signatureKeyPair.getPublic());
     }
 
     /**
@@ -235,12 +203,12 @@ public class Encryption {
     public static DecryptedPayloadWithPubKey decryptHybridWithSignature(SealedAndSigned sealedAndSigned, PrivateKey privateKey) throws CryptoException {
         SecretKey secretKey = getSecretKeyFromBytes(decrypt(sealedAndSigned.encryptedSecretKey, privateKey));
         boolean isValid = Sig.verify(sealedAndSigned.sigPublicKey,
-                Hash.getHash(sealedAndSigned.encryptedPayloadWithHmac),
+                Hash.getHash(sealedAndSigned.encryptedPayload),
                 sealedAndSigned.signature);
         if (!isValid)
             throw new CryptoException("Signature verification failed.");
 
-        Serializable decryptedPayload = Utilities.deserialize(decryptPayloadWithHmac(sealedAndSigned.encryptedPayloadWithHmac, secretKey));
+        Serializable decryptedPayload = Utilities.deserialize(decryptPayloadWithAead(sealedAndSigned.encryptedPayload, secretKey));
         return new DecryptedPayloadWithPubKey(decryptedPayload, sealedAndSigned.sigPublicKey);
     }
 
@@ -249,6 +217,18 @@ public class Encryption {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private static byte[] getRandomIv() {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        return iv;
+    }
+
+    private static Cipher getAeadCipher(int mode, SecretKey secretKey, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(SYM_AEAD_CIPHER, "BC");
+        cipher.init(mode, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv, 0, GCM_IV_LENGTH));
+        return cipher;
+    }
+
     private static SecretKey getSecretKeyFromBytes(byte[] encodedKey) {
         return new SecretKeySpec(encodedKey, SYM_KEY_ALGO);
     }
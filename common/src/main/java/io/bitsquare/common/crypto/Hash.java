@@ -49,11 +49,15 @@ public class Hash {
     }
 
     /**
-     * @param data Any serializable object. Will be converted into a byte array using Java serialisation.
+     * @param data Any serializable object. If it is a CanonicalEncodable we hash its canonical encoding, otherwise it
+     *             will be converted into a byte array using Java serialisation.
      * @return Hash of data
      */
     public static byte[] getHash(Serializable data) {
-        return getHash(Utilities.serialize(data));
+        if (data instanceof CanonicalEncodable)
+            return getHash(CanonicalEncoder.encode((CanonicalEncodable) data));
+        else
+            return getHash(Utilities.serialize(data));
     }
 
     /**
@@ -17,47 +17,85 @@
 
 package io.bitsquare.common.crypto;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.inject.Inject;
 import java.security.KeyPair;
 
+// The keys are loaded or, at the first start, generated on a background thread, so the startup can continue with
+// other work meanwhile. The getters block until the keys are available, see getLoadFuture.
 public class KeyRing {
-    private final KeyPair signatureKeyPair;
-    private final KeyPair encryptionKeyPair;
-    private final PubKeyRing pubKeyRing;
+    private static final Logger log = LoggerFactory.getLogger(KeyRing.class);
+
+    private final SettableFuture<Void> loadFuture = SettableFuture.create();
+    private volatile KeyPair signatureKeyPair;
+    private volatile KeyPair encryptionKeyPair;
+    private volatile PubKeyRing pubKeyRing;
 
     @Inject
     public KeyRing(KeyStorage keyStorage) {
-        if (keyStorage.allKeyFilesExist()) {
-            signatureKeyPair = keyStorage.loadKeyPair(KeyStorage.KeyEntry.MSG_SIGNATURE);
-            encryptionKeyPair = keyStorage.loadKeyPair(KeyStorage.KeyEntry.MSG_ENCRYPTION);
-        } else {
-            // First time we create key pairs
-            signatureKeyPair = Sig.generateKeyPair();
-            encryptionKeyPair = Encryption.generateKeyPair();
-            keyStorage.saveKeyRing(this);
-        }
-
-        pubKeyRing = new PubKeyRing(signatureKeyPair.getPublic(), encryptionKeyPair.getPublic());
+        new Thread(() -> {
+            try {
+                long ts = System.currentTimeMillis();
+                if (keyStorage.allKeyFilesExist()) {
+                    signatureKeyPair = keyStorage.loadKeyPair(KeyStorage.KeyEntry.MSG_SIGNATURE);
+                    encryptionKeyPair = keyStorage.loadKeyPair(KeyStorage.KeyEntry.MSG_ENCRYPTION);
+                } else {
+                    // First time we create key pairs
+                    signatureKeyPair = Sig.generateKeyPair();
+                    encryptionKeyPair = Encryption.generateKeyPair();
+                    keyStorage.savePrivateKey(signatureKeyPair.getPrivate(), KeyStorage.KeyEntry.MSG_SIGNATURE.getFileName());
+                    keyStorage.savePrivateKey(encryptionKeyPair.getPrivate(), KeyStorage.KeyEntry.MSG_ENCRYPTION.getFileName());
+                }
+
+                pubKeyRing = new PubKeyRing(signatureKeyPair.getPublic(), encryptionKeyPair.getPublic());
+                log.debug("Keys loaded in {} ms", System.currentTimeMillis() - ts);
+                loadFuture.set(null);
+            } catch (Throwable t) {
+                t.printStackTrace();
+                log.error("Loading keys failed. " + t.getMessage());
+                loadFuture.setException(t);
+            }
+        }, "KeyRing-load").start();
+    }
+
+    // Completes when the keys are loaded
+    public ListenableFuture<Void> getLoadFuture() {
+        return loadFuture;
     }
 
     public KeyPair getSignatureKeyPair() {
+        awaitLoaded();
         return signatureKeyPair;
     }
 
     public KeyPair getEncryptionKeyPair() {
+        awaitLoaded();
         return encryptionKeyPair;
     }
 
     public PubKeyRing getPubKeyRing() {
+        awaitLoaded();
         return pubKeyRing;
     }
 
+    private void awaitLoaded() {
+        // Throws an unchecked exception if loading failed
+        Futures.getUnchecked(loadFuture);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof KeyRing)) return false;
 
         KeyRing keyRing = (KeyRing) o;
+        awaitLoaded();
+        keyRing.awaitLoaded();
 
         if (signatureKeyPair != null ? !signatureKeyPair.equals(keyRing.signatureKeyPair) : keyRing.signatureKeyPair != null)
             return false;
@@ -69,6 +107,7 @@ public class KeyRing {
 
     @Override
     public int hashCode() {
+        awaitLoaded();
         int result = signatureKeyPair != null ? signatureKeyPair.hashCode() : 0;
         result = 31 * result + (encryptionKeyPair != null ? encryptionKeyPair.hashCode() : 0);
         result = 31 * result + (pubKeyRing != null ? pubKeyRing.hashCode() : 0);
@@ -77,6 +116,7 @@ public class KeyRing {
 
     @Override
     public String toString() {
+        awaitLoaded();
         return "KeyRing{" +
                 "signatureKeyPair.hashCode()=" + signatureKeyPair.hashCode() +
                 ", encryptionKeyPair.hashCode()=" + encryptionKeyPair.hashCode() +
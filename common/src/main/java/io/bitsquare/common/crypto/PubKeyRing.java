@@ -22,11 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
@@ -35,9 +33,9 @@ import java.security.spec.X509EncodedKeySpec;
  * Same as KeyRing but with public keys only.
  * Used to send public keys over the wire to other peer.
  */
-public class PubKeyRing implements Serializable {
+public class PubKeyRing implements Serializable, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     transient private static final Logger log = LoggerFactory.getLogger(PubKeyRing.class);
 
@@ -55,16 +53,25 @@ public class PubKeyRing implements Serializable {
         this.encryptionPubKeyBytes = new X509EncodedKeySpec(encryptionPubKey.getEncoded()).getEncoded();
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("PubKeyRing")
+                .writeBytes(signaturePubKeyBytes)
+                .writeBytes(encryptionPubKeyBytes);
+    }
+
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (signaturePubKeyBytes == null || encryptionPubKeyBytes == null)
+            throw new InvalidObjectException("PubKeyRing keys must not be null");
+
         try {
-            in.defaultReadObject();
-            signaturePubKey = KeyFactory.getInstance(Sig.KEY_ALGO, "BC").generatePublic(new X509EncodedKeySpec(signaturePubKeyBytes));
-            encryptionPubKey = KeyFactory.getInstance(Encryption.ASYM_KEY_ALGO, "BC").generatePublic(new X509EncodedKeySpec(encryptionPubKeyBytes));
-        } catch (InvalidKeySpecException | NoSuchAlgorithmException | NoSuchProviderException e) {
-            e.printStackTrace();
-            log.error(e.getMessage());
-        } catch (Throwable t) {
-            log.trace("Cannot be deserialized." + t.getMessage());
+            signaturePubKey = PublicKeyCache.getPublicKey(Sig.KEY_ALGO, signaturePubKeyBytes);
+            encryptionPubKey = PublicKeyCache.getPublicKey(Encryption.ASYM_KEY_ALGO, encryptionPubKeyBytes);
+        } catch (InvalidKeySpecException e) {
+            InvalidObjectException exception = new InvalidObjectException(e.getMessage());
+            exception.initCause(e);
+            throw exception;
         }
     }
 
@@ -83,6 +90,10 @@ public class PubKeyRing implements Serializable {
 
         PubKeyRing that = (PubKeyRing) o;
 
+        // Deserialized keys are interned by the PublicKeyCache, so usually we have the same instances
+        if (signaturePubKey == that.signaturePubKey && encryptionPubKey == that.encryptionPubKey)
+            return true;
+
         if (signaturePubKey != null ? !signaturePubKey.equals(that.signaturePubKey) : that.signaturePubKey != null)
             return false;
         return !(encryptionPubKey != null ? !encryptionPubKey.equals(that.encryptionPubKey) : that.encryptionPubKey != null);
@@ -0,0 +1,126 @@
+package io.bitsquare.common.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+// Process wide, bounded intern cache of decoded public keys, keyed by algorithm and X.509 encoding.
+// The same offerer keys arrive again and again with offers, republished data and mailbox messages. With the cache a
+// key is decoded only once and all objects share the same instance, which saves heap and lets equals checks
+// succeed on the identity check.
+// Least recently used keys are evicted when the cache is full, an evicted key just gets decoded again.
+public class PublicKeyCache {
+    private static final int MAX_SIZE = 20000;
+
+    private static final Cache<Key, PublicKey> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .recordStats()
+            .build();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static PublicKey getPublicKey(String algorithm, byte[] encoded) throws InvalidKeySpecException {
+        try {
+            return cache.get(new Key(algorithm, encoded),
+                    () -> KeyFactory.getInstance(algorithm, "BC").generatePublic(new X509EncodedKeySpec(encoded)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new InvalidKeySpecException("Could not decode " + algorithm + " public key", e.getCause());
+        }
+    }
+
+    // Java serialization of a key as algorithm and encoding. Used by the classes which carry a PublicKey field instead
+    // of java serializing the key itself, so reading it goes through the cache. A null key is written as a flag only.
+    public static void writePublicKey(ObjectOutputStream out, @Nullable PublicKey publicKey) throws IOException {
+        out.writeBoolean(publicKey != null);
+        if (publicKey != null) {
+            out.writeUTF(publicKey.getAlgorithm());
+            out.writeObject(publicKey.getEncoded());
+        }
+    }
+
+    // Throws an InvalidObjectException if the key can't be decoded
+    @Nullable
+    public static PublicKey readPublicKey(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        if (!in.readBoolean())
+            return null;
+
+        String algorithm = in.readUTF();
+        Object encoded = in.readObject();
+        if (!(encoded instanceof byte[]))
+            throw new InvalidObjectException("Encoded " + algorithm + " public key is missing");
+
+        try {
+            return getPublicKey(algorithm, (byte[]) encoded);
+        } catch (InvalidKeySpecException e) {
+            InvalidObjectException exception = new InvalidObjectException(e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    // For the fields which must never be null after deserialization
+    public static PublicKey readRequiredPublicKey(ObjectInputStream in, String fieldName)
+            throws IOException, ClassNotFoundException {
+        PublicKey publicKey = readPublicKey(in);
+        if (publicKey == null)
+            throw new InvalidObjectException(fieldName + " must not be null");
+        return publicKey;
+    }
+
+    public static CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public static long size() {
+        return cache.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Key
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The encoded bytes are not copied. Callers pass arrays which they never modify.
+    private static class Key {
+        private final String algorithm;
+        private final byte[] encoded;
+        private final int hashCode;
+
+        Key(String algorithm, byte[] encoded) {
+            this.algorithm = algorithm;
+            this.encoded = encoded;
+            this.hashCode = 31 * algorithm.hashCode() + Arrays.hashCode(encoded);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return algorithm.equals(key.algorithm) && Arrays.equals(encoded, key.encoded);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -23,22 +23,32 @@ import java.io.Serializable;
 import java.security.PublicKey;
 import java.util.Arrays;
 
-public final class SealedAndSigned implements Serializable {
+public final class SealedAndSigned implements Serializable, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final byte[] encryptedSecretKey;
-    public final byte[] encryptedPayloadWithHmac;
+    // IV, AES-GCM cipher text and authentication tag of the payload
+    public final byte[] encryptedPayload;
     public final byte[] signature;
     public final PublicKey sigPublicKey;
 
-    public SealedAndSigned(byte[] encryptedSecretKey, byte[] encryptedPayloadWithHmac, byte[] signature, PublicKey sigPublicKey) {
+    public SealedAndSigned(byte[] encryptedSecretKey, byte[] encryptedPayload, byte[] signature, PublicKey sigPublicKey) {
         this.encryptedSecretKey = encryptedSecretKey;
-        this.encryptedPayloadWithHmac = encryptedPayloadWithHmac;
+        this.encryptedPayload = encryptedPayload;
         this.signature = signature;
         this.sigPublicKey = sigPublicKey;
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("SealedAndSigned")
+                .writeBytes(encryptedSecretKey)
+                .writeBytes(encryptedPayload)
+                .writeBytes(signature)
+                .writePublicKey(sigPublicKey);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -47,7 +57,7 @@ public final class SealedAndSigned implements Serializable {
         SealedAndSigned that = (SealedAndSigned) o;
 
         if (!Arrays.equals(encryptedSecretKey, that.encryptedSecretKey)) return false;
-        if (!Arrays.equals(encryptedPayloadWithHmac, that.encryptedPayloadWithHmac)) return false;
+        if (!Arrays.equals(encryptedPayload, that.encryptedPayload)) return false;
         if (!Arrays.equals(signature, that.signature)) return false;
         return !(sigPublicKey != null ? !sigPublicKey.equals(that.sigPublicKey) : that.sigPublicKey != null);
 
@@ -56,7 +66,7 @@ public final class SealedAndSigned implements Serializable {
     @Override
     public int hashCode() {
         int result = encryptedSecretKey != null ? Arrays.hashCode(encryptedSecretKey) : 0;
-        result = 31 * result + (encryptedPayloadWithHmac != null ? Arrays.hashCode(encryptedPayloadWithHmac) : 0);
+        result = 31 * result + (encryptedPayload != null ? Arrays.hashCode(encryptedPayload) : 0);
         result = 31 * result + (signature != null ? Arrays.hashCode(signature) : 0);
         result = 31 * result + (sigPublicKey != null ? sigPublicKey.hashCode() : 0);
         return result;
@@ -66,7 +76,7 @@ public final class SealedAndSigned implements Serializable {
     public String toString() {
         return "SealedAndSigned{" +
                 "encryptedSecretKey.hashCode()=" + Arrays.toString(encryptedSecretKey).hashCode() +
-                ", encryptedPayloadWithHmac.hashCode()=" + Arrays.toString(encryptedPayloadWithHmac).hashCode() +
+                ", encryptedPayload.hashCode()=" + Arrays.toString(encryptedPayload).hashCode() +
                 ", signature.hashCode()=" + Arrays.toString(signature).hashCode() +
                 ", sigPublicKey.hashCode()=" + sigPublicKey.hashCode() +
                 '}';
@@ -0,0 +1,8 @@
+package io.bitsquare.common.observable;
+
+import java.util.List;
+
+public interface CollectionListener<E> {
+    // Called after a change with the added and the removed elements, one of them is usually empty
+    void onChanged(List<E> added, List<E> removed);
+}
@@ -0,0 +1,30 @@
+package io.bitsquare.common.observable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Listener handling shared by our observable collections. The list is created with the first listener.
+class CollectionListeners<E> {
+    private CopyOnWriteArrayList<CollectionListener<? super E>> listeners;
+
+    void add(CollectionListener<? super E> listener) {
+        if (listeners == null)
+            listeners = new CopyOnWriteArrayList<>();
+        listeners.add(listener);
+    }
+
+    void remove(CollectionListener<? super E> listener) {
+        if (listeners != null)
+            listeners.remove(listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    void fire(List<? extends E> added, List<? extends E> removed) {
+        if (listeners != null && (!added.isEmpty() || !removed.isEmpty())) {
+            List<E> addedView = Collections.unmodifiableList(added);
+            List<E> removedView = Collections.unmodifiableList(removed);
+            listeners.stream().forEach(e -> ((CollectionListener<E>) e).onChanged(addedView, removedView));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.bitsquare.common.observable;
+
+import java.util.*;
+
+// Replacement for the JavaFX ObservableList in our domain model, so core does not depend on JavaFX. Like the JavaFX
+// collections it is not thread safe, we only change it on the UserThread and listeners are called on that thread.
+// Bulk operations (addAll, clear, setAll) notify the listeners once.
+// The GUI adapts it to a JavaFX ObservableList with io.bitsquare.gui.util.FxProperties.
+public class ObservableArrayList<E> extends AbstractList<E> implements RandomAccess {
+    private final ArrayList<E> list;
+    private final CollectionListeners<E> listeners = new CollectionListeners<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public ObservableArrayList() {
+        list = new ArrayList<>();
+    }
+
+    public ObservableArrayList(Collection<? extends E> elements) {
+        list = new ArrayList<>(elements);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void addListener(CollectionListener<? super E> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CollectionListener<? super E> listener) {
+        listeners.remove(listener);
+    }
+
+    public void setAll(Collection<? extends E> elements) {
+        List<E> removed = new ArrayList<>(list);
+        list.clear();
+        list.addAll(elements);
+        listeners.fire(new ArrayList<>(elements), removed);
+    }
+
+    @Override
+    public E get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public void add(int index, E element) {
+        list.add(index, element);
+        modCount++;
+        listeners.fire(Collections.singletonList(element), Collections.emptyList());
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        List<E> added = new ArrayList<>(elements);
+        list.addAll(added);
+        modCount++;
+        listeners.fire(added, Collections.emptyList());
+        return !added.isEmpty();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E removed = list.set(index, element);
+        listeners.fire(Collections.singletonList(element), Collections.singletonList(removed));
+        return removed;
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = list.remove(index);
+        modCount++;
+        listeners.fire(Collections.emptyList(), Collections.singletonList(removed));
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        List<E> removed = new ArrayList<>(list);
+        list.clear();
+        modCount++;
+        listeners.fire(Collections.emptyList(), removed);
+    }
+}
@@ -0,0 +1,80 @@
+package io.bitsquare.common.observable;
+
+import java.util.*;
+
+// Map counterpart of ObservableArrayList, with the same threading rules. Listeners get the added and removed values,
+// replacing the value of a key reports the old value as removed and the new one as added.
+public class ObservableHashMap<K, V> extends AbstractMap<K, V> {
+    private final HashMap<K, V> map = new HashMap<>();
+    private final CollectionListeners<V> listeners = new CollectionListeners<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void addListener(CollectionListener<? super V> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CollectionListener<? super V> listener) {
+        listeners.remove(listener);
+    }
+
+    // Read only, changes go through put and remove so the listeners get notified
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableMap(map).entrySet();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        return map.get(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V removed = map.put(key, value);
+        listeners.fire(Collections.singletonList(value),
+                removed != null ? Collections.singletonList(removed) : Collections.emptyList());
+        return removed;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> elements) {
+        List<V> added = new ArrayList<>();
+        List<V> removed = new ArrayList<>();
+        elements.entrySet().stream().forEach(e -> {
+            added.add(e.getValue());
+            V previous = map.put(e.getKey(), e.getValue());
+            if (previous != null)
+                removed.add(previous);
+        });
+        listeners.fire(added, removed);
+    }
+
+    @Override
+    public V remove(Object key) {
+        V removed = map.remove(key);
+        if (removed != null)
+            listeners.fire(Collections.emptyList(), Collections.singletonList(removed));
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        List<V> removed = new ArrayList<>(map.values());
+        map.clear();
+        listeners.fire(Collections.emptyList(), removed);
+    }
+}
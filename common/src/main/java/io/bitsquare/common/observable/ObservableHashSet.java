@@ -0,0 +1,94 @@
+package io.bitsquare.common.observable;
+
+import java.util.*;
+
+// Set counterpart of ObservableArrayList, with the same threading rules.
+public class ObservableHashSet<E> extends AbstractSet<E> {
+    private final HashSet<E> set;
+    private final CollectionListeners<E> listeners = new CollectionListeners<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public ObservableHashSet() {
+        set = new HashSet<>();
+    }
+
+    public ObservableHashSet(Collection<? extends E> elements) {
+        set = new HashSet<>(elements);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void addListener(CollectionListener<? super E> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CollectionListener<? super E> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return set.contains(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator = set.iterator();
+        return new Iterator<E>() {
+            private E current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                listeners.fire(Collections.emptyList(), Collections.singletonList(current));
+            }
+        };
+    }
+
+    @Override
+    public boolean add(E element) {
+        boolean added = set.add(element);
+        if (added)
+            listeners.fire(Collections.singletonList(element), Collections.emptyList());
+        return added;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object o) {
+        boolean removed = set.remove(o);
+        if (removed)
+            listeners.fire(Collections.emptyList(), Collections.singletonList((E) o));
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        List<E> removed = new ArrayList<>(set);
+        set.clear();
+        listeners.fire(Collections.emptyList(), removed);
+    }
+}
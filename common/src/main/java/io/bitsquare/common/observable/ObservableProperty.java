@@ -0,0 +1,73 @@
+package io.bitsquare.common.observable;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Lightweight replacement for the JavaFX properties in our domain model, so core does not depend on the JavaFX
+// runtime. It is thread safe and only costs the value and a listener list which is created with the first listener.
+// Like with JavaFX properties listeners are only called if the new value is not equal to the old one. They are called
+// on the thread which changed the value (the UserThread in our case).
+// The GUI adapts it to JavaFX properties with io.bitsquare.gui.util.FxProperties.
+public class ObservableProperty<T> implements ReadOnlyObservableProperty<T> {
+    private volatile T value;
+    private volatile CopyOnWriteArrayList<PropertyListener<? super T>> listeners;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public ObservableProperty() {
+    }
+
+    public ObservableProperty(T value) {
+        this.value = value;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void set(T newValue) {
+        T oldValue;
+        synchronized (this) {
+            oldValue = value;
+            value = newValue;
+        }
+
+        CopyOnWriteArrayList<PropertyListener<? super T>> listeners = this.listeners;
+        if (listeners != null && !Objects.equals(oldValue, newValue))
+            listeners.stream().forEach(e -> e.onChanged(oldValue, newValue));
+    }
+
+    @Override
+    public T get() {
+        return value;
+    }
+
+    @Override
+    public void addListener(PropertyListener<? super T> listener) {
+        if (listeners == null) {
+            synchronized (this) {
+                if (listeners == null)
+                    listeners = new CopyOnWriteArrayList<>();
+            }
+        }
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(PropertyListener<? super T> listener) {
+        CopyOnWriteArrayList<PropertyListener<? super T>> listeners = this.listeners;
+        if (listeners != null)
+            listeners.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return "ObservableProperty{" +
+                "value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,5 @@
+package io.bitsquare.common.observable;
+
+public interface PropertyListener<T> {
+    void onChanged(T oldValue, T newValue);
+}
@@ -0,0 +1,9 @@
+package io.bitsquare.common.observable;
+
+public interface ReadOnlyObservableProperty<T> {
+    T get();
+
+    void addListener(PropertyListener<? super T> listener);
+
+    void removeListener(PropertyListener<? super T> listener);
+}
@@ -52,6 +52,11 @@ public abstract class Task<T extends Model> {
             errorMessage += "\nException: " + t.toString();
     }
 
+    // A task which continues asynchronously has to check that before it changes the model
+    protected boolean isCanceled() {
+        return taskHandler.isCanceled();
+    }
+
     protected void complete() {
         taskHandler.handleComplete();
     }
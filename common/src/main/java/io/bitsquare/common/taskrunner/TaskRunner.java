@@ -22,14 +22,21 @@ import io.bitsquare.common.handlers.ResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.Queue;
+import java.lang.reflect.Constructor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
+// Runs the tasks one after the other. Tasks are created by TaskFactories (usually constructor references), so we
+// don't need a reflective lookup for each task. For tasks added by class we look up the constructor only once.
+// The model gets persisted when all tasks are completed or a task failed. Tasks which need to persist state
+// earlier do it themselves (e.g. Trade.setState).
 public class TaskRunner<T extends Model> {
     private static final Logger log = LoggerFactory.getLogger(TaskRunner.class);
 
-    private final Queue<Class<? extends Task>> tasks = new LinkedBlockingQueue<>();
+    private static final Map<Class<? extends Task>, Constructor<? extends Task>> constructorCache = new ConcurrentHashMap<>();
+
+    private final Queue<TaskFactory<T>> tasks = new LinkedBlockingQueue<>();
     private final T sharedModel;
     private final Class<T> sharedModelClass;
     private final ResultHandler resultHandler;
@@ -37,7 +44,11 @@ public class TaskRunner<T extends Model> {
     private boolean failed = false;
     private boolean isCanceled;
 
-    private Class<? extends Task> currentTask;
+    private Task<T> currentTask;
+    private long startTs;
+    private long currentTaskStartTs;
+    private int currentTaskIndex = -1;
+    private final Map<String, Long> taskDurations = new LinkedHashMap<>();
 
 
     public TaskRunner(T sharedModel, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
@@ -51,11 +62,17 @@ public class TaskRunner<T extends Model> {
         this.sharedModelClass = sharedModelClass;
     }
 
-    public final void addTasks(Class<? extends Task<T>>... items) {
+    @SafeVarargs
+    public final void addTasks(TaskFactory<T>... items) {
         tasks.addAll(Arrays.asList(items));
     }
 
+    public final void addTasks(Class<? extends Task<T>>... items) {
+        Arrays.asList(items).stream().forEach(taskClass -> tasks.add(getTaskFactory(taskClass)));
+    }
+
     public void run() {
+        startTs = System.currentTimeMillis();
         next();
     }
 
@@ -63,14 +80,19 @@ public class TaskRunner<T extends Model> {
         if (!failed && !isCanceled) {
             if (tasks.size() > 0) {
                 try {
-                    currentTask = tasks.poll();
-                    log.trace("Run task: " + currentTask.getSimpleName());
-                    currentTask.getDeclaredConstructor(TaskRunner.class, sharedModelClass).newInstance(this, sharedModel).run();
+                    currentTaskStartTs = System.currentTimeMillis();
+                    currentTaskIndex++;
+                    currentTask = tasks.poll().create(this, sharedModel);
+                    log.trace("Run task: " + currentTask.getClass().getSimpleName());
+                    currentTask.run();
                 } catch (Throwable throwable) {
                     throwable.printStackTrace();
                     handleErrorMessage("Error at taskRunner: " + throwable.getMessage());
                 }
             } else {
+                sharedModel.persist();
+                log.debug("All tasks completed. Took {} ms. Task durations in ms: {}",
+                        System.currentTimeMillis() - startTs, taskDurations);
                 resultHandler.handleResult();
             }
         }
@@ -80,16 +102,48 @@ public class TaskRunner<T extends Model> {
         isCanceled = true;
     }
 
+    public boolean isCanceled() {
+        return isCanceled;
+    }
+
+    // Task index and class name -> duration in ms of the completed tasks,
+    // e.g. "0:io.bitsquare.trade.protocol.trade.tasks.taker.CreateTakeOfferFeeTx" -> 12.
+    // The index keeps tasks with the same name apart.
+    public Map<String, Long> getTaskDurations() {
+        return taskDurations;
+    }
+
     void handleComplete() {
-        log.trace("Task completed: " + currentTask.getSimpleName());
-        sharedModel.persist();
+        long duration = System.currentTimeMillis() - currentTaskStartTs;
+        taskDurations.put(currentTaskIndex + ":" + currentTask.getClass().getName(), duration);
+        log.trace("Task completed: " + getCurrentTaskName() + ". Took " + duration + " ms.");
         next();
     }
 
     void handleErrorMessage(String errorMessage) {
-        log.error("Task failed: " + currentTask.getSimpleName());
+        log.error("Task failed: " + getCurrentTaskName());
         log.error("errorMessage: " + errorMessage);
         failed = true;
+        sharedModel.persist();
         errorMessageHandler.handleErrorMessage(errorMessage);
     }
+
+    private String getCurrentTaskName() {
+        return currentTask != null ? currentTask.getClass().getSimpleName() : "";
+    }
+
+    private TaskFactory<T> getTaskFactory(Class<? extends Task<T>> taskClass) {
+        return (taskRunner, model) -> {
+            try {
+                Constructor<? extends Task> constructor = constructorCache.get(taskClass);
+                if (constructor == null) {
+                    constructor = taskClass.getDeclaredConstructor(TaskRunner.class, sharedModelClass);
+                    constructorCache.put(taskClass, constructor);
+                }
+                return (Task<T>) constructor.newInstance(taskRunner, model);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
 }
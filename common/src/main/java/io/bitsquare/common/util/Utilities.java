@@ -47,15 +47,14 @@ import java.util.concurrent.TimeUnit;
 public class Utilities {
     private static final Logger log = LoggerFactory.getLogger(Utilities.class);
     private static long lastTimeStamp = System.currentTimeMillis();
+    // Gson instances are thread safe. The contract json is signed, so all callers need to use the same settings.
+    private static final Gson JSON_GSON = new GsonBuilder()
+            .setExclusionStrategies(new AnnotationExclusionStrategy())
+            .setPrettyPrinting()
+            .create();
 
     public static String objectToJson(Object object) {
-        Gson gson = new GsonBuilder()
-                .setExclusionStrategies(new AnnotationExclusionStrategy())
-                /*.excludeFieldsWithModifiers(Modifier.TRANSIENT)*/
-              /*  .setFieldNamingPolicy(FieldNamingPolicy.UPPER_CAMEL_CASE)*/
-                .setPrettyPrinting()
-                .create();
-        return gson.toJson(object);
+        return JSON_GSON.toJson(object);
     }
 
     public static ListeningExecutorService getListeningExecutorService(String name,
@@ -0,0 +1,167 @@
+package io.bitsquare.app;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+// The UserThread executes directly in tests, so all phases run synchronously in the calling thread
+public class StartupOrchestratorTest {
+    private StartupOrchestrator orchestrator;
+    private List<String> started;
+    private List<Throwable> faults;
+    private int numReady;
+
+    @Before
+    public void setup() {
+        orchestrator = new StartupOrchestrator();
+        started = new ArrayList<>();
+        faults = new ArrayList<>();
+        numReady = 0;
+    }
+
+    @Test
+    public void testPhasesStartAfterTheirDependencies() {
+        orchestrator.addPhase("keys", () -> started.add("keys"))
+                .addPhase("wallet", () -> started.add("wallet"))
+                .addPhase("tor", () -> started.add("tor"))
+                .addPhase("hiddenService", () -> started.add("hiddenService"), "tor")
+                .addPhase("p2pData", () -> started.add("p2pData"), "hiddenService", "keys");
+        start();
+
+        // Independent phases start at once
+        assertEquals(Arrays.asList("keys", "wallet", "tor"), started);
+
+        orchestrator.complete("tor");
+        assertEquals(Arrays.asList("keys", "wallet", "tor", "hiddenService"), started);
+
+        orchestrator.complete("hiddenService");
+        // p2pData still waits for the keys
+        assertEquals(4, started.size());
+
+        orchestrator.complete("keys");
+        assertEquals("p2pData", started.get(4));
+
+        orchestrator.complete("p2pData");
+        assertEquals(0, numReady);
+        assertEquals(-1, orchestrator.getTimeToReady());
+
+        orchestrator.complete("wallet");
+        assertEquals(1, numReady);
+        assertTrue(orchestrator.getTimeToReady() >= 0);
+        assertTrue(faults.isEmpty());
+    }
+
+    @Test
+    public void testPhaseCompletedBeforeItsDependencies() {
+        orchestrator.addPhase("tor", null)
+                .addPhase("hiddenService", () -> started.add("hiddenService"), "tor");
+        start();
+
+        // E.g. a listener reports the hidden service before the tor phase got completed
+        orchestrator.complete("hiddenService");
+        assertFalse(orchestrator.isCompleted("hiddenService"));
+        assertEquals(0, numReady);
+
+        orchestrator.complete("tor");
+        assertTrue(orchestrator.isCompleted("hiddenService"));
+        // A completed phase is not started again
+        assertTrue(started.isEmpty());
+        assertEquals(1, numReady);
+    }
+
+    @Test
+    public void testCompleteTwiceCountsOnce() {
+        orchestrator.addPhase("keys", null);
+        start();
+
+        orchestrator.complete("keys");
+        orchestrator.complete("keys");
+        assertEquals(1, numReady);
+    }
+
+    @Test
+    public void testFailingStartActionIsReported() {
+        RuntimeException exception = new RuntimeException("Test failure");
+        orchestrator.addPhase("keys", () -> {
+            throw exception;
+        }).addPhase("wallet", null);
+        start();
+
+        assertEquals(1, faults.size());
+        assertSame(exception, faults.get(0));
+
+        // Ready is not reported after a failure even if all phases complete
+        orchestrator.complete("keys");
+        orchestrator.complete("wallet");
+        assertEquals(0, numReady);
+    }
+
+    @Test
+    public void testFailureIsReportedOnce() {
+        orchestrator.addPhase("keys", null)
+                .addPhase("wallet", null);
+        start();
+
+        orchestrator.fail("keys", new RuntimeException("first"));
+        orchestrator.fail("wallet", new RuntimeException("second"));
+
+        assertEquals(1, faults.size());
+        assertEquals("first", faults.get(0).getMessage());
+    }
+
+    @Test
+    public void testDependentPhaseDoesNotStartAfterFailure() {
+        orchestrator.addPhase("tor", null)
+                .addPhase("hiddenService", () -> started.add("hiddenService"), "tor");
+        start();
+
+        orchestrator.fail("tor", new RuntimeException("Tor failed"));
+
+        assertFalse(orchestrator.isCompleted("tor"));
+        assertTrue(started.isEmpty());
+        assertEquals(1, faults.size());
+    }
+
+    @Test
+    public void testProfile() {
+        orchestrator.addPhase("tor", null)
+                .addPhase("hiddenService", null, "tor");
+        start();
+        orchestrator.complete("tor");
+
+        Map<String, long[]> profile = orchestrator.getProfile();
+        assertEquals(1, profile.size());
+        assertTrue(profile.get("tor")[1] >= profile.get("tor")[0]);
+
+        orchestrator.complete("hiddenService");
+        profile = orchestrator.getProfile();
+        assertEquals(Arrays.asList("tor", "hiddenService"), new ArrayList<>(profile.keySet()));
+        assertTrue(profile.get("hiddenService")[0] >= profile.get("tor")[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependency() {
+        orchestrator.addPhase("hiddenService", null, "tor");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPhaseAddedTwice() {
+        orchestrator.addPhase("tor", null).addPhase("tor", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompleteUnknownPhase() {
+        orchestrator.addPhase("tor", null);
+        orchestrator.complete("wallet");
+    }
+
+    private void start() {
+        orchestrator.start(() -> numReady++, faults::add);
+    }
+}
@@ -0,0 +1,127 @@
+package io.bitsquare.common;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class CoalescingPublisherTest {
+    private static final long INTERVAL = 200;
+    private static final String USER_THREAD_NAME = "CoalescingPublisherTest-UserThread";
+
+    private Executor defaultUserThreadExecutor;
+    private ExecutorService userThread;
+    private ScheduledExecutorService scheduler;
+    private List<String> published;
+    private List<String> publishedOnThreads;
+
+    @Before
+    public void setup() {
+        defaultUserThreadExecutor = UserThread.getExecutor();
+        userThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, USER_THREAD_NAME));
+        UserThread.setExecutor(userThread);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        published = Collections.synchronizedList(new ArrayList<>());
+        publishedOnThreads = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        userThread.shutdownNow();
+        UserThread.setExecutor(defaultUserThreadExecutor);
+    }
+
+    @Test
+    public void testBurstIsCoalescedToLatestValue() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        CoalescingPublisher<String, Integer> publisher = createPublisher(latch);
+
+        long ts = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++)
+            publisher.publish("a", i);
+        assertEquals(1, publisher.getNumPending());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue("Published before the interval", System.currentTimeMillis() - ts >= INTERVAL);
+        assertEquals(Collections.singletonList("a=99"), published);
+        assertEquals(Collections.singletonList(USER_THREAD_NAME), publishedOnThreads);
+        assertEquals(0, publisher.getNumPending());
+    }
+
+    @Test
+    public void testFlushKeepsOrderOfFirstPublish() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        CoalescingPublisher<String, Integer> publisher = createPublisher(latch);
+
+        publisher.publish("b", 1);
+        publisher.publish("a", 1);
+        publisher.publish("c", 1);
+        publisher.publish("b", 2);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("b=2", "a=1", "c=1"), published);
+    }
+
+    @Test
+    public void testValuePublishedAfterFlushSchedulesNextFlush() throws InterruptedException {
+        CountDownLatch firstFlush = new CountDownLatch(1);
+        CountDownLatch secondFlush = new CountDownLatch(2);
+        CoalescingPublisher<String, Integer> publisher = new CoalescingPublisher<>(scheduler, INTERVAL, (key, value) -> {
+            published.add(key + "=" + value);
+            firstFlush.countDown();
+            secondFlush.countDown();
+        });
+
+        publisher.publish("a", 1);
+        assertTrue(firstFlush.await(5, TimeUnit.SECONDS));
+        publisher.publish("a", 2);
+
+        assertTrue(secondFlush.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a=1", "a=2"), published);
+    }
+
+    @Test
+    public void testFailingConsumerDoesNotStopFlush() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        CoalescingPublisher<String, Integer> publisher = new CoalescingPublisher<>(scheduler, INTERVAL, (key, value) -> {
+            if (key.equals("a")) {
+                latch.countDown();
+                throw new RuntimeException("Test failure");
+            }
+            published.add(key + "=" + value);
+            latch.countDown();
+        });
+
+        publisher.publish("a", 1);
+        publisher.publish("b", 1);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("b=1"), published);
+    }
+
+    @Test
+    public void testPublishAfterShutDownIsIgnored() {
+        CoalescingPublisher<String, Integer> publisher = createPublisher(new CountDownLatch(1));
+        scheduler.shutdownNow();
+
+        publisher.publish("a", 1);
+
+        assertTrue(published.isEmpty());
+    }
+
+    private CoalescingPublisher<String, Integer> createPublisher(CountDownLatch latch) {
+        return new CoalescingPublisher<>(scheduler, INTERVAL, (key, value) -> {
+            published.add(key + "=" + value);
+            publishedOnThreads.add(Thread.currentThread().getName());
+            latch.countDown();
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package io.bitsquare.common;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class KeyedSerialExecutorTest {
+    private KeyedSerialExecutor executor;
+
+    @Before
+    public void setup() {
+        executor = new KeyedSerialExecutor("KeyedSerialExecutorTest", 4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutDown();
+    }
+
+    @Test
+    public void testTasksOfSameKeyRunInOrder() throws InterruptedException {
+        int numTasks = 1000;
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            int index = i;
+            executor.execute("trade1", () -> {
+                executed.add(index);
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < numTasks; i++)
+            assertEquals(i, (int) executed.get(i));
+    }
+
+    @Test
+    public void testTasksOfDifferentKeysRunInParallel() throws InterruptedException {
+        CountDownLatch trade2Executed = new CountDownLatch(1);
+        CountDownLatch trade1Completed = new CountDownLatch(1);
+        // The task of trade1 only completes if the task of trade2 runs while it is blocked
+        executor.execute("trade1", () -> {
+            try {
+                if (trade2Executed.await(10, TimeUnit.SECONDS))
+                    trade1Completed.countDown();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        executor.execute("trade2", trade2Executed::countDown);
+
+        assertTrue(trade1Completed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopMailbox() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute("trade1", () -> {
+            throw new RuntimeException("Intended exception for testing");
+        });
+        executor.execute("trade1", latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testIdleMailboxIsRemoved() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        executor.execute("trade1", latch::countDown);
+        executor.execute("trade2", latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // The mailbox is removed right after its last task returned
+        long deadline = System.currentTimeMillis() + 10000;
+        while (executor.getNumMailboxes() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(0, executor.getNumMailboxes());
+
+        // A new task for the same key gets a new mailbox
+        CountDownLatch latch2 = new CountDownLatch(1);
+        executor.execute("trade1", latch2::countDown);
+        assertTrue(latch2.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedTasksCompleteAfterShutDown() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        executor.execute("trade1", () -> {
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        });
+        executor.execute("trade1", completed::countDown);
+        executor.shutDown();
+
+        // A task of a new mailbox is dropped instead of throwing at the caller
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        executor.execute("trade2", () -> executed.add("trade2"));
+        // Only the mailbox of trade1 is left
+        assertEquals(1, executor.getNumMailboxes());
+
+        blocked.countDown();
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertTrue(executed.isEmpty());
+    }
+}
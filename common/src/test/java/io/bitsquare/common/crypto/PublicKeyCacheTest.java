@@ -0,0 +1,101 @@
+package io.bitsquare.common.crypto;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.*;
+import java.security.PublicKey;
+import java.security.Security;
+
+import static org.junit.Assert.*;
+
+public class PublicKeyCacheTest {
+    private static PublicKey publicKey;
+
+    @BeforeClass
+    public static void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+        publicKey = Sig.generateKeyPair().getPublic();
+    }
+
+    @Test
+    public void testRoundTripReturnsCachedInstance() throws Exception {
+        PublicKey first = read(write(publicKey));
+        PublicKey second = read(write(publicKey));
+
+        assertEquals(publicKey, first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testNullKey() throws Exception {
+        assertNull(read(write(null)));
+    }
+
+    @Test(expected = InvalidObjectException.class)
+    public void testRequiredKeyMustNotBeNull() throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(write(null)))) {
+            PublicKeyCache.readRequiredPublicKey(in, "publicKey");
+        }
+    }
+
+    @Test(expected = InvalidObjectException.class)
+    public void testInvalidEncodingFails() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeBoolean(true);
+            out.writeUTF(Sig.KEY_ALGO);
+            out.writeObject(new byte[]{1, 2, 3});
+        }
+        read(bytes.toByteArray());
+    }
+
+    @Test(expected = InvalidObjectException.class)
+    public void testInvalidPubKeyRingFails() throws Exception {
+        PubKeyRing pubKeyRing = new PubKeyRing(publicKey, Encryption.generateKeyPair().getPublic());
+        byte[] serialized = serialize(pubKeyRing);
+        // Corrupt the first byte of the encoded signature key (the DER sequence tag)
+        byte[] encoded = publicKey.getEncoded();
+        int index = indexOf(serialized, encoded);
+        assertTrue(index > 0);
+        serialized[index] = 0;
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            in.readObject();
+        }
+    }
+
+    private static byte[] write(PublicKey key) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            PublicKeyCache.writePublicKey(out, key);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PublicKey read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return PublicKeyCache.readPublicKey(in);
+        }
+    }
+
+    private static byte[] serialize(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j])
+                j++;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,89 @@
+package io.bitsquare.common.observable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ObservableCollectionsTest {
+    private List<String> changes;
+
+    @Before
+    public void setup() {
+        changes = new ArrayList<>();
+    }
+
+    @Test
+    public void testListNotifiesAddedAndRemoved() {
+        ObservableArrayList<String> list = new ObservableArrayList<>(Collections.singletonList("a"));
+        list.addListener(this::record);
+
+        list.add("b");
+        list.remove("a");
+        list.set(0, "c");
+        assertEquals(Arrays.asList("+[b] -[]", "+[] -[a]", "+[c] -[b]"), changes);
+        assertEquals(Collections.singletonList("c"), list);
+    }
+
+    @Test
+    public void testListBulkOperationsNotifyOnce() {
+        ObservableArrayList<String> list = new ObservableArrayList<>();
+        list.addListener(this::record);
+
+        list.addAll(Arrays.asList("a", "b"));
+        list.setAll(Arrays.asList("c", "d"));
+        list.clear();
+        // Nothing changed, so no notification
+        list.clear();
+        list.addAll(Collections.emptyList());
+        assertEquals(Arrays.asList("+[a, b] -[]", "+[c, d] -[a, b]", "+[] -[c, d]"), changes);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled() {
+        ObservableArrayList<String> list = new ObservableArrayList<>();
+        CollectionListener<String> listener = this::record;
+        list.addListener(listener);
+        list.removeListener(listener);
+
+        list.add("a");
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void testSetNotifiesOnlyRealChanges() {
+        ObservableHashSet<String> set = new ObservableHashSet<>();
+        set.addListener(this::record);
+
+        set.add("a");
+        // Already contained
+        set.add("a");
+        Iterator<String> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(Arrays.asList("+[a] -[]", "+[] -[a]"), changes);
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testMapNotifiesValues() {
+        ObservableHashMap<Integer, String> map = new ObservableHashMap<>();
+        map.addListener(this::record);
+
+        map.put(1, "a");
+        map.put(1, "b");
+        map.remove(1);
+        assertEquals(Arrays.asList("+[a] -[]", "+[b] -[a]", "+[] -[b]"), changes);
+        assertTrue(map.isEmpty());
+    }
+
+    private void record(List<? extends String> added, List<? extends String> removed) {
+        changes.add("+" + added + " -" + removed);
+    }
+}
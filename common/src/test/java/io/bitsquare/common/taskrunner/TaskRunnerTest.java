@@ -0,0 +1,151 @@
+package io.bitsquare.common.taskrunner;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TaskRunnerTest {
+    private TestModel model;
+
+    @Before
+    public void setup() {
+        model = new TestModel();
+    }
+
+    @Test
+    public void testDurationsOfTasksWithSameName() {
+        TaskRunner<TestModel> taskRunner = createTaskRunner();
+        taskRunner.addTasks(SleepingTask::new, Outer.Step::new, Other.Step::new);
+        taskRunner.run();
+
+        assertEquals(Arrays.asList("SleepingTask", "Outer.Step", "Other.Step", "completed"), model.results);
+        assertEquals(1, model.numPersisted);
+
+        // Both tasks have the simple name Step, but each has its own duration
+        Map<String, Long> taskDurations = taskRunner.getTaskDurations();
+        assertEquals(Arrays.asList("0:" + SleepingTask.class.getName(), "1:" + Outer.Step.class.getName(),
+                "2:" + Other.Step.class.getName()), new ArrayList<>(taskDurations.keySet()));
+        assertTrue(taskDurations.get("0:" + SleepingTask.class.getName()) >= SleepingTask.DURATION);
+    }
+
+    @Test
+    public void testFailedTaskStopsRunner() {
+        TaskRunner<TestModel> taskRunner = createTaskRunner();
+        taskRunner.addTasks(Outer.Step::new, FailingTask::new, Other.Step::new);
+        taskRunner.run();
+
+        // The task after the failed one is not run and the result handler is not called
+        assertEquals(Arrays.asList("Outer.Step", "failed: " + FailingTask.ERROR_MESSAGE), model.results);
+        assertEquals(1, model.numPersisted);
+        assertEquals(1, taskRunner.getTaskDurations().size());
+    }
+
+    @Test
+    public void testExceptionInTaskStopsRunner() {
+        TaskRunner<TestModel> taskRunner = createTaskRunner();
+        taskRunner.addTasks(ThrowingTask::new, Other.Step::new);
+        taskRunner.run();
+
+        assertEquals(Arrays.asList("failed: Error at taskRunner: " + ThrowingTask.ERROR_MESSAGE), model.results);
+        assertEquals(1, model.numPersisted);
+        assertTrue(taskRunner.getTaskDurations().isEmpty());
+    }
+
+    private TaskRunner<TestModel> createTaskRunner() {
+        return new TaskRunner<>(model, () -> model.results.add("completed"),
+                errorMessage -> model.results.add("failed: " + errorMessage));
+    }
+
+    private static class TestModel implements Model {
+        private final List<String> results = new ArrayList<>();
+        private int numPersisted;
+
+        @Override
+        public void persist() {
+            numPersisted++;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static class SleepingTask extends Task<TestModel> {
+        private static final long DURATION = 20;
+
+        public SleepingTask(TaskRunner taskHandler, TestModel model) {
+            super(taskHandler, model);
+        }
+
+        @Override
+        protected void run() {
+            try {
+                Thread.sleep(DURATION);
+            } catch (InterruptedException ignore) {
+            }
+            model.results.add("SleepingTask");
+            complete();
+        }
+    }
+
+    private static class FailingTask extends Task<TestModel> {
+        private static final String ERROR_MESSAGE = "failure";
+
+        public FailingTask(TaskRunner taskHandler, TestModel model) {
+            super(taskHandler, model);
+            errorMessage = ERROR_MESSAGE;
+        }
+
+        @Override
+        protected void run() {
+            failed();
+        }
+    }
+
+    private static class ThrowingTask extends Task<TestModel> {
+        private static final String ERROR_MESSAGE = "exception";
+
+        public ThrowingTask(TaskRunner taskHandler, TestModel model) {
+            super(taskHandler, model);
+        }
+
+        @Override
+        protected void run() {
+            throw new IllegalStateException(ERROR_MESSAGE);
+        }
+    }
+
+    private static class Outer {
+        private static class Step extends Task<TestModel> {
+            public Step(TaskRunner taskHandler, TestModel model) {
+                super(taskHandler, model);
+            }
+
+            @Override
+            protected void run() {
+                model.results.add("Outer.Step");
+                complete();
+            }
+        }
+    }
+
+    private static class Other {
+        private static class Step extends Task<TestModel> {
+            public Step(TaskRunner taskHandler, TestModel model) {
+                super(taskHandler, model);
+            }
+
+            @Override
+            protected void run() {
+                model.results.add("Other.Step");
+                complete();
+            }
+        }
+    }
+}
@@ -18,13 +18,15 @@
 package io.bitsquare.alert;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
 import io.bitsquare.p2p.storage.data.PubKeyProtectedExpirablePayload;
 
 import java.security.PublicKey;
 
-public final class Alert implements PubKeyProtectedExpirablePayload {
+public final class Alert implements PubKeyProtectedExpirablePayload, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public static final long TTL = 10 * 24 * 60 * 60 * 1000; // 10 days
 
@@ -55,6 +57,14 @@ public final class Alert implements PubKeyProtectedExpirablePayload {
         return storagePublicKey;
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("Alert")
+                .writeString(message)
+                .writeString(signatureAsBase64)
+                .writePublicKey(storagePublicKey);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -19,12 +19,11 @@ package io.bitsquare.alert;
 
 import com.google.inject.Inject;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.p2p.storage.HashMapChangedListener;
 import io.bitsquare.p2p.storage.data.ProtectedData;
 import io.bitsquare.user.User;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.ReadOnlyObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Utils;
 import org.slf4j.Logger;
@@ -42,7 +41,7 @@ public class AlertManager {
     private final AlertService alertService;
     private KeyRing keyRing;
     private User user;
-    private final ObjectProperty<Alert> alertMessageProperty = new SimpleObjectProperty<>();
+    private final ObservableProperty<Alert> alertMessageProperty = new ObservableProperty<>();
 
     // Pub key for developer global alert message
     private static final String devPubKeyAsHex = "02682880ae61fc1ea9375198bf2b5594fc3ed28074d3f5f0ed907e38acc5fb1fdc";
@@ -87,7 +86,7 @@ public class AlertManager {
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public ReadOnlyObjectProperty<Alert> alertMessageProperty() {
+    public ReadOnlyObservableProperty<Alert> alertMessageProperty() {
         return alertMessageProperty;
     }
 
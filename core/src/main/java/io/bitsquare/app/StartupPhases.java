@@ -0,0 +1,28 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.app;
+
+// Names of the startup phases of the StartupOrchestrator, used by the app and the daemon.
+// Keys and wallet are independent of the P2P phases, the P2P phases depend on each other.
+public class StartupPhases {
+    public static final String KEYS = "keys";
+    public static final String WALLET = "wallet";
+    public static final String TOR_NODE = "torNode";
+    public static final String HIDDEN_SERVICE = "hiddenService";
+    public static final String P2P_DATA = "p2pData";
+}
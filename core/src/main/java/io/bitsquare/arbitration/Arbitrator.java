@@ -18,6 +18,8 @@
 package io.bitsquare.arbitration;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
 import io.bitsquare.common.crypto.PubKeyRing;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.storage.data.PubKeyProtectedExpirablePayload;
@@ -27,9 +29,9 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
-public final class Arbitrator implements PubKeyProtectedExpirablePayload {
+public final class Arbitrator implements PubKeyProtectedExpirablePayload, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public static final long TTL = 1 * 24 * 60 * 60 * 1000; // 1 day
 
@@ -108,6 +110,19 @@ public final class Arbitrator implements PubKeyProtectedExpirablePayload {
         return registrationPubKey;
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("Arbitrator")
+                .writeBytes(btcPubKey)
+                .write(pubKeyRing)
+                .write(arbitratorAddress)
+                .writeStrings(languageCodes)
+                .writeString(btcAddress)
+                .writeLong(registrationDate)
+                .writeString(registrationSignature)
+                .writeBytes(registrationPubKey);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -20,20 +20,19 @@ package io.bitsquare.arbitration;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import io.bitsquare.app.ProgramArguments;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.ObservableHashMap;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.FirstPeerAuthenticatedListener;
 import io.bitsquare.p2p.P2PService;
 import io.bitsquare.p2p.storage.HashMapChangedListener;
 import io.bitsquare.p2p.storage.data.ProtectedData;
 import io.bitsquare.user.User;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableMap;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Utils;
-import org.reactfx.util.FxTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,11 +40,11 @@ import javax.annotation.Nullable;
 import java.math.BigInteger;
 import java.security.PublicKey;
 import java.security.SignatureException;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -57,7 +56,7 @@ public class ArbitratorManager {
     private final KeyRing keyRing;
     private final ArbitratorService arbitratorService;
     private final User user;
-    private final ObservableMap<Address, Arbitrator> arbitratorsObservableMap = FXCollections.observableHashMap();
+    private final ObservableHashMap<Address, Arbitrator> arbitratorsObservableMap = new ObservableHashMap<>();
 
     // Keys for invited arbitrators in bootstrapping phase (before registration is open to anyone and security payment is implemented)
     // For testing purpose here is a private key so anyone can setup an arbitrator for now.
@@ -126,9 +125,9 @@ public class ArbitratorManager {
             }
 
             // re-publish periodically
-            FxTimer.runPeriodically(
-                    Duration.ofMillis(Arbitrator.TTL / 2),
-                    () -> republishArbitrator()
+            UserThread.runPeriodically(
+                    () -> republishArbitrator(),
+                    Arbitrator.TTL / 2, TimeUnit.MILLISECONDS
             );
         }
 
@@ -183,7 +182,7 @@ public class ArbitratorManager {
                     resultHandler.handleResult();
 
                     if (arbitratorsObservableMap.size() > 0)
-                        FxTimer.runLater(Duration.ofMillis(1000), this::applyArbitrators);
+                        UserThread.runAfter(this::applyArbitrators, 1);
                 },
                 errorMessageHandler::handleErrorMessage);
     }
@@ -202,7 +201,7 @@ public class ArbitratorManager {
         }
     }
 
-    public ObservableMap<Address, Arbitrator> getArbitratorsObservableMap() {
+    public ObservableHashMap<Address, Arbitrator> getArbitratorsObservableMap() {
         return arbitratorsObservableMap;
     }
 
@@ -17,6 +17,7 @@
 
 package io.bitsquare.arbitration;
 
+import com.google.inject.Injector;
 import com.google.inject.Singleton;
 import com.google.inject.name.Names;
 import io.bitsquare.app.AppModule;
@@ -41,4 +42,9 @@ public class ArbitratorModule extends AppModule {
         Boolean devTest = env.getProperty(ProgramArguments.DEV_TEST, boolean.class, false);
         bind(boolean.class).annotatedWith(Names.named(ProgramArguments.DEV_TEST)).toInstance(devTest);
     }
+
+    @Override
+    protected void doClose(Injector injector) {
+        injector.getInstance(DisputeManager.class).shutDown();
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.arbitration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.bitsquare.common.UserThread;
+import io.bitsquare.common.crypto.Hash;
+import io.bitsquare.common.handlers.FaultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.bitcoinj.core.Utils.HEX;
+
+// Content addressed storage of the dispute attachments. Each file is stored once under the hex of its SHA-256 hash,
+// so the DisputeList only holds the hashes and does not rewrite the file content at each change.
+// Attachments of the peer arrive in chunks of CHUNK_SIZE bytes. They are written to a .part file at their offset and
+// the indices of the received chunks are kept in a .chunks file, so a transfer continues with the missing chunks
+// after a restart. When all chunks are received the content is checked against the hash.
+// The API is called on the UserThread. The file access and hashing run on a single storage thread, so the partial
+// files are never accessed concurrently, and the handlers are called back on the UserThread.
+public class AttachmentStore {
+    private static final Logger log = LoggerFactory.getLogger(AttachmentStore.class);
+
+    public static final int CHUNK_SIZE = 128 * 1024;
+    public static final int MAX_ATTACHMENT_SIZE = 10 * 1024 * 1024;
+    // SHA-256
+    public static final int HASH_LENGTH = 32;
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("[0-9a-f]{" + 2 * HASH_LENGTH + "}");
+
+    private final File dir;
+    private final ExecutorService executor;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public AttachmentStore(File dir) {
+        this.dir = dir;
+        if (dir.mkdirs())
+            log.info("Created attachment directory at " + dir.getAbsolutePath());
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("AttachmentStore-%d")
+                .setPriority(Thread.MIN_PRIORITY)  // Avoid competing with the GUI thread.
+                .build());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The hash is received from the peer and used as file name, so we only accept a SHA-256 hash
+    public static boolean isValidHash(byte[] hash) {
+        return hash != null && hash.length == HASH_LENGTH;
+    }
+
+    // Handles the hash of the stored file
+    public void put(byte[] bytes, Consumer<byte[]> resultHandler, FaultHandler faultHandler) {
+        execute(() -> put(bytes), resultHandler, faultHandler);
+    }
+
+    // Handles an empty result if the attachment is not received completely yet
+    public void get(byte[] hash, Consumer<Optional<byte[]>> resultHandler, FaultHandler faultHandler) {
+        execute(() -> contains(hash) ? Optional.of(get(hash)) : Optional.<byte[]>empty(), resultHandler, faultHandler);
+    }
+
+    public void getChunk(byte[] hash, int index, Consumer<byte[]> resultHandler, FaultHandler faultHandler) {
+        execute(() -> getChunk(hash, index), resultHandler, faultHandler);
+    }
+
+    // Handles true if that chunk completed the file. A HashMismatchException is passed to the fault handler.
+    public void addChunk(byte[] hash, long size, int index, byte[] chunk, Consumer<Boolean> resultHandler,
+                         FaultHandler faultHandler) {
+        execute(() -> addChunk(hash, size, index, chunk), resultHandler, faultHandler);
+    }
+
+    public void getMissingChunks(byte[] hash, long size, Consumer<List<Integer>> resultHandler,
+                                 FaultHandler faultHandler) {
+        execute(() -> getMissingChunks(hash, size), resultHandler, faultHandler);
+    }
+
+    public void shutDown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Blocking access, only called on the storage thread and in tests
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Returns the hash of the stored file
+    byte[] put(byte[] bytes) throws IOException {
+        byte[] hash = Hash.getHash(bytes);
+        File file = getFile(hash);
+        if (!file.exists()) {
+            File tempFile = new File(dir, file.getName() + ".tmp");
+            Files.write(tempFile.toPath(), bytes);
+            if (!tempFile.renameTo(file))
+                throw new IOException("Could not rename " + tempFile + " to " + file);
+        }
+        return hash;
+    }
+
+    boolean contains(byte[] hash) {
+        return isValidHash(hash) && getFile(hash).exists();
+    }
+
+    byte[] get(byte[] hash) throws IOException {
+        return Files.readAllBytes(getFile(hash).toPath());
+    }
+
+    byte[] getChunk(byte[] hash, int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(getFile(hash), "r")) {
+            long offset = (long) index * CHUNK_SIZE;
+            // An empty file has one empty chunk
+            if (index < 0 || index >= getNumChunks(file.length()))
+                throw new IOException("Invalid chunk index " + index);
+            byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, file.length() - offset)];
+            file.seek(offset);
+            file.readFully(chunk);
+            return chunk;
+        }
+    }
+
+    // Returns true if that chunk completed the file and its content matches the hash. If the content does not match,
+    // the partial files are deleted and a HashMismatchException is thrown.
+    boolean addChunk(byte[] hash, long size, int index, byte[] chunk) throws IOException {
+        if (contains(hash))
+            return true;
+
+        int numChunks = getNumChunks(size);
+        if (size > MAX_ATTACHMENT_SIZE || index < 0 || index >= numChunks || chunk.length != getChunkLength(size, index))
+            throw new IOException("Invalid chunk " + index + " for an attachment of " + size + " bytes");
+
+        File partFile = getPartFile(hash);
+        try (RandomAccessFile file = new RandomAccessFile(partFile, "rw")) {
+            file.seek((long) index * CHUNK_SIZE);
+            file.write(chunk);
+        }
+        BitSet receivedChunks = getReceivedChunks(hash);
+        receivedChunks.set(index);
+        Files.write(getChunksFile(hash).toPath(), receivedChunks.toByteArray());
+
+        if (receivedChunks.cardinality() < numChunks)
+            return false;
+
+        byte[] bytes = Files.readAllBytes(partFile.toPath());
+        deletePartialFiles(hash);
+        if (!Arrays.equals(hash, Hash.getHash(bytes)))
+            throw new HashMismatchException("Received attachment does not match its hash " + HEX.encode(hash));
+
+        put(bytes);
+        return true;
+    }
+
+    List<Integer> getMissingChunks(byte[] hash, long size) {
+        List<Integer> missingChunks = new ArrayList<>();
+        if (!contains(hash)) {
+            BitSet receivedChunks = getReceivedChunks(hash);
+            for (int i = 0; i < getNumChunks(size); i++) {
+                if (!receivedChunks.get(i))
+                    missingChunks.add(i);
+            }
+        }
+        return missingChunks;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private <T> void execute(Callable<T> task, Consumer<T> resultHandler, FaultHandler faultHandler) {
+        executor.execute(() -> {
+            try {
+                T result = task.call();
+                UserThread.execute(() -> resultHandler.accept(result));
+            } catch (Throwable t) {
+                UserThread.execute(() -> faultHandler.handleFault(t.getMessage(), t));
+            }
+        });
+    }
+
+    private BitSet getReceivedChunks(byte[] hash) {
+        File chunksFile = getChunksFile(hash);
+        try {
+            if (chunksFile.exists() && getPartFile(hash).exists())
+                return BitSet.valueOf(Files.readAllBytes(chunksFile.toPath()));
+        } catch (IOException e) {
+            log.warn("Could not read " + chunksFile + ". We request all chunks again. " + e.getMessage());
+        }
+        return new BitSet();
+    }
+
+    private void deletePartialFiles(byte[] hash) {
+        if (!getPartFile(hash).delete())
+            log.warn("Could not delete " + getPartFile(hash));
+        if (!getChunksFile(hash).delete())
+            log.warn("Could not delete " + getChunksFile(hash));
+    }
+
+    private static int getNumChunks(long size) {
+        return (int) Math.max(1, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    private static int getChunkLength(long size, int index) {
+        return (int) Math.min(CHUNK_SIZE, size - (long) index * CHUNK_SIZE);
+    }
+
+    private File getFile(byte[] hash) {
+        return new File(dir, getFileName(hash));
+    }
+
+    private File getPartFile(byte[] hash) {
+        return new File(dir, getFileName(hash) + ".part");
+    }
+
+    private File getChunksFile(byte[] hash) {
+        return new File(dir, getFileName(hash) + ".chunks");
+    }
+
+    private static String getFileName(byte[] hash) {
+        checkArgument(isValidHash(hash), "Invalid attachment hash");
+        String fileName = HEX.encode(hash);
+        checkArgument(FILE_NAME_PATTERN.matcher(fileName).matches(), "Invalid attachment file name " + fileName);
+        return fileName;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Inner classes
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static class HashMismatchException extends IOException {
+        public HashMismatchException(String message) {
+            super(message);
+        }
+    }
+}
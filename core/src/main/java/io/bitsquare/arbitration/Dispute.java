@@ -20,11 +20,11 @@ package io.bitsquare.arbitration;
 import io.bitsquare.app.Version;
 import io.bitsquare.arbitration.messages.DisputeMailMessage;
 import io.bitsquare.common.crypto.PubKeyRing;
+import io.bitsquare.common.observable.ObservableArrayList;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.storage.Storage;
 import io.bitsquare.trade.Contract;
-import javafx.beans.property.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +39,7 @@ import java.util.List;
 
 public class Dispute implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
     transient private static final Logger log = LoggerFactory.getLogger(Dispute.class);
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -75,9 +75,9 @@ public class Dispute implements Serializable {
     private DisputeResult disputeResult;
 
     transient private Storage<DisputeList<Dispute>> storage;
-    transient private ObservableList<DisputeMailMessage> disputeMailMessagesAsObservableList = FXCollections.observableArrayList(disputeMailMessages);
-    transient private BooleanProperty isClosedProperty = new SimpleBooleanProperty(isClosed);
-    transient private ObjectProperty<DisputeResult> disputeResultProperty = new SimpleObjectProperty<>(disputeResult);
+    transient private ObservableArrayList<DisputeMailMessage> disputeMailMessagesAsObservableList = new ObservableArrayList<>(disputeMailMessages);
+    transient private ObservableProperty<Boolean> isClosedProperty = new ObservableProperty<>(isClosed);
+    transient private ObservableProperty<DisputeResult> disputeResultProperty = new ObservableProperty<>(disputeResult);
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -126,9 +126,9 @@ public class Dispute implements Serializable {
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         try {
             in.defaultReadObject();
-            disputeMailMessagesAsObservableList = FXCollections.observableArrayList(disputeMailMessages);
-            disputeResultProperty = new SimpleObjectProperty<>(disputeResult);
-            isClosedProperty = new SimpleBooleanProperty(isClosed);
+            disputeMailMessagesAsObservableList = new ObservableArrayList<>(disputeMailMessages);
+            disputeResultProperty = new ObservableProperty<>(disputeResult);
+            isClosedProperty = new ObservableProperty<>(isClosed);
         } catch (Throwable t) {
             log.trace("Cannot be deserialized." + t.getMessage());
         }
@@ -234,7 +234,7 @@ public class Dispute implements Serializable {
         return takerContractSignature;
     }
 
-    public ObservableList<DisputeMailMessage> getDisputeMailMessagesAsObservableList() {
+    public ObservableArrayList<DisputeMailMessage> getDisputeMailMessagesAsObservableList() {
         return disputeMailMessagesAsObservableList;
     }
 
@@ -242,7 +242,7 @@ public class Dispute implements Serializable {
         return isClosedProperty.get();
     }
 
-    public ReadOnlyBooleanProperty isClosedProperty() {
+    public ReadOnlyObservableProperty<Boolean> isClosedProperty() {
         return isClosedProperty;
     }
 
@@ -250,7 +250,7 @@ public class Dispute implements Serializable {
         return arbitratorPubKeyRing;
     }
 
-    public ObjectProperty<DisputeResult> disputeResultProperty() {
+    public ReadOnlyObservableProperty<DisputeResult> disputeResultProperty() {
         return disputeResultProperty;
     }
 
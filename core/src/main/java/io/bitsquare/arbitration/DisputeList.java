@@ -18,9 +18,8 @@
 package io.bitsquare.arbitration;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.storage.Storage;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +36,7 @@ public class DisputeList<DisputeCase> extends ArrayList<DisputeCase> implements
     private static final Logger log = LoggerFactory.getLogger(DisputeList.class);
 
     final transient private Storage<DisputeList<DisputeCase>> storage;
-    transient private ObservableList<DisputeCase> observableList;
+    transient private ObservableArrayList<DisputeCase> observableList;
 
     public DisputeList(Storage<DisputeList<DisputeCase>> storage) {
         this.storage = storage;
@@ -46,7 +45,7 @@ public class DisputeList<DisputeCase> extends ArrayList<DisputeCase> implements
         if (persisted != null) {
             this.addAll(persisted);
         }
-        observableList = FXCollections.observableArrayList(this);
+        observableList = new ObservableArrayList<>(this);
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -77,9 +76,9 @@ public class DisputeList<DisputeCase> extends ArrayList<DisputeCase> implements
         return result;
     }
 
-    private ObservableList<DisputeCase> getObservableList() {
+    private ObservableArrayList<DisputeCase> getObservableList() {
         if (observableList == null)
-            observableList = FXCollections.observableArrayList(this);
+            observableList = new ObservableArrayList<>(this);
         return observableList;
     }
 
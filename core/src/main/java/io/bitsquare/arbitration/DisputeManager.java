@@ -24,13 +24,17 @@ import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.btc.exceptions.TransactionVerificationException;
 import io.bitsquare.btc.exceptions.WalletException;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.crypto.PubKeyRing;
+import io.bitsquare.common.handlers.FaultHandler;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.FirstPeerAuthenticatedListener;
 import io.bitsquare.p2p.Message;
 import io.bitsquare.p2p.P2PService;
 import io.bitsquare.p2p.messaging.DecryptedMsgWithPubKey;
+import io.bitsquare.p2p.messaging.SendMailMessageListener;
 import io.bitsquare.p2p.messaging.SendMailboxMessageListener;
 import io.bitsquare.storage.Storage;
 import io.bitsquare.trade.Contract;
@@ -38,8 +42,6 @@ import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.TradeManager;
 import io.bitsquare.trade.offer.OpenOffer;
 import io.bitsquare.trade.offer.OpenOfferManager;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.Transaction;
 import org.jetbrains.annotations.NotNull;
@@ -48,15 +50,26 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.security.PublicKey;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static org.bitcoinj.core.Utils.HEX;
+
 public class DisputeManager {
     private static final Logger log = LoggerFactory.getLogger(DisputeManager.class);
 
+    // We request the chunks of an attachment in batches and request the next batch when one is received completely
+    private static final int MAX_CHUNKS_PER_REQUEST = 8;
+    private static final long CHUNK_REQUEST_TIMEOUT_SEC = 120;
+    private static final long CHUNK_REQUEST_RETRY_DELAY_SEC = 30;
+    private static final int MAX_CHUNK_REQUEST_RETRIES = 3;
+    // A peer who sends content which does not match the hash again and again would keep us downloading forever
+    private static final int MAX_HASH_MISMATCH_RETRIES = 2;
+
     private final TradeWalletService tradeWalletService;
     private final WalletService walletService;
     private final TradeManager tradeManager;
@@ -65,11 +78,17 @@ public class DisputeManager {
     private final KeyRing keyRing;
     private final Storage<DisputeList<Dispute>> disputeStorage;
     private final DisputeList<Dispute> disputes;
-    transient private final ObservableList<Dispute> disputesObservableList;
+    transient private final ObservableArrayList<Dispute> disputesObservableList;
     private final String disputeInfo;
     private final FirstPeerAuthenticatedListener firstPeerAuthenticatedListener;
     private final CopyOnWriteArraySet<DecryptedMsgWithPubKey> decryptedMailboxMessageWithPubKeys = new CopyOnWriteArraySet<>();
     private final CopyOnWriteArraySet<DecryptedMsgWithPubKey> decryptedMailMessageWithPubKeys = new CopyOnWriteArraySet<>();
+    private final AttachmentStore attachmentStore;
+    // Hex of attachment hash to the chunk indices of our pending request
+    private final Map<String, Set<Integer>> pendingChunkRequests = new ConcurrentHashMap<>();
+    // Hex of attachment hash to the number of failed attempts in this session
+    private final Map<String, Integer> numFailedChunkRequests = new ConcurrentHashMap<>();
+    private final Map<String, Integer> numHashMismatches = new ConcurrentHashMap<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -93,8 +112,10 @@ public class DisputeManager {
 
         disputeStorage = new Storage<>(storageDir);
         disputes = new DisputeList<>(disputeStorage);
-        disputesObservableList = FXCollections.observableArrayList(disputes);
+        disputesObservableList = new ObservableArrayList<>(disputes);
         disputes.stream().forEach(e -> e.setStorage(getDisputeStorage()));
+        attachmentStore = new AttachmentStore(new File(storageDir, "attachments"));
+        migrateLegacyAttachments();
 
         disputeInfo = "Please note the basic rules for the dispute process:\n" +
                 "1. You need to respond to the arbitrators requests in between 2 days.\n" +
@@ -119,6 +140,8 @@ public class DisputeManager {
             @Override
             public void onFirstPeerAuthenticated() {
                 applyMessages();
+                // Continue the transfers of attachments which were interrupted in the last session
+                requestMissingAttachments();
             }
         };
         p2PService.addP2PServiceListener(firstPeerAuthenticatedListener);
@@ -128,7 +151,7 @@ public class DisputeManager {
         decryptedMailMessageWithPubKeys.forEach(decryptedMessageWithPubKey -> {
             Message message = decryptedMessageWithPubKey.message;
             if (message instanceof DisputeMessage)
-                dispatchMessage((DisputeMessage) message);
+                dispatchMessage((DisputeMessage) message, decryptedMessageWithPubKey.signaturePubKey);
         });
         decryptedMailMessageWithPubKeys.clear();
 
@@ -136,7 +159,7 @@ public class DisputeManager {
             Message message = decryptedMessageWithPubKey.message;
             log.debug("decryptedMessageWithPubKey.message " + message);
             if (message instanceof DisputeMessage) {
-                dispatchMessage((DisputeMessage) message);
+                dispatchMessage((DisputeMessage) message, decryptedMessageWithPubKey.signaturePubKey);
                 //TODO
                 //p2PService.removeEntryFromMailbox(decryptedMessageWithPubKey);
             }
@@ -154,7 +177,11 @@ public class DisputeManager {
     public void onAllServicesInitialized() {
     }
 
-    private void dispatchMessage(DisputeMessage message) {
+    public void shutDown() {
+        attachmentStore.shutDown();
+    }
+
+    private void dispatchMessage(DisputeMessage message, PublicKey signaturePubKey) {
         if (message instanceof OpenNewDisputeMessage)
             onOpenNewDisputeMessage((OpenNewDisputeMessage) message);
         else if (message instanceof PeerOpenedDisputeMessage)
@@ -165,6 +192,10 @@ public class DisputeManager {
             onDisputeResultMessage((DisputeResultMessage) message);
         else if (message instanceof PeerPublishedPayoutTxMessage)
             onDisputedPayoutTxMessage((PeerPublishedPayoutTxMessage) message);
+        else if (message instanceof AttachmentChunkRequest)
+            onAttachmentChunkRequest((AttachmentChunkRequest) message, signaturePubKey);
+        else if (message instanceof AttachmentChunkMessage)
+            onAttachmentChunkMessage((AttachmentChunkMessage) message, signaturePubKey);
     }
 
     public void sendOpenNewDisputeMessage(Dispute dispute) {
@@ -436,10 +467,12 @@ public class DisputeManager {
         Optional<Dispute> disputeOptional = findDispute(disputeMailMessage.getTradeId(), disputeMailMessage.getTraderId());
         if (disputeOptional.isPresent()) {
             Dispute dispute = disputeOptional.get();
-            if (!dispute.getDisputeMailMessagesAsObservableList().contains(disputeMailMessage))
+            if (!dispute.getDisputeMailMessagesAsObservableList().contains(disputeMailMessage)) {
                 dispute.addDisputeMessage(disputeMailMessage);
-            else
+                disputeMailMessage.getAttachments().stream().forEach(e -> requestMissingChunks(dispute, e));
+            } else {
                 log.warn("We got a dispute mail msg what we have already stored. TradeId = " + disputeMailMessage.getTradeId());
+            }
         } else {
             log.warn("We got a dispute mail msg but we don't have a matching dispute. TradeId = " + disputeMailMessage.getTradeId());
         }
@@ -548,6 +581,199 @@ public class DisputeManager {
         tradeWalletService.addTransactionToWallet(peerPublishedPayoutTxMessage.transaction);
     }
 
+    // We only deliver chunks of attachments of that dispute and only to the peer of that dispute
+    private void onAttachmentChunkRequest(AttachmentChunkRequest request, PublicKey signaturePubKey) {
+        Optional<Dispute> disputeOptional = findDispute(request.tradeId, request.traderId);
+        if (!disputeOptional.isPresent()) {
+            log.warn("We got an attachment chunk request but we don't have a matching dispute. TradeId = " + request.tradeId);
+            return;
+        }
+
+        Dispute dispute = disputeOptional.get();
+        PubKeyRing peersPubKeyRing = getPeersPubKeyRing(dispute);
+        Optional<DisputeMailMessage.Attachment> attachmentOptional = findAttachment(dispute, request.hash);
+        if (AttachmentStore.isValidHash(request.hash) && peersPubKeyRing.getSignaturePubKey().equals(signaturePubKey)
+                && attachmentOptional.isPresent()) {
+            DisputeMailMessage.Attachment attachment = attachmentOptional.get();
+            request.chunkIndices.stream().limit(MAX_CHUNKS_PER_REQUEST).forEach(index ->
+                    attachmentStore.getChunk(attachment.getHash(), index, chunk -> {
+                        AttachmentChunkMessage chunkMessage = new AttachmentChunkMessage(dispute.getTradeId(),
+                                dispute.getTraderId(), attachment.getHash(), attachment.getSize(), index, chunk,
+                                p2PService.getAddress());
+                        p2PService.sendEncryptedMailMessage(getPeersAddress(dispute), peersPubKeyRing, chunkMessage,
+                                new SendMailMessageListener() {
+                                    @Override
+                                    public void onArrived() {
+                                    }
+
+                                    @Override
+                                    public void onFault() {
+                                        log.warn("Sending attachment chunk failed. TradeId = " + dispute.getTradeId());
+                                    }
+                                });
+                    }, (errorMessage, throwable) -> log.error("Reading attachment chunk failed. " + errorMessage)));
+        } else {
+            log.warn("We got an invalid attachment chunk request. TradeId = " + request.tradeId);
+        }
+    }
+
+    private void onAttachmentChunkMessage(AttachmentChunkMessage chunkMessage, PublicKey signaturePubKey) {
+        Optional<Dispute> disputeOptional = findDispute(chunkMessage.tradeId, chunkMessage.traderId);
+        if (!disputeOptional.isPresent()) {
+            log.warn("We got an attachment chunk but we don't have a matching dispute. TradeId = " + chunkMessage.tradeId);
+            return;
+        }
+
+        Dispute dispute = disputeOptional.get();
+        Optional<DisputeMailMessage.Attachment> attachmentOptional = findAttachment(dispute, chunkMessage.hash);
+        if (AttachmentStore.isValidHash(chunkMessage.hash)
+                && getPeersPubKeyRing(dispute).getSignaturePubKey().equals(signaturePubKey)
+                && attachmentOptional.isPresent()) {
+            DisputeMailMessage.Attachment attachment = attachmentOptional.get();
+            String key = HEX.encode(attachment.getHash());
+            attachmentStore.addChunk(attachment.getHash(), attachment.getSize(), chunkMessage.index, chunkMessage.chunk,
+                    completed -> {
+                        Set<Integer> pendingChunks = pendingChunkRequests.get(key);
+                        if (pendingChunks != null)
+                            pendingChunks.remove(chunkMessage.index);
+
+                        if (completed) {
+                            pendingChunkRequests.remove(key);
+                            numHashMismatches.remove(key);
+                            log.info("Attachment " + attachment.getFileName() + " received. TradeId = "
+                                    + dispute.getTradeId());
+                        } else if (pendingChunks == null || pendingChunks.isEmpty()) {
+                            pendingChunkRequests.remove(key);
+                            requestMissingChunks(dispute, attachment);
+                        }
+                    },
+                    (errorMessage, throwable) -> {
+                        if (throwable instanceof AttachmentStore.HashMismatchException) {
+                            pendingChunkRequests.remove(key);
+                            int numMismatches = numHashMismatches.merge(key, 1, Integer::sum);
+                            if (numMismatches <= MAX_HASH_MISMATCH_RETRIES) {
+                                log.warn(errorMessage + ". We request it again. TradeId = " + dispute.getTradeId());
+                                requestMissingChunks(dispute, attachment);
+                            } else {
+                                log.error(errorMessage + ". We give up after " + numMismatches + " attempts. TradeId = "
+                                        + dispute.getTradeId());
+                            }
+                        } else {
+                            log.error("Storing attachment chunk failed. " + errorMessage);
+                        }
+                    });
+        } else {
+            log.warn("We got an invalid attachment chunk. TradeId = " + chunkMessage.tradeId);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Attachments
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Stores the file in the attachment store. The attachment holds only the hash, so it can be sent with a message.
+    public void createAttachment(String fileName, byte[] bytes, Consumer<DisputeMailMessage.Attachment> resultHandler,
+                                 FaultHandler faultHandler) {
+        attachmentStore.put(bytes, hash -> resultHandler.accept(new DisputeMailMessage.Attachment(fileName, hash,
+                bytes.length)), faultHandler);
+    }
+
+    // Handles an empty result if the attachment is not received completely yet
+    public void getAttachmentContent(DisputeMailMessage.Attachment attachment, Consumer<Optional<byte[]>> resultHandler,
+                                     FaultHandler faultHandler) {
+        if (AttachmentStore.isValidHash(attachment.getHash()))
+            attachmentStore.get(attachment.getHash(), resultHandler, faultHandler);
+        else
+            resultHandler.accept(Optional.empty());
+    }
+
+    // Disputes stored before we used the attachment store hold the content in the attachment. We move it to the store
+    // and persist the disputes again with the hash only.
+    private void migrateLegacyAttachments() {
+        disputes.stream().flatMap(dispute -> dispute.getDisputeMailMessagesAsObservableList().stream())
+                .flatMap(e -> e.getAttachments().stream())
+                .filter(attachment -> attachment.getLegacyBytes() != null)
+                .forEach(attachment -> attachmentStore.put(attachment.getLegacyBytes(), hash -> {
+                            attachment.onMigrated(hash);
+                            disputeStorage.queueUpForSave();
+                        },
+                        (errorMessage, throwable) -> log.error("Migrating attachment " + attachment.getFileName()
+                                + " failed. " + errorMessage)));
+    }
+
+    // Requests the missing chunks of all attachments we have not received completely
+    public void requestMissingAttachments() {
+        if (p2PService.getFirstPeerAuthenticated()) {
+            disputes.stream().forEach(dispute -> dispute.getDisputeMailMessagesAsObservableList().stream()
+                    .flatMap(e -> e.getAttachments().stream())
+                    .forEach(attachment -> requestMissingChunks(dispute, attachment)));
+        }
+    }
+
+    private void requestMissingChunks(Dispute dispute, DisputeMailMessage.Attachment attachment) {
+        // Attachments of disputes stored before we used the attachment store have no hash until they are migrated
+        if (!AttachmentStore.isValidHash(attachment.getHash()))
+            return;
+
+        String key = HEX.encode(attachment.getHash());
+        if (numHashMismatches.getOrDefault(key, 0) > MAX_HASH_MISMATCH_RETRIES || pendingChunkRequests.containsKey(key))
+            return;
+
+        attachmentStore.getMissingChunks(attachment.getHash(), attachment.getSize(),
+                missingChunks -> requestChunks(dispute, attachment, missingChunks),
+                (errorMessage, throwable) -> log.error("Reading the received chunks failed. " + errorMessage));
+    }
+
+    private void requestChunks(Dispute dispute, DisputeMailMessage.Attachment attachment, List<Integer> missingChunks) {
+        String key = HEX.encode(attachment.getHash());
+        if (!missingChunks.isEmpty() && !pendingChunkRequests.containsKey(key)) {
+            List<Integer> chunkIndices = new ArrayList<>(missingChunks.subList(0,
+                    Math.min(MAX_CHUNKS_PER_REQUEST, missingChunks.size())));
+            Set<Integer> pendingChunks = ConcurrentHashMap.newKeySet();
+            pendingChunks.addAll(chunkIndices);
+            pendingChunkRequests.put(key, pendingChunks);
+            // If the peer does not respond we allow a new request
+            UserThread.runAfter(() -> pendingChunkRequests.remove(key, pendingChunks), CHUNK_REQUEST_TIMEOUT_SEC);
+
+            log.debug("Request {} of {} missing chunks of attachment {}", chunkIndices.size(), missingChunks.size(),
+                    attachment.getFileName());
+            p2PService.sendEncryptedMailMessage(getPeersAddress(dispute),
+                    getPeersPubKeyRing(dispute),
+                    new AttachmentChunkRequest(dispute.getTradeId(), dispute.getTraderId(), attachment.getHash(),
+                            chunkIndices, p2PService.getAddress()),
+                    new SendMailMessageListener() {
+                        @Override
+                        public void onArrived() {
+                            numFailedChunkRequests.remove(key);
+                        }
+
+                        @Override
+                        public void onFault() {
+                            pendingChunkRequests.remove(key, pendingChunks);
+                            int numFailed = numFailedChunkRequests.merge(key, 1, Integer::sum);
+                            if (numFailed <= MAX_CHUNK_REQUEST_RETRIES) {
+                                log.warn("Requesting attachment chunks failed. We try again in "
+                                        + CHUNK_REQUEST_RETRY_DELAY_SEC + " sec. TradeId = " + dispute.getTradeId());
+                                UserThread.runAfter(() -> requestMissingChunks(dispute, attachment),
+                                        CHUNK_REQUEST_RETRY_DELAY_SEC);
+                            } else {
+                                log.warn("Requesting attachment chunks failed " + numFailed
+                                        + " times. We try again at the next start. TradeId = " + dispute.getTradeId());
+                                numFailedChunkRequests.remove(key);
+                            }
+                        }
+                    });
+        }
+    }
+
+    private Optional<DisputeMailMessage.Attachment> findAttachment(Dispute dispute, byte[] hash) {
+        return dispute.getDisputeMailMessagesAsObservableList().stream()
+                .flatMap(e -> e.getAttachments().stream())
+                .filter(e -> Arrays.equals(e.getHash(), hash))
+                .findAny();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Getters
@@ -557,7 +783,7 @@ public class DisputeManager {
         return disputeStorage;
     }
 
-    public ObservableList<Dispute> getDisputesAsObservableList() {
+    public ObservableArrayList<Dispute> getDisputesAsObservableList() {
         return disputesObservableList;
     }
 
@@ -569,6 +795,21 @@ public class DisputeManager {
         return keyRing.getPubKeyRing().equals(dispute.getArbitratorPubKeyRing());
     }
 
+    // The arbitrator for the trader, the trader of that dispute for the arbitrator
+    private PubKeyRing getPeersPubKeyRing(Dispute dispute) {
+        return isTrader(dispute) ? dispute.getArbitratorPubKeyRing() : dispute.getTraderPubKeyRing();
+    }
+
+    private Address getPeersAddress(Dispute dispute) {
+        Contract contract = dispute.getContract();
+        if (isTrader(dispute))
+            return contract.arbitratorAddress;
+        else if (contract.getBuyerPubKeyRing().equals(dispute.getTraderPubKeyRing()))
+            return contract.getBuyerAddress();
+        else
+            return contract.getSellerAddress();
+    }
+
     private boolean isArbitrator(DisputeResult disputeResult) {
         return walletService.getArbitratorAddressEntry().getAddressString().equals(disputeResult.getArbitratorAddressAsString());
     }
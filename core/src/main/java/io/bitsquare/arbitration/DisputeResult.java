@@ -19,7 +19,8 @@ package io.bitsquare.arbitration;
 
 import io.bitsquare.app.Version;
 import io.bitsquare.arbitration.messages.DisputeMailMessage;
-import javafx.beans.property.*;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import org.bitcoinj.core.Coin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,7 @@ import java.util.Date;
 
 public class DisputeResult implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
     transient private static final Logger log = LoggerFactory.getLogger(DisputeResult.class);
 
     public enum FeePaymentPolicy {
@@ -65,11 +66,11 @@ public class DisputeResult implements Serializable {
     private long closeDate;
     private Winner winner;
 
-    transient private BooleanProperty tamperProofEvidenceProperty = new SimpleBooleanProperty();
-    transient private BooleanProperty idVerificationProperty = new SimpleBooleanProperty();
-    transient private BooleanProperty screenCastProperty = new SimpleBooleanProperty();
-    transient private ObjectProperty<FeePaymentPolicy> feePaymentPolicyProperty = new SimpleObjectProperty<>();
-    transient private StringProperty summaryNotesProperty = new SimpleStringProperty();
+    transient private ObservableProperty<Boolean> tamperProofEvidenceProperty;
+    transient private ObservableProperty<Boolean> idVerificationProperty;
+    transient private ObservableProperty<Boolean> screenCastProperty;
+    transient private ObservableProperty<FeePaymentPolicy> feePaymentPolicyProperty;
+    transient private ObservableProperty<String> summaryNotesProperty;
 
     public DisputeResult(String tradeId, int traderId) {
         this.tradeId = tradeId;
@@ -89,38 +90,38 @@ public class DisputeResult implements Serializable {
     }
 
     private void init() {
-        tamperProofEvidenceProperty = new SimpleBooleanProperty(tamperProofEvidence);
-        idVerificationProperty = new SimpleBooleanProperty(idVerification);
-        screenCastProperty = new SimpleBooleanProperty(screenCast);
-        feePaymentPolicyProperty = new SimpleObjectProperty<>(feePaymentPolicy);
-        summaryNotesProperty = new SimpleStringProperty(summaryNotes);
+        tamperProofEvidenceProperty = new ObservableProperty<>(tamperProofEvidence);
+        idVerificationProperty = new ObservableProperty<>(idVerification);
+        screenCastProperty = new ObservableProperty<>(screenCast);
+        feePaymentPolicyProperty = new ObservableProperty<>(feePaymentPolicy);
+        summaryNotesProperty = new ObservableProperty<>(summaryNotes);
 
-        tamperProofEvidenceProperty.addListener((observable, oldValue, newValue) -> {
+        tamperProofEvidenceProperty.addListener((oldValue, newValue) -> {
             tamperProofEvidence = newValue;
         });
-        idVerificationProperty.addListener((observable, oldValue, newValue) -> {
+        idVerificationProperty.addListener((oldValue, newValue) -> {
             idVerification = newValue;
         });
-        screenCastProperty.addListener((observable, oldValue, newValue) -> {
+        screenCastProperty.addListener((oldValue, newValue) -> {
             screenCast = newValue;
         });
-        feePaymentPolicyProperty.addListener((observable, oldValue, newValue) -> {
+        feePaymentPolicyProperty.addListener((oldValue, newValue) -> {
             feePaymentPolicy = newValue;
         });
-        summaryNotesProperty.addListener((observable, oldValue, newValue) -> {
+        summaryNotesProperty.addListener((oldValue, newValue) -> {
             summaryNotes = newValue;
         });
     }
 
-    public BooleanProperty tamperProofEvidenceProperty() {
+    public ObservableProperty<Boolean> tamperProofEvidenceProperty() {
         return tamperProofEvidenceProperty;
     }
 
-    public BooleanProperty idVerificationProperty() {
+    public ObservableProperty<Boolean> idVerificationProperty() {
         return idVerificationProperty;
     }
 
-    public BooleanProperty screenCastProperty() {
+    public ObservableProperty<Boolean> screenCastProperty() {
         return screenCastProperty;
     }
 
@@ -129,7 +130,7 @@ public class DisputeResult implements Serializable {
         feePaymentPolicyProperty.set(feePaymentPolicy);
     }
 
-    public ReadOnlyObjectProperty<FeePaymentPolicy> feePaymentPolicyProperty() {
+    public ReadOnlyObservableProperty<FeePaymentPolicy> feePaymentPolicyProperty() {
         return feePaymentPolicyProperty;
     }
 
@@ -138,7 +139,7 @@ public class DisputeResult implements Serializable {
     }
 
 
-    public StringProperty summaryNotesProperty() {
+    public ObservableProperty<String> summaryNotesProperty() {
         return summaryNotesProperty;
     }
 
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.arbitration.messages;
+
+import io.bitsquare.app.Version;
+import io.bitsquare.p2p.Address;
+
+import java.util.Arrays;
+
+// One chunk of an attachment, sent directly as response to an AttachmentChunkRequest
+public final class AttachmentChunkMessage extends DisputeMessage {
+    // That object is sent over the wire, so we need to take care of version compatibility.
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
+
+    public final String tradeId;
+    public final int traderId;
+    public final byte[] hash;
+    public final long size;
+    public final int index;
+    public final byte[] chunk;
+    private final Address myAddress;
+
+    public AttachmentChunkMessage(String tradeId, int traderId, byte[] hash, long size, int index, byte[] chunk,
+                                  Address myAddress) {
+        this.tradeId = tradeId;
+        this.traderId = traderId;
+        this.hash = hash;
+        this.size = size;
+        this.index = index;
+        this.chunk = chunk;
+        this.myAddress = myAddress;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AttachmentChunkMessage)) return false;
+
+        AttachmentChunkMessage that = (AttachmentChunkMessage) o;
+
+        if (traderId != that.traderId) return false;
+        if (size != that.size) return false;
+        if (index != that.index) return false;
+        if (tradeId != null ? !tradeId.equals(that.tradeId) : that.tradeId != null) return false;
+        if (!Arrays.equals(hash, that.hash)) return false;
+        if (!Arrays.equals(chunk, that.chunk)) return false;
+        return !(myAddress != null ? !myAddress.equals(that.myAddress) : that.myAddress != null);
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tradeId != null ? tradeId.hashCode() : 0;
+        result = 31 * result + traderId;
+        result = 31 * result + (hash != null ? Arrays.hashCode(hash) : 0);
+        result = 31 * result + (int) (size ^ (size >>> 32));
+        result = 31 * result + index;
+        result = 31 * result + (chunk != null ? Arrays.hashCode(chunk) : 0);
+        result = 31 * result + (myAddress != null ? myAddress.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AttachmentChunkMessage{" +
+                "tradeId='" + tradeId + '\'' +
+                ", traderId=" + traderId +
+                ", size=" + size +
+                ", index=" + index +
+                ", chunk.length=" + chunk.length +
+                '}';
+    }
+
+    @Override
+    public Address getSenderAddress() {
+        return myAddress;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.arbitration.messages;
+
+import io.bitsquare.app.Version;
+import io.bitsquare.p2p.Address;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sent directly (not via mailbox) to the sender of an attachment to request the chunks we are missing
+public final class AttachmentChunkRequest extends DisputeMessage {
+    // That object is sent over the wire, so we need to take care of version compatibility.
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
+
+    public final String tradeId;
+    public final int traderId;
+    public final byte[] hash;
+    public final ArrayList<Integer> chunkIndices;
+    private final Address myAddress;
+
+    public AttachmentChunkRequest(String tradeId, int traderId, byte[] hash, List<Integer> chunkIndices, Address myAddress) {
+        this.tradeId = tradeId;
+        this.traderId = traderId;
+        this.hash = hash;
+        this.chunkIndices = new ArrayList<>(chunkIndices);
+        this.myAddress = myAddress;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AttachmentChunkRequest)) return false;
+
+        AttachmentChunkRequest that = (AttachmentChunkRequest) o;
+
+        if (traderId != that.traderId) return false;
+        if (tradeId != null ? !tradeId.equals(that.tradeId) : that.tradeId != null) return false;
+        if (!Arrays.equals(hash, that.hash)) return false;
+        if (chunkIndices != null ? !chunkIndices.equals(that.chunkIndices) : that.chunkIndices != null) return false;
+        return !(myAddress != null ? !myAddress.equals(that.myAddress) : that.myAddress != null);
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tradeId != null ? tradeId.hashCode() : 0;
+        result = 31 * result + traderId;
+        result = 31 * result + (hash != null ? Arrays.hashCode(hash) : 0);
+        result = 31 * result + (chunkIndices != null ? chunkIndices.hashCode() : 0);
+        result = 31 * result + (myAddress != null ? myAddress.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public Address getSenderAddress() {
+        return myAddress;
+    }
+
+}
@@ -18,15 +18,14 @@
 package io.bitsquare.arbitration.messages;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.p2p.Address;
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.SimpleBooleanProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.Serializable;
+import javax.annotation.Nullable;
+import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -34,7 +33,7 @@ import java.util.List;
 
 public final class DisputeMailMessage extends DisputeMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
     transient private static final Logger log = LoggerFactory.getLogger(DisputeMailMessage.class);
 
     private final long date;
@@ -49,8 +48,8 @@ public final class DisputeMailMessage extends DisputeMessage {
     private boolean isSystemMessage;
     private final Address myAddress;
 
-    transient private BooleanProperty arrivedProperty = new SimpleBooleanProperty();
-    transient private BooleanProperty storedInMailboxProperty = new SimpleBooleanProperty();
+    transient private ObservableProperty<Boolean> arrivedProperty = new ObservableProperty<>(false);
+    transient private ObservableProperty<Boolean> storedInMailboxProperty = new ObservableProperty<>(false);
 
     public DisputeMailMessage(String tradeId, int traderId, boolean senderIsTrader, String message, Address myAddress) {
         this.tradeId = tradeId;
@@ -64,8 +63,8 @@ public final class DisputeMailMessage extends DisputeMessage {
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         try {
             in.defaultReadObject();
-            arrivedProperty = new SimpleBooleanProperty(arrived);
-            storedInMailboxProperty = new SimpleBooleanProperty(storedInMailbox);
+            arrivedProperty = new ObservableProperty<>(arrived);
+            storedInMailboxProperty = new ObservableProperty<>(storedInMailbox);
         } catch (Throwable t) {
             log.trace("Cannot be deserialized." + t.getMessage());
         }
@@ -110,11 +109,11 @@ public final class DisputeMailMessage extends DisputeMessage {
         return traderId;
     }
 
-    public BooleanProperty arrivedProperty() {
+    public ReadOnlyObservableProperty<Boolean> arrivedProperty() {
         return arrivedProperty;
     }
 
-    public BooleanProperty storedInMailboxProperty() {
+    public ReadOnlyObservableProperty<Boolean> storedInMailboxProperty() {
         return storedInMailboxProperty;
     }
 
@@ -186,27 +185,78 @@ public final class DisputeMailMessage extends DisputeMessage {
     // Static classes
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // Only the hash and size of the file is sent with the message. The content is transferred in chunks with
+    // AttachmentChunkRequest and AttachmentChunkMessage and kept in the AttachmentStore.
     public static class Attachment implements Serializable {
         // That object is sent over the wire, so we need to take care of version compatibility.
-        private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+        private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
         transient private static final Logger log = LoggerFactory.getLogger(Attachment.class);
 
-        private final byte[] bytes;
-        private final String fileName;
-
-        public Attachment(String fileName, byte[] bytes) {
+        // Attachments of disputes stored before we used the AttachmentStore held the content in the bytes field
+        private static final ObjectStreamField[] serialPersistentFields = {
+                new ObjectStreamField("fileName", String.class),
+                new ObjectStreamField("hash", byte[].class),
+                new ObjectStreamField("size", long.class),
+                new ObjectStreamField("bytes", byte[].class)
+        };
+
+        private String fileName;
+        private byte[] hash;
+        private long size;
+        // Set until the content is moved to the AttachmentStore
+        transient private byte[] legacyBytes;
+
+        public Attachment(String fileName, byte[] hash, long size) {
             this.fileName = fileName;
-            this.bytes = bytes;
-        }
-
-        public byte[] getBytes() {
-            return bytes;
+            this.hash = hash;
+            this.size = size;
         }
 
         public String getFileName() {
             return fileName;
         }
 
+        public byte[] getHash() {
+            return hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        @Nullable
+        public byte[] getLegacyBytes() {
+            return legacyBytes;
+        }
+
+        public void onMigrated(byte[] hash) {
+            this.hash = hash;
+            legacyBytes = null;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField fields = in.readFields();
+            fileName = (String) fields.get("fileName", null);
+            hash = (byte[]) fields.get("hash", null);
+            size = fields.get("size", 0L);
+            legacyBytes = (byte[]) fields.get("bytes", null);
+            // The hash is calculated when the content is moved to the AttachmentStore
+            if (hash == null && legacyBytes != null)
+                size = legacyBytes.length;
+            else
+                legacyBytes = null;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("fileName", fileName);
+            fields.put("hash", hash);
+            fields.put("size", size);
+            // We keep the content of a legacy attachment until it is moved to the AttachmentStore
+            fields.put("bytes", legacyBytes);
+            out.writeFields();
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -214,23 +264,26 @@ public final class DisputeMailMessage extends DisputeMessage {
 
             Attachment that = (Attachment) o;
 
-            if (!Arrays.equals(bytes, that.bytes)) return false;
+            if (size != that.size) return false;
+            if (!Arrays.equals(hash, that.hash)) return false;
             return !(fileName != null ? !fileName.equals(that.fileName) : that.fileName != null);
 
         }
 
         @Override
         public int hashCode() {
-            int result = bytes != null ? Arrays.hashCode(bytes) : 0;
-            result = 31 * result + (fileName != null ? fileName.hashCode() : 0);
+            int result = fileName != null ? fileName.hashCode() : 0;
+            result = 31 * result + (hash != null ? Arrays.hashCode(hash) : 0);
+            result = 31 * result + (int) (size ^ (size >>> 32));
             return result;
         }
 
         @Override
         public String toString() {
             return "Attachment{" +
-                    "description=" + fileName +
-                    ", data=" + Arrays.toString(bytes) +
+                    "fileName=" + fileName +
+                    ", hash=" + Arrays.toString(hash) +
+                    ", size=" + size +
                     '}';
         }
     }
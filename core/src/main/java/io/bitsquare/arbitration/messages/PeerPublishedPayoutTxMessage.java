@@ -24,7 +24,7 @@ import java.util.Arrays;
 
 public final class PeerPublishedPayoutTxMessage extends DisputeMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final byte[] transaction;
     public final String tradeId;
@@ -0,0 +1,202 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import org.bitcoinj.core.*;
+import org.bitcoinj.utils.Threading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the spendable outputs of our wallet per address together with their sum, so balance lookups don't need to
+ * scan all spend candidates of the wallet.
+ * It is built once from the wallet and then updated with the transactions reported by the wallet events. Only the
+ * addresses touched by such a transaction (its outputs and the outputs spent by its inputs) are re-evaluated.
+ * Like the TransactionIndex it is updated on the thread which changed the wallet, so a balance is up to date as soon
+ * as the wallet call (e.g. commitTx) returns. The addresses with a changed balance are collected until they are taken
+ * by the listeners running on the wallet executor.
+ */
+class AddressBalanceIndex {
+    private static final Logger log = LoggerFactory.getLogger(AddressBalanceIndex.class);
+
+    private final NetworkParameters params;
+    // Outputs are keyed by txId:index as the wallet and the events might use different instances of the same tx
+    private final Map<Address, Map<String, Coin>> outputsByAddress = new HashMap<>();
+    private final Map<Address, Coin> balanceByAddress = new ConcurrentHashMap<>();
+    private final Set<Address> changedAddresses = new HashSet<>();
+    private final WalletEventListener walletEventListener = new AbstractWalletEventListener() {
+        @Override
+        public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            update(wallet, tx);
+        }
+
+        @Override
+        public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            update(wallet, tx);
+        }
+
+        @Override
+        public void onReorganize(Wallet wallet) {
+            rebuild(wallet);
+        }
+
+        @Override
+        public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+            // A tx getting dead or a coinbase getting mature changes the spendable outputs
+            update(wallet, tx);
+        }
+    };
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    AddressBalanceIndex(NetworkParameters params) {
+        this.params = params;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Builds the index and keeps it up to date with the wallet.
+    void attach(Wallet wallet) {
+        rebuild(wallet);
+        wallet.addEventListener(walletEventListener, Threading.SAME_THREAD);
+    }
+
+    void detach(Wallet wallet) {
+        wallet.removeEventListener(walletEventListener);
+    }
+
+    // Full rebuild, used at startup and after a reorg.
+    synchronized void rebuild(Wallet wallet) {
+        outputsByAddress.clear();
+        balanceByAddress.clear();
+        for (TransactionOutput output : wallet.calculateAllSpendCandidates()) {
+            Address address = getAddress(output);
+            if (address != null)
+                outputsByAddress.computeIfAbsent(address, e -> new HashMap<>()).put(getKey(output), output.getValue());
+        }
+        outputsByAddress.keySet().stream().forEach(this::updateBalance);
+        log.debug("Balance index built for {} addresses", outputsByAddress.size());
+    }
+
+    // Re-evaluates the outputs of the tx and the outputs it spends. Returns the addresses where the balance has changed.
+    synchronized Set<Address> update(Wallet wallet, Transaction tx) {
+        Set<Address> touchedAddresses = new HashSet<>();
+        boolean isDead = tx.getConfidence().getConfidenceType() == TransactionConfidence.ConfidenceType.DEAD;
+        for (TransactionOutput output : tx.getOutputs()) {
+            if (output.isMine(wallet))
+                apply(output, !isDead && isSpendCandidate(output), touchedAddresses);
+        }
+
+        // The outputs we spend. If the tx is dead the wallet has made them available again.
+        for (TransactionInput input : tx.getInputs()) {
+            Transaction connectedTx = wallet.getTransaction(input.getOutpoint().getHash());
+            if (connectedTx != null && input.getOutpoint().getIndex() < connectedTx.getOutputs().size()) {
+                TransactionOutput output = connectedTx.getOutput((int) input.getOutpoint().getIndex());
+                if (output.isMine(wallet))
+                    apply(output, isSpendCandidate(output), touchedAddresses);
+            }
+        }
+
+        Set<Address> changedAddresses = new HashSet<>();
+        for (Address address : touchedAddresses) {
+            if (updateBalance(address))
+                changedAddresses.add(address);
+        }
+        this.changedAddresses.addAll(changedAddresses);
+        return changedAddresses;
+    }
+
+    // Returns the addresses where the balance has changed since the last call
+    synchronized Set<Address> takeChangedAddresses() {
+        Set<Address> result = new HashSet<>(changedAddresses);
+        changedAddresses.clear();
+        return result;
+    }
+
+    Coin getBalance(Address address) {
+        return balanceByAddress.getOrDefault(address, Coin.ZERO);
+    }
+
+    // We only keep positive balances
+    Set<Address> getFundedAddresses() {
+        return Collections.unmodifiableSet(balanceByAddress.keySet());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void apply(TransactionOutput output, boolean isSpendCandidate, Set<Address> touchedAddresses) {
+        Address address = getAddress(output);
+        if (address != null) {
+            touchedAddresses.add(address);
+            if (isSpendCandidate) {
+                outputsByAddress.computeIfAbsent(address, e -> new HashMap<>()).put(getKey(output), output.getValue());
+            } else {
+                Map<String, Coin> outputs = outputsByAddress.get(address);
+                if (outputs != null)
+                    outputs.remove(getKey(output));
+            }
+        }
+    }
+
+    // Same rules as Wallet.calculateAllSpendCandidates
+    private boolean isSpendCandidate(TransactionOutput output) {
+        Transaction parentTx = output.getParentTransaction();
+        return output.isAvailableForSpending()
+                && parentTx != null
+                && parentTx.getConfidence().getConfidenceType() != TransactionConfidence.ConfidenceType.DEAD
+                && parentTx.isMature();
+    }
+
+    // Returns true if the balance has changed
+    private boolean updateBalance(Address address) {
+        Map<String, Coin> outputs = outputsByAddress.get(address);
+        Coin balance = Coin.ZERO;
+        if (outputs != null) {
+            for (Coin value : outputs.values())
+                balance = balance.add(value);
+            if (outputs.isEmpty())
+                outputsByAddress.remove(address);
+        }
+
+        Coin previous = balance.isZero() ? balanceByAddress.remove(address) : balanceByAddress.put(address, balance);
+        return !balance.equals(previous != null ? previous : Coin.ZERO);
+    }
+
+    private Address getAddress(TransactionOutput output) {
+        if (output.getScriptPubKey().isSentToAddress() || output.getScriptPubKey().isPayToScriptHash())
+            return output.getScriptPubKey().getToAddress(params);
+        else
+            return null;
+    }
+
+    private String getKey(TransactionOutput output) {
+        return output.getParentTransaction().getHashAsString() + ":" + output.getIndex();
+    }
+}
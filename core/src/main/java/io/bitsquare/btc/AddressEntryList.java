@@ -25,11 +25,18 @@ import org.bitcoinj.crypto.DeterministicKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The List supporting our persistence solution.
+ * <p>
+ * Entries are only added, never removed. We keep indexes by offerId and address which are maintained in add, so
+ * lookups don't need to iterate or copy the list. The indexes are not persisted, they are filled when the persisted
+ * entries get added in onWalletReady.
  */
 public class AddressEntryList extends ArrayList<AddressEntry> implements Serializable {
     // That object is saved to disc. We need to take care of changes to not break deserialization.
@@ -38,6 +45,8 @@ public class AddressEntryList extends ArrayList<AddressEntry> implements Seriali
 
     final transient private Storage<AddressEntryList> storage;
     transient private Wallet wallet;
+    final transient private Map<String, AddressEntry> entriesByOfferId = new ConcurrentHashMap<>();
+    final transient private Map<String, AddressEntry> entriesByAddress = new ConcurrentHashMap<>();
 
     // Persisted fields are in ArrayList superclass
 
@@ -66,7 +75,7 @@ public class AddressEntryList extends ArrayList<AddressEntry> implements Seriali
         }
     }
 
-    public AddressEntry getNewAddressEntry(AddressEntry.Context context, String offerId) {
+    synchronized public AddressEntry getNewAddressEntry(AddressEntry.Context context, String offerId) {
         log.trace("getNewAddressEntry called with offerId " + offerId);
         AddressEntry addressEntry = new AddressEntry(wallet.freshReceiveKey(), wallet.getParams(), context, offerId);
         add(addressEntry);
@@ -74,8 +83,38 @@ public class AddressEntryList extends ArrayList<AddressEntry> implements Seriali
         return addressEntry;
     }
 
+    // Returns the existing entry for that offer or creates a new one. Synchronized so that concurrent trade tasks
+    // of the same offer never create 2 entries.
+    synchronized public AddressEntry getOrCreateAddressEntry(AddressEntry.Context context, String offerId) {
+        AddressEntry addressEntry = entriesByOfferId.get(offerId);
+        if (addressEntry != null)
+            return addressEntry;
+        else
+            return getNewAddressEntry(context, offerId);
+    }
+
+    @Override
+    synchronized public boolean add(AddressEntry addressEntry) {
+        super.add(addressEntry);
+        // If there are several entries for the same key we keep the first one, like a linear search would find it
+        if (addressEntry.getOfferId() != null)
+            entriesByOfferId.putIfAbsent(addressEntry.getOfferId(), addressEntry);
+        entriesByAddress.putIfAbsent(addressEntry.getAddressString(), addressEntry);
+        return true;
+    }
+
+    @Nullable
+    public AddressEntry getAddressEntryByOfferId(String offerId) {
+        return entriesByOfferId.get(offerId);
+    }
+
+    @Nullable
+    public AddressEntry getAddressEntryByAddress(String address) {
+        return entriesByAddress.get(address);
+    }
+
 
-    public AddressEntry getArbitratorAddressEntry() {
+    synchronized public AddressEntry getArbitratorAddressEntry() {
         if (size() > 0)
             return get(0);
         else
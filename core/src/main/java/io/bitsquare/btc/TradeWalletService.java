@@ -17,6 +17,7 @@
 
 package io.bitsquare.btc;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
@@ -28,6 +29,7 @@ import io.bitsquare.btc.data.RawInput;
 import io.bitsquare.btc.exceptions.SigningException;
 import io.bitsquare.btc.exceptions.TransactionVerificationException;
 import io.bitsquare.btc.exceptions.WalletException;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.user.Preferences;
 import org.bitcoinj.core.*;
 import org.bitcoinj.crypto.TransactionSignature;
@@ -165,6 +167,104 @@ public class TradeWalletService {
         return tradingFeeTx;
     }
 
+    /**
+     * Pays the trading fees of several offers with one transaction. We spend all spendable outputs of the offers
+     * address entries and each offer gets its remaining funds back to its own address, so the funds of the offers
+     * stay separated as with createTradingFeeTx. The miner fee is paid once for the whole transaction and split
+     * between the offers.
+     *
+     * @param addressEntries       The address entries of the offers.
+     * @param tradingFee           The amount of the trading fee per offer.
+     * @param feeReceiverAddresses The address of the receiver of the trading fee (arbitrator) per offer, in the same
+     *                             order as the addressEntries.
+     * @return The transaction, not broadcasted yet
+     * @throws InsufficientMoneyException If one of the offers cannot pay its share
+     * @throws AddressFormatException
+     */
+    public Transaction createBatchedTradingFeeTx(List<AddressEntry> addressEntries, Coin tradingFee,
+                                                 List<String> feeReceiverAddresses)
+            throws InsufficientMoneyException, AddressFormatException {
+        checkArgument(!addressEntries.isEmpty(), "addressEntries must not be empty");
+        checkArgument(addressEntries.size() == feeReceiverAddresses.size(),
+                "addressEntries and feeReceiverAddresses must have the same size");
+
+        Transaction tradingFeeTx = new Transaction(params);
+        Coin outPutAmount = tradingFee.subtract(FeePolicy.TX_FEE);
+        for (String feeReceiverAddress : feeReceiverAddresses)
+            tradingFeeTx.addOutput(outPutAmount, new Address(params, feeReceiverAddress));
+
+        List<TransactionOutput> candidates = wallet.calculateAllSpendCandidates();
+        List<Coin> inputValues = new ArrayList<>();
+        for (AddressEntry addressEntry : addressEntries) {
+            Coin inputValue = Coin.ZERO;
+            for (TransactionOutput output : candidates) {
+                Script scriptPubKey = output.getScriptPubKey();
+                if ((scriptPubKey.isSentToAddress() || scriptPubKey.isPayToScriptHash())
+                        && addressEntry.getAddress().equals(scriptPubKey.getToAddress(params))) {
+                    tradingFeeTx.addInput(output);
+                    inputValue = inputValue.add(output.getValue());
+                }
+            }
+            inputValues.add(inputValue);
+        }
+
+        int numEntries = addressEntries.size();
+        Coin minerFee = estimateBatchedMinerFee(tradingFeeTx.getInputs().size(), numEntries);
+        List<Coin> changeAmounts = getBatchedChangeAmounts(inputValues, outPutAmount, minerFee);
+        for (int i = 0; i < numEntries; i++) {
+            Coin change = changeAmounts.get(i);
+            if (change.isNegative())
+                throw new InsufficientMoneyException(change.negate(), "Not enough funds for the trading fee at address " +
+                        addressEntries.get(i).getAddressString());
+
+            if (change.isPositive())
+                tradingFeeTx.addOutput(change, addressEntries.get(i).getAddress());
+        }
+
+        // The inputs and outputs are complete, completeTx only signs. All the value not spent by the outputs is the
+        // fee, so no coins get selected and no change output is added.
+        Coin totalInput = inputValues.stream().reduce(Coin.ZERO, Coin::add);
+        Wallet.SendRequest sendRequest = Wallet.SendRequest.forTx(tradingFeeTx);
+        sendRequest.shuffleOutputs = false;
+        sendRequest.aesKey = aesKey;
+        sendRequest.fee = totalInput.subtract(tradingFeeTx.getOutputSum());
+        sendRequest.feePerKb = Coin.ZERO;
+        sendRequest.coinSelector = new AddressBasedCoinSelector(params, addressEntries.get(0));
+        sendRequest.changeAddress = addressEntries.get(0).getAddress();
+        wallet.completeTx(sendRequest);
+        printTxWithInputs("batchedTradingFeeTx", tradingFeeTx);
+
+        return tradingFeeTx;
+    }
+
+    // Same fee rule as in Wallet.completeTx. We estimate the size of the signed tx with pay to address inputs and
+    // one trading fee and one change output per offer.
+    @VisibleForTesting
+    static Coin estimateBatchedMinerFee(int numInputs, int numEntries) {
+        int estimatedSize = 10 + numInputs * 148 + numEntries * 2 * 34;
+        return Wallet.SendRequest.DEFAULT_FEE_PER_KB.multiply(estimatedSize / 1000 + 1);
+    }
+
+    // Returns the change per address entry: its input value minus its trading fee output and its share of the miner
+    // fee. The miner fee is split equally, the remainder of the division is paid by the first entry.
+    // A negative amount means the entry can't pay its share. A dust change would make the tx non standard, it goes to
+    // the miner fee instead and is returned as zero.
+    @VisibleForTesting
+    static List<Coin> getBatchedChangeAmounts(List<Coin> inputValues, Coin tradingFeeOutput, Coin minerFee) {
+        int numEntries = inputValues.size();
+        Coin minerFeeShare = minerFee.divide(numEntries);
+        Coin minerFeeRemainder = minerFee.subtract(minerFeeShare.multiply(numEntries));
+        List<Coin> changeAmounts = new ArrayList<>();
+        for (int i = 0; i < numEntries; i++) {
+            Coin share = i == 0 ? minerFeeShare.add(minerFeeRemainder) : minerFeeShare;
+            Coin change = inputValues.get(i).subtract(tradingFeeOutput).subtract(share);
+            if (!change.isNegative() && change.compareTo(Transaction.MIN_NONDUST_OUTPUT) < 0)
+                change = Coin.ZERO;
+            changeAmounts.add(change);
+        }
+        return changeAmounts;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Trade
@@ -871,8 +971,9 @@ public class TradeWalletService {
         return walletAppKit.chain().getBestChainHeight();
     }
 
+    // Bitcoinj events are handled on the wallet thread, the listeners added here are called on the UserThread
     public void addBlockChainListener(BlockChainListener blockChainListener) {
-        walletAppKit.chain().addListener(blockChainListener);
+        walletAppKit.chain().addListener(blockChainListener, UserThread.getExecutor());
     }
 
     public void removeBlockChainListener(BlockChainListener blockChainListener) {
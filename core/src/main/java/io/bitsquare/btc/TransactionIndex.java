@@ -0,0 +1,139 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import org.bitcoinj.core.*;
+import org.bitcoinj.utils.Threading;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps txIds and addresses to the wallet transactions. A tx is mapped to the addresses it pays to or spends from
+ * (outputs and connected outputs of the inputs), so confidence lookups don't need to walk all wallet transactions.
+ * Transactions are never removed from the wallet, so we only add. A tx might get added several times as its inputs
+ * get connected later.
+ * The index is updated from the wallet events on the thread which changed the wallet, so a tx is indexed as soon as
+ * the wallet call which added it (e.g. commitTx) returns.
+ * Confidence changes are frequent (each peer announcing a tx), so a tx is only indexed again if its outputs, its
+ * connected inputs or its depth changed since it was indexed.
+ */
+class TransactionIndex {
+    private final NetworkParameters params;
+    private final Map<String, Transaction> transactionsById = new ConcurrentHashMap<>();
+    private final Map<Address, Set<Transaction>> transactionsByAddress = new ConcurrentHashMap<>();
+    private final Map<String, List<Integer>> indexedStateById = new ConcurrentHashMap<>();
+    private final WalletEventListener walletEventListener = new AbstractWalletEventListener() {
+        @Override
+        public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            add(tx);
+        }
+
+        @Override
+        public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
+            add(tx);
+        }
+
+        @Override
+        public void onReorganize(Wallet wallet) {
+            rebuild(wallet);
+        }
+
+        @Override
+        public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+            if (!getState(tx).equals(indexedStateById.get(tx.getHashAsString())))
+                add(tx);
+        }
+    };
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    TransactionIndex(NetworkParameters params) {
+        this.params = params;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Builds the index and keeps it up to date with the wallet.
+    void attach(Wallet wallet) {
+        rebuild(wallet);
+        wallet.addEventListener(walletEventListener, Threading.SAME_THREAD);
+    }
+
+    void detach(Wallet wallet) {
+        wallet.removeEventListener(walletEventListener);
+    }
+
+    void rebuild(Wallet wallet) {
+        transactionsById.clear();
+        transactionsByAddress.clear();
+        indexedStateById.clear();
+        wallet.getTransactions(true).stream().forEach(this::add);
+    }
+
+    void add(Transaction tx) {
+        transactionsById.put(tx.getHashAsString(), tx);
+        indexedStateById.put(tx.getHashAsString(), getState(tx));
+        // Transaction equality is based on the tx hash, so adding the same tx again is a no-op
+        getAddresses(tx).stream().forEach(address ->
+                transactionsByAddress.computeIfAbsent(address, e -> ConcurrentHashMap.newKeySet()).add(tx));
+    }
+
+    // The addresses touched by that tx
+    Set<Address> getAddresses(Transaction tx) {
+        Set<Address> addresses = new HashSet<>();
+        tx.getOutputs().stream().forEach(output -> addAddress(output, addresses));
+        tx.getInputs().stream()
+                .filter(input -> input.getConnectedOutput() != null)
+                .forEach(input -> addAddress(input.getConnectedOutput(), addresses));
+        return addresses;
+    }
+
+    Transaction getTransaction(String txId) {
+        return transactionsById.get(txId);
+    }
+
+    Set<Transaction> getTransactions(Address address) {
+        Set<Transaction> transactions = transactionsByAddress.get(address);
+        return transactions != null ? Collections.unmodifiableSet(transactions) : Collections.emptySet();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The properties a confidence change might alter and which require to index the tx again
+    private List<Integer> getState(Transaction tx) {
+        int numConnectedInputs = (int) tx.getInputs().stream().filter(input -> input.getConnectedOutput() != null).count();
+        int depth = tx.getConfidence().getConfidenceType() == TransactionConfidence.ConfidenceType.BUILDING ?
+                tx.getConfidence().getDepthInBlocks() : 0;
+        return Arrays.asList(tx.getOutputs().size(), numConnectedInputs, depth);
+    }
+
+    private void addAddress(TransactionOutput output, Set<Address> addresses) {
+        if (output.getScriptPubKey().isSentToAddress() || output.getScriptPubKey().isPayToScriptHash())
+            addresses.add(output.getScriptPubKey().getToAddress(params));
+    }
+}
@@ -21,16 +21,19 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.bitsquare.btc.listeners.AddressConfidenceListener;
 import io.bitsquare.btc.listeners.BalanceListener;
 import io.bitsquare.btc.listeners.TxConfidenceListener;
+import io.bitsquare.common.CoalescingPublisher;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ExceptionHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.common.util.Utilities;
 import io.bitsquare.user.Preferences;
-import javafx.beans.property.*;
 import org.bitcoinj.core.*;
 import org.bitcoinj.kits.WalletAppKit;
 import org.bitcoinj.params.MainNetParams;
@@ -39,8 +42,6 @@ import org.bitcoinj.params.TestNet3Params;
 import org.bitcoinj.utils.Threading;
 import org.bitcoinj.wallet.DeterministicSeed;
 import org.jetbrains.annotations.NotNull;
-import org.reactfx.util.FxTimer;
-import org.reactfx.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spongycastle.crypto.params.KeyParameter;
@@ -51,9 +52,11 @@ import javax.inject.Named;
 import java.io.File;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -70,27 +73,48 @@ public class WalletService {
     public static final String DIR_KEY = "wallet.dir";
     public static final String PREFIX_KEY = "wallet.prefix";
     private static final long STARTUP_TIMEOUT = 60 * 1000;
-
-    private final CopyOnWriteArraySet<AddressConfidenceListener> addressConfidenceListeners = new CopyOnWriteArraySet<>();
-    private final CopyOnWriteArraySet<TxConfidenceListener> txConfidenceListeners = new CopyOnWriteArraySet<>();
+    // Max. rate of balance and confidence updates to the UserThread
+    private static final long UI_UPDATE_INTERVAL = 200;
+    private static final String AVAILABLE_BALANCE_KEY = "availableBalance";
+
+    // Listeners are kept per address and txId, so a tx event only reaches the affected listeners
+    private final Map<Address, Set<AddressConfidenceListener>> addressConfidenceListeners = new ConcurrentHashMap<>();
+    private final Map<String, Set<TxConfidenceListener>> txConfidenceListeners = new ConcurrentHashMap<>();
+    // Listeners without address get the available balance of the wallet
     private final CopyOnWriteArraySet<BalanceListener> balanceListeners = new CopyOnWriteArraySet<>();
+    private final Map<Address, Set<BalanceListener>> balanceListenersByAddress = new ConcurrentHashMap<>();
 
     private final DownloadListener downloadListener = new DownloadListener();
     private final WalletEventListener walletEventListener = new BitsquareWalletEventListener();
 
+    // All bitcoinj events are handled on that thread, see initialize. Listeners get the coalesced results on the
+    // UserThread.
+    private final ScheduledExecutorService walletExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("WalletEvents-%d").setDaemon(true).build());
+    private final CoalescingPublisher<Address, Coin> balancePublisher =
+            new CoalescingPublisher<>(walletExecutor, UI_UPDATE_INTERVAL, this::onBalanceChanged);
+    private final CoalescingPublisher<String, Coin> availableBalancePublisher =
+            new CoalescingPublisher<>(walletExecutor, UI_UPDATE_INTERVAL, (key, balance) -> onAvailableBalanceChanged(balance));
+    private final CoalescingPublisher<Address, TransactionConfidence> addressConfidencePublisher =
+            new CoalescingPublisher<>(walletExecutor, UI_UPDATE_INTERVAL, this::onAddressConfidenceChanged);
+    private final CoalescingPublisher<String, TransactionConfidence> txConfidencePublisher =
+            new CoalescingPublisher<>(walletExecutor, UI_UPDATE_INTERVAL, this::onTxConfidenceChanged);
+
     private final RegTestHost regTestHost;
     private final TradeWalletService tradeWalletService;
     private final AddressEntryList addressEntryList;
     private final NetworkParameters params;
+    private final AddressBalanceIndex addressBalanceIndex;
+    private final TransactionIndex transactionIndex;
     private final File walletDir;
     private final UserAgent userAgent;
 
     private WalletAppKit walletAppKit;
     private Wallet wallet;
     private AddressEntry arbitratorAddressEntry;
-    private final IntegerProperty numPeers = new SimpleIntegerProperty(0);
-    private final ObjectProperty<List<Peer>> connectedPeers = new SimpleObjectProperty<>();
-    public final BooleanProperty shutDownDone = new SimpleBooleanProperty();
+    private final ObservableProperty<Integer> numPeers = new ObservableProperty<>(0);
+    private final ObservableProperty<List<Peer>> connectedPeers = new ObservableProperty<>();
+    public final ObservableProperty<Boolean> shutDownDone = new ObservableProperty<>(false);
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -104,6 +128,8 @@ public class WalletService {
         this.tradeWalletService = tradeWalletService;
         this.addressEntryList = addressEntryList;
         this.params = preferences.getBitcoinNetwork().getParameters();
+        this.addressBalanceIndex = new AddressBalanceIndex(params);
+        this.transactionIndex = new TransactionIndex(params);
 
         // TODO remove after sufficient testing with testnet 
         checkArgument(!params.getId().equals(NetworkParameters.ID_MAINNET),
@@ -119,19 +145,19 @@ public class WalletService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public void initialize(@Nullable DeterministicSeed seed, ResultHandler resultHandler, ExceptionHandler exceptionHandler) {
-        // Tell bitcoinj to execute event handlers on the JavaFX UI thread. This keeps things simple and means
-        // we cannot forget to switch threads when adding event handlers. Unfortunately, the DownloadListener
-        // we give to the app kit is currently an exception and runs on a library thread. It'll get fixed in
-        // a future version.
-
-        Threading.USER_THREAD = UserThread.getExecutor();
-
-        Timer timeoutTimer = FxTimer.runLater(
-                Duration.ofMillis(STARTUP_TIMEOUT),
+        // Tell bitcoinj to execute event handlers on our wallet thread. During chain sync and at each block there are
+        // many events, handling them on the UserThread would freeze the UI and delay the P2P messages.
+        // Listeners which touch UI state are added with the UserThread executor, our own listeners get the results
+        // via the CoalescingPublishers. The DownloadListener runs on a library thread and maps to the UserThread
+        // itself.
+        Threading.USER_THREAD = walletExecutor;
+
+        Timer timeoutTimer = UserThread.runAfter(
                 () -> {
                     Utilities.setThreadName("WalletService:StartupTimeout");
                     exceptionHandler.handleException(new TimeoutException("Wallet did not initialize in " + STARTUP_TIMEOUT / 1000 + " seconds."));
-                }
+                },
+                STARTUP_TIMEOUT, TimeUnit.MILLISECONDS
         );
 
         // If seed is non-null it means we are restoring from backup.
@@ -145,7 +171,9 @@ public class WalletService {
                     walletAppKit.peerGroup().setMaxConnections(11);
                 walletAppKit.peerGroup().setBloomFilterFalsePositiveRate(0.00001);
                 wallet = walletAppKit.wallet();
-                wallet.addEventListener(walletEventListener);
+                addressBalanceIndex.attach(wallet);
+                transactionIndex.attach(wallet);
+                wallet.addEventListener(walletEventListener, walletExecutor);
 
                 addressEntryList.onWalletReady(wallet);
                 arbitratorAddressEntry = addressEntryList.getArbitratorAddressEntry();
@@ -189,11 +217,11 @@ public class WalletService {
                     public List<Message> getData(Peer peer, GetDataMessage m) {
                         return null;
                     }
-                });
+                }, UserThread.getExecutor());
 
                 // set after wallet is ready
                 tradeWalletService.setWalletAppKit(walletAppKit);
-                timeoutTimer.stop();
+                timeoutTimer.cancel();
                 UserThread.execute(resultHandler::handleResult);
             }
         };
@@ -239,7 +267,7 @@ public class WalletService {
             public void failed(@NotNull Service.State from, @NotNull Throwable failure) {
                 walletAppKit = null;
                 log.error("walletAppKit failed");
-                timeoutTimer.stop();
+                timeoutTimer.cancel();
                 UserThread.execute(() -> exceptionHandler.handleException(failure));
             }
         }, Threading.USER_THREAD);
@@ -247,8 +275,11 @@ public class WalletService {
     }
 
     public void shutDown() {
-        if (wallet != null)
+        if (wallet != null) {
             wallet.removeEventListener(walletEventListener);
+            addressBalanceIndex.detach(wallet);
+            transactionIndex.detach(wallet);
+        }
 
         if (walletAppKit != null) {
             try {
@@ -259,6 +290,7 @@ public class WalletService {
             }
             shutDownDone.set(true);
         }
+        walletExecutor.shutdown();
     }
 
     public void restoreSeedWords(DeterministicSeed seed, ResultHandler resultHandler, ExceptionHandler exceptionHandler) {
@@ -282,30 +314,75 @@ public class WalletService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public AddressConfidenceListener addAddressConfidenceListener(AddressConfidenceListener listener) {
-        addressConfidenceListeners.add(listener);
+        addKeyedListener(addressConfidenceListeners, listener.getAddress(), listener);
         return listener;
     }
 
     public void removeAddressConfidenceListener(AddressConfidenceListener listener) {
-        addressConfidenceListeners.remove(listener);
+        removeKeyedListener(addressConfidenceListeners, listener.getAddress(), listener);
     }
 
     public TxConfidenceListener addTxConfidenceListener(TxConfidenceListener listener) {
-        txConfidenceListeners.add(listener);
+        addKeyedListener(txConfidenceListeners, listener.getTxID(), listener);
         return listener;
     }
 
     public void removeTxConfidenceListener(TxConfidenceListener listener) {
-        txConfidenceListeners.remove(listener);
+        removeKeyedListener(txConfidenceListeners, listener.getTxID(), listener);
     }
 
     public BalanceListener addBalanceListener(BalanceListener listener) {
-        balanceListeners.add(listener);
+        if (listener.getAddress() != null)
+            addKeyedListener(balanceListenersByAddress, listener.getAddress(), listener);
+        else
+            balanceListeners.add(listener);
         return listener;
     }
 
     public void removeBalanceListener(BalanceListener listener) {
-        balanceListeners.remove(listener);
+        if (listener.getAddress() != null)
+            removeKeyedListener(balanceListenersByAddress, listener.getAddress(), listener);
+        else
+            balanceListeners.remove(listener);
+    }
+
+    // Called on the UserThread by the publishers with the latest values
+    private void onBalanceChanged(Address address, Coin balance) {
+        Set<BalanceListener> listeners = balanceListenersByAddress.get(address);
+        if (listeners != null)
+            listeners.stream().forEach(e -> e.onBalanceChanged(balance));
+    }
+
+    private void onAvailableBalanceChanged(Coin availableBalance) {
+        balanceListeners.stream().forEach(e -> e.onBalanceChanged(availableBalance));
+    }
+
+    private void onAddressConfidenceChanged(Address address, TransactionConfidence confidence) {
+        Set<AddressConfidenceListener> listeners = addressConfidenceListeners.get(address);
+        if (listeners != null)
+            listeners.stream().forEach(e -> e.onTransactionConfidenceChanged(confidence));
+    }
+
+    private void onTxConfidenceChanged(String txId, TransactionConfidence confidence) {
+        Set<TxConfidenceListener> listeners = txConfidenceListeners.get(txId);
+        if (listeners != null)
+            listeners.stream().forEach(e -> e.onTransactionConfidenceChanged(confidence));
+    }
+
+    private static <K, L> void addKeyedListener(Map<K, Set<L>> listenersByKey, K key, L listener) {
+        listenersByKey.compute(key, (k, listeners) -> {
+            Set<L> result = listeners != null ? listeners : new CopyOnWriteArraySet<>();
+            result.add(listener);
+            return result;
+        });
+    }
+
+    // The set gets removed with its last listener
+    private static <K, L> void removeKeyedListener(Map<K, Set<L>> listenersByKey, K key, L listener) {
+        listenersByKey.computeIfPresent(key, (k, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
     }
 
 
@@ -314,7 +391,18 @@ public class WalletService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public List<AddressEntry> getAddressEntryList() {
-        return ImmutableList.copyOf(addressEntryList);
+        synchronized (addressEntryList) {
+            return ImmutableList.copyOf(addressEntryList);
+        }
+    }
+
+    // The entries with a positive balance. Served from the balance and address indexes, so it is cheap even with
+    // many used addresses.
+    public List<AddressEntry> getFundedAddressEntries() {
+        return addressBalanceIndex.getFundedAddresses().stream()
+                .map(address -> addressEntryList.getAddressEntryByAddress(address.toString()))
+                .filter(addressEntry -> addressEntry != null)
+                .collect(Collectors.toList());
     }
 
     public AddressEntry getArbitratorAddressEntry() {
@@ -322,15 +410,11 @@ public class WalletService {
     }
 
     public AddressEntry getAddressEntryByOfferId(String offerId) {
-        Optional<AddressEntry> addressEntry = getAddressEntryList().stream().filter(e -> offerId.equals(e.getOfferId())).findFirst();
-        if (addressEntry.isPresent())
-            return addressEntry.get();
-        else
-            return addressEntryList.getNewAddressEntry(AddressEntry.Context.TRADE, offerId);
+        return addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, offerId);
     }
 
     private Optional<AddressEntry> getAddressEntryByAddress(String address) {
-        return getAddressEntryList().stream().filter(e -> address.equals(e.getAddressString())).findFirst();
+        return Optional.ofNullable(addressEntryList.getAddressEntryByAddress(address));
     }
 
 
@@ -338,64 +422,25 @@ public class WalletService {
     // TransactionConfidence
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // The TransactionIndex only maps a tx to the addresses it touches, so we don't need to filter the outputs here
     public TransactionConfidence getConfidenceForAddress(Address address) {
-        List<TransactionConfidence> transactionConfidenceList = new ArrayList<>();
-        if (wallet != null) {
-            Set<Transaction> transactions = wallet.getTransactions(true);
-            if (transactions != null) {
-                transactionConfidenceList.addAll(transactions.stream().map(tx ->
-                        getTransactionConfidence(tx, address)).collect(Collectors.toList()));
-            }
-        }
-        return getMostRecentConfidence(transactionConfidenceList);
+        return getMostRecentConfidence(transactionIndex.getTransactions(address).stream()
+                .map(Transaction::getConfidence)
+                .collect(Collectors.toList()));
     }
 
+    // The index is updated with the wallet events. For a tx the wallet did not report (yet) we ask the wallet, that is
+    // a hash lookup as well.
     public TransactionConfidence getConfidenceForTxId(String txId) {
-        if (wallet != null) {
-            Set<Transaction> transactions = wallet.getTransactions(true);
-            for (Transaction tx : transactions) {
-                if (tx.getHashAsString().equals(txId))
-                    return tx.getConfidence();
-            }
+        Transaction tx = transactionIndex.getTransaction(txId);
+        if (tx == null && wallet != null) {
+            tx = wallet.getTransaction(Sha256Hash.wrap(txId));
+            if (tx != null)
+                transactionIndex.add(tx);
         }
-        return null;
-    }
-
-    private TransactionConfidence getTransactionConfidence(Transaction tx, Address address) {
-        List<TransactionOutput> mergedOutputs = getOutputsWithConnectedOutputs(tx);
-        List<TransactionConfidence> transactionConfidenceList = new ArrayList<>();
-
-        mergedOutputs.stream().filter(e -> e.getScriptPubKey().isSentToAddress() ||
-                e.getScriptPubKey().isPayToScriptHash()).forEach(transactionOutput -> {
-            Address outputAddress = transactionOutput.getScriptPubKey().getToAddress(params);
-            if (address.equals(outputAddress)) {
-                transactionConfidenceList.add(tx.getConfidence());
-            }
-        });
-        return getMostRecentConfidence(transactionConfidenceList);
+        return tx != null ? tx.getConfidence() : null;
     }
 
-
-    private List<TransactionOutput> getOutputsWithConnectedOutputs(Transaction tx) {
-        List<TransactionOutput> transactionOutputs = tx.getOutputs();
-        List<TransactionOutput> connectedOutputs = new ArrayList<>();
-
-        // add all connected outputs from any inputs as well
-        List<TransactionInput> transactionInputs = tx.getInputs();
-        for (TransactionInput transactionInput : transactionInputs) {
-            TransactionOutput transactionOutput = transactionInput.getConnectedOutput();
-            if (transactionOutput != null) {
-                connectedOutputs.add(transactionOutput);
-            }
-        }
-
-        List<TransactionOutput> mergedOutputs = new ArrayList<>();
-        mergedOutputs.addAll(transactionOutputs);
-        mergedOutputs.addAll(connectedOutputs);
-        return mergedOutputs;
-    }
-
-
     private TransactionConfidence getMostRecentConfidence(List<TransactionConfidence> transactionConfidenceList) {
         TransactionConfidence transactionConfidence = null;
         for (TransactionConfidence confidence : transactionConfidenceList) {
@@ -423,20 +468,9 @@ public class WalletService {
         return wallet != null ? wallet.getBalance(Wallet.BalanceType.AVAILABLE) : Coin.ZERO;
     }
 
+    // Served from the AddressBalanceIndex, so it is cheap to call for many addresses
     public Coin getBalanceForAddress(Address address) {
-        return wallet != null ? getBalance(wallet.calculateAllSpendCandidates(), address) : Coin.ZERO;
-    }
-
-    private Coin getBalance(List<TransactionOutput> transactionOutputs, Address address) {
-        Coin balance = Coin.ZERO;
-        for (TransactionOutput transactionOutput : transactionOutputs) {
-            if (transactionOutput.getScriptPubKey().isSentToAddress() || transactionOutput.getScriptPubKey().isPayToScriptHash()) {
-                Address addressOutput = transactionOutput.getScriptPubKey().getToAddress(params);
-                if (addressOutput.equals(address))
-                    balance = balance.add(transactionOutput.getValue());
-            }
-        }
-        return balance;
+        return addressBalanceIndex.getBalance(address);
     }
 
 
@@ -493,7 +527,7 @@ public class WalletService {
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public ReadOnlyDoubleProperty downloadPercentageProperty() {
+    public ReadOnlyObservableProperty<Double> downloadPercentageProperty() {
         return downloadListener.percentageProperty();
     }
 
@@ -505,11 +539,11 @@ public class WalletService {
         return new Transaction(params, tx);
     }
 
-    public ReadOnlyIntegerProperty numPeersProperty() {
+    public ReadOnlyObservableProperty<Integer> numPeersProperty() {
         return numPeers;
     }
 
-    public ReadOnlyObjectProperty<List<Peer>> connectedPeersProperty() {
+    public ReadOnlyObservableProperty<List<Peer>> connectedPeersProperty() {
         return connectedPeers;
     }
 
@@ -534,7 +568,7 @@ public class WalletService {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private static class DownloadListener extends DownloadProgressTracker {
-        private final DoubleProperty percentage = new SimpleDoubleProperty(-1);
+        private final ObservableProperty<Double> percentage = new ObservableProperty<>(-1d);
 
         @Override
         protected void progress(double percentage, int blocksLeft, Date date) {
@@ -548,49 +582,58 @@ public class WalletService {
             UserThread.execute(() -> this.percentage.set(1d));
         }
 
-        public ReadOnlyDoubleProperty percentageProperty() {
+        public ReadOnlyObservableProperty<Double> percentageProperty() {
             return percentage;
         }
     }
 
 
+    // Runs on the wallet thread. The indexes are already updated when the wallet was changed, so it only publishes the
+    // derived balances and confidences.
     private class BitsquareWalletEventListener extends AbstractWalletEventListener {
         @Override
         public void onCoinsReceived(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
-            notifyBalanceListeners();
+            notifyBalanceListeners(addressBalanceIndex.takeChangedAddresses(), true);
         }
 
         @Override
         public void onCoinsSent(Wallet wallet, Transaction tx, Coin prevBalance, Coin newBalance) {
-            notifyBalanceListeners();
+            notifyBalanceListeners(addressBalanceIndex.takeChangedAddresses(), true);
         }
 
         @Override
-        public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
-            for (AddressConfidenceListener addressConfidenceListener : addressConfidenceListeners) {
-                List<TransactionConfidence> transactionConfidenceList = new ArrayList<>();
-                transactionConfidenceList.add(getTransactionConfidence(tx, addressConfidenceListener.getAddress()));
+        public void onReorganize(Wallet wallet) {
+            addressBalanceIndex.takeChangedAddresses();
+            notifyBalanceListeners(balanceListenersByAddress.keySet(), true);
+        }
 
-                TransactionConfidence transactionConfidence = getMostRecentConfidence(transactionConfidenceList);
-                addressConfidenceListener.onTransactionConfidenceChanged(transactionConfidence);
+        @Override
+        public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+            Set<Address> changedAddresses = addressBalanceIndex.takeChangedAddresses();
+            if (!changedAddresses.isEmpty())
+                notifyBalanceListeners(changedAddresses, false);
+
+            // Listeners of addresses not touched by that tx would only get a null confidence, which they ignore
+            for (Address address : transactionIndex.getAddresses(tx)) {
+                if (addressConfidenceListeners.containsKey(address))
+                    addressConfidencePublisher.publish(address, tx.getConfidence());
             }
 
-            txConfidenceListeners.stream()
-                    .filter(txConfidenceListener -> tx.getHashAsString().equals(txConfidenceListener.getTxID()))
-                    .forEach(txConfidenceListener ->
-                            txConfidenceListener.onTransactionConfidenceChanged(tx.getConfidence()));
+            if (txConfidenceListeners.containsKey(tx.getHashAsString()))
+                txConfidencePublisher.publish(tx.getHashAsString(), tx.getConfidence());
         }
 
-        private void notifyBalanceListeners() {
-            for (BalanceListener balanceListener : balanceListeners) {
-                Coin balance;
-                if (balanceListener.getAddress() != null)
-                    balance = getBalanceForAddress(balanceListener.getAddress());
-                else
-                    balance = getAvailableBalance();
-
-                balanceListener.onBalanceChanged(balance);
+        // Only the listeners of the changed addresses get notified. The listeners for the wallet balance get notified
+        // if any of our addresses has changed or if the wallet balance might have changed by other means.
+        // The balances are computed here and not on the UserThread, as the wallet balance needs the wallet lock.
+        private void notifyBalanceListeners(Set<Address> changedAddresses, boolean walletBalanceChanged) {
+            for (Address address : changedAddresses) {
+                if (balanceListenersByAddress.containsKey(address))
+                    balancePublisher.publish(address, getBalanceForAddress(address));
             }
+
+            if ((walletBalanceChanged || !changedAddresses.isEmpty()) && !balanceListeners.isEmpty())
+                availableBalancePublisher.publish(AVAILABLE_BALANCE_KEY, getAvailableBalance());
         }
     }
     
@@ -24,7 +24,7 @@ import java.util.Arrays;
 
 public class RawInput implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long index;
     public final byte[] parentTransaction;
@@ -23,7 +23,7 @@ import java.io.Serializable;
 
 public class BlockChainAccountContractData extends PaymentAccountContractData implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private String address;
     private String paymentId;
@@ -24,7 +24,7 @@ import java.io.Serializable;
 
 public abstract class PaymentAccountContractData implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private final String paymentMethodName;
     private final String id;
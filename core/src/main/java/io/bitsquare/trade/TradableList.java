@@ -18,9 +18,8 @@
 package io.bitsquare.trade;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.storage.Storage;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +36,7 @@ public class TradableList<T extends Tradable> extends ArrayList<T> implements Se
 
     transient final private Storage<TradableList<T>> storage;
     // Use getObservableList() also class locally, to be sure that object exists in case we use the object as deserialized form
-    transient private ObservableList<T> observableList;
+    transient private ObservableArrayList<T> observableList;
 
     // Superclass is ArrayList, which will be persisted
 
@@ -52,7 +51,7 @@ public class TradableList<T extends Tradable> extends ArrayList<T> implements Se
         if (persisted != null) {
             this.addAll(persisted);
         }
-        observableList = FXCollections.observableArrayList(this);
+        observableList = new ObservableArrayList<>(this);
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -79,9 +78,9 @@ public class TradableList<T extends Tradable> extends ArrayList<T> implements Se
         return result;
     }
 
-    public ObservableList<T> getObservableList() {
+    public ObservableArrayList<T> getObservableList() {
         if (observableList == null)
-            observableList = FXCollections.observableArrayList(this);
+            observableList = new ObservableArrayList<>(this);
         return observableList;
     }
 
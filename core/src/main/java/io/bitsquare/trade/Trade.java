@@ -26,7 +26,10 @@ import io.bitsquare.arbitration.ArbitratorManager;
 import io.bitsquare.btc.FeePolicy;
 import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.common.taskrunner.Model;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.P2PService;
@@ -37,7 +40,6 @@ import io.bitsquare.trade.offer.OpenOfferManager;
 import io.bitsquare.trade.protocol.trade.ProcessModel;
 import io.bitsquare.trade.protocol.trade.TradeProtocol;
 import io.bitsquare.user.User;
-import javafx.beans.property.*;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionConfidence;
@@ -128,8 +130,8 @@ abstract public class Trade implements Tradable, Model, Serializable {
     // Mutable
     private Coin tradeAmount;
     private Address tradingPeerAddress;
-    private transient ObjectProperty<Coin> tradeAmountProperty;
-    private transient ObjectProperty<Fiat> tradeVolumeProperty;
+    private transient ObservableProperty<Coin> tradeAmountProperty;
+    private transient ObservableProperty<Fiat> tradeVolumeProperty;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -137,9 +139,9 @@ abstract public class Trade implements Tradable, Model, Serializable {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     // Transient/Immutable
-    private transient ObjectProperty<State> processStateProperty;
-    private transient ObjectProperty<DisputeState> disputeStateProperty;
-    private transient ObjectProperty<TradePeriodState> tradePeriodStateProperty;
+    private transient ObservableProperty<State> processStateProperty;
+    private transient ObservableProperty<DisputeState> disputeStateProperty;
+    private transient ObservableProperty<TradePeriodState> tradePeriodStateProperty;
     // Trades are saved in the TradeList
     transient private Storage<? extends TradableList> storage;
     transient protected TradeProtocol tradeProtocol;
@@ -170,7 +172,7 @@ abstract public class Trade implements Tradable, Model, Serializable {
     private boolean halfTradePeriodReachedWarningDisplayed;
     private boolean tradePeriodOverWarningDisplayed;
     private String errorMessage;
-    transient private StringProperty errorMessageProperty;
+    transient private ObservableProperty<String> errorMessageProperty;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -182,9 +184,9 @@ abstract public class Trade implements Tradable, Model, Serializable {
         this.storage = storage;
 
         processModel = new ProcessModel();
-        tradeVolumeProperty = new SimpleObjectProperty<>();
-        tradeAmountProperty = new SimpleObjectProperty<>();
-        errorMessageProperty = new SimpleStringProperty();
+        tradeVolumeProperty = new ObservableProperty<>();
+        tradeAmountProperty = new ObservableProperty<>();
+        errorMessageProperty = new ObservableProperty<>();
 
         initStates();
         initStateProperties();
@@ -206,7 +208,7 @@ abstract public class Trade implements Tradable, Model, Serializable {
             in.defaultReadObject();
             initStateProperties();
             initAmountProperty();
-            errorMessageProperty = new SimpleStringProperty(errorMessage);
+            errorMessageProperty = new ObservableProperty<>(errorMessage);
         } catch (Throwable t) {
             log.trace("Cannot be deserialized." + t.getMessage());
         }
@@ -241,14 +243,14 @@ abstract public class Trade implements Tradable, Model, Serializable {
     }
 
     protected void initStateProperties() {
-        processStateProperty = new SimpleObjectProperty<>(state);
-        disputeStateProperty = new SimpleObjectProperty<>(disputeState);
-        tradePeriodStateProperty = new SimpleObjectProperty<>(tradePeriodState);
+        processStateProperty = new ObservableProperty<>(state);
+        disputeStateProperty = new ObservableProperty<>(disputeState);
+        tradePeriodStateProperty = new ObservableProperty<>(tradePeriodState);
     }
 
     protected void initAmountProperty() {
-        tradeAmountProperty = new SimpleObjectProperty<>();
-        tradeVolumeProperty = new SimpleObjectProperty<>();
+        tradeAmountProperty = new ObservableProperty<>();
+        tradeVolumeProperty = new ObservableProperty<>();
 
         if (tradeAmount != null) {
             tradeAmountProperty.set(tradeAmount);
@@ -381,24 +383,24 @@ abstract public class Trade implements Tradable, Model, Serializable {
     }
 
 
-    public ReadOnlyObjectProperty<? extends State> stateProperty() {
+    public ReadOnlyObservableProperty<State> stateProperty() {
         return processStateProperty;
     }
 
-    public ReadOnlyObjectProperty<Coin> tradeAmountProperty() {
+    public ReadOnlyObservableProperty<Coin> tradeAmountProperty() {
         return tradeAmountProperty;
     }
 
-    public ReadOnlyObjectProperty<Fiat> tradeVolumeProperty() {
+    public ReadOnlyObservableProperty<Fiat> tradeVolumeProperty() {
         return tradeVolumeProperty;
     }
 
 
-    public ReadOnlyObjectProperty<DisputeState> disputeStateProperty() {
+    public ReadOnlyObservableProperty<DisputeState> disputeStateProperty() {
         return disputeStateProperty;
     }
 
-    public ReadOnlyObjectProperty<TradePeriodState> getTradePeriodStateProperty() {
+    public ReadOnlyObservableProperty<TradePeriodState> getTradePeriodStateProperty() {
         return tradePeriodStateProperty;
     }
 
@@ -512,7 +514,7 @@ abstract public class Trade implements Tradable, Model, Serializable {
         errorMessageProperty.set(errorMessage);
     }
 
-    public ReadOnlyStringProperty errorMessageProperty() {
+    public ReadOnlyObservableProperty<String> errorMessageProperty() {
         return errorMessageProperty;
     }
 
@@ -586,7 +588,7 @@ abstract public class Trade implements Tradable, Model, Serializable {
                         log.error(t.getMessage());
                         Throwables.propagate(t);
                     }
-                });
+                }, UserThread.getExecutor());
             }
 
         } else {
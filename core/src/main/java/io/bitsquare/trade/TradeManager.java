@@ -22,10 +22,14 @@ import io.bitsquare.arbitration.ArbitratorManager;
 import io.bitsquare.btc.AddressEntry;
 import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.KeyedSerialExecutor;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.handlers.FaultHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.ObservableArrayList;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.FirstPeerAuthenticatedListener;
 import io.bitsquare.p2p.Message;
@@ -44,9 +48,6 @@ import io.bitsquare.trade.protocol.availability.OfferAvailabilityModel;
 import io.bitsquare.trade.protocol.trade.messages.PayDepositRequest;
 import io.bitsquare.trade.protocol.trade.messages.TradeMessage;
 import io.bitsquare.user.User;
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.SimpleBooleanProperty;
-import javafx.collections.ObservableList;
 import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.InsufficientMoneyException;
@@ -82,7 +83,10 @@ public class TradeManager {
 
     private final Storage<TradableList<Trade>> tradableListStorage;
     private final TradableList<Trade> trades;
-    private final BooleanProperty pendingTradesInitialized = new SimpleBooleanProperty();
+    private final ObservableProperty<Boolean> pendingTradesInitialized = new ObservableProperty<>(false);
+    // CPU heavy protocol work runs here, serial per trade but parallel across trades
+    private final KeyedSerialExecutor tradeExecutor = new KeyedSerialExecutor("TradeExecutor",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
     private FirstPeerAuthenticatedListener firstPeerAuthenticatedListener;
 
 
@@ -171,6 +175,11 @@ public class TradeManager {
         log.trace("onAllServicesInitialized");
     }
 
+    // Queued protocol work still completes, new work is rejected
+    public void shutDown() {
+        tradeExecutor.shutDown();
+    }
+
     private void initPendingTrades() {
         if (firstPeerAuthenticatedListener != null) p2PService.removeP2PServiceListener(firstPeerAuthenticatedListener);
 
@@ -261,6 +270,7 @@ public class TradeManager {
 
     public void checkOfferAvailability(Offer offer,
                                        ResultHandler resultHandler) {
+        warmUpConnections(offer);
         offer.checkOfferAvailability(getOfferAvailabilityModel(offer), resultHandler);
     }
 
@@ -303,6 +313,16 @@ public class TradeManager {
         tradeResultHandler.handleResult(trade);
     }
 
+    // The offerer and the arbitrators are the peers we will send messages to if we take the offer, so we start
+    // building the connections while the user is still looking at the offer.
+    private void warmUpConnections(Offer offer) {
+        List<Address> peerAddresses = new ArrayList<>();
+        peerAddresses.add(offer.getOffererAddress());
+        if (offer.getArbitratorAddresses() != null)
+            peerAddresses.addAll(offer.getArbitratorAddresses());
+        p2PService.warmUpConnections(peerAddresses);
+    }
+
     private OfferAvailabilityModel getOfferAvailabilityModel(Offer offer) {
         return new OfferAvailabilityModel(
                 offer,
@@ -383,11 +403,15 @@ public class TradeManager {
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public ObservableList<Trade> getTrades() {
+    public ObservableArrayList<Trade> getTrades() {
         return trades.getObservableList();
     }
 
-    public BooleanProperty pendingTradesInitializedProperty() {
+    public KeyedSerialExecutor getTradeExecutor() {
+        return tradeExecutor;
+    }
+
+    public ReadOnlyObservableProperty<Boolean> pendingTradesInitializedProperty() {
         return pendingTradesInitialized;
     }
 
@@ -19,11 +19,11 @@ package io.bitsquare.trade.closed;
 
 import com.google.inject.Inject;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.storage.Storage;
 import io.bitsquare.trade.Tradable;
 import io.bitsquare.trade.TradableList;
 import io.bitsquare.trade.offer.Offer;
-import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,7 +50,7 @@ public class ClosedTradableManager {
         return offer.isMyOffer(keyRing);
     }
 
-    public ObservableList<Tradable> getClosedTrades() {
+    public ObservableArrayList<Tradable> getClosedTrades() {
         return closedTrades.getObservableList();
     }
 
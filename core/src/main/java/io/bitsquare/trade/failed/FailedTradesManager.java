@@ -19,11 +19,11 @@ package io.bitsquare.trade.failed;
 
 import com.google.inject.Inject;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.storage.Storage;
 import io.bitsquare.trade.TradableList;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.offer.Offer;
-import javafx.collections.ObservableList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,7 +50,7 @@ public class FailedTradesManager {
         return offer.isMyOffer(keyRing);
     }
 
-    public ObservableList<Trade> getFailedTrades() {
+    public ObservableArrayList<Trade> getFailedTrades() {
         return failedTrades.getObservableList();
     }
 
@@ -0,0 +1,183 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.common.UserThread;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregated offer amounts per price level, per currency and direction.
+ * Levels are updated in O(log n) when an offer gets added to or removed from the order book. Changed levels are
+ * collected and delivered to the listeners in batches at most every UPDATE_INTERVAL ms, so a burst of offers
+ * (e.g. at startup) causes only a few updates of a chart.
+ * Not thread safe. Run in UserThread.
+ */
+public class MarketDepth implements OrderBook.Listener {
+    private static final long UPDATE_INTERVAL = 100;
+
+    public interface Listener {
+        // Changed levels since the last call. A level with amount 0 got removed.
+        void onDepthChanged(List<LevelChange> changes);
+    }
+
+    public static final class LevelChange {
+        public final String currencyCode;
+        public final Offer.Direction direction;
+        public final long price;
+        public final long amount;
+
+        public LevelChange(String currencyCode, Offer.Direction direction, long price, long amount) {
+            this.currencyCode = currencyCode;
+            this.direction = direction;
+            this.price = price;
+            this.amount = amount;
+        }
+
+        @Override
+        public String toString() {
+            return "LevelChange{" +
+                    "currencyCode='" + currencyCode + '\'' +
+                    ", direction=" + direction +
+                    ", price=" + price +
+                    ", amount=" + amount +
+                    '}';
+        }
+    }
+
+    // currencyCode -> direction -> price -> sum of offer amounts (in satoshi)
+    private final Map<String, Map<Offer.Direction, TreeMap<Long, Long>>> levels = new HashMap<>();
+    // Changed levels since the last update, keyed by currencyCode/direction/price so that repeated changes of one
+    // level are delivered only once
+    private final Map<String, LevelChange> pendingChanges = new LinkedHashMap<>();
+    private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+    private Timer updateTimer;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public MarketDepth(OrderBook orderBook) {
+        orderBook.getCurrencyCodes().stream().forEach(currencyCode -> {
+            orderBook.getOffers(currencyCode, Offer.Direction.BUY).stream().forEach(this::add);
+            orderBook.getOffers(currencyCode, Offer.Direction.SELL).stream().forEach(this::add);
+        });
+        pendingChanges.clear();
+        orderBook.addListener(this);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // OrderBook.Listener implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onOfferAdded(Offer offer) {
+        add(offer);
+        scheduleUpdate();
+    }
+
+    @Override
+    public void onOfferRemoved(Offer offer) {
+        TreeMap<Long, Long> map = getOrCreateLevels(offer.getCurrencyCode(), offer.getDirection());
+        long price = offer.getPrice().value;
+        Long amount = map.get(price);
+        if (amount != null) {
+            long newAmount = amount - offer.getAmount().value;
+            if (newAmount > 0)
+                map.put(price, newAmount);
+            else
+                map.remove(price);
+            addPendingChange(offer, price, Math.max(newAmount, 0));
+            scheduleUpdate();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Snapshot of the levels sorted from the best price to the worst one (price -> amount)
+    public SortedMap<Long, Long> getLevels(String currencyCode, Offer.Direction direction) {
+        Map<Offer.Direction, TreeMap<Long, Long>> map = levels.get(currencyCode);
+        TreeMap<Long, Long> levelsOfDirection = map != null ? map.get(direction) : null;
+        if (levelsOfDirection == null)
+            return new TreeMap<>();
+        return new TreeMap<>(direction == Offer.Direction.BUY ? levelsOfDirection.descendingMap() : levelsOfDirection);
+    }
+
+    // Snapshot of the cumulative amounts from the best price to the worst one (price -> accumulated amount)
+    public LinkedHashMap<Long, Long> getCumulativeLevels(String currencyCode, Offer.Direction direction) {
+        LinkedHashMap<Long, Long> result = new LinkedHashMap<>();
+        long accumulated = 0;
+        for (Map.Entry<Long, Long> entry : getLevels(currencyCode, direction).entrySet()) {
+            accumulated += entry.getValue();
+            result.put(entry.getKey(), accumulated);
+        }
+        return result;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void add(Offer offer) {
+        TreeMap<Long, Long> map = getOrCreateLevels(offer.getCurrencyCode(), offer.getDirection());
+        long price = offer.getPrice().value;
+        long newAmount = map.getOrDefault(price, 0L) + offer.getAmount().value;
+        map.put(price, newAmount);
+        addPendingChange(offer, price, newAmount);
+    }
+
+    private void addPendingChange(Offer offer, long price, long amount) {
+        String key = offer.getCurrencyCode() + "/" + offer.getDirection() + "/" + price;
+        pendingChanges.put(key, new LevelChange(offer.getCurrencyCode(), offer.getDirection(), price, amount));
+    }
+
+    private void scheduleUpdate() {
+        if (updateTimer == null) {
+            updateTimer = UserThread.runAfter(() -> {
+                updateTimer = null;
+                List<LevelChange> changes = new ArrayList<>(pendingChanges.values());
+                pendingChanges.clear();
+                if (!changes.isEmpty())
+                    listeners.stream().forEach(e -> e.onDepthChanged(changes));
+            }, UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private TreeMap<Long, Long> getOrCreateLevels(String currencyCode, Offer.Direction direction) {
+        return levels.computeIfAbsent(currencyCode, k -> new EnumMap<>(Offer.Direction.class))
+                .computeIfAbsent(direction, k -> new TreeMap<>());
+    }
+}
@@ -19,9 +19,13 @@ package io.bitsquare.trade.offer;
 
 import io.bitsquare.app.Version;
 import io.bitsquare.btc.Restrictions;
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.crypto.PubKeyRing;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.common.util.JsonExclude;
 import io.bitsquare.locale.Country;
 import io.bitsquare.p2p.Address;
@@ -29,7 +33,6 @@ import io.bitsquare.p2p.storage.data.PubKeyProtectedExpirablePayload;
 import io.bitsquare.payment.PaymentMethod;
 import io.bitsquare.trade.protocol.availability.OfferAvailabilityModel;
 import io.bitsquare.trade.protocol.availability.OfferAvailabilityProtocol;
-import javafx.beans.property.*;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.utils.ExchangeRate;
 import org.bitcoinj.utils.Fiat;
@@ -45,10 +48,10 @@ import java.util.List;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public final class Offer implements PubKeyProtectedExpirablePayload {
+public final class Offer implements PubKeyProtectedExpirablePayload, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
     @JsonExclude
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
     @JsonExclude
     transient private static final Logger log = LoggerFactory.getLogger(Offer.class);
 
@@ -96,14 +99,17 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
 
     @JsonExclude
     transient private State state = State.UNDEFINED;
-    // Those state properties are transient and only used at runtime! 
-    // don't access directly as it might be null; use getStateProperty() which creates an object if not instantiated
     @JsonExclude
-    transient private ObjectProperty<State> stateProperty = new SimpleObjectProperty<>(state);
+    transient private String errorMessage;
+    // Those state properties are transient and only used at runtime!
+    // They are only created when requested as most offers in the offer book are never observed.
+    // Don't access directly as it might be null; use stateProperty() and errorMessageProperty().
+    @JsonExclude
+    transient private ObservableProperty<State> stateProperty;
     @JsonExclude
     transient private OfferAvailabilityProtocol availabilityProtocol;
     @JsonExclude
-    transient private StringProperty errorMessageProperty = new SimpleStringProperty();
+    transient private ObservableProperty<String> errorMessageProperty;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -144,10 +150,9 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         try {
             in.defaultReadObject();
-            stateProperty = new SimpleObjectProperty<>(State.UNDEFINED);
-
-            // we don't need to fill it as the error message is only relevant locally, so we don't store it in the transmitted object
-            errorMessageProperty = new SimpleStringProperty();
+            // transient fields are not initialized by deserialization
+            // we don't need to fill the error message as it is only relevant locally, so we don't store it in the transmitted object
+            state = State.UNDEFINED;
         } catch (Throwable t) {
             log.trace("Cannot be deserialized." + t.getMessage());
         }
@@ -231,7 +236,8 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
 
     public void setState(State state) {
         this.state = state;
-        stateProperty().set(state);
+        if (stateProperty != null)
+            stateProperty.set(state);
     }
 
     public void setOfferFeePaymentTxID(String offerFeePaymentTxID) {
@@ -239,7 +245,9 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
     }
 
     public void setErrorMessage(String errorMessage) {
-        this.errorMessageProperty.set(errorMessage);
+        this.errorMessage = errorMessage;
+        if (errorMessageProperty != null)
+            errorMessageProperty.set(errorMessage);
     }
 
 
@@ -328,7 +336,9 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
         return state;
     }
 
-    public ObjectProperty<State> stateProperty() {
+    public ReadOnlyObservableProperty<State> stateProperty() {
+        if (stateProperty == null)
+            stateProperty = new ObservableProperty<>(state);
         return stateProperty;
     }
 
@@ -336,10 +346,33 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
         return offererPaymentAccountId;
     }
 
-    public ReadOnlyStringProperty errorMessageProperty() {
+    public ReadOnlyObservableProperty<String> errorMessageProperty() {
+        if (errorMessageProperty == null)
+            errorMessageProperty = new ObservableProperty<>(errorMessage);
         return errorMessageProperty;
     }
 
+    // All persisted fields in declaration order. The transient state is not part of the encoding.
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("Offer")
+                .writeString(id)
+                .writeEnum(direction)
+                .writeString(currencyCode)
+                .writeLong(date)
+                .writeLong(fiatPrice)
+                .writeLong(amount)
+                .writeLong(minAmount)
+                .write(offererAddress)
+                .write(pubKeyRing)
+                .writeString(paymentMethodName)
+                .writeString(paymentMethodCountryCode)
+                .writeString(offererPaymentAccountId)
+                .writeStrings(acceptedCountryCodes)
+                .writeList(arbitratorAddresses)
+                .writeString(offerFeePaymentTxID);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -410,9 +443,8 @@ public final class Offer implements PubKeyProtectedExpirablePayload {
                 ", arbitratorAddresses=" + arbitratorAddresses +
                 ", offerFeePaymentTxID='" + offerFeePaymentTxID + '\'' +
                 ", state=" + state +
-                ", stateProperty=" + stateProperty +
                 ", availabilityProtocol=" + availabilityProtocol +
-                ", errorMessageProperty=" + errorMessageProperty +
+                ", errorMessage=" + errorMessage +
                 ", TAC_OFFERER=" + TAC_OFFERER +
                 ", TAC_TAKER=" + TAC_TAKER +
                 '}';
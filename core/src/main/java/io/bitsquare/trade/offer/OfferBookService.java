@@ -74,6 +74,37 @@ public class OfferBookService {
         }
     }
 
+    // Adds the offers in one pass and reports the result once. There is no batch message in the P2P network, so each
+    // offer is still added as its own data entry. We continue after a failure, the caller removes all offers then.
+    public void addOffers(List<Offer> offers, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
+        List<String> failedOfferIds = offers.stream()
+                .filter(offer -> !p2PService.addData(offer))
+                .map(Offer::getId)
+                .collect(Collectors.toList());
+
+        if (failedOfferIds.isEmpty()) {
+            log.trace("Add {} offers to network was successful.", offers.size());
+            resultHandler.handleResult();
+        } else {
+            errorMessageHandler.handleErrorMessage("Add offers failed for offer IDs " + failedOfferIds);
+        }
+    }
+
+    public void removeOffers(List<Offer> offers, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
+        List<String> failedOfferIds = offers.stream()
+                .filter(offer -> !p2PService.removeData(offer))
+                .map(Offer::getId)
+                .collect(Collectors.toList());
+
+        if (failedOfferIds.isEmpty()) {
+            log.trace("Remove {} offers from network was successful.", offers.size());
+            if (resultHandler != null) resultHandler.handleResult();
+        } else {
+            if (errorMessageHandler != null)
+                errorMessageHandler.handleErrorMessage("Remove offers failed for offer IDs " + failedOfferIds);
+        }
+    }
+
     public void removeOffer(Offer offer, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
         if (p2PService.removeData(offer)) {
             log.trace("Remove offer from network was successful. Offer = " + offer);
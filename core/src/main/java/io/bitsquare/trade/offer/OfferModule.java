@@ -34,5 +34,7 @@ public class OfferModule extends AppModule {
     protected final void configure() {
         bind(OpenOfferManager.class).in(Singleton.class);
         bind(OfferBookService.class).in(Singleton.class);
+        bind(OrderBook.class).in(Singleton.class);
+        bind(MarketDepth.class).in(Singleton.class);
     }
 }
\ No newline at end of file
@@ -18,18 +18,18 @@
 package io.bitsquare.trade.offer;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.util.Utilities;
 import io.bitsquare.storage.Storage;
 import io.bitsquare.trade.Tradable;
 import io.bitsquare.trade.TradableList;
-import org.reactfx.util.FxTimer;
-import org.reactfx.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.time.Duration;
 import java.util.Date;
+import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 public class OpenOffer implements Tradable, Serializable {
     // That object is saved to disc. We need to take care of changes to not break deserialization.
@@ -100,19 +100,19 @@ public class OpenOffer implements Tradable, Serializable {
     private void startTimeout() {
         stopTimeout();
 
-        timeoutTimer = FxTimer.runLater(
-                Duration.ofMillis(TIMEOUT),
+        timeoutTimer = UserThread.runAfter(
                 () -> {
                     Utilities.setThreadName("OpenOffer:Timeout");
                     log.info("Timeout reached");
                     if (state == State.RESERVED)
                         setState(State.AVAILABLE);
-                });
+                },
+                TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     private void stopTimeout() {
         if (timeoutTimer != null) {
-            timeoutTimer.stop();
+            timeoutTimer.cancel();
             timeoutTimer = null;
         }
     }
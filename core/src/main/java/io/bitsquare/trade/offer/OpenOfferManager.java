@@ -24,6 +24,7 @@ import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.ObservableArrayList;
 import io.bitsquare.common.util.Utilities;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.FirstPeerAuthenticatedListener;
@@ -38,19 +39,20 @@ import io.bitsquare.trade.protocol.availability.messages.OfferAvailabilityReques
 import io.bitsquare.trade.protocol.availability.messages.OfferAvailabilityResponse;
 import io.bitsquare.trade.protocol.placeoffer.PlaceOfferModel;
 import io.bitsquare.trade.protocol.placeoffer.PlaceOfferProtocol;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersModel;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersProtocol;
 import io.bitsquare.user.User;
-import javafx.collections.ObservableList;
-import org.reactfx.util.FxTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.inject.Named;
 import java.io.File;
-import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.inject.internal.util.$Preconditions.checkNotNull;
 import static io.bitsquare.util.Validator.nonEmptyStringOf;
@@ -190,7 +192,7 @@ public class OpenOfferManager {
             }
 
             if (completeHandler != null)
-                FxTimer.runLater(Duration.ofMillis(500), completeHandler::run);
+                UserThread.runAfter(completeHandler::run, 500, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -217,6 +219,31 @@ public class OpenOfferManager {
         placeOfferProtocol.placeOffer();
     }
 
+    // Places all offers with one offer fee transaction and publishes them together. Used by market makers who post
+    // many offers at once, it saves the miner fees of the single transactions and the serial signing and broadcasts.
+    public void onPlaceOffers(List<Offer> offers,
+                              TransactionResultHandler resultHandler,
+                              ErrorMessageHandler errorMessageHandler) {
+        long ts = System.currentTimeMillis();
+        PlaceOffersModel model = new PlaceOffersModel(offers, walletService, tradeWalletService, offerBookService, user);
+
+        PlaceOffersProtocol placeOffersProtocol = new PlaceOffersProtocol(
+                model,
+                transaction -> {
+                    offers.stream().forEach(offer -> openOffers.add(new OpenOffer(offer, openOffersStorage)));
+                    openOffersStorage.queueUpForSave();
+
+                    long duration = Math.max(1, System.currentTimeMillis() - ts);
+                    log.info("Placed {} offers in {} ms ({} offers per minute)",
+                            offers.size(), duration, offers.size() * 60000L / duration);
+                    resultHandler.handleResult(transaction);
+                },
+                errorMessageHandler
+        );
+
+        placeOffersProtocol.placeOffers();
+    }
+
 
     public void onRemoveOpenOffer(Offer offer, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
         Optional<OpenOffer> openOfferOptional = findOpenOffer(offer.getId());
@@ -250,7 +277,7 @@ public class OpenOfferManager {
         return offer.isMyOffer(keyRing);
     }
 
-    public ObservableList<OpenOffer> getOpenOffers() {
+    public ObservableArrayList<OpenOffer> getOpenOffers() {
         return openOffers.getObservableList();
     }
 
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.p2p.storage.HashMapChangedListener;
+import io.bitsquare.p2p.storage.data.ProtectedData;
+import io.bitsquare.payment.PaymentMethod;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.utils.Fiat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Collectors;
+
+/**
+ * Offers of the network sorted by price-time priority per currency and direction.
+ * The book gets updated incrementally when offers are added or removed from the P2P network storage.
+ * BUY offers (bids) are sorted by descending price, SELL offers (asks) by ascending price, so the first offer is always
+ * the best one. Offers with the same price are sorted by creation date.
+ * Each book is also split by payment method, so matching offers are found without walking the offers of other
+ * payment methods.
+ * Not thread safe. Run in UserThread.
+ */
+public class OrderBook {
+    private static final Logger log = LoggerFactory.getLogger(OrderBook.class);
+
+    public interface Listener {
+        void onOfferAdded(Offer offer);
+
+        void onOfferRemoved(Offer offer);
+    }
+
+    private static final Comparator<Offer> ASK_COMPARATOR = Comparator
+            .comparingLong((Offer offer) -> offer.getPrice().value)
+            .thenComparing(Offer::getDate)
+            .thenComparing(Offer::getId);
+    private static final Comparator<Offer> BID_COMPARATOR = Comparator
+            .comparingLong((Offer offer) -> -offer.getPrice().value)
+            .thenComparing(Offer::getDate)
+            .thenComparing(Offer::getId);
+
+    // currencyCode -> direction -> sorted offers
+    private final Map<String, Map<Offer.Direction, TreeSet<Offer>>> books = new HashMap<>();
+    // currencyCode -> direction -> paymentMethodId -> sorted offers
+    private final Map<String, Map<Offer.Direction, Map<String, TreeSet<Offer>>>> paymentMethodBooks = new HashMap<>();
+    private final Map<String, Offer> offersById = new HashMap<>();
+    private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public OrderBook(OfferBookService offerBookService) {
+        offerBookService.getOffers().stream().forEach(this::add);
+        offerBookService.addHashSetChangedListener(new HashMapChangedListener() {
+            @Override
+            public void onAdded(ProtectedData entry) {
+                if (entry.expirablePayload instanceof Offer)
+                    add((Offer) entry.expirablePayload);
+            }
+
+            @Override
+            public void onRemoved(ProtectedData entry) {
+                if (entry.expirablePayload instanceof Offer)
+                    remove((Offer) entry.expirablePayload);
+            }
+        });
+    }
+
+    // Used for tests and tools which feed the offers themselves
+    public OrderBook() {
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Update
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void add(Offer offer) {
+        if (!offersById.containsKey(offer.getId())) {
+            offersById.put(offer.getId(), offer);
+            getOrCreateBook(offer.getCurrencyCode(), offer.getDirection()).add(offer);
+            getOrCreatePaymentMethodBook(offer).add(offer);
+            listeners.stream().forEach(e -> e.onOfferAdded(offer));
+        }
+    }
+
+    public void remove(Offer offer) {
+        // The removed offer might be another instance (deserialized from the remove message), so we use our own
+        Offer storedOffer = offersById.remove(offer.getId());
+        if (storedOffer != null) {
+            TreeSet<Offer> book = getOrCreateBook(storedOffer.getCurrencyCode(), storedOffer.getDirection());
+            book.remove(storedOffer);
+            getOrCreatePaymentMethodBook(storedOffer).remove(storedOffer);
+            listeners.stream().forEach(e -> e.onOfferRemoved(storedOffer));
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Queries
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public Optional<Offer> getBestOffer(String currencyCode, Offer.Direction direction) {
+        TreeSet<Offer> book = getBook(currencyCode, direction);
+        return book.isEmpty() ? Optional.empty() : Optional.of(book.first());
+    }
+
+    // Sorted by price-time priority
+    public List<Offer> getOffers(String currencyCode, Offer.Direction direction) {
+        return new ArrayList<>(getBook(currencyCode, direction));
+    }
+
+    // Offers which can be taken with the given payment method and an amount in between minAmount and maxAmount,
+    // sorted by price-time priority. Only the offers of that payment method are visited. The amount range is not
+    // indexed, so we filter those in priority order and stop at maxResults.
+    public List<Offer> getMatchingOffers(String currencyCode, Offer.Direction direction, PaymentMethod paymentMethod,
+                                         Coin minAmount, Coin maxAmount, int maxResults) {
+        return getPaymentMethodBook(currencyCode, direction, paymentMethod.getId()).stream()
+                .filter(e -> e.getMinAmount().compareTo(maxAmount) <= 0 && e.getAmount().compareTo(minAmount) >= 0)
+                .limit(maxResults)
+                .collect(Collectors.toList());
+    }
+
+    public List<Offer> getMatchingOffers(String currencyCode, Offer.Direction direction, PaymentMethod paymentMethod,
+                                         Coin minAmount, Coin maxAmount) {
+        return getMatchingOffers(currencyCode, direction, paymentMethod, minAmount, maxAmount, Integer.MAX_VALUE);
+    }
+
+    // Sum of the amounts of all offers with the same or a better price than the given one
+    public Coin getCumulativeAmount(String currencyCode, Offer.Direction direction, Fiat price) {
+        TreeSet<Offer> book = getBook(currencyCode, direction);
+        long value = 0;
+        for (Offer offer : book) {
+            if (direction == Offer.Direction.BUY ? offer.getPrice().value < price.value : offer.getPrice().value > price.value)
+                break;
+            value += offer.getAmount().value;
+        }
+        return Coin.valueOf(value);
+    }
+
+    public Optional<Offer> getOfferById(String offerId) {
+        return Optional.ofNullable(offersById.get(offerId));
+    }
+
+    public Set<String> getCurrencyCodes() {
+        return books.keySet();
+    }
+
+    public int size() {
+        return offersById.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private TreeSet<Offer> getBook(String currencyCode, Offer.Direction direction) {
+        Map<Offer.Direction, TreeSet<Offer>> map = books.get(currencyCode);
+        if (map != null && map.containsKey(direction))
+            return map.get(direction);
+        else
+            return new TreeSet<>();
+    }
+
+    private TreeSet<Offer> getPaymentMethodBook(String currencyCode, Offer.Direction direction, String paymentMethodId) {
+        Map<Offer.Direction, Map<String, TreeSet<Offer>>> map = paymentMethodBooks.get(currencyCode);
+        if (map != null && map.containsKey(direction) && map.get(direction).containsKey(paymentMethodId))
+            return map.get(direction).get(paymentMethodId);
+        else
+            return new TreeSet<>();
+    }
+
+    private TreeSet<Offer> getOrCreatePaymentMethodBook(Offer offer) {
+        Offer.Direction direction = offer.getDirection();
+        return paymentMethodBooks.computeIfAbsent(offer.getCurrencyCode(), k -> new EnumMap<>(Offer.Direction.class))
+                .computeIfAbsent(direction, k -> new HashMap<>())
+                .computeIfAbsent(offer.getPaymentMethod().getId(),
+                        k -> new TreeSet<>(direction == Offer.Direction.BUY ? BID_COMPARATOR : ASK_COMPARATOR));
+    }
+
+    private TreeSet<Offer> getOrCreateBook(String currencyCode, Offer.Direction direction) {
+        return books.computeIfAbsent(currencyCode, k -> new EnumMap<>(Offer.Direction.class))
+                .computeIfAbsent(direction, k -> new TreeSet<>(direction == Offer.Direction.BUY ? BID_COMPARATOR : ASK_COMPARATOR));
+    }
+}
@@ -17,6 +17,7 @@
 
 package io.bitsquare.trade.protocol.availability;
 
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
 import io.bitsquare.common.taskrunner.TaskRunner;
@@ -29,12 +30,11 @@ import io.bitsquare.trade.protocol.availability.messages.OfferMessage;
 import io.bitsquare.trade.protocol.availability.tasks.GetPeerAddress;
 import io.bitsquare.trade.protocol.availability.tasks.ProcessOfferAvailabilityResponse;
 import io.bitsquare.trade.protocol.availability.tasks.SendOfferAvailabilityRequest;
-import org.reactfx.util.FxTimer;
-import org.reactfx.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
+import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 import static io.bitsquare.util.Validator.nonEmptyStringOf;
 
@@ -77,7 +77,7 @@ public class OfferAvailabilityProtocol {
 
     private void cleanup() {
         stopTimeout();
-        model.p2PService.removeDecryptedMailListener(decryptedMailListener);
+        model.p2PService.removeDecryptedMailListener(model.offer.getId(), decryptedMailListener);
     }
 
 
@@ -89,7 +89,7 @@ public class OfferAvailabilityProtocol {
         // reset
         model.offer.setState(Offer.State.UNDEFINED);
 
-        model.p2PService.addDecryptedMailListener(decryptedMailListener);
+        model.p2PService.addDecryptedMailListener(model.offer.getId(), decryptedMailListener);
 
         taskRunner = new TaskRunner<>(model,
                 () -> {
@@ -103,8 +103,8 @@ public class OfferAvailabilityProtocol {
                 }
         );
         taskRunner.addTasks(
-                GetPeerAddress.class,
-                SendOfferAvailabilityRequest.class
+                GetPeerAddress::new,
+                SendOfferAvailabilityRequest::new
         );
         startTimeout();
         taskRunner.run();
@@ -137,23 +137,23 @@ public class OfferAvailabilityProtocol {
                     errorMessageHandler.handleErrorMessage(errorMessage);
                 }
         );
-        taskRunner.addTasks(ProcessOfferAvailabilityResponse.class);
+        taskRunner.addTasks(ProcessOfferAvailabilityResponse::new);
         taskRunner.run();
     }
 
     private void startTimeout() {
         stopTimeout();
 
-        timeoutTimer = FxTimer.runLater(Duration.ofMillis(TIMEOUT), () -> {
+        timeoutTimer = UserThread.runAfter(() -> {
             Utilities.setThreadName("OfferAvailabilityProtocol:Timeout");
             log.warn("Timeout reached");
             errorMessageHandler.handleErrorMessage("Timeout reached: Peer has not responded.");
-        });
+        }, TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     private void stopTimeout() {
         if (timeoutTimer != null) {
-            timeoutTimer.stop();
+            timeoutTimer.cancel();
             timeoutTimer = null;
         }
     }
@@ -70,10 +70,10 @@ public class PlaceOfferProtocol {
                 }
         );
         taskRunner.addTasks(
-                ValidateOffer.class,
-                CreateOfferFeeTx.class,
-                AddOfferToRemoteOfferBook.class,
-                BroadcastCreateOfferFeeTx.class
+                ValidateOffer::new,
+                CreateOfferFeeTx::new,
+                AddOfferToRemoteOfferBook::new,
+                BroadcastCreateOfferFeeTx::new
         );
 
         taskRunner.run();
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer;
+
+import io.bitsquare.btc.TradeWalletService;
+import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.taskrunner.Model;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.offer.OfferBookService;
+import io.bitsquare.user.User;
+import org.bitcoinj.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Model for placing several offers with one offer fee transaction
+public class PlaceOffersModel implements Model {
+    private static final Logger log = LoggerFactory.getLogger(PlaceOffersModel.class);
+
+    public final List<Offer> offers;
+    public final WalletService walletService;
+    public final TradeWalletService tradeWalletService;
+    public final OfferBookService offerBookService;
+    public final User user;
+    public boolean offersAddedToOfferBook;
+    private Transaction transaction;
+
+    public PlaceOffersModel(List<Offer> offers,
+                            WalletService walletService,
+                            TradeWalletService tradeWalletService,
+                            OfferBookService offerBookService,
+                            User user) {
+        this.offers = offers;
+        this.walletService = walletService;
+        this.tradeWalletService = tradeWalletService;
+        this.offerBookService = offerBookService;
+        this.user = user;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        offers.stream().forEach(offer -> offer.setErrorMessage(errorMessage));
+    }
+
+    @Override
+    public void persist() {
+
+    }
+
+    @Override
+    public void onComplete() {
+
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer;
+
+import io.bitsquare.common.handlers.ErrorMessageHandler;
+import io.bitsquare.common.taskrunner.TaskRunner;
+import io.bitsquare.trade.handlers.TransactionResultHandler;
+import io.bitsquare.trade.protocol.placeoffer.tasks.AddOffersToRemoteOfferBook;
+import io.bitsquare.trade.protocol.placeoffer.tasks.BroadcastBatchedOfferFeeTx;
+import io.bitsquare.trade.protocol.placeoffer.tasks.CreateBatchedOfferFeeTx;
+import io.bitsquare.trade.protocol.placeoffer.tasks.ValidateOffers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Same as PlaceOfferProtocol but for several offers which get their offer fee paid by one transaction
+public class PlaceOffersProtocol {
+    private static final Logger log = LoggerFactory.getLogger(PlaceOffersProtocol.class);
+
+    private final PlaceOffersModel model;
+    private final TransactionResultHandler resultHandler;
+    private final ErrorMessageHandler errorMessageHandler;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public PlaceOffersProtocol(PlaceOffersModel model,
+                               TransactionResultHandler resultHandler,
+                               ErrorMessageHandler errorMessageHandler) {
+        this.model = model;
+        this.resultHandler = resultHandler;
+        this.errorMessageHandler = errorMessageHandler;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Called from UI
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void placeOffers() {
+        log.debug("Place {} offers", model.offers.size());
+        TaskRunner<PlaceOffersModel> taskRunner = new TaskRunner<>(model,
+                () -> {
+                    log.debug("sequence at placeOffers completed");
+                    resultHandler.handleResult(model.getTransaction());
+                },
+                (errorMessage) -> {
+                    log.error(errorMessage);
+
+                    if (model.offersAddedToOfferBook) {
+                        model.offerBookService.removeOffers(model.offers,
+                                () -> {
+                                    model.offersAddedToOfferBook = false;
+                                    log.debug("Offers removed from offer book.");
+                                },
+                                errorMessage2 -> log.error(errorMessage2));
+                    }
+                    errorMessageHandler.handleErrorMessage(errorMessage);
+                }
+        );
+        taskRunner.addTasks(
+                ValidateOffers::new,
+                CreateBatchedOfferFeeTx::new,
+                AddOffersToRemoteOfferBook::new,
+                BroadcastBatchedOfferFeeTx::new
+        );
+
+        taskRunner.run();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer.tasks;
+
+import io.bitsquare.common.taskrunner.Task;
+import io.bitsquare.common.taskrunner.TaskRunner;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AddOffersToRemoteOfferBook extends Task<PlaceOffersModel> {
+    private static final Logger log = LoggerFactory.getLogger(AddOffersToRemoteOfferBook.class);
+
+    public AddOffersToRemoteOfferBook(TaskRunner taskHandler, PlaceOffersModel model) {
+        super(taskHandler, model);
+    }
+
+    @Override
+    protected void run() {
+        try {
+            runInterceptHook();
+            // Some offers might have been added before a failure, so the protocol removes them at a fault
+            model.offersAddedToOfferBook = true;
+            model.offerBookService.addOffers(model.offers,
+                    this::complete,
+                    errorMessage -> {
+                        model.setErrorMessage("Could not add offers to offerbook.\n" +
+                                "Please check your network connection and try again.");
+
+                        failed(errorMessage);
+                    });
+        } catch (Throwable t) {
+            model.setErrorMessage("An error occurred.\n" +
+                    "Error message:\n"
+                    + t.getMessage());
+
+            failed(t);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer.tasks;
+
+import com.google.common.util.concurrent.FutureCallback;
+import io.bitsquare.common.taskrunner.Task;
+import io.bitsquare.common.taskrunner.TaskRunner;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersModel;
+import org.bitcoinj.core.Transaction;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Unlike BroadcastCreateOfferFeeTx we don't check the balances here, createBatchedTradingFeeTx has already checked
+// that each offer can pay its share.
+public class BroadcastBatchedOfferFeeTx extends Task<PlaceOffersModel> {
+    private static final Logger log = LoggerFactory.getLogger(BroadcastBatchedOfferFeeTx.class);
+
+    private boolean removeOffersFailed;
+    private boolean addOffersFailed;
+
+    public BroadcastBatchedOfferFeeTx(TaskRunner taskHandler, PlaceOffersModel model) {
+        super(taskHandler, model);
+    }
+
+    @Override
+    protected void run() {
+        try {
+            runInterceptHook();
+            model.tradeWalletService.broadcastTx(model.getTransaction(), new FutureCallback<Transaction>() {
+                @Override
+                public void onSuccess(Transaction transaction) {
+                    log.info("Broadcast of batched offer fee payment succeeded: transaction = " + transaction.toString());
+
+                    if (model.getTransaction().getHashAsString().equals(transaction.getHashAsString())) {
+                        model.offers.stream().forEach(offer -> offer.setState(Offer.State.OFFER_FEE_PAID));
+                        // No tx malleability happened after broadcast (still not in blockchain)
+                        complete();
+                    } else {
+                        log.warn("Tx malleability happened after broadcast. We publish the changed offers to the P2P network again.");
+                        // Same as in BroadcastCreateOfferFeeTx: We remove the offers and publish them again with
+                        // the new TxId.
+                        model.offerBookService.removeOffers(model.offers,
+                                () -> {
+                                    model.offers.stream().forEach(offer ->
+                                            offer.setOfferFeePaymentTxID(transaction.getHashAsString()));
+                                    model.setTransaction(transaction);
+
+                                    model.offerBookService.addOffers(model.offers,
+                                            BroadcastBatchedOfferFeeTx.this::complete,
+                                            errorMessage -> {
+                                                log.error("addOffers failed");
+                                                addOffersFailed = true;
+                                                updateStateOnFault();
+                                                model.setErrorMessage("An error occurred when adding the offers to the P2P network.\n" +
+                                                        "Error message:\n"
+                                                        + errorMessage);
+                                                failed(errorMessage);
+                                            });
+                                },
+                                errorMessage -> {
+                                    log.error("removeOffers failed");
+                                    removeOffersFailed = true;
+                                    updateStateOnFault();
+                                    model.setErrorMessage("An error occurred when removing the offers from the P2P network.\n" +
+                                            "Error message:\n"
+                                            + errorMessage);
+                                    failed(errorMessage);
+                                });
+                    }
+                }
+
+                @Override
+                public void onFailure(@NotNull Throwable t) {
+                    updateStateOnFault();
+                    model.setErrorMessage("An error occurred.\n" +
+                            "Error message:\n"
+                            + t.getMessage());
+                    failed(t);
+                }
+            });
+        } catch (Throwable t) {
+            model.setErrorMessage("An error occurred.\n" +
+                    "Error message:\n"
+                    + t.getMessage());
+            failed(t);
+        }
+    }
+
+    private void updateStateOnFault() {
+        if (!removeOffersFailed && !addOffersFailed) {
+            // If broadcast fails we need to remove the offers from offerbook
+            model.offerBookService.removeOffers(model.offers,
+                    () -> log.info("Offers removed from offerbook because broadcast failed."),
+                    errorMessage -> log.error("removeOffers failed. " + errorMessage));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer.tasks;
+
+import io.bitsquare.arbitration.Arbitrator;
+import io.bitsquare.btc.AddressEntry;
+import io.bitsquare.btc.FeePolicy;
+import io.bitsquare.common.taskrunner.Task;
+import io.bitsquare.common.taskrunner.TaskRunner;
+import io.bitsquare.p2p.Address;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersModel;
+import io.bitsquare.trade.protocol.trade.ArbitrationSelectionRule;
+import org.bitcoinj.core.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CreateBatchedOfferFeeTx extends Task<PlaceOffersModel> {
+    private static final Logger log = LoggerFactory.getLogger(CreateBatchedOfferFeeTx.class);
+
+    public CreateBatchedOfferFeeTx(TaskRunner taskHandler, PlaceOffersModel model) {
+        super(taskHandler, model);
+    }
+
+    @Override
+    protected void run() {
+        try {
+            runInterceptHook();
+
+            List<AddressEntry> addressEntries = new ArrayList<>();
+            List<String> feeReceiverAddresses = new ArrayList<>();
+            for (Offer offer : model.offers) {
+                Address selectedArbitratorAddress = ArbitrationSelectionRule.select(model.user.getAcceptedArbitratorAddresses(), offer);
+                log.debug("selectedArbitratorAddress " + selectedArbitratorAddress);
+                Arbitrator selectedArbitrator = model.user.getAcceptedArbitratorByAddress(selectedArbitratorAddress);
+                addressEntries.add(model.walletService.getAddressEntryByOfferId(offer.getId()));
+                feeReceiverAddresses.add(selectedArbitrator.getBtcAddress());
+            }
+
+            Transaction transaction = model.tradeWalletService.createBatchedTradingFeeTx(addressEntries,
+                    FeePolicy.CREATE_OFFER_FEE,
+                    feeReceiverAddresses);
+
+            // Same as in CreateOfferFeeTx: We assume there will be no tx malleability and check it after the broadcast.
+            model.offers.stream().forEach(offer -> offer.setOfferFeePaymentTxID(transaction.getHashAsString()));
+            model.setTransaction(transaction);
+
+            complete();
+        } catch (Throwable t) {
+            model.setErrorMessage("An error occurred.\n" +
+                    "Error message:\n"
+                    + t.getMessage());
+            failed(t);
+        }
+    }
+}
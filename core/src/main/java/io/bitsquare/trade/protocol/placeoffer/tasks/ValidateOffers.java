@@ -0,0 +1,60 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.placeoffer.tasks;
+
+import io.bitsquare.common.taskrunner.Task;
+import io.bitsquare.common.taskrunner.TaskRunner;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.protocol.placeoffer.PlaceOffersModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class ValidateOffers extends Task<PlaceOffersModel> {
+    private static final Logger log = LoggerFactory.getLogger(ValidateOffers.class);
+
+    public ValidateOffers(TaskRunner taskHandler, PlaceOffersModel model) {
+        super(taskHandler, model);
+    }
+
+    @Override
+    protected void run() {
+        try {
+            runInterceptHook();
+            if (model.offers.isEmpty())
+                throw new IllegalArgumentException("No offers to place");
+
+            // Offers with the same id would share one address entry and spend its outputs twice in the fee tx
+            Set<String> offerIds = new HashSet<>();
+            for (Offer offer : model.offers) {
+                offer.validate();
+                if (!offerIds.add(offer.getId()))
+                    throw new IllegalArgumentException("Duplicate offer id " + offer.getId());
+            }
+
+            complete();
+        } catch (Exception e) {
+            model.setErrorMessage("An error occurred.\n" +
+                    "Error message:\n"
+                    + e.getMessage());
+            failed(e);
+        }
+    }
+}
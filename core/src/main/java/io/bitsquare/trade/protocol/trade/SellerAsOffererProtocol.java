@@ -61,7 +61,7 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                     },
                     this::handleTaskRunnerFault);
 
-            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener.class);
+            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener::new);
             taskRunner.run();
         }
     }
@@ -104,15 +104,15 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                ProcessPayDepositRequest.class,
-                VerifyArbitrationSelection.class,
-                VerifyTakerAccount.class,
-                LoadTakeOfferFeeTx.class,
-                InitWaitPeriodForOpenDispute.class,
-                CreateAndSignContract.class,
-                CreateAndSignDepositTxAsSeller.class,
-                SetupDepositBalanceListener.class,
-                SendPublishDepositTxRequest.class
+                ProcessPayDepositRequest::new,
+                VerifyArbitrationSelection::new,
+                VerifyTakerAccount::new,
+                LoadTakeOfferFeeTx::new,
+                InitWaitPeriodForOpenDispute::new,
+                CreateAndSignContract::new,
+                CreateAndSignDepositTxAsSeller::new,
+                SetupDepositBalanceListener::new,
+                SendPublishDepositTxRequest::new
         );
         startTimeout();
         taskRunner.run();
@@ -133,8 +133,8 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                ProcessDepositTxPublishedMessage.class,
-                AddDepositTxToWallet.class
+                ProcessDepositTxPublishedMessage::new,
+                AddDepositTxToWallet::new
         );
         taskRunner.run();
     }
@@ -152,7 +152,7 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                 () -> handleTaskRunnerSuccess("FiatTransferStartedMessage"),
                 this::handleTaskRunnerFault);
 
-        taskRunner.addTasks(ProcessFiatTransferStartedMessage.class);
+        taskRunner.addTasks(ProcessFiatTransferStartedMessage::new);
         taskRunner.run();
     }
 
@@ -171,9 +171,9 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                VerifyTakeOfferFeePayment.class,
-                SignPayoutTx.class,
-                SendFinalizePayoutTxRequest.class
+                VerifyTakeOfferFeePayment::new,
+                SignPayoutTx::new,
+                SendFinalizePayoutTxRequest::new
         );
         taskRunner.run();
     }
@@ -190,9 +190,9 @@ public class SellerAsOffererProtocol extends TradeProtocol implements SellerProt
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                ProcessPayoutTxFinalizedMessage.class,
-                CommitPayoutTx.class,
-                SetupPayoutTxLockTimeReachedListener.class
+                ProcessPayoutTxFinalizedMessage::new,
+                CommitPayoutTx::new,
+                SetupPayoutTxLockTimeReachedListener::new
         );
         taskRunner.run();
     }
@@ -62,7 +62,7 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                     },
                     this::handleTaskRunnerFault);
 
-            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener.class);
+            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener::new);
             taskRunner.run();
         }
     }
@@ -98,12 +98,12 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                SelectArbitrator.class,
-                LoadCreateOfferFeeTx.class,
-                CreateTakeOfferFeeTx.class,
-                BroadcastTakeOfferFeeTx.class,
-                CreateDepositTxInputsAsSeller.class,
-                SendPayDepositRequest.class
+                SelectArbitrator::new,
+                LoadCreateOfferFeeTx::new,
+                CreateTakeOfferFeeTx::new,
+                BroadcastTakeOfferFeeTx::new,
+                CreateDepositTxInputsAsSeller::new,
+                SendPayDepositRequest::new
         );
         startTimeout();
         taskRunner.run();
@@ -125,11 +125,11 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                ProcessPublishDepositTxRequest.class,
-                VerifyOffererAccount.class,
-                VerifyAndSignContract.class,
-                SignAndPublishDepositTxAsSeller.class,
-                SendDepositTxPublishedMessage.class
+                ProcessPublishDepositTxRequest::new,
+                VerifyOffererAccount::new,
+                VerifyAndSignContract::new,
+                SignAndPublishDepositTxAsSeller::new,
+                SendDepositTxPublishedMessage::new
         );
         taskRunner.run();
     }
@@ -147,7 +147,7 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                 () -> handleTaskRunnerSuccess("FiatTransferStartedMessage"),
                 this::handleTaskRunnerFault);
 
-        taskRunner.addTasks(ProcessFiatTransferStartedMessage.class);
+        taskRunner.addTasks(ProcessFiatTransferStartedMessage::new);
         taskRunner.run();
     }
 
@@ -166,9 +166,9 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                VerifyOfferFeePayment.class,
-                SignPayoutTx.class,
-                SendFinalizePayoutTxRequest.class
+                VerifyOfferFeePayment::new,
+                SignPayoutTx::new,
+                SendFinalizePayoutTxRequest::new
         );
         taskRunner.run();
     }
@@ -186,9 +186,9 @@ public class SellerAsTakerProtocol extends TradeProtocol implements SellerProtoc
                 this::handleTaskRunnerFault);
 
         taskRunner.addTasks(
-                ProcessPayoutTxFinalizedMessage.class,
-                CommitPayoutTx.class,
-                SetupPayoutTxLockTimeReachedListener.class
+                ProcessPayoutTxFinalizedMessage::new,
+                CommitPayoutTx::new,
+                SetupPayoutTxLockTimeReachedListener::new
         );
         taskRunner.run();
     }
@@ -17,6 +17,7 @@
 
 package io.bitsquare.trade.protocol.trade;
 
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.PubKeyRing;
 import io.bitsquare.common.util.Utilities;
 import io.bitsquare.p2p.Address;
@@ -28,13 +29,12 @@ import io.bitsquare.trade.TakerTrade;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.protocol.trade.messages.TradeMessage;
 import io.bitsquare.trade.protocol.trade.tasks.shared.SetupPayoutTxLockTimeReachedListener;
-import org.reactfx.util.FxTimer;
-import org.reactfx.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.PublicKey;
-import java.time.Duration;
+import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 import static io.bitsquare.util.Validator.nonEmptyStringOf;
 
@@ -79,7 +79,7 @@ public abstract class TradeProtocol {
                     log.error("Signature used in seal message does not match the one stored with that trade for the trading peer or arbitrator.");*/
             }
         };
-        processModel.getP2PService().addDecryptedMailListener(decryptedMailListener);
+        processModel.getP2PService().addDecryptedMailListener(processModel.getId(), decryptedMailListener);
     }
 
     public void completed() {
@@ -90,7 +90,7 @@ public abstract class TradeProtocol {
         log.debug("cleanup " + this);
         stopTimeout();
 
-        processModel.getP2PService().removeDecryptedMailListener(decryptedMailListener);
+        processModel.getP2PService().removeDecryptedMailListener(processModel.getId(), decryptedMailListener);
 
     }
 
@@ -117,7 +117,7 @@ public abstract class TradeProtocol {
                     },
                     this::handleTaskRunnerFault);
 
-            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener.class);
+            taskRunner.addTasks(SetupPayoutTxLockTimeReachedListener::new);
             taskRunner.run();
         }
     }
@@ -125,18 +125,18 @@ public abstract class TradeProtocol {
     protected void startTimeout() {
         stopTimeout();
 
-        timeoutTimer = FxTimer.runLater(Duration.ofMillis(TIMEOUT), () -> {
+        timeoutTimer = UserThread.runAfter(() -> {
             Utilities.setThreadName("TradeProtocol:Timeout");
             log.error("Timeout reached");
             trade.setErrorMessage("A timeout occurred.");
             cleanupTradable();
             cleanup();
-        });
+        }, TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     protected void stopTimeout() {
         if (timeoutTimer != null) {
-            timeoutTimer.stop();
+            timeoutTimer.cancel();
             timeoutTimer = null;
         }
     }
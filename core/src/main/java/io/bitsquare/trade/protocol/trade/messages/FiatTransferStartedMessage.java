@@ -26,7 +26,7 @@ import javax.annotation.concurrent.Immutable;
 @Immutable
 public final class FiatTransferStartedMessage extends TradeMessage implements MailboxMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final String buyerPayoutAddress;
     private final Address senderAddress;
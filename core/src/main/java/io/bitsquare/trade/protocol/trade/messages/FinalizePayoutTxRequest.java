@@ -27,7 +27,7 @@ import java.util.Arrays;
 @Immutable
 public final class FinalizePayoutTxRequest extends TradeMessage implements MailboxMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final byte[] sellerSignature;
     public final String sellerPayoutAddress;
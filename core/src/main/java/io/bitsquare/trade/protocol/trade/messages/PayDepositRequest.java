@@ -31,7 +31,7 @@ import java.util.List;
 @Immutable
 public final class PayDepositRequest extends TradeMessage implements MailboxMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long tradeAmount;
     public final byte[] takerTradeWalletPubKey;
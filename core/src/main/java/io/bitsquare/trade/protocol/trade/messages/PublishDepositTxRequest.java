@@ -31,7 +31,7 @@ import java.util.List;
 @Immutable
 public final class PublishDepositTxRequest extends TradeMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private static final Logger log = LoggerFactory.getLogger(PublishDepositTxRequest.class);
 
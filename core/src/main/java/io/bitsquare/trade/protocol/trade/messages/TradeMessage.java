@@ -18,14 +18,14 @@
 package io.bitsquare.trade.protocol.trade.messages;
 
 import io.bitsquare.app.Version;
-import io.bitsquare.p2p.messaging.MailMessage;
+import io.bitsquare.p2p.messaging.RoutableMailMessage;
 
 import javax.annotation.concurrent.Immutable;
 
 @Immutable
-public abstract class TradeMessage implements MailMessage {
+public abstract class TradeMessage implements RoutableMailMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private final int networkId = Version.NETWORK_ID;
     public final String tradeId;
@@ -54,4 +54,9 @@ public abstract class TradeMessage implements MailMessage {
     public int networkId() {
         return networkId;
     }
+
+    @Override
+    public String getRoutingId() {
+        return tradeId;
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.trade.protocol.trade.tasks;
+
+import javax.annotation.Nullable;
+
+// Result of serializing and signing the contract off the UserThread
+public final class SignedContract {
+    public final String contractAsJson;
+    public final String signature;
+    // Set if the verification of the peer's signature failed
+    @Nullable
+    public final String verificationError;
+
+    public SignedContract(String contractAsJson, String signature, @Nullable String verificationError) {
+        this.contractAsJson = contractAsJson;
+        this.signature = signature;
+        this.verificationError = verificationError;
+    }
+
+    public SignedContract(String contractAsJson, String signature) {
+        this(contractAsJson, signature, null);
+    }
+}
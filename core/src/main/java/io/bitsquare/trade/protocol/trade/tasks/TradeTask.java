@@ -17,6 +17,7 @@
 
 package io.bitsquare.trade.protocol.trade.tasks;
 
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.taskrunner.Task;
 import io.bitsquare.common.taskrunner.TaskRunner;
 import io.bitsquare.trade.Trade;
@@ -24,6 +25,9 @@ import io.bitsquare.trade.protocol.trade.ProcessModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
 public abstract class TradeTask extends Task<Trade> {
     private static final Logger log = LoggerFactory.getLogger(TradeTask.class);
 
@@ -37,6 +41,34 @@ public abstract class TradeTask extends Task<Trade> {
         processModel = trade.getProcessModel();
     }
 
+    // Runs CPU heavy work (signing, signature verification) on the executor of that trade so that other trades and the
+    // UI are not blocked. Work of the same trade is executed in order. The resultHandler is called on the UserThread,
+    // so it can change the trade state which is observed by the UI.
+    protected <R> void runOffUserThread(Callable<R> work, Consumer<R> resultHandler) {
+        processModel.getTradeManager().getTradeExecutor().execute(trade.getId(), () -> {
+            try {
+                R result = work.call();
+                UserThread.execute(() -> {
+                    // The protocol might have been canceled while we were working
+                    if (isCanceled()) {
+                        log.info("Task {} got canceled. We don't apply the result.", getClass().getSimpleName());
+                        return;
+                    }
+                    try {
+                        resultHandler.accept(result);
+                    } catch (Throwable t) {
+                        failed(t);
+                    }
+                });
+            } catch (Throwable t) {
+                UserThread.execute(() -> {
+                    if (!isCanceled())
+                        failed(t);
+                });
+            }
+        });
+    }
+
     @Override
     protected void failed() {
         trade.setErrorMessage(errorMessage);
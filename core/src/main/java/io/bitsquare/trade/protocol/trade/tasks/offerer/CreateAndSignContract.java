@@ -26,6 +26,7 @@ import io.bitsquare.trade.BuyerAsOffererTrade;
 import io.bitsquare.trade.Contract;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.protocol.trade.TradingPeer;
+import io.bitsquare.trade.protocol.trade.tasks.SignedContract;
 import io.bitsquare.trade.protocol.trade.tasks.TradeTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,14 +75,17 @@ public class CreateAndSignContract extends TradeTask {
                     processModel.getTradeWalletPubKey(),
                     taker.getTradeWalletPubKey()
             );
-            String contractAsJson = Utilities.objectToJson(contract);
-            String signature = Sig.sign(processModel.getKeyRing().getSignatureKeyPair().getPrivate(), contractAsJson);
+            runOffUserThread(() -> {
+                String contractAsJson = Utilities.objectToJson(contract);
+                String signature = Sig.sign(processModel.getKeyRing().getSignatureKeyPair().getPrivate(), contractAsJson);
+                return new SignedContract(contractAsJson, signature);
+            }, signedContract -> {
+                trade.setContract(contract);
+                trade.setContractAsJson(signedContract.contractAsJson);
+                trade.setOffererContractSignature(signedContract.signature);
 
-            trade.setContract(contract);
-            trade.setContractAsJson(contractAsJson);
-            trade.setOffererContractSignature(signature);
-
-            complete();
+                complete();
+            });
         } catch (Throwable t) {
             failed(t);
         }
@@ -20,14 +20,13 @@ package io.bitsquare.trade.protocol.trade.tasks.offerer;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.btc.listeners.BalanceListener;
 import io.bitsquare.common.UserThread;
+import io.bitsquare.common.observable.PropertyListener;
 import io.bitsquare.common.taskrunner.TaskRunner;
 import io.bitsquare.trade.OffererTrade;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.protocol.trade.tasks.TradeTask;
 import org.bitcoinj.core.Address;
 import org.bitcoinj.core.Coin;
-import org.fxmisc.easybind.EasyBind;
-import org.fxmisc.easybind.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +36,7 @@ import org.slf4j.LoggerFactory;
 // to request support.
 public class SetupDepositBalanceListener extends TradeTask {
     private static final Logger log = LoggerFactory.getLogger(SetupDepositBalanceListener.class);
-    private Subscription tradeStateSubscription;
+    private PropertyListener<Trade.State> tradeStateListener;
     private BalanceListener balanceListener;
 
     public SetupDepositBalanceListener(TaskRunner taskHandler, Trade trade) {
@@ -59,17 +58,9 @@ public class SetupDepositBalanceListener extends TradeTask {
             });
             walletService.addBalanceListener(balanceListener);
 
-            tradeStateSubscription = EasyBind.subscribe(trade.stateProperty(), newValue -> {
-                log.debug("tradeStateSubscription newValue " + newValue);
-                if (newValue == Trade.State.DEPOSIT_PUBLISHED_MSG_RECEIVED
-                        || newValue == Trade.State.DEPOSIT_SEEN_IN_NETWORK) {
-
-                    walletService.removeBalanceListener(balanceListener);
-                    log.debug(" UserThread.execute(this::unSubscribe);");
-                    // TODO is that allowed?
-                    UserThread.execute(this::unSubscribe);
-                }
-            });
+            tradeStateListener = (oldValue, newValue) -> applyTradeState(walletService, newValue);
+            trade.stateProperty().addListener(tradeStateListener);
+            applyTradeState(walletService, trade.getState());
             updateBalance(walletService.getBalanceForAddress(address));
 
             // we complete immediately, our object stays alive because the balanceListener is stored in the WalletService
@@ -79,10 +70,22 @@ public class SetupDepositBalanceListener extends TradeTask {
         }
     }
 
+    private void applyTradeState(WalletService walletService, Trade.State tradeState) {
+        log.debug("tradeStateListener newValue " + tradeState);
+        if (tradeState == Trade.State.DEPOSIT_PUBLISHED_MSG_RECEIVED
+                || tradeState == Trade.State.DEPOSIT_SEEN_IN_NETWORK) {
+
+            walletService.removeBalanceListener(balanceListener);
+            log.debug(" UserThread.execute(this::unSubscribe);");
+            // TODO is that allowed?
+            UserThread.execute(this::unSubscribe);
+        }
+    }
+
     private void unSubscribe() {
         //TODO investigate, seems to not get called sometimes
-        log.debug("unSubscribe tradeStateSubscription");
-        tradeStateSubscription.unsubscribe();
+        log.debug("unSubscribe tradeStateListener");
+        trade.stateProperty().removeListener(tradeStateListener);
     }
 
     private void updateBalance(Coin balance) {
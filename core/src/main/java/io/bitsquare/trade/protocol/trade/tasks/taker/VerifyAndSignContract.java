@@ -26,6 +26,7 @@ import io.bitsquare.trade.Contract;
 import io.bitsquare.trade.SellerAsTakerTrade;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.protocol.trade.TradingPeer;
+import io.bitsquare.trade.protocol.trade.tasks.SignedContract;
 import io.bitsquare.trade.protocol.trade.tasks.TradeTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,21 +74,29 @@ public class VerifyAndSignContract extends TradeTask {
                         offerer.getTradeWalletPubKey(),
                         processModel.getTradeWalletPubKey()
                 );
-                String contractAsJson = Utilities.objectToJson(contract);
-                String signature = Sig.sign(processModel.getKeyRing().getSignatureKeyPair().getPrivate(), contractAsJson);
-                trade.setContract(contract);
-                trade.setContractAsJson(contractAsJson);
-                trade.setTakerContractSignature(signature);
+                runOffUserThread(() -> {
+                    String contractAsJson = Utilities.objectToJson(contract);
+                    String signature = Sig.sign(processModel.getKeyRing().getSignatureKeyPair().getPrivate(), contractAsJson);
+                    String verificationError = null;
+                    try {
+                        if (!Sig.verify(offerer.getPubKeyRing().getSignaturePubKey(),
+                                contractAsJson,
+                                offerer.getContractSignature()))
+                            verificationError = "Signature verification failed.";
+                    } catch (Throwable t) {
+                        verificationError = "Signature verification failed. " + t.getMessage();
+                    }
+                    return new SignedContract(contractAsJson, signature, verificationError);
+                }, signedContract -> {
+                    trade.setContract(contract);
+                    trade.setContractAsJson(signedContract.contractAsJson);
+                    trade.setTakerContractSignature(signedContract.signature);
 
-                try {
-                    Sig.verify(offerer.getPubKeyRing().getSignaturePubKey(),
-                            contractAsJson,
-                            offerer.getContractSignature());
-                } catch (Throwable t) {
-                    failed("Signature verification failed. " + t.getMessage());
-                }
-
-                complete();
+                    if (signedContract.verificationError != null)
+                        failed(signedContract.verificationError);
+                    else
+                        complete();
+                });
             } else {
                 failed("processModel.getTakeOfferFeeTx() = null");
             }
@@ -20,17 +20,13 @@ package io.bitsquare.user;
 import io.bitsquare.app.BitsquareEnvironment;
 import io.bitsquare.app.Version;
 import io.bitsquare.btc.BitcoinNetwork;
+import io.bitsquare.common.observable.ObservableArrayList;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.locale.CountryUtil;
 import io.bitsquare.locale.CurrencyUtil;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.storage.Storage;
-import javafx.beans.Observable;
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.SimpleBooleanProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import org.bitcoinj.utils.MonetaryFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,10 +98,10 @@ public class Preferences implements Serializable {
     private TradeCurrency preferredTradeCurrency;
 
     // Observable wrappers
-    transient private final StringProperty btcDenominationProperty = new SimpleStringProperty(btcDenomination);
-    transient private final BooleanProperty useAnimationsProperty = new SimpleBooleanProperty(useAnimations);
-    transient private final BooleanProperty useEffectsProperty = new SimpleBooleanProperty(useEffects);
-    transient private final ObservableList<TradeCurrency> tradeCurrenciesAsObservable = FXCollections.observableArrayList();
+    transient private final ObservableProperty<String> btcDenominationProperty = new ObservableProperty<>(btcDenomination);
+    transient private final ObservableProperty<Boolean> useAnimationsProperty = new ObservableProperty<>(useAnimations);
+    transient private final ObservableProperty<Boolean> useEffectsProperty = new ObservableProperty<>(useEffects);
+    transient private final ObservableArrayList<TradeCurrency> tradeCurrenciesAsObservable = new ObservableArrayList<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -170,19 +166,19 @@ public class Preferences implements Serializable {
         this.bitcoinNetwork = bitsquareEnvironment.getBitcoinNetwork();
 
         // Use that to guarantee update of the serializable field and to make a storage update in case of a change
-        btcDenominationProperty.addListener((ov) -> {
-            btcDenomination = btcDenominationProperty.get();
+        btcDenominationProperty.addListener((oldValue, newValue) -> {
+            btcDenomination = newValue;
             storage.queueUpForSave();
         });
-        useAnimationsProperty.addListener((ov) -> {
-            useAnimations = useAnimationsProperty.get();
+        useAnimationsProperty.addListener((oldValue, newValue) -> {
+            useAnimations = newValue;
             storage.queueUpForSave();
         });
-        useEffectsProperty.addListener((ov) -> {
-            useEffects = useEffectsProperty.get();
+        useEffectsProperty.addListener((oldValue, newValue) -> {
+            useEffects = newValue;
             storage.queueUpForSave();
         });
-        tradeCurrenciesAsObservable.addListener((Observable ov) -> {
+        tradeCurrenciesAsObservable.addListener((added, removed) -> {
             tradeCurrencies.clear();
             tradeCurrencies.addAll(tradeCurrenciesAsObservable);
             storage.queueUpForSave();
@@ -298,15 +294,15 @@ public class Preferences implements Serializable {
         return displaySecurityDepositInfo;
     }
 
-    public StringProperty btcDenominationProperty() {
+    public ReadOnlyObservableProperty<String> btcDenominationProperty() {
         return btcDenominationProperty;
     }
 
-    public BooleanProperty useAnimationsProperty() {
+    public ReadOnlyObservableProperty<Boolean> useAnimationsProperty() {
         return useAnimationsProperty;
     }
 
-    public BooleanProperty useEffectsPropertyProperty() {
+    public ReadOnlyObservableProperty<Boolean> useEffectsPropertyProperty() {
         return useEffectsProperty;
     }
 
@@ -318,7 +314,7 @@ public class Preferences implements Serializable {
         return bitcoinNetwork;
     }
 
-    public ObservableList<TradeCurrency> getTradeCurrenciesAsObservable() {
+    public ObservableArrayList<TradeCurrency> getTradeCurrenciesAsObservable() {
         return tradeCurrenciesAsObservable;
     }
 
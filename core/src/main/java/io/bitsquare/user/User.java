@@ -17,20 +17,22 @@
 
 package io.bitsquare.user;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import io.bitsquare.alert.Alert;
 import io.bitsquare.app.Version;
 import io.bitsquare.arbitration.Arbitrator;
+import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.ObservableHashSet;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.locale.LanguageUtil;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.payment.PaymentAccount;
 import io.bitsquare.storage.Storage;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableSet;
-import javafx.collections.SetChangeListener;
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +58,7 @@ public class User implements Serializable {
 
     // Transient immutable fields
     transient final private Storage<User> storage;
+    transient final private KeyRing keyRing;
     transient private Set<TradeCurrency> tradeCurrenciesInPaymentAccounts;
 
     // Persisted fields
@@ -72,17 +75,18 @@ public class User implements Serializable {
     private Arbitrator registeredArbitrator;
 
     // Observable wrappers
-    transient final private ObservableSet<PaymentAccount> paymentAccountsAsObservable = FXCollections.observableSet(paymentAccounts);
-    transient final private ObjectProperty<PaymentAccount> currentPaymentAccountProperty = new SimpleObjectProperty<>(currentPaymentAccount);
+    transient final private ObservableHashSet<PaymentAccount> paymentAccountsAsObservable = new ObservableHashSet<>(paymentAccounts);
+    transient final private ObservableProperty<PaymentAccount> currentPaymentAccountProperty = new ObservableProperty<>(currentPaymentAccount);
 
 
     @Inject
     public User(Storage<User> storage, KeyRing keyRing) throws NoSuchAlgorithmException {
         this.storage = storage;
+        this.keyRing = keyRing;
 
         User persisted = storage.initAndGetPersisted(this);
         if (persisted != null) {
-            accountID = persisted.getAccountId();
+            accountID = persisted.accountID;
 
             // The check is only needed to not break old versions where paymentAccounts was not included and is null,
             // Can be removed later
@@ -100,7 +104,19 @@ public class User implements Serializable {
             developersAlert = persisted.getDevelopersAlert();
             displayedAlert = persisted.getDisplayedAlert();
         } else {
-            accountID = String.valueOf(Math.abs(keyRing.getPubKeyRing().hashCode()));
+            // At the first start the keys are generated in the background. We are created on the UserThread, so we
+            // must not wait for them here. The account id is derived as soon as the keys are available.
+            Futures.addCallback(keyRing.getLoadFuture(), new FutureCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    UserThread.execute(User.this::getAccountId);
+                }
+
+                @Override
+                public void onFailure(@NotNull Throwable throwable) {
+                    // Reported by the startup
+                }
+            });
 
             acceptedLanguageLocaleCodes.add(LanguageUtil.getDefaultLanguageLocaleAsCode());
             String english = LanguageUtil.getEnglishLanguageLocaleCode();
@@ -112,13 +128,13 @@ public class User implements Serializable {
         storage.queueUpForSave();
 
         // Use that to guarantee update of the serializable field and to make a storage update in case of a change
-        paymentAccountsAsObservable.addListener((SetChangeListener<PaymentAccount>) change -> {
+        paymentAccountsAsObservable.addListener((added, removed) -> {
             paymentAccounts = new HashSet<>(paymentAccountsAsObservable);
             tradeCurrenciesInPaymentAccounts = paymentAccounts.stream().flatMap(e -> e.getTradeCurrencies().stream()).collect(Collectors.toSet());
             storage.queueUpForSave();
         });
-        currentPaymentAccountProperty.addListener((ov) -> {
-            currentPaymentAccount = currentPaymentAccountProperty.get();
+        currentPaymentAccountProperty.addListener((oldValue, newValue) -> {
+            currentPaymentAccount = newValue;
             storage.queueUpForSave();
         });
 
@@ -217,7 +233,12 @@ public class User implements Serializable {
             return null;
     }
 
+    // Only blocks if called before the keys are available at the first start
     public String getAccountId() {
+        if (accountID == null) {
+            accountID = String.valueOf(Math.abs(keyRing.getPubKeyRing().hashCode()));
+            storage.queueUpForSave();
+        }
         return accountID;
     }
 
@@ -229,7 +250,7 @@ public class User implements Serializable {
         return currentPaymentAccount;
     }
 
-    public ObjectProperty<PaymentAccount> currentPaymentAccountProperty() {
+    public ReadOnlyObservableProperty<PaymentAccount> currentPaymentAccountProperty() {
         return currentPaymentAccountProperty;
     }
 
@@ -237,7 +258,7 @@ public class User implements Serializable {
         return paymentAccounts;
     }
 
-    public ObservableSet<PaymentAccount> getPaymentAccountsAsObservable() {
+    public ObservableHashSet<PaymentAccount> getPaymentAccountsAsObservable() {
         return paymentAccountsAsObservable;
     }
 
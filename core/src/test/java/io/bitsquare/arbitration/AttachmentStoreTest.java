@@ -0,0 +1,213 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.arbitration;
+
+import io.bitsquare.common.util.Utilities;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AttachmentStoreTest {
+    // 2 full chunks and a partial one
+    private static final int SIZE = 2 * AttachmentStore.CHUNK_SIZE + 1000;
+
+    private File senderDir, receiverDir;
+    private AttachmentStore sender, receiver;
+    private byte[] content;
+    private byte[] hash;
+
+    @BeforeClass
+    public static void setupClass() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Before
+    public void setup() throws IOException {
+        senderDir = createTempDir("attachments_sender");
+        receiverDir = createTempDir("attachments_receiver");
+        sender = new AttachmentStore(senderDir);
+        receiver = new AttachmentStore(receiverDir);
+
+        content = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            content[i] = (byte) i;
+        hash = sender.put(content);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        sender.shutDown();
+        receiver.shutDown();
+        Utilities.deleteDirectory(senderDir);
+        Utilities.deleteDirectory(receiverDir);
+    }
+
+    @Test
+    public void testTransferInChunks() throws IOException {
+        assertEquals(Arrays.asList(0, 1, 2), receiver.getMissingChunks(hash, SIZE));
+
+        // Chunks may arrive in any order
+        assertFalse(receiver.addChunk(hash, SIZE, 2, sender.getChunk(hash, 2)));
+        assertFalse(receiver.addChunk(hash, SIZE, 0, sender.getChunk(hash, 0)));
+        assertEquals(Collections.singletonList(1), receiver.getMissingChunks(hash, SIZE));
+        assertTrue(receiver.addChunk(hash, SIZE, 1, sender.getChunk(hash, 1)));
+
+        assertTrue(receiver.contains(hash));
+        assertArrayEquals(content, receiver.get(hash));
+        assertTrue(receiver.getMissingChunks(hash, SIZE).isEmpty());
+        assertPartialFilesDeleted();
+    }
+
+    @Test
+    public void testResumeFromPersistedChunks() throws IOException {
+        receiver.addChunk(hash, SIZE, 0, sender.getChunk(hash, 0));
+        receiver.addChunk(hash, SIZE, 2, sender.getChunk(hash, 2));
+
+        // After a restart the received chunks are read from the .chunks file
+        AttachmentStore restartedReceiver = new AttachmentStore(receiverDir);
+        assertEquals(Collections.singletonList(1), restartedReceiver.getMissingChunks(hash, SIZE));
+        assertTrue(restartedReceiver.addChunk(hash, SIZE, 1, sender.getChunk(hash, 1)));
+        assertArrayEquals(content, restartedReceiver.get(hash));
+    }
+
+    @Test
+    public void testHashMismatchDeletesPartialFiles() throws IOException {
+        byte[] corruptedChunk = sender.getChunk(hash, 1);
+        corruptedChunk[0]++;
+        receiver.addChunk(hash, SIZE, 0, sender.getChunk(hash, 0));
+        receiver.addChunk(hash, SIZE, 1, corruptedChunk);
+        try {
+            receiver.addChunk(hash, SIZE, 2, sender.getChunk(hash, 2));
+            fail("Expected HashMismatchException");
+        } catch (AttachmentStore.HashMismatchException ignore) {
+        }
+
+        assertFalse(receiver.contains(hash));
+        assertPartialFilesDeleted();
+        // We have to start again
+        assertEquals(Arrays.asList(0, 1, 2), receiver.getMissingChunks(hash, SIZE));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        byte[] emptyHash = sender.put(new byte[0]);
+        byte[] chunk = sender.getChunk(emptyHash, 0);
+        assertEquals(0, chunk.length);
+
+        assertEquals(Collections.singletonList(0), receiver.getMissingChunks(emptyHash, 0));
+        assertTrue(receiver.addChunk(emptyHash, 0, 0, chunk));
+        assertEquals(0, receiver.get(emptyHash).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testGetChunkOutOfRange() throws IOException {
+        sender.getChunk(hash, 3);
+    }
+
+    @Test(expected = IOException.class)
+    public void testAddChunkWithNegativeIndex() throws IOException {
+        receiver.addChunk(hash, SIZE, -1, sender.getChunk(hash, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testAddChunkOutOfRange() throws IOException {
+        receiver.addChunk(hash, SIZE, 3, sender.getChunk(hash, 2));
+    }
+
+    @Test
+    public void testAddChunkWithWrongLength() throws IOException {
+        try {
+            // Only the last chunk may be shorter than CHUNK_SIZE
+            receiver.addChunk(hash, SIZE, 0, sender.getChunk(hash, 2));
+            fail("Expected IOException");
+        } catch (IOException ignore) {
+        }
+        assertEquals(Arrays.asList(0, 1, 2), receiver.getMissingChunks(hash, SIZE));
+    }
+
+    @Test(expected = IOException.class)
+    public void testAddChunkAboveMaxSize() throws IOException {
+        receiver.addChunk(hash, AttachmentStore.MAX_ATTACHMENT_SIZE + 1, 0, sender.getChunk(hash, 0));
+    }
+
+    @Test
+    public void testInvalidHashIsRejected() throws IOException {
+        byte[] shortHash = Arrays.copyOf(hash, AttachmentStore.HASH_LENGTH - 1);
+        assertFalse(AttachmentStore.isValidHash(null));
+        assertFalse(AttachmentStore.isValidHash(shortHash));
+        assertFalse(AttachmentStore.isValidHash(Arrays.copyOf(hash, AttachmentStore.HASH_LENGTH + 1)));
+        assertFalse(receiver.contains(shortHash));
+        try {
+            receiver.addChunk(shortHash, SIZE, 0, sender.getChunk(hash, 0));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException ignore) {
+        }
+        assertEquals(0, receiverDir.list().length);
+    }
+
+    @Test
+    public void testAsyncAccessRunsOnStorageThread() throws InterruptedException {
+        AtomicReference<String> threadName = new AtomicReference<>();
+        AtomicReference<Optional<byte[]>> result = new AtomicReference<>();
+        AtomicReference<Throwable> fault = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        // Without a UserThread executor the handlers are called on the storage thread
+        sender.get(hash, content -> {
+            threadName.set(Thread.currentThread().getName());
+            result.set(content);
+            latch.countDown();
+        }, (errorMessage, throwable) -> latch.countDown());
+        sender.getChunk(new byte[1], 0, chunk -> latch.countDown(), (errorMessage, throwable) -> {
+            fault.set(throwable);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(threadName.get(), threadName.get().startsWith("AttachmentStore-"));
+        assertArrayEquals(content, result.get().get());
+        assertTrue(fault.get() instanceof IllegalArgumentException);
+    }
+
+    private void assertPartialFilesDeleted() {
+        String[] fileNames = receiverDir.list();
+        assertNotNull(fileNames);
+        for (String fileName : fileNames)
+            assertFalse(fileName, fileName.endsWith(".part") || fileName.endsWith(".chunks"));
+    }
+
+    private static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        dir.delete();
+        dir.mkdir();
+        return dir;
+    }
+}
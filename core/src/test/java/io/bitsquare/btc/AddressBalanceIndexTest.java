@@ -0,0 +1,155 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import org.bitcoinj.core.*;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.store.MemoryBlockStore;
+import org.bitcoinj.testing.FakeTxBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Drives a real wallet and block chain and checks after each wallet event that the index has the same balances as a
+// full scan of the spend candidates of the wallet.
+public class AddressBalanceIndexTest {
+    private NetworkParameters params;
+    private Wallet wallet;
+    private BlockChain chain;
+    private AddressBalanceIndex index;
+
+    @Before
+    public void setup() throws Exception {
+        params = UnitTestParams.get();
+        wallet = new Wallet(params);
+        chain = new BlockChain(params, wallet, new MemoryBlockStore(params));
+        index = new AddressBalanceIndex(params);
+        // The index updates itself within the wallet calls, so we can check it after each call
+        index.attach(wallet);
+    }
+
+    @Test
+    public void testIndexMatchesWalletScan() throws Exception {
+        Address address1 = wallet.freshReceiveAddress();
+        Address address2 = wallet.freshReceiveAddress();
+
+        // received, pending
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, address1);
+        wallet.receivePending(tx1, null);
+        assertIndexMatchesWalletScan();
+        assertEquals(Coin.COIN, index.getBalance(address1));
+
+        // confirmed
+        Block block1 = FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), tx1);
+        chain.add(block1);
+        assertIndexMatchesWalletScan();
+
+        Transaction tx2 = FakeTxBuilder.createFakeTx(params, Coin.CENT, address2);
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(block1, tx2));
+        assertIndexMatchesWalletScan();
+
+        // sent, the spent output is removed and the change is added
+        Transaction spend = wallet.createSend(new ECKey().toAddress(params), Coin.CENT.multiply(30));
+        wallet.commitTx(spend);
+        assertIndexMatchesWalletScan();
+        assertEquals(Coin.ZERO, index.getBalance(address1));
+    }
+
+    // The balances of the spent address and of the change address are updated when commitTx returns, before the
+    // listeners on the wallet executor are called
+    @Test
+    public void testBalanceAfterCommitTx() throws Exception {
+        Address address = wallet.freshReceiveAddress();
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, address);
+        wallet.receivePending(tx1, null);
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), tx1));
+        assertEquals(Collections.singleton(address), index.takeChangedAddresses());
+
+        Transaction spend = wallet.createSend(new ECKey().toAddress(params), Coin.CENT.multiply(30));
+        wallet.commitTx(spend);
+        TransactionOutput change = spend.getOutputs().stream().filter(output -> output.isMine(wallet)).findAny().get();
+        Address changeAddress = change.getScriptPubKey().getToAddress(params);
+        assertEquals(Coin.ZERO, index.getBalance(address));
+        assertEquals(change.getValue(), index.getBalance(changeAddress));
+
+        assertEquals(new HashSet<>(Arrays.asList(address, changeAddress)), index.takeChangedAddresses());
+        // The changes are taken only once
+        assertTrue(index.takeChangedAddresses().isEmpty());
+    }
+
+    // A reorg to a chain where the input of our received tx is spent by another tx makes the tx and our spend dead
+    @Test
+    public void testReorgWithDoubleSpend() throws Exception {
+        Address address = wallet.freshReceiveAddress();
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, address);
+        wallet.receivePending(tx1, null);
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), tx1));
+        Transaction spend = wallet.createSend(new ECKey().toAddress(params), Coin.CENT.multiply(30));
+        wallet.commitTx(spend);
+        assertIndexMatchesWalletScan();
+
+        Transaction doubleSpend = new Transaction(params);
+        doubleSpend.addInput(new TransactionInput(params, doubleSpend, new byte[]{}, tx1.getInput(0).getOutpoint()));
+        doubleSpend.addOutput(Coin.COIN, new ECKey().toAddress(params));
+        Block fork1 = FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), doubleSpend);
+        chain.add(fork1);
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(fork1));
+
+        assertEquals(TransactionConfidence.ConfidenceType.DEAD, tx1.getConfidence().getConfidenceType());
+        assertIndexMatchesWalletScan();
+        assertEquals(Coin.ZERO, index.getBalance(address));
+    }
+
+    // A reorg where our tx is in both chains only changes its depth
+    @Test
+    public void testReorgKeepsBalance() throws Exception {
+        Address address = wallet.freshReceiveAddress();
+        Transaction tx1 = FakeTxBuilder.createFakeTx(params, Coin.COIN, address);
+        wallet.receivePending(tx1, null);
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), tx1));
+
+        Block fork1 = FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock());
+        chain.add(fork1);
+        Block fork2 = FakeTxBuilder.makeSolvedTestBlock(fork1, tx1);
+        chain.add(fork2);
+
+        assertEquals(TransactionConfidence.ConfidenceType.BUILDING, tx1.getConfidence().getConfidenceType());
+        assertIndexMatchesWalletScan();
+        assertEquals(Coin.COIN, index.getBalance(address));
+    }
+
+    private void assertIndexMatchesWalletScan() {
+        Map<Address, Coin> expected = new HashMap<>();
+        for (TransactionOutput output : wallet.calculateAllSpendCandidates()) {
+            Address address = output.getScriptPubKey().getToAddress(params);
+            expected.put(address, expected.getOrDefault(address, Coin.ZERO).add(output.getValue()));
+        }
+
+        Map<Address, Coin> indexed = new HashMap<>();
+        index.getFundedAddresses().stream().forEach(address -> indexed.put(address, index.getBalance(address)));
+        assertEquals(expected, indexed);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import io.bitsquare.common.util.Utilities;
+import io.bitsquare.storage.Storage;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.core.Wallet;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AddressEntryListTest {
+    private NetworkParameters params;
+    private Wallet wallet;
+    private final Map<String, DeterministicKey> keysByPubKeyHash = new ConcurrentHashMap<>();
+
+    @Before
+    public void setup() {
+        params = RegTestParams.get();
+        DeterministicKey masterKey = HDKeyDerivation.createMasterPrivateKey(new byte[32]);
+        AtomicInteger keyIndex = new AtomicInteger();
+        wallet = mock(Wallet.class);
+        when(wallet.getParams()).thenReturn(params);
+        when(wallet.freshReceiveKey()).thenAnswer(invocation -> {
+            DeterministicKey key = HDKeyDerivation.deriveChildKey(masterKey, keyIndex.getAndIncrement());
+            keysByPubKeyHash.put(Utils.HEX.encode(key.getPubKeyHash()), key);
+            return key;
+        });
+        when(wallet.findKeyFromPubHash(any(byte[].class))).thenAnswer(invocation ->
+                keysByPubKeyHash.get(Utils.HEX.encode((byte[]) invocation.getArguments()[0])));
+    }
+
+    @Test
+    public void testIndexes() {
+        AddressEntryList addressEntryList = createAddressEntryList(null);
+        AddressEntry arbitratorEntry = addressEntryList.getArbitratorAddressEntry();
+        assertEquals(AddressEntry.Context.ARBITRATOR, arbitratorEntry.getContext());
+
+        AddressEntry offer1Entry = addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer1");
+        AddressEntry offer2Entry = addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer2");
+        assertSame(offer1Entry, addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer1"));
+        assertEquals(3, addressEntryList.size());
+
+        assertSame(offer1Entry, addressEntryList.getAddressEntryByOfferId("offer1"));
+        assertSame(offer2Entry, addressEntryList.getAddressEntryByOfferId("offer2"));
+        assertNull(addressEntryList.getAddressEntryByOfferId("offer3"));
+
+        assertSame(arbitratorEntry, addressEntryList.getAddressEntryByAddress(arbitratorEntry.getAddressString()));
+        assertSame(offer1Entry, addressEntryList.getAddressEntryByAddress(offer1Entry.getAddressString()));
+        assertNull(addressEntryList.getAddressEntryByAddress(new ECKey().toAddress(params).toString()));
+    }
+
+    // Concurrent trade tasks of the same offer must get the same entry
+    @Test
+    public void testGetOrCreateAddressEntryIsAtomic() throws Exception {
+        AddressEntryList addressEntryList = createAddressEntryList(null);
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        List<Future<AddressEntry>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            futures.add(executor.submit(() -> {
+                barrier.await();
+                return addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer1");
+            }));
+        }
+
+        Set<AddressEntry> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<AddressEntry> future : futures)
+            entries.add(future.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(1, entries.size());
+        assertEquals(2, addressEntryList.size());
+    }
+
+    // The indexes are transient, they have to be filled again from the persisted entries
+    @Test
+    public void testIndexesAfterDeserialization() {
+        AddressEntryList addressEntryList = createAddressEntryList(null);
+        AddressEntry offer1Entry = addressEntryList.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer1");
+        AddressEntryList persisted = Utilities.<AddressEntryList>deserialize(Utilities.serialize(addressEntryList));
+
+        AddressEntryList restored = createAddressEntryList(persisted);
+        assertEquals(2, restored.size());
+        assertEquals(AddressEntry.Context.ARBITRATOR, restored.getArbitratorAddressEntry().getContext());
+
+        AddressEntry restoredOffer1Entry = restored.getAddressEntryByOfferId("offer1");
+        assertNotNull(restoredOffer1Entry);
+        assertEquals(offer1Entry.getAddressString(), restoredOffer1Entry.getAddressString());
+        assertSame(restoredOffer1Entry, restored.getAddressEntryByAddress(offer1Entry.getAddressString()));
+        assertSame(restoredOffer1Entry, restored.getOrCreateAddressEntry(AddressEntry.Context.TRADE, "offer1"));
+        assertEquals(2, restored.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private AddressEntryList createAddressEntryList(AddressEntryList persisted) {
+        Storage<AddressEntryList> storage = mock(Storage.class);
+        AddressEntryList addressEntryList = new AddressEntryList(storage);
+        when(storage.initAndGetPersisted(addressEntryList)).thenReturn(persisted);
+        addressEntryList.onWalletReady(wallet);
+        return addressEntryList;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Wallet;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TradeWalletServiceTest {
+    private static final Coin TRADING_FEE_OUTPUT = Coin.valueOf(70000);
+
+    @Test
+    public void testMinerFeeIsSplitEqually() {
+        Coin minerFee = Coin.valueOf(30000);
+        List<Coin> inputValues = Arrays.asList(Coin.COIN, Coin.COIN, Coin.COIN);
+
+        List<Coin> changeAmounts = TradeWalletService.getBatchedChangeAmounts(inputValues, TRADING_FEE_OUTPUT, minerFee);
+
+        Coin expectedChange = Coin.COIN.subtract(TRADING_FEE_OUTPUT).subtract(Coin.valueOf(10000));
+        assertEquals(Arrays.asList(expectedChange, expectedChange, expectedChange), changeAmounts);
+    }
+
+    @Test
+    public void testRemainderIsPaidByFirstEntry() {
+        Coin minerFee = Coin.valueOf(10001);
+        List<Coin> inputValues = Arrays.asList(Coin.COIN, Coin.CENT);
+
+        List<Coin> changeAmounts = TradeWalletService.getBatchedChangeAmounts(inputValues, TRADING_FEE_OUTPUT, minerFee);
+
+        assertEquals(Coin.COIN.subtract(TRADING_FEE_OUTPUT).subtract(Coin.valueOf(5001)), changeAmounts.get(0));
+        assertEquals(Coin.CENT.subtract(TRADING_FEE_OUTPUT).subtract(Coin.valueOf(5000)), changeAmounts.get(1));
+    }
+
+    @Test
+    public void testInputsPayOutputsAndMinerFee() {
+        Coin minerFee = TradeWalletService.estimateBatchedMinerFee(5, 3);
+        List<Coin> inputValues = Arrays.asList(Coin.COIN, Coin.CENT.multiply(3), Coin.MILLICOIN.multiply(7));
+
+        List<Coin> changeAmounts = TradeWalletService.getBatchedChangeAmounts(inputValues, TRADING_FEE_OUTPUT, minerFee);
+
+        Coin totalInput = inputValues.stream().reduce(Coin.ZERO, Coin::add);
+        Coin totalChange = changeAmounts.stream().reduce(Coin.ZERO, Coin::add);
+        Coin totalTradingFee = TRADING_FEE_OUTPUT.multiply(inputValues.size());
+        assertEquals(minerFee, totalInput.subtract(totalTradingFee).subtract(totalChange));
+    }
+
+    @Test
+    public void testDustChangeGoesToMinerFee() {
+        Coin minerFee = Coin.valueOf(20000);
+        Coin dust = Transaction.MIN_NONDUST_OUTPUT.subtract(Coin.SATOSHI);
+        Coin inputValue = TRADING_FEE_OUTPUT.add(Coin.valueOf(10000)).add(dust);
+        List<Coin> inputValues = Arrays.asList(inputValue, Coin.COIN);
+
+        List<Coin> changeAmounts = TradeWalletService.getBatchedChangeAmounts(inputValues, TRADING_FEE_OUTPUT, minerFee);
+
+        assertEquals(Coin.ZERO, changeAmounts.get(0));
+        assertEquals(Coin.COIN.subtract(TRADING_FEE_OUTPUT).subtract(Coin.valueOf(10000)), changeAmounts.get(1));
+    }
+
+    @Test
+    public void testUnderfundedEntryHasNegativeChange() {
+        Coin minerFee = Coin.valueOf(20000);
+        List<Coin> inputValues = Arrays.asList(Coin.COIN, TRADING_FEE_OUTPUT);
+
+        List<Coin> changeAmounts = TradeWalletService.getBatchedChangeAmounts(inputValues, TRADING_FEE_OUTPUT, minerFee);
+
+        assertEquals(Coin.valueOf(-10000), changeAmounts.get(1));
+    }
+
+    @Test
+    public void testMinerFeeGrowsWithInputs() {
+        // 10 + 2 * 148 + 2 * 2 * 34 = 442 bytes
+        assertEquals(Wallet.SendRequest.DEFAULT_FEE_PER_KB, TradeWalletService.estimateBatchedMinerFee(2, 2));
+        // 10 + 10 * 148 + 5 * 2 * 34 = 1830 bytes
+        assertEquals(Wallet.SendRequest.DEFAULT_FEE_PER_KB.multiply(2), TradeWalletService.estimateBatchedMinerFee(10, 5));
+        assertTrue(TradeWalletService.estimateBatchedMinerFee(20, 5).isGreaterThan(TradeWalletService.estimateBatchedMinerFee(10, 5)));
+    }
+}
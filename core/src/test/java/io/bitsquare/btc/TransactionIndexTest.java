@@ -0,0 +1,156 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.btc;
+
+import org.bitcoinj.core.*;
+import org.bitcoinj.params.RegTestParams;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.store.MemoryBlockStore;
+import org.bitcoinj.testing.FakeTxBuilder;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TransactionIndexTest {
+    private static final Logger log = LoggerFactory.getLogger(TransactionIndexTest.class);
+
+    private static final int NUM_TRANSACTIONS = 5000;
+    private static final int NUM_ADDRESSES = 500;
+
+    private NetworkParameters params;
+    private List<Address> addresses;
+    private List<Transaction> transactions;
+
+    // Each tx pays to 2 addresses and every second tx also spends an output of the previous tx, so the lookups
+    // have to consider the connected outputs of the inputs as well.
+    @Before
+    public void setup() {
+        params = RegTestParams.get();
+
+        addresses = new ArrayList<>();
+        for (int i = 0; i < NUM_ADDRESSES; i++)
+            addresses.add(new ECKey().toAddress(params));
+
+        transactions = new ArrayList<>();
+        for (int i = 0; i < NUM_TRANSACTIONS; i++) {
+            Transaction tx = new Transaction(params);
+            if (i % 2 == 1)
+                tx.addInput(transactions.get(i - 1).getOutput(0));
+            tx.addOutput(Coin.valueOf(i + 1), addresses.get(i % NUM_ADDRESSES));
+            tx.addOutput(Coin.valueOf(i + 1), addresses.get((i + 7) % NUM_ADDRESSES));
+            transactions.add(tx);
+        }
+    }
+
+    @Test
+    public void testLookups() {
+        TransactionIndex index = new TransactionIndex(params);
+        transactions.stream().forEach(index::add);
+        // adding again must not change anything
+        transactions.stream().forEach(index::add);
+
+        for (Address address : addresses)
+            assertEquals(scanTransactions(address), index.getTransactions(address));
+
+        Transaction tx = transactions.get(42);
+        assertEquals(tx, index.getTransaction(tx.getHashAsString()));
+        assertNull(index.getTransaction("unknown"));
+        assertEquals(0, index.getTransactions(new ECKey().toAddress(params)).size());
+    }
+
+    // The index is updated within the wallet calls, so a tx can be looked up as soon as it is in the wallet
+    @Test
+    public void testIndexIsUpdatedWithTheWallet() throws Exception {
+        NetworkParameters params = UnitTestParams.get();
+        Wallet wallet = new Wallet(params);
+        BlockChain chain = new BlockChain(params, wallet, new MemoryBlockStore(params));
+        TransactionIndex index = new TransactionIndex(params);
+        index.attach(wallet);
+
+        Address address = wallet.freshReceiveAddress();
+        Transaction received = FakeTxBuilder.createFakeTx(params, Coin.COIN, address);
+        wallet.receivePending(received, null);
+        assertEquals(received, index.getTransaction(received.getHashAsString()));
+        chain.add(FakeTxBuilder.makeSolvedTestBlock(params.getGenesisBlock(), received));
+
+        Transaction spend = wallet.createSend(new ECKey().toAddress(params), Coin.CENT);
+        wallet.commitTx(spend);
+        assertEquals(spend, index.getTransaction(spend.getHashAsString()));
+        assertTrue(index.getTransactions(address).contains(spend));
+
+        index.detach(wallet);
+        Transaction notIndexed = FakeTxBuilder.createFakeTx(params, Coin.COIN, address);
+        wallet.receivePending(notIndexed, null);
+        assertNull(index.getTransaction(notIndexed.getHashAsString()));
+    }
+
+    // Logs the duration of the lookups of all addresses with the index compared with the linear scan over all
+    // transactions. Not an assertion as the numbers depend on the JVM.
+    // Ignored for automated tests
+    @Ignore
+    @Test
+    public void testLookupDuration() {
+        TransactionIndex index = new TransactionIndex(params);
+        long ts = System.nanoTime();
+        transactions.stream().forEach(index::add);
+        long indexDuration = System.nanoTime() - ts;
+
+        // warm up
+        addresses.stream().limit(NUM_ADDRESSES / 10).forEach(address -> {
+            index.getTransactions(address);
+            scanTransactions(address);
+        });
+
+        ts = System.nanoTime();
+        int numFound = 0;
+        for (Address address : addresses)
+            numFound += index.getTransactions(address).size();
+        long lookupDuration = System.nanoTime() - ts;
+
+        ts = System.nanoTime();
+        int numScanned = 0;
+        for (Address address : addresses)
+            numScanned += scanTransactions(address).size();
+        long scanDuration = System.nanoTime() - ts;
+
+        assertEquals(numScanned, numFound);
+        log.info("Lookup of {} addresses in {} transactions: index {} ms (built in {} ms), linear scan {} ms",
+                NUM_ADDRESSES, NUM_TRANSACTIONS, lookupDuration / 1000000, indexDuration / 1000000,
+                scanDuration / 1000000);
+    }
+
+    // The linear scan over all wallet transactions WalletService did before
+    private Set<Transaction> scanTransactions(Address address) {
+        return transactions.stream()
+                .filter(tx -> Stream.concat(tx.getOutputs().stream(),
+                        tx.getInputs().stream().map(TransactionInput::getConnectedOutput))
+                        .anyMatch(output -> output != null
+                                && address.equals(output.getScriptPubKey().getToAddress(params))))
+                .collect(Collectors.toSet());
+    }
+}
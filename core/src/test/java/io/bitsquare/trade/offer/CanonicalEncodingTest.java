@@ -0,0 +1,91 @@
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.common.crypto.CanonicalEncoder;
+import io.bitsquare.common.crypto.Hash;
+import io.bitsquare.common.util.Utilities;
+import io.bitsquare.payment.PaymentMethod;
+import io.bitsquare.p2p.Address;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CanonicalEncodingTest {
+    private static final Logger log = LoggerFactory.getLogger(CanonicalEncodingTest.class);
+
+    private static final int NUM_ITERATIONS = 20000;
+
+    @Test
+    public void testEncodingIsStable() {
+        Offer offer = createOffer("offer1", 2200000);
+        byte[] encoded = CanonicalEncoder.encode(offer);
+        assertArrayEquals(encoded, CanonicalEncoder.encode(offer));
+
+        // The receiver gets a deserialized copy and needs to get the same hash for the signature check
+        Offer copy = Utilities.<Offer>deserialize(Utilities.serialize(offer));
+        assertArrayEquals(encoded, CanonicalEncoder.encode(copy));
+        assertArrayEquals(Hash.getHash(offer), Hash.getHash(copy));
+
+        // Transient state is not part of the encoding
+        offer.setState(Offer.State.AVAILABLE);
+        assertArrayEquals(encoded, CanonicalEncoder.encode(offer));
+    }
+
+    @Test
+    public void testDifferentFieldsDifferentHash() {
+        byte[] hash = Hash.getHash(createOffer("offer1", 2200000));
+        assertFalse(Arrays.equals(hash, Hash.getHash(createOffer("offer2", 2200000))));
+        assertFalse(Arrays.equals(hash, Hash.getHash(createOffer("offer1", 2200001))));
+
+        // Length prefixes: moving a char from one string to the next must change the encoding
+        byte[] ab = new CanonicalEncoder().writeString("ab").writeString("c").toByteArray();
+        byte[] bc = new CanonicalEncoder().writeString("a").writeString("bc").toByteArray();
+        assertFalse(Arrays.equals(ab, bc));
+
+        // null and empty differ
+        byte[] nullString = new CanonicalEncoder().writeString(null).toByteArray();
+        byte[] emptyString = new CanonicalEncoder().writeString("").toByteArray();
+        assertFalse(Arrays.equals(nullString, emptyString));
+    }
+
+    // Logs the hashing throughput of the canonical encoding compared with java serialization we used before.
+    // Not an assertion as the numbers depend on the JVM.
+    // Ignored for automated tests
+    @Ignore
+    @Test
+    public void testHashThroughput() {
+        Offer offer = createOffer("offer1", 2200000);
+        // warm up
+        for (int i = 0; i < NUM_ITERATIONS / 10; i++) {
+            Hash.getHash(Utilities.serialize(offer));
+            Hash.getHash(CanonicalEncoder.encode(offer));
+        }
+
+        long ts = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+            Hash.getHash(Utilities.serialize(offer));
+        long serializationDuration = System.nanoTime() - ts;
+
+        ts = System.nanoTime();
+        for (int i = 0; i < NUM_ITERATIONS; i++)
+            Hash.getHash(CanonicalEncoder.encode(offer));
+        long canonicalDuration = System.nanoTime() - ts;
+
+        log.info("Hashing {} offers: java serialization {} ms ({} bytes), canonical encoding {} ms ({} bytes)",
+                NUM_ITERATIONS,
+                serializationDuration / 1000000, Utilities.serialize(offer).length,
+                canonicalDuration / 1000000, CanonicalEncoder.encode(offer).length);
+    }
+
+    private Offer createOffer(String id, long fiatPrice) {
+        ArrayList<Address> arbitratorAddresses = new ArrayList<>();
+        arbitratorAddresses.add(new Address("localhost", 2222));
+        return new Offer(id, new Address("localhost", 1111), null, Offer.Direction.SELL, fiatPrice, 100000000,
+                10000000, PaymentMethod.SEPA_ID, "EUR", null, "accountId", arbitratorAddresses, null);
+    }
+}
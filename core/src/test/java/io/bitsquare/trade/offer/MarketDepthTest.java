@@ -0,0 +1,49 @@
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.payment.PaymentMethod;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDepthTest {
+
+    @Test
+    public void testLevels() throws InterruptedException {
+        OrderBook orderBook = new OrderBook();
+        MarketDepth marketDepth = new MarketDepth(orderBook);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<MarketDepth.LevelChange> receivedChanges = new ArrayList<>();
+        marketDepth.addListener(changes -> {
+            receivedChanges.addAll(changes);
+            latch.countDown();
+        });
+
+        orderBook.add(createOffer("bid1", Offer.Direction.BUY, 2000000, 100000000));
+        orderBook.add(createOffer("bid2", Offer.Direction.BUY, 2100000, 100000000));
+        orderBook.add(createOffer("bid3", Offer.Direction.BUY, 2100000, 50000000));
+        orderBook.remove(createOffer("bid1", Offer.Direction.BUY, 2000000, 100000000));
+
+        LinkedHashMap<Long, Long> cumulativeLevels = marketDepth.getCumulativeLevels("EUR", Offer.Direction.BUY);
+        assertEquals(1, cumulativeLevels.size());
+        assertEquals(150000000L, (long) cumulativeLevels.get(2100000L));
+
+        // All changes get delivered in one batch, with the last state of each level
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(2, receivedChanges.size());
+        receivedChanges.stream()
+                .filter(e -> e.price == 2000000L)
+                .forEach(e -> assertEquals(0, e.amount));
+    }
+
+    private Offer createOffer(String id, Offer.Direction direction, long price, long amount) {
+        return new Offer(id, null, null, direction, price, amount, amount / 10, PaymentMethod.SEPA_ID, "EUR", null,
+                "accountId", new ArrayList<>(), null);
+    }
+}
@@ -0,0 +1,76 @@
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.common.observable.PropertyListener;
+import io.bitsquare.payment.PaymentMethod;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class OfferFootprintTest {
+    private static final Logger log = LoggerFactory.getLogger(OfferFootprintTest.class);
+
+    private static final int NUM_OFFERS = 100000;
+
+    @Test
+    public void testStateChangesReachObservers() {
+        Offer offer = createOffer("offer1");
+        offer.setState(Offer.State.AVAILABLE);
+        offer.setErrorMessage("error1");
+
+        // properties created after the change still start with the current value
+        assertEquals(Offer.State.AVAILABLE, offer.stateProperty().get());
+        assertEquals("error1", offer.errorMessageProperty().get());
+
+        List<Offer.State> states = new ArrayList<>();
+        PropertyListener<Offer.State> listener = (oldValue, newValue) -> states.add(newValue);
+        offer.stateProperty().addListener(listener);
+        offer.setState(Offer.State.NOT_AVAILABLE);
+        offer.setState(Offer.State.NOT_AVAILABLE);
+        offer.stateProperty().removeListener(listener);
+        offer.setState(Offer.State.REMOVED);
+
+        assertEquals(1, states.size());
+        assertEquals(Offer.State.NOT_AVAILABLE, states.get(0));
+        assertEquals(Offer.State.REMOVED, offer.getState());
+    }
+
+    // Logs the heap used per offer in the offer book (no observers) and per observed offer.
+    // Not an assertion as the numbers depend on the JVM, but useful to compare before and after changes.
+    // Ignored for automated tests
+    @Ignore
+    @Test
+    public void testHeapPerOffer() {
+        List<Offer> offers = new ArrayList<>(NUM_OFFERS);
+        long before = usedHeap();
+        for (int i = 0; i < NUM_OFFERS; i++)
+            offers.add(createOffer("offer" + i));
+        long afterCreate = usedHeap();
+        offers.stream().forEach(offer -> {
+            offer.stateProperty();
+            offer.errorMessageProperty();
+        });
+        long afterObserve = usedHeap();
+
+        log.info("Heap per offer: {} bytes, observed offer: {} bytes",
+                (afterCreate - before) / NUM_OFFERS, (afterObserve - before) / NUM_OFFERS);
+        assertEquals(NUM_OFFERS, offers.size());
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private Offer createOffer(String id) {
+        return new Offer(id, null, null, Offer.Direction.SELL, 2200000, 100000000, 10000000, PaymentMethod.SEPA_ID,
+                "EUR", null, "accountId", new ArrayList<>(), null);
+    }
+}
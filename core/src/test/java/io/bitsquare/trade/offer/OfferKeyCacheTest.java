@@ -0,0 +1,107 @@
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.common.crypto.Encryption;
+import io.bitsquare.common.crypto.PubKeyRing;
+import io.bitsquare.common.crypto.PublicKeyCache;
+import io.bitsquare.common.crypto.Sig;
+import io.bitsquare.common.util.Utilities;
+import io.bitsquare.payment.PaymentMethod;
+import io.bitsquare.p2p.Address;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyFactory;
+import java.security.Security;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class OfferKeyCacheTest {
+    private static final Logger log = LoggerFactory.getLogger(OfferKeyCacheTest.class);
+
+    private static final int NUM_OFFERS = 10000;
+    private static final int NUM_OFFERERS = 50;
+
+    private List<PubKeyRing> pubKeyRings;
+    private List<byte[]> serializedOffers;
+
+    @Before
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+
+        pubKeyRings = new ArrayList<>();
+        for (int i = 0; i < NUM_OFFERERS; i++)
+            pubKeyRings.add(new PubKeyRing(Sig.generateKeyPair().getPublic(), Encryption.generateKeyPair().getPublic()));
+
+        serializedOffers = new ArrayList<>();
+        for (int i = 0; i < NUM_OFFERS; i++)
+            serializedOffers.add(Utilities.serialize(createOffer("offer" + i, pubKeyRings.get(i % NUM_OFFERERS))));
+    }
+
+    @Test
+    public void testKeysAreShared() {
+        List<Offer> offers = deserializeOffers();
+        for (int i = NUM_OFFERERS; i < NUM_OFFERS; i++) {
+            PubKeyRing pubKeyRing = offers.get(i).getPubKeyRing();
+            PubKeyRing otherPubKeyRing = offers.get(i - NUM_OFFERERS).getPubKeyRing();
+            assertSame(pubKeyRing.getSignaturePubKey(), otherPubKeyRing.getSignaturePubKey());
+            assertSame(pubKeyRing.getEncryptionPubKey(), otherPubKeyRing.getEncryptionPubKey());
+            assertEquals(pubKeyRings.get(i % NUM_OFFERERS), pubKeyRing);
+        }
+    }
+
+    // Logs the heap retained by the deserialized offers and the time spent decoding, compared with decoding the keys
+    // of each offer again as we did before. Not an assertion as the numbers depend on the JVM.
+    // Ignored for automated tests
+    @Ignore
+    @Test
+    public void testHeapAndCpu() throws Exception {
+        long before = usedHeap();
+        long ts = System.nanoTime();
+        List<Offer> offers = deserializeOffers();
+        long cachedDuration = System.nanoTime() - ts;
+        long heapPerOffer = (usedHeap() - before) / NUM_OFFERS;
+
+        ts = System.nanoTime();
+        for (Offer offer : offers) {
+            PubKeyRing pubKeyRing = offer.getPubKeyRing();
+            KeyFactory.getInstance(Sig.KEY_ALGO, "BC")
+                    .generatePublic(new X509EncodedKeySpec(pubKeyRing.getSignaturePubKey().getEncoded()));
+            KeyFactory.getInstance(Encryption.ASYM_KEY_ALGO, "BC")
+                    .generatePublic(new X509EncodedKeySpec(pubKeyRing.getEncryptionPubKey().getEncoded()));
+        }
+        long uncachedKeyDuration = System.nanoTime() - ts;
+
+        log.info("Deserializing {} offers of {} offerers: {} ms, {} bytes heap per offer. " +
+                        "Decoding all keys without the cache would add {} ms. {}",
+                NUM_OFFERS, NUM_OFFERERS, cachedDuration / 1000000, heapPerOffer, uncachedKeyDuration / 1000000,
+                PublicKeyCache.getStats());
+        assertEquals(NUM_OFFERS, offers.size());
+    }
+
+    private List<Offer> deserializeOffers() {
+        List<Offer> offers = new ArrayList<>(NUM_OFFERS);
+        for (byte[] serializedOffer : serializedOffers)
+            offers.add(Utilities.<Offer>deserialize(serializedOffer));
+        return offers;
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private Offer createOffer(String id, PubKeyRing pubKeyRing) {
+        return new Offer(id, new Address("localhost", 1111), pubKeyRing, Offer.Direction.SELL, 2200000, 100000000,
+                10000000, PaymentMethod.SEPA_ID, "EUR", null, "accountId", new ArrayList<>(), null);
+    }
+}
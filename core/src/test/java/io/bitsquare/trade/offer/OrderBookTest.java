@@ -0,0 +1,62 @@
+package io.bitsquare.trade.offer;
+
+import io.bitsquare.payment.PaymentMethod;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.utils.Fiat;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OrderBookTest {
+
+    @Test
+    public void testPriceTimePriority() {
+        OrderBook orderBook = new OrderBook();
+        orderBook.add(createOffer("bid1", Offer.Direction.BUY, 2000000, 100000000));
+        orderBook.add(createOffer("bid2", Offer.Direction.BUY, 2100000, 100000000));
+        orderBook.add(createOffer("bid3", Offer.Direction.BUY, 2100000, 50000000));
+        orderBook.add(createOffer("ask1", Offer.Direction.SELL, 2300000, 100000000));
+        orderBook.add(createOffer("ask2", Offer.Direction.SELL, 2200000, 100000000));
+
+        assertEquals("bid2", orderBook.getBestOffer("EUR", Offer.Direction.BUY).get().getId());
+        assertEquals("ask2", orderBook.getBestOffer("EUR", Offer.Direction.SELL).get().getId());
+        assertFalse(orderBook.getBestOffer("USD", Offer.Direction.SELL).isPresent());
+
+        assertEquals(Coin.valueOf(150000000),
+                orderBook.getCumulativeAmount("EUR", Offer.Direction.BUY, Fiat.valueOf("EUR", 2100000)));
+        assertEquals(Coin.valueOf(200000000),
+                orderBook.getCumulativeAmount("EUR", Offer.Direction.SELL, Fiat.valueOf("EUR", 2300000)));
+
+        orderBook.remove(createOffer("bid2", Offer.Direction.BUY, 2100000, 100000000));
+        assertEquals("bid3", orderBook.getBestOffer("EUR", Offer.Direction.BUY).get().getId());
+        assertEquals(4, orderBook.size());
+    }
+
+    @Test
+    public void testMatchingOffers() {
+        OrderBook orderBook = new OrderBook();
+        orderBook.add(createOffer("ask1", Offer.Direction.SELL, 2200000, 100000000));
+        orderBook.add(createOffer("ask2", Offer.Direction.SELL, 2300000, 10000000));
+
+        assertEquals(1, orderBook.getMatchingOffers("EUR", Offer.Direction.SELL, PaymentMethod.SEPA,
+                Coin.valueOf(50000000), Coin.valueOf(50000000)).size());
+        assertEquals(2, orderBook.getMatchingOffers("EUR", Offer.Direction.SELL, PaymentMethod.SEPA,
+                Coin.valueOf(10000000), Coin.valueOf(50000000)).size());
+        assertEquals("ask1", orderBook.getMatchingOffers("EUR", Offer.Direction.SELL, PaymentMethod.SEPA,
+                Coin.valueOf(10000000), Coin.valueOf(50000000), 1).get(0).getId());
+        assertEquals(0, orderBook.getMatchingOffers("EUR", Offer.Direction.SELL, PaymentMethod.OK_PAY,
+                Coin.valueOf(10000000), Coin.valueOf(50000000)).size());
+
+        orderBook.remove(createOffer("ask1", Offer.Direction.SELL, 2200000, 100000000));
+        assertEquals("ask2", orderBook.getMatchingOffers("EUR", Offer.Direction.SELL, PaymentMethod.SEPA,
+                Coin.valueOf(10000000), Coin.valueOf(50000000)).get(0).getId());
+    }
+
+    private Offer createOffer(String id, Offer.Direction direction, long price, long amount) {
+        return new Offer(id, null, null, direction, price, amount, amount / 10, PaymentMethod.SEPA_ID, "EUR", null,
+                "accountId", new ArrayList<>(), null);
+    }
+}
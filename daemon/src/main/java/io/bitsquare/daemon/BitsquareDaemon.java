@@ -0,0 +1,252 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.bitsquare.app.BitsquareEnvironment;
+import io.bitsquare.app.Log;
+import io.bitsquare.app.StartupOrchestrator;
+import io.bitsquare.app.StartupPhases;
+import io.bitsquare.app.Version;
+import io.bitsquare.arbitration.ArbitratorManager;
+import io.bitsquare.arbitration.DisputeManager;
+import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.UserThread;
+import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.daemon.rpc.RpcServer;
+import io.bitsquare.p2p.P2PService;
+import io.bitsquare.p2p.P2PServiceListener;
+import io.bitsquare.trade.TradeManager;
+import io.bitsquare.trade.offer.OpenOfferManager;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.security.Security;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Runs the Bitsquare core services without GUI and exposes them with a local JSON-RPC API.
+// The UserThread is a single (non daemon) thread, so the process keeps running until we get shut down.
+public class BitsquareDaemon {
+    private static final Logger log = LoggerFactory.getLogger(BitsquareDaemon.class);
+
+    private static final long SHUT_DOWN_TIMEOUT_SEC = 5;
+
+    private final Environment env;
+    private final int rpcPort;
+
+    private BitsquareDaemonModule bitsquareDaemonModule;
+    private Injector injector;
+    private RpcServer rpcServer;
+    private final StartupOrchestrator startupOrchestrator = new StartupOrchestrator();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public BitsquareDaemon(Environment env, int rpcPort) {
+        this.env = env;
+        this.rpcPort = rpcPort;
+    }
+
+    public void start() {
+        String logPath = Paths.get(env.getProperty(BitsquareEnvironment.APP_DATA_DIR_KEY), "bitsquare").toString();
+        Log.setup(logPath, false);
+        log.info("Log files under: " + logPath);
+
+        Version.printVersion();
+
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("BitsquareDaemon")
+                .build();
+        UserThread.setExecutor(Executors.newSingleThreadExecutor(threadFactory));
+
+        // setup UncaughtExceptionHandler
+        Thread.UncaughtExceptionHandler handler = (thread, throwable) -> {
+            // Might come from another thread
+            log.error("Uncaught Exception from thread " + Thread.currentThread().getName());
+            log.error("Uncaught Exception throwableMessage= " + throwable.getMessage());
+            throwable.printStackTrace();
+        };
+        Thread.setDefaultUncaughtExceptionHandler(handler);
+        Thread.currentThread().setUncaughtExceptionHandler(handler);
+
+        Security.addProvider(new BouncyCastleProvider());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::onShutDownHook, "BitsquareDaemon-shutDown"));
+
+        UserThread.execute(() -> {
+            try {
+                bitsquareDaemonModule = new BitsquareDaemonModule(env);
+                injector = Guice.createInjector(bitsquareDaemonModule);
+                Version.NETWORK_ID = injector.getInstance(BitsquareEnvironment.class).getBitcoinNetwork().ordinal();
+                // Like the wallet the cookie file is per bitcoin network, so daemons for different networks can run
+                // side by side
+                rpcServer = new RpcServer(rpcPort, new File(env.getRequiredProperty(WalletService.DIR_KEY),
+                        RpcServer.COOKIE_FILE_NAME));
+                initializeAllServices();
+            } catch (Throwable t) {
+                log.error("Starting the daemon failed. " + t.getMessage());
+                t.printStackTrace();
+                System.exit(1);
+            }
+        });
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Initialisation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Keys, wallet and tor start concurrently, see StartupOrchestrator. The P2P phases are completed by the listener.
+    private void initializeAllServices() {
+        KeyRing keyRing = injector.getInstance(KeyRing.class);
+        WalletService walletService = injector.getInstance(WalletService.class);
+        P2PService p2PService = injector.getInstance(P2PService.class);
+        startupOrchestrator
+                .addPhase(StartupPhases.KEYS, null)
+                .addPhase(StartupPhases.WALLET, () -> walletService.initialize(null,
+                        () -> startupOrchestrator.complete(StartupPhases.WALLET),
+                        throwable -> startupOrchestrator.fail(StartupPhases.WALLET, throwable)))
+                .addPhase(StartupPhases.TOR_NODE, () -> p2PService.start(new P2PServiceListener() {
+                    @Override
+                    public void onTorNodeReady() {
+                        startupOrchestrator.complete(StartupPhases.TOR_NODE);
+                    }
+
+                    @Override
+                    public void onHiddenServicePublished() {
+                        startupOrchestrator.complete(StartupPhases.HIDDEN_SERVICE);
+                    }
+
+                    @Override
+                    public void onRequestingDataCompleted() {
+                        startupOrchestrator.complete(StartupPhases.P2P_DATA);
+                    }
+
+                    @Override
+                    public void onNoSeedNodeAvailable() {
+                        log.warn("No seed node available");
+                        startupOrchestrator.complete(StartupPhases.P2P_DATA);
+                    }
+
+                    @Override
+                    public void onFirstPeerAuthenticated() {
+                        log.info("First peer authenticated");
+                    }
+
+                    @Override
+                    public void onSetupFailed(Throwable throwable) {
+                        startupOrchestrator.fail(StartupPhases.TOR_NODE, throwable);
+                    }
+                }))
+                .addPhase(StartupPhases.HIDDEN_SERVICE, null, StartupPhases.TOR_NODE)
+                .addPhase(StartupPhases.P2P_DATA, null, StartupPhases.HIDDEN_SERVICE);
+
+        Futures.addCallback(keyRing.getLoadFuture(), new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                startupOrchestrator.complete(StartupPhases.KEYS);
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                startupOrchestrator.fail(StartupPhases.KEYS, throwable);
+            }
+        });
+
+        startupOrchestrator.start(this::onAllServicesInitialized,
+                throwable -> log.error("Starting the services failed. " + throwable.getMessage()));
+    }
+
+    private void onAllServicesInitialized() {
+        log.info("onAllServicesInitialized");
+        injector.getInstance(DisputeManager.class).onAllServicesInitialized();
+        injector.getInstance(TradeManager.class).onAllServicesInitialized();
+        injector.getInstance(ArbitratorManager.class).onAllServicesInitialized();
+        injector.getInstance(OpenOfferManager.class).onAllServicesInitialized();
+
+        injector.getInstance(RpcApi.class).onAllServicesInitialized(rpcServer);
+        try {
+            rpcServer.start();
+        } catch (IOException e) {
+            log.error("Starting the RPC server on port {} failed. {}", rpcPort, e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Shut down
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The JVM is shutting down (SIGTERM, SIGINT or System.exit). We do the graceful shut down on the UserThread and
+    // wait for it max. SHUT_DOWN_TIMEOUT_SEC.
+    private void onShutDownHook() {
+        CountDownLatch latch = new CountDownLatch(1);
+        UserThread.execute(() -> gracefulShutDown(latch::countDown));
+        try {
+            if (!latch.await(SHUT_DOWN_TIMEOUT_SEC, TimeUnit.SECONDS))
+                log.warn("Graceful shut down did not complete in time");
+        } catch (InterruptedException ignore) {
+        }
+        log.info("Daemon shutdown complete");
+    }
+
+    private void gracefulShutDown(ResultHandler resultHandler) {
+        log.debug("gracefulShutDown");
+        try {
+            if (rpcServer != null)
+                rpcServer.shutDown();
+
+            if (injector != null) {
+                injector.getInstance(TradeManager.class).shutDown();
+                injector.getInstance(OpenOfferManager.class).shutDown(() -> {
+                    injector.getInstance(P2PService.class).shutDown(() -> {
+                        WalletService walletService = injector.getInstance(WalletService.class);
+                        walletService.shutDownDone.addListener((oldValue, newValue) -> {
+                            bitsquareDaemonModule.close(injector);
+                            resultHandler.handleResult();
+                        });
+                        walletService.shutDown();
+                    });
+                });
+            } else {
+                resultHandler.handleResult();
+            }
+        } catch (Throwable t) {
+            log.info("Daemon shutdown failed with exception");
+            t.printStackTrace();
+            resultHandler.handleResult();
+        }
+    }
+}
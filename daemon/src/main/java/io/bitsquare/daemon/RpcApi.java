@@ -0,0 +1,555 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.inject.Inject;
+import io.bitsquare.btc.AddressEntry;
+import io.bitsquare.btc.Restrictions;
+import io.bitsquare.btc.TradeWalletService;
+import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.UserThread;
+import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.PropertyListener;
+import io.bitsquare.crypto.ScryptUtil;
+import io.bitsquare.daemon.rpc.RpcClient;
+import io.bitsquare.daemon.rpc.RpcException;
+import io.bitsquare.daemon.rpc.RpcRequest;
+import io.bitsquare.daemon.rpc.RpcServer;
+import io.bitsquare.p2p.P2PService;
+import io.bitsquare.p2p.network.NetworkExecutor;
+import io.bitsquare.payment.PaymentAccount;
+import io.bitsquare.payment.SepaAccount;
+import io.bitsquare.trade.Trade;
+import io.bitsquare.trade.TradeManager;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.offer.OpenOffer;
+import io.bitsquare.trade.offer.OpenOfferManager;
+import io.bitsquare.trade.offer.OrderBook;
+import io.bitsquare.user.User;
+import org.bitcoinj.core.*;
+import org.bitcoinj.crypto.KeyCrypterScrypt;
+import org.bitcoinj.utils.Fiat;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spongycastle.crypto.params.KeyParameter;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+// The methods we expose to RPC clients. All methods and listeners run on the UserThread, so we don't need to
+// synchronize access to the subscriptions.
+// Offer book and trade events are observed with one listener each (not one per client) and the notification is
+// serialized once and fanned out to the subscribed clients.
+public class RpcApi {
+    private static final Logger log = LoggerFactory.getLogger(RpcApi.class);
+
+    // Application specific error codes (JSON-RPC reserves -32768 to -32000)
+    public static final int WALLET_LOCKED = -31001;
+    public static final int NOT_FOUND = -31002;
+    public static final int OPERATION_FAILED = -31003;
+
+    // The AES key is kept in memory only for the requested time, max. one day
+    private static final long DEFAULT_UNLOCK_TIMEOUT_SEC = 10 * 60;
+    private static final long MAX_UNLOCK_TIMEOUT_SEC = 24 * 60 * 60;
+    private static final int MAX_PENDING_FUNDING_ADDRESSES = 20;
+
+    private final OrderBook orderBook;
+    private final OpenOfferManager openOfferManager;
+    private final TradeManager tradeManager;
+    private final WalletService walletService;
+    private final TradeWalletService tradeWalletService;
+    private final P2PService p2PService;
+    private final KeyRing keyRing;
+    private final User user;
+
+    // client -> currency code filter, null for all currencies
+    private final Map<RpcClient, String> offerBookSubscriptions = new HashMap<>();
+    private final Set<RpcClient> tradeSubscriptions = new HashSet<>();
+    private final Map<String, PropertyListener<Object>> tradeListeners = new HashMap<>();
+    // offerIds handed out by getOfferFundingAddress which are not used by an offer yet
+    private final Set<String> pendingFundingOfferIds = new LinkedHashSet<>();
+    @Nullable
+    private Timer lockWalletTimer;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Inject
+    public RpcApi(OrderBook orderBook,
+                  OpenOfferManager openOfferManager,
+                  TradeManager tradeManager,
+                  WalletService walletService,
+                  TradeWalletService tradeWalletService,
+                  P2PService p2PService,
+                  KeyRing keyRing,
+                  User user) {
+        this.orderBook = orderBook;
+        this.openOfferManager = openOfferManager;
+        this.tradeManager = tradeManager;
+        this.walletService = walletService;
+        this.tradeWalletService = tradeWalletService;
+        this.p2PService = p2PService;
+        this.keyRing = keyRing;
+        this.user = user;
+    }
+
+    public void onAllServicesInitialized(RpcServer rpcServer) {
+        orderBook.addListener(new OrderBook.Listener() {
+            @Override
+            public void onOfferAdded(Offer offer) {
+                notifyOfferBookSubscribers("offerAdded", offer);
+            }
+
+            @Override
+            public void onOfferRemoved(Offer offer) {
+                notifyOfferBookSubscribers("offerRemoved", offer);
+            }
+        });
+
+        tradeManager.getTrades().stream().forEach(this::addTradeListener);
+        tradeManager.getTrades().addListener((added, removed) -> {
+            removed.stream().forEach(this::removeTradeListener);
+            added.stream().forEach(trade -> {
+                addTradeListener(trade);
+                RpcServer.notify(tradeSubscriptions, "tradeAdded", toJson(trade));
+            });
+        });
+
+        rpcServer.registerMethod("getOffers", this::getOffers);
+        rpcServer.registerMethod("getBestOffer", this::getBestOffer);
+        rpcServer.registerMethod("subscribeOfferBook", this::subscribeOfferBook);
+        rpcServer.registerMethod("unsubscribeOfferBook", this::unsubscribeOfferBook);
+        rpcServer.registerMethod("getOfferFundingAddress", this::getOfferFundingAddress);
+        rpcServer.registerMethod("placeOffer", this::placeOffer);
+        rpcServer.registerMethod("placeOffers", this::placeOffers);
+        rpcServer.registerMethod("removeOffer", this::removeOffer);
+        rpcServer.registerMethod("getOpenOffers", this::getOpenOffers);
+        rpcServer.registerMethod("getTrades", this::getTrades);
+        rpcServer.registerMethod("subscribeTrades", this::subscribeTrades);
+        rpcServer.registerMethod("unsubscribeTrades", this::unsubscribeTrades);
+        rpcServer.registerMethod("getBalance", this::getBalance);
+        rpcServer.registerMethod("unlockWallet", this::unlockWallet);
+        rpcServer.registerMethod("lockWallet", this::lockWallet);
+        rpcServer.registerMethod("withdraw", this::withdraw);
+        rpcServer.registerMethod("withdrawFromTrade", this::withdrawFromTrade);
+        rpcServer.registerMethod("getNetworkStats", this::getNetworkStats);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Offer book
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void getOffers(RpcRequest request) {
+        String currencyCode = request.getString("currencyCode");
+        Offer.Direction direction = request.getEnum("direction", Offer.Direction.class);
+        JsonArray result = new JsonArray();
+        orderBook.getOffers(currencyCode, direction).stream().forEach(offer -> result.add(toJson(offer)));
+        request.respond(result);
+    }
+
+    private void getBestOffer(RpcRequest request) {
+        String currencyCode = request.getString("currencyCode");
+        Offer.Direction direction = request.getEnum("direction", Offer.Direction.class);
+        Optional<Offer> bestOffer = orderBook.getBestOffer(currencyCode, direction);
+        request.respond(bestOffer.isPresent() ? toJson(bestOffer.get()) : JsonNull.INSTANCE);
+    }
+
+    private void subscribeOfferBook(RpcRequest request) {
+        RpcClient client = request.getClient();
+        if (!offerBookSubscriptions.containsKey(client))
+            client.addCloseHandler(() -> offerBookSubscriptions.remove(client));
+        offerBookSubscriptions.put(client, request.getString("currencyCode", null));
+        request.respond(new JsonPrimitive(true));
+    }
+
+    private void unsubscribeOfferBook(RpcRequest request) {
+        request.respond(new JsonPrimitive(offerBookSubscriptions.containsKey(request.getClient())));
+        offerBookSubscriptions.remove(request.getClient());
+    }
+
+    private void notifyOfferBookSubscribers(String method, Offer offer) {
+        if (!offerBookSubscriptions.isEmpty()) {
+            List<RpcClient> receivers = new ArrayList<>();
+            offerBookSubscriptions.entrySet().stream()
+                    .filter(e -> e.getValue() == null || e.getValue().equals(offer.getCurrencyCode()))
+                    .forEach(e -> receivers.add(e.getKey()));
+            RpcServer.notify(receivers, method, toJson(offer));
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Offers
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The offer fee and the security deposit are paid from a dedicated address per offer. The client requests that
+    // address, funds it and uses the returned offerId for placeOffer.
+    // Each address entry is stored in the wallet forever, so we hand out an address again as long as it did not
+    // receive any funds and limit the number of funded addresses without offer.
+    private void getOfferFundingAddress(RpcRequest request) {
+        pendingFundingOfferIds.removeIf(offerId -> openOfferManager.findOpenOffer(offerId).isPresent()
+                || isWithdrawn(walletService.getAddressEntryByOfferId(offerId)));
+        Optional<String> unusedOfferId = pendingFundingOfferIds.stream()
+                .filter(offerId -> !isUsed(walletService.getAddressEntryByOfferId(offerId)))
+                .findFirst();
+
+        String offerId;
+        if (unusedOfferId.isPresent()) {
+            offerId = unusedOfferId.get();
+        } else if (pendingFundingOfferIds.size() < MAX_PENDING_FUNDING_ADDRESSES) {
+            offerId = UUID.randomUUID().toString();
+            pendingFundingOfferIds.add(offerId);
+        } else {
+            throw new RpcException(OPERATION_FAILED, "There are already %d funded addresses without an offer. Place " +
+                    "offers with them or withdraw the funds first.", MAX_PENDING_FUNDING_ADDRESSES);
+        }
+
+        AddressEntry addressEntry = walletService.getAddressEntryByOfferId(offerId);
+        JsonObject result = new JsonObject();
+        result.addProperty("offerId", offerId);
+        result.addProperty("address", addressEntry.getAddressString());
+        request.respond(result);
+    }
+
+    private boolean isUsed(AddressEntry addressEntry) {
+        return walletService.getConfidenceForAddress(addressEntry.getAddress()) != null;
+    }
+
+    private boolean isWithdrawn(AddressEntry addressEntry) {
+        return isUsed(addressEntry) && walletService.getBalanceForAddress(addressEntry.getAddress()).isZero();
+    }
+
+    private void placeOffer(RpcRequest request) {
+        checkCanPlaceOffers();
+        Offer offer = createOffer(request);
+        openOfferManager.onPlaceOffer(offer, transaction -> {
+            JsonObject result = new JsonObject();
+            result.addProperty("offerId", offer.getId());
+            result.addProperty("offerFeeTxId", transaction.getHashAsString());
+            request.respond(result);
+        });
+    }
+
+    // Places several offers with one offer fee transaction. The offers param is an array of objects with the same
+    // params as placeOffer.
+    private void placeOffers(RpcRequest request) {
+        checkCanPlaceOffers();
+        List<RpcRequest> offerParams = request.getObjects("offers");
+        if (offerParams.isEmpty() || offerParams.size() > MAX_PENDING_FUNDING_ADDRESSES)
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Between 1 and %d offers can be placed at once",
+                    MAX_PENDING_FUNDING_ADDRESSES);
+
+        List<Offer> offers = new ArrayList<>();
+        for (RpcRequest params : offerParams)
+            offers.add(createOffer(params));
+
+        openOfferManager.onPlaceOffers(offers,
+                transaction -> {
+                    JsonArray offerIds = new JsonArray();
+                    offers.stream().forEach(offer -> offerIds.add(new JsonPrimitive(offer.getId())));
+                    JsonObject result = new JsonObject();
+                    result.add("offerIds", offerIds);
+                    result.addProperty("offerFeeTxId", transaction.getHashAsString());
+                    request.respond(result);
+                },
+                errorMessage -> request.fail(OPERATION_FAILED, errorMessage));
+    }
+
+    private void checkCanPlaceOffers() {
+        checkWalletUnlocked();
+        if (p2PService.getAddress() == null)
+            throw new RpcException(OPERATION_FAILED, "We are not connected to the P2P network");
+    }
+
+    private Offer createOffer(RpcRequest params) {
+        String offerId = params.getString("offerId");
+        PaymentAccount paymentAccount = user.getPaymentAccount(params.getString("paymentAccountId"));
+        if (paymentAccount == null)
+            throw new RpcException(NOT_FOUND, "Payment account not found");
+
+        String currencyCode = params.getString("currencyCode");
+        if (paymentAccount.getTradeCurrencies().stream().noneMatch(e -> e.getCode().equals(currencyCode)))
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Payment account does not support %s", currencyCode);
+
+        Offer.Direction direction = params.getEnum("direction", Offer.Direction.class);
+        Fiat price = Fiat.parseFiat(currencyCode, params.getString("price"));
+        Coin amount = Coin.parseCoin(params.getString("amount"));
+        Coin minAmount = Coin.parseCoin(params.getString("minAmount", params.getString("amount")));
+        if (amount.compareTo(Restrictions.MAX_TRADE_AMOUNT) > 0 || minAmount.compareTo(Restrictions.MIN_TRADE_AMOUNT) < 0
+                || minAmount.compareTo(amount) > 0)
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Invalid amount or min. amount");
+
+        List<String> acceptedCountryCodes = null;
+        if (paymentAccount instanceof SepaAccount)
+            acceptedCountryCodes = ((SepaAccount) paymentAccount).getAcceptedCountryCodes();
+
+        return new Offer(offerId,
+                p2PService.getAddress(),
+                keyRing.getPubKeyRing(),
+                direction,
+                price.getValue(),
+                amount.getValue(),
+                minAmount.getValue(),
+                paymentAccount.getPaymentMethod().getId(),
+                currencyCode,
+                paymentAccount.getCountry(),
+                paymentAccount.getId(),
+                user.getAcceptedArbitratorAddresses(),
+                acceptedCountryCodes);
+    }
+
+    private void removeOffer(RpcRequest request) {
+        Optional<OpenOffer> openOffer = openOfferManager.findOpenOffer(request.getString("offerId"));
+        if (!openOffer.isPresent())
+            throw new RpcException(NOT_FOUND, "Open offer not found");
+
+        openOfferManager.onRemoveOpenOffer(openOffer.get(),
+                () -> request.respond(new JsonPrimitive(true)),
+                errorMessage -> request.fail(OPERATION_FAILED, errorMessage));
+    }
+
+    private void getOpenOffers(RpcRequest request) {
+        JsonArray result = new JsonArray();
+        openOfferManager.getOpenOffers().stream().forEach(openOffer -> {
+            JsonObject json = toJson(openOffer.getOffer());
+            json.addProperty("state", openOffer.getState().name());
+            result.add(json);
+        });
+        request.respond(result);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Trades
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void getTrades(RpcRequest request) {
+        JsonArray result = new JsonArray();
+        tradeManager.getTrades().stream().forEach(trade -> result.add(toJson(trade)));
+        request.respond(result);
+    }
+
+    private void subscribeTrades(RpcRequest request) {
+        RpcClient client = request.getClient();
+        if (tradeSubscriptions.add(client))
+            client.addCloseHandler(() -> tradeSubscriptions.remove(client));
+        request.respond(new JsonPrimitive(true));
+    }
+
+    private void unsubscribeTrades(RpcRequest request) {
+        request.respond(new JsonPrimitive(tradeSubscriptions.remove(request.getClient())));
+    }
+
+    private void addTradeListener(Trade trade) {
+        PropertyListener<Object> listener = (oldValue, newValue) ->
+                RpcServer.notify(tradeSubscriptions, "tradeStateChanged", toJson(trade));
+        trade.stateProperty().addListener(listener);
+        trade.disputeStateProperty().addListener(listener);
+        tradeListeners.put(trade.getId(), listener);
+    }
+
+    private void removeTradeListener(Trade trade) {
+        PropertyListener<Object> listener = tradeListeners.remove(trade.getId());
+        if (listener != null) {
+            trade.stateProperty().removeListener(listener);
+            trade.disputeStateProperty().removeListener(listener);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Wallet
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void getBalance(RpcRequest request) {
+        String address = request.getString("address", null);
+        Coin balance;
+        if (address != null) {
+            try {
+                balance = walletService.getBalanceForAddress(new Address(walletService.getWallet().getParams(), address));
+            } catch (AddressFormatException e) {
+                throw new RpcException(RpcServer.INVALID_PARAMS, "Invalid address");
+            }
+        } else {
+            balance = walletService.getAvailableBalance();
+        }
+        request.respond(new JsonPrimitive(balance.toPlainString()));
+    }
+
+    // Key derivation is expensive, it runs on the scrypt thread pool and we respond when it is done.
+    // The wallet gets locked again after timeout seconds. Offers and trades need the key for signing, so a client with
+    // open offers has to unlock the wallet again before the timeout.
+    private void unlockWallet(RpcRequest request) {
+        Wallet wallet = walletService.getWallet();
+        KeyCrypterScrypt keyCrypterScrypt = (KeyCrypterScrypt) wallet.getKeyCrypter();
+        if (keyCrypterScrypt == null)
+            throw new RpcException(OPERATION_FAILED, "Wallet is not encrypted");
+
+        long timeoutSec = request.getLong("timeout", DEFAULT_UNLOCK_TIMEOUT_SEC);
+        if (timeoutSec <= 0 || timeoutSec > MAX_UNLOCK_TIMEOUT_SEC)
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Timeout must be between 1 and %d seconds",
+                    MAX_UNLOCK_TIMEOUT_SEC);
+
+        ScryptUtil.deriveKeyWithScrypt(keyCrypterScrypt, request.getString("password"), aesKey -> {
+            if (wallet.checkAESKey(aesKey)) {
+                stopLockWalletTimer();
+                tradeWalletService.setAesKey(aesKey);
+                lockWalletTimer = UserThread.runAfter(() -> {
+                    log.info("Unlock timeout reached. We lock the wallet.");
+                    lockWalletTimer = null;
+                    tradeWalletService.setAesKey(null);
+                }, timeoutSec);
+                request.respond(new JsonPrimitive(true));
+            } else {
+                request.fail(WALLET_LOCKED, "Wrong password");
+            }
+        });
+    }
+
+    private void lockWallet(RpcRequest request) {
+        stopLockWalletTimer();
+        tradeWalletService.setAesKey(null);
+        request.respond(new JsonPrimitive(true));
+    }
+
+    private void stopLockWalletTimer() {
+        if (lockWalletTimer != null) {
+            lockWalletTimer.cancel();
+            lockWalletTimer = null;
+        }
+    }
+
+    private void withdraw(RpcRequest request) {
+        checkWalletUnlocked();
+        Coin amount = Coin.parseCoin(request.getString("amount"));
+        try {
+            walletService.sendFunds(request.getString("fromAddress"),
+                    request.getString("toAddress"),
+                    amount,
+                    tradeWalletService.getAesKey(),
+                    new FutureCallback<Transaction>() {
+                        @Override
+                        public void onSuccess(@Nullable Transaction transaction) {
+                            request.respond(transaction != null ? new JsonPrimitive(transaction.getHashAsString())
+                                    : JsonNull.INSTANCE);
+                        }
+
+                        @Override
+                        public void onFailure(@NotNull Throwable t) {
+                            request.fail(OPERATION_FAILED, t.getMessage());
+                        }
+                    });
+        } catch (AddressFormatException | InsufficientMoneyException e) {
+            throw new RpcException(OPERATION_FAILED, "Withdrawal failed. %s", e.getMessage());
+        }
+    }
+
+    private void withdrawFromTrade(RpcRequest request) {
+        checkWalletUnlocked();
+        Optional<Trade> trade = tradeManager.getTradeById(request.getString("tradeId"));
+        if (!trade.isPresent())
+            throw new RpcException(NOT_FOUND, "Trade not found");
+
+        tradeManager.onWithdrawRequest(request.getString("toAddress"),
+                tradeWalletService.getAesKey(),
+                trade.get(),
+                () -> request.respond(new JsonPrimitive(true)),
+                (errorMessage, throwable) -> request.fail(OPERATION_FAILED, errorMessage));
+    }
+
+    private void checkWalletUnlocked() {
+        KeyParameter aesKey = tradeWalletService.getAesKey();
+        if (walletService.getWallet().isEncrypted() && aesKey == null)
+            throw new RpcException(WALLET_LOCKED, "Wallet is locked. Call unlockWallet first.");
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Network
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Saturation of the network executor per task class, e.g. for monitoring a market maker under load
+    private void getNetworkStats(RpcRequest request) {
+        JsonObject result = new JsonObject();
+        result.addProperty("numAuthenticatedPeers", p2PService.getNumAuthenticatedPeers().get());
+        JsonArray executor = new JsonArray();
+        NetworkExecutor networkExecutor = p2PService.getNetworkNode().getExecutor();
+        if (networkExecutor != null) {
+            for (NetworkExecutor.TaskClass taskClass : NetworkExecutor.TaskClass.values())
+                executor.add(toJson(networkExecutor.getMetrics(taskClass)));
+        }
+        result.add("executor", executor);
+        request.respond(result);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // JSON
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static JsonObject toJson(NetworkExecutor.Metrics metrics) {
+        JsonObject json = new JsonObject();
+        json.addProperty("taskClass", metrics.taskClass.name());
+        json.addProperty("activeThreads", metrics.activeThreads);
+        json.addProperty("maxThreads", metrics.maxThreads);
+        json.addProperty("queued", metrics.queued);
+        json.addProperty("queueCapacity", metrics.queueCapacity);
+        json.addProperty("submitted", metrics.submitted);
+        json.addProperty("rejected", metrics.rejected);
+        return json;
+    }
+
+    private static JsonObject toJson(Offer offer) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", offer.getId());
+        json.addProperty("direction", offer.getDirection().name());
+        json.addProperty("currencyCode", offer.getCurrencyCode());
+        json.addProperty("price", offer.getPrice().toPlainString());
+        json.addProperty("amount", offer.getAmount().toPlainString());
+        json.addProperty("minAmount", offer.getMinAmount().toPlainString());
+        json.addProperty("paymentMethod", offer.getPaymentMethod().getId());
+        json.addProperty("date", offer.getDate().getTime());
+        return json;
+    }
+
+    private static JsonObject toJson(Trade trade) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", trade.getId());
+        if (trade.getState() != null) {
+            json.addProperty("state", trade.getState().name());
+            json.addProperty("phase", trade.getState().getPhase().name());
+        }
+        json.addProperty("disputeState", trade.getDisputeState().name());
+        json.addProperty("direction", trade.getOffer().getDirection().name());
+        json.addProperty("currencyCode", trade.getOffer().getCurrencyCode());
+        json.addProperty("price", trade.getOffer().getPrice().toPlainString());
+        if (trade.getTradeAmount() != null)
+            json.addProperty("amount", trade.getTradeAmount().toPlainString());
+        json.addProperty("date", trade.getDate().getTime());
+        return json;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon.rpc;
+
+import io.bitsquare.common.KeyedSerialExecutor;
+import io.bitsquare.common.UserThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One connected RPC client. Messages are written on the shared writer pool, serialized per client, so a slow
+// client never blocks the UserThread or other clients. Clients which don't read their messages get disconnected.
+public class RpcClient {
+    private static final Logger log = LoggerFactory.getLogger(RpcClient.class);
+
+    private static final int MAX_PENDING_MESSAGES = 10000;
+
+    private final String id;
+    private final Socket socket;
+    private final Writer writer;
+    private final KeyedSerialExecutor writerExecutor;
+    private final AtomicInteger numPendingMessages = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean authenticated;
+    private final List<Runnable> closeHandlers = new CopyOnWriteArrayList<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    RpcClient(String id, Socket socket, KeyedSerialExecutor writerExecutor) throws IOException {
+        this.id = id;
+        this.socket = socket;
+        this.writerExecutor = writerExecutor;
+        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Can be called from any thread. Messages are written in the order of the calls.
+    // We only flush if no more messages are queued up, so bursts of notifications end up in few packets.
+    public void send(String message) {
+        if (closed.get())
+            return;
+
+        if (numPendingMessages.incrementAndGet() > MAX_PENDING_MESSAGES) {
+            log.warn("Client {} does not read its messages. We disconnect.", id);
+            close();
+            return;
+        }
+
+        writerExecutor.execute(id, () -> {
+            try {
+                writer.write(message);
+                writer.write('\n');
+                if (numPendingMessages.decrementAndGet() == 0)
+                    writer.flush();
+            } catch (IOException e) {
+                log.debug("Writing to client {} failed. {}", id, e.getMessage());
+                close();
+            }
+        });
+    }
+
+    // Writes the message after all pending messages and closes the connection afterwards.
+    public void sendAndClose(String message) {
+        if (closed.get())
+            return;
+
+        writerExecutor.execute(id, () -> {
+            try {
+                writer.write(message);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                log.debug("Writing to client {} failed. {}", id, e.getMessage());
+            } finally {
+                close();
+            }
+        });
+    }
+
+    // Handlers are called on the UserThread after the client got disconnected.
+    public void addCloseHandler(Runnable closeHandler) {
+        closeHandlers.add(closeHandler);
+        if (closed.get())
+            UserThread.execute(closeHandler);
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Closing socket of client {} failed. {}", id, e.getMessage());
+            }
+            UserThread.execute(() -> closeHandlers.stream().forEach(Runnable::run));
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    void setAuthenticated() {
+        authenticated = true;
+    }
+
+    InputStream getInputStream() throws IOException {
+        return socket.getInputStream();
+    }
+
+    @Override
+    public String toString() {
+        return "RpcClient{" +
+                "id='" + id + '\'' +
+                ", address=" + socket.getRemoteSocketAddress() +
+                '}';
+    }
+}
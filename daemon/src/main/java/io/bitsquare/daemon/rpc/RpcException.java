@@ -0,0 +1,34 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon.rpc;
+
+import io.bitsquare.BitsquareException;
+
+// Thrown by RpcMethod implementations to answer the request with a JSON-RPC error object.
+public class RpcException extends BitsquareException {
+    private final int code;
+
+    public RpcException(int code, String format, Object... args) {
+        super(format, args);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
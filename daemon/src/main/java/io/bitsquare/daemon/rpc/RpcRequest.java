@@ -0,0 +1,134 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon.rpc;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+// A single JSON-RPC call of a client. Responding is thread safe, the response gets written by the writer pool.
+// Requests without id are notifications in JSON-RPC terms and don't get a response.
+public class RpcRequest {
+    private final RpcClient client;
+    private final String method;
+    @Nullable
+    private final JsonElement id;
+    private final JsonObject params;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    RpcRequest(RpcClient client, String method, @Nullable JsonElement id, JsonObject params) {
+        this.client = client;
+        this.method = method;
+        this.id = id;
+        this.params = params;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void respond(@Nullable JsonElement result) {
+        if (id != null)
+            client.send(RpcServer.toResponse(id, result != null ? result : JsonNull.INSTANCE));
+    }
+
+    public void fail(int code, String message) {
+        if (id != null)
+            client.send(RpcServer.toErrorResponse(id, code, message));
+    }
+
+    public String getString(String key) throws RpcException {
+        String value = getString(key, null);
+        if (value == null)
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Missing parameter %s", key);
+        return value;
+    }
+
+    public String getString(String key, @Nullable String defaultValue) throws RpcException {
+        JsonElement element = params.get(key);
+        if (element == null || element.isJsonNull())
+            return defaultValue;
+        else if (!element.isJsonPrimitive())
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Parameter %s must be a string", key);
+        else
+            return element.getAsString();
+    }
+
+    public long getLong(String key, long defaultValue) throws RpcException {
+        String value = getString(key, null);
+        if (value == null)
+            return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Parameter %s must be a number", key);
+        }
+    }
+
+    public <E extends Enum<E>> E getEnum(String key, Class<E> enumClass) throws RpcException {
+        String value = getString(key);
+        try {
+            return Enum.valueOf(enumClass, value);
+        } catch (IllegalArgumentException e) {
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Invalid value %s for parameter %s", value, key);
+        }
+    }
+
+    // Each object of an array parameter as request of its own, so the same getters can be used for it. The returned
+    // requests have no id, responding to them has no effect.
+    public List<RpcRequest> getObjects(String key) throws RpcException {
+        JsonElement element = params.get(key);
+        if (element == null || element.isJsonNull())
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Missing parameter %s", key);
+        else if (!element.isJsonArray())
+            throw new RpcException(RpcServer.INVALID_PARAMS, "Parameter %s must be an array", key);
+
+        List<RpcRequest> objects = new ArrayList<>();
+        for (JsonElement object : element.getAsJsonArray()) {
+            if (!object.isJsonObject())
+                throw new RpcException(RpcServer.INVALID_PARAMS, "Parameter %s must be an array of objects", key);
+            objects.add(new RpcRequest(client, method, null, object.getAsJsonObject()));
+        }
+        return objects;
+    }
+
+    public RpcClient getClient() {
+        return client;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    JsonElement getId() {
+        return id != null ? id : JsonNull.INSTANCE;
+    }
+
+    JsonObject getParams() {
+        return params;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.daemon.rpc;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.*;
+import io.bitsquare.common.KeyedSerialExecutor;
+import io.bitsquare.common.UserThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JSON-RPC 2.0 server listening on localhost. Each request and response is one line of JSON.
+// Reading is done with one blocking reader thread per client (like our p2p connections), the methods are executed
+// on the UserThread and responses and notifications are written by a small writer pool. So no thread is ever blocked
+// waiting for the UserThread and the UserThread never waits for a client.
+// Any local process can connect, so a client has to call authenticate with the token from the cookie file (only
+// readable by our user) before it can call any other method. Clients which fail to authenticate or send a line which
+// is not JSON (e.g. a browser posting a HTTP request to our port) get disconnected immediately.
+public class RpcServer {
+    private static final Logger log = LoggerFactory.getLogger(RpcServer.class);
+
+    private static final String JSON_RPC_VERSION = "2.0";
+    private static final int NUM_WRITER_THREADS = 2;
+    private static final int TOKEN_LENGTH = 32;
+    // Our requests are small. A client sending a longer line gets disconnected, so it cannot fill up our memory.
+    static final int MAX_REQUEST_LENGTH = 64 * 1024;
+
+    public static final String COOKIE_FILE_NAME = "rpc.cookie";
+    public static final String AUTHENTICATE = "authenticate";
+
+    // JSON-RPC 2.0 error codes
+    public static final int PARSE_ERROR = -32700;
+    public static final int INVALID_REQUEST = -32600;
+    public static final int METHOD_NOT_FOUND = -32601;
+    public static final int INVALID_PARAMS = -32602;
+    public static final int INTERNAL_ERROR = -32603;
+    // Implementation defined server error
+    public static final int UNAUTHORIZED = -32001;
+
+    private final int port;
+    private final File cookieFile;
+    private final Map<String, RpcMethod> methods = new ConcurrentHashMap<>();
+    private final Set<RpcClient> clients = new CopyOnWriteArraySet<>();
+    private final AtomicInteger clientCounter = new AtomicInteger();
+    private final ExecutorService readerExecutor;
+    private final KeyedSerialExecutor writerExecutor;
+    private ServerSocket serverSocket;
+    private byte[] token;
+    private volatile boolean stopped;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public RpcServer(int port, File cookieFile) {
+        this.port = port;
+        this.cookieFile = cookieFile;
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("RpcReader-%d")
+                .setDaemon(true)
+                .build();
+        readerExecutor = Executors.newCachedThreadPool(threadFactory);
+        writerExecutor = new KeyedSerialExecutor("RpcWriter", NUM_WRITER_THREADS);
+    }
+
+    // A new token is created at each start, so a leaked token is only valid until the next restart.
+    public void start() throws IOException {
+        byte[] tokenBytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(tokenBytes);
+        String tokenString = BaseEncoding.base16().lowerCase().encode(tokenBytes);
+        writeCookieFile(tokenString);
+        token = tokenString.getBytes(StandardCharsets.UTF_8);
+
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptThread = new Thread(this::acceptClients, "RpcServer");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        log.info("RPC server listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    public void shutDown() {
+        stopped = true;
+        try {
+            if (serverSocket != null)
+                serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Closing server socket failed. " + e.getMessage());
+        }
+        clients.stream().forEach(RpcClient::close);
+        readerExecutor.shutdownNow();
+        writerExecutor.shutDown();
+        if (!cookieFile.delete())
+            log.debug("Deleting the cookie file failed");
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void registerMethod(String name, RpcMethod method) {
+        methods.put(name, method);
+    }
+
+    // The notification gets serialized only once, independent of the number of receivers.
+    public static void notify(Collection<RpcClient> receivers, String method, JsonElement params) {
+        if (!receivers.isEmpty()) {
+            JsonObject notification = new JsonObject();
+            notification.addProperty("jsonrpc", JSON_RPC_VERSION);
+            notification.addProperty("method", method);
+            notification.add("params", params);
+            String message = notification.toString();
+            receivers.stream().forEach(e -> e.send(message));
+        }
+    }
+
+    public int getNumClients() {
+        return clients.size();
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Package scope
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    static String toResponse(JsonElement id, JsonElement result) {
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", JSON_RPC_VERSION);
+        response.add("id", id);
+        response.add("result", result);
+        return response.toString();
+    }
+
+    static String toErrorResponse(JsonElement id, int code, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject response = new JsonObject();
+        response.addProperty("jsonrpc", JSON_RPC_VERSION);
+        response.add("id", id);
+        response.add("error", error);
+        return response.toString();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void acceptClients() {
+        while (!stopped) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                RpcClient client = new RpcClient(String.valueOf(clientCounter.incrementAndGet()), socket, writerExecutor);
+                clients.add(client);
+                client.addCloseHandler(() -> clients.remove(client));
+                log.info("RPC client connected: " + client);
+                readerExecutor.execute(() -> readRequests(client));
+            } catch (IOException | RejectedExecutionException e) {
+                if (!stopped)
+                    log.warn("Accepting RPC client failed. " + e.getMessage());
+            }
+        }
+    }
+
+    // We don't close the reader as that would close the socket before a pending error response is written.
+    private void readRequests(RpcClient client) {
+        boolean keepReading = true;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.UTF_8));
+            JsonParser parser = new JsonParser();
+            String line;
+            while (keepReading && !client.isClosed() && (line = readLine(reader)) != null) {
+                if (!line.trim().isEmpty())
+                    keepReading = handleRequest(client, parser, line);
+            }
+        } catch (RequestTooLongException e) {
+            log.warn("Client {} sent a request longer than {} chars. We disconnect.", client.getId(),
+                    MAX_REQUEST_LENGTH);
+            client.sendAndClose(toErrorResponse(JsonNull.INSTANCE, INVALID_REQUEST, "Request too long"));
+            keepReading = false;
+        } catch (IOException e) {
+            log.debug("Reading from client {} failed. {}", client.getId(), e.getMessage());
+        } finally {
+            if (keepReading)
+                client.close();
+            log.info("RPC client disconnected: " + client);
+        }
+    }
+
+    // Called from the reader thread. Parsing is done here to keep the UserThread free for the actual work.
+    // Returns false if the client gets disconnected.
+    private boolean handleRequest(RpcClient client, JsonParser parser, String line) {
+        JsonObject json;
+        try {
+            json = parser.parse(line).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            log.warn("Client {} sent an invalid request. We disconnect.", client.getId());
+            client.sendAndClose(toErrorResponse(JsonNull.INSTANCE, PARSE_ERROR, "Parse error"));
+            return false;
+        }
+
+        JsonElement id = json.get("id");
+        JsonElement methodName = json.get("method");
+        JsonElement params = json.get("params");
+        if (methodName == null || !methodName.isJsonPrimitive() || (params != null && !params.isJsonObject()
+                && !params.isJsonNull())) {
+            client.send(toErrorResponse(id != null ? id : JsonNull.INSTANCE, INVALID_REQUEST, "Invalid request"));
+            return true;
+        }
+
+        RpcRequest request = new RpcRequest(client, methodName.getAsString(), id,
+                params != null && params.isJsonObject() ? params.getAsJsonObject() : new JsonObject());
+        if (!client.isAuthenticated())
+            return authenticate(client, request);
+
+        RpcMethod method = methods.get(request.getMethod());
+        if (method == null) {
+            request.fail(METHOD_NOT_FOUND, "Method not found: " + request.getMethod());
+            return true;
+        }
+
+        UserThread.execute(() -> {
+            try {
+                method.invoke(request);
+            } catch (RpcException e) {
+                request.fail(e.getCode(), e.getMessage());
+            } catch (IllegalArgumentException e) {
+                request.fail(INVALID_PARAMS, e.getMessage());
+            } catch (Throwable t) {
+                log.error("Executing RPC method " + request.getMethod() + " failed. " + t.getMessage(), t);
+                request.fail(INTERNAL_ERROR, t.getMessage());
+            }
+        });
+        return true;
+    }
+
+    // Like BufferedReader.readLine, but only the line feed ends a line and we stop reading at MAX_REQUEST_LENGTH.
+    // Returns null at the end of the stream.
+    private static String readLine(Reader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n')
+                return line.length() > 0 && line.charAt(line.length() - 1) == '\r' ?
+                        line.substring(0, line.length() - 1) : line.toString();
+            if (line.length() == MAX_REQUEST_LENGTH)
+                throw new RequestTooLongException();
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    // The first request of a client has to be authenticate with the token of the cookie file.
+    private boolean authenticate(RpcClient client, RpcRequest request) {
+        JsonElement tokenParam = request.getParams().get("token");
+        if (request.getMethod().equals(AUTHENTICATE) && tokenParam != null && tokenParam.isJsonPrimitive()
+                && MessageDigest.isEqual(token, tokenParam.getAsString().getBytes(StandardCharsets.UTF_8))) {
+            client.setAuthenticated();
+            request.respond(new JsonPrimitive(true));
+            return true;
+        } else {
+            log.warn("Client {} failed to authenticate. We disconnect.", client.getId());
+            client.sendAndClose(toErrorResponse(request.getId(), UNAUTHORIZED, "Unauthorized"));
+            return false;
+        }
+    }
+
+    // The file is only readable by our user. On file systems without POSIX permissions (Windows) it inherits the
+    // permissions of the data directory.
+    private void writeCookieFile(String token) throws IOException {
+        Path path = cookieFile.toPath();
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(path);
+        }
+        Files.write(path, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Inner classes
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class RequestTooLongException extends IOException {
+    }
+}
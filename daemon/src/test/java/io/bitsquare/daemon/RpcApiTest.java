@@ -0,0 +1,236 @@
+package io.bitsquare.daemon;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.bitsquare.btc.AddressEntry;
+import io.bitsquare.btc.TradeWalletService;
+import io.bitsquare.btc.WalletService;
+import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.handlers.ErrorMessageHandler;
+import io.bitsquare.common.observable.ObservableArrayList;
+import io.bitsquare.daemon.rpc.RpcServer;
+import io.bitsquare.daemon.rpc.RpcTestClient;
+import io.bitsquare.locale.FiatCurrency;
+import io.bitsquare.p2p.P2PService;
+import io.bitsquare.payment.PaymentAccount;
+import io.bitsquare.payment.PaymentMethod;
+import io.bitsquare.trade.TradeManager;
+import io.bitsquare.trade.handlers.TransactionResultHandler;
+import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.offer.OpenOffer;
+import io.bitsquare.trade.offer.OpenOfferManager;
+import io.bitsquare.trade.offer.OrderBook;
+import io.bitsquare.user.User;
+import org.bitcoinj.core.*;
+import org.bitcoinj.crypto.KeyCrypterScrypt;
+import org.bitcoinj.params.RegTestParams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.spongycastle.crypto.params.KeyParameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RpcApiTest {
+    private final Map<String, AddressEntry> addressEntries = new HashMap<>();
+    private final Set<Address> usedAddresses = new HashSet<>();
+    private final Set<String> openOfferIds = new HashSet<>();
+
+    private WalletService walletService;
+    private TradeWalletService tradeWalletService;
+    private Wallet wallet;
+    private OpenOfferManager openOfferManager;
+    private File cookieFile;
+    private RpcServer rpcServer;
+    private RpcTestClient client;
+
+    @Before
+    public void setup() throws IOException {
+        walletService = mock(WalletService.class);
+        when(walletService.getAddressEntryByOfferId(anyString())).thenAnswer(invocation ->
+                addressEntries.computeIfAbsent((String) invocation.getArguments()[0], offerId -> createAddressEntry()));
+        when(walletService.getConfidenceForAddress(any(Address.class))).thenAnswer(invocation ->
+                usedAddresses.contains(invocation.getArguments()[0]) ? mock(TransactionConfidence.class) : null);
+        when(walletService.getBalanceForAddress(any(Address.class))).thenReturn(Coin.COIN);
+        wallet = mock(Wallet.class);
+        when(walletService.getWallet()).thenReturn(wallet);
+        tradeWalletService = mock(TradeWalletService.class);
+
+        openOfferManager = mock(OpenOfferManager.class);
+        when(openOfferManager.findOpenOffer(anyString())).thenAnswer(invocation ->
+                openOfferIds.contains(invocation.getArguments()[0]) ? Optional.of(mock(OpenOffer.class)) : Optional.empty());
+        TradeManager tradeManager = mock(TradeManager.class);
+        when(tradeManager.getTrades()).thenReturn(new ObservableArrayList<>());
+
+        P2PService p2PService = mock(P2PService.class);
+        when(p2PService.getAddress()).thenReturn(new io.bitsquare.p2p.Address("localhost", 8000));
+        PaymentMethod paymentMethod = mock(PaymentMethod.class);
+        when(paymentMethod.getId()).thenReturn(PaymentMethod.SEPA_ID);
+        PaymentAccount paymentAccount = mock(PaymentAccount.class);
+        when(paymentAccount.getId()).thenReturn("paymentAccountId");
+        when(paymentAccount.getPaymentMethod()).thenReturn(paymentMethod);
+        when(paymentAccount.getTradeCurrencies()).thenReturn(Collections.singletonList(new FiatCurrency("EUR")));
+        User user = mock(User.class);
+        when(user.getPaymentAccount("paymentAccountId")).thenReturn(paymentAccount);
+
+        RpcApi rpcApi = new RpcApi(mock(OrderBook.class), openOfferManager, tradeManager, walletService,
+                tradeWalletService, p2PService, mock(KeyRing.class), user);
+        cookieFile = new File(Files.createTempDirectory("RpcApiTest").toFile(), RpcServer.COOKIE_FILE_NAME);
+        rpcServer = new RpcServer(0, cookieFile);
+        rpcApi.onAllServicesInitialized(rpcServer);
+        rpcServer.start();
+        client = new RpcTestClient(rpcServer.getPort());
+        client.authenticate(cookieFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        rpcServer.shutDown();
+        cookieFile.getParentFile().delete();
+    }
+
+    @Test
+    public void testUnusedFundingAddressIsReused() throws IOException {
+        JsonObject first = getOfferFundingAddress();
+        JsonObject second = getOfferFundingAddress();
+        assertEquals(first, second);
+        assertEquals(1, addressEntries.size());
+
+        // As soon as it received funds we hand out a new address
+        usedAddresses.add(addressEntries.get(first.get("offerId").getAsString()).getAddress());
+        JsonObject third = getOfferFundingAddress();
+        assertNotEquals(first.get("address"), third.get("address"));
+        assertEquals(2, addressEntries.size());
+    }
+
+    @Test
+    public void testNumFundedAddressesWithoutOfferIsLimited() throws IOException {
+        for (int i = 0; i < 20; i++)
+            usedAddresses.add(addressEntries.get(getOfferFundingAddress().get("offerId").getAsString()).getAddress());
+
+        JsonObject response = client.call("getOfferFundingAddress", new JsonObject());
+        assertEquals(RpcApi.OPERATION_FAILED, RpcTestClient.getErrorCode(response));
+        assertEquals(20, addressEntries.size());
+
+        // Once an offer got placed with one of them we can hand out a new address
+        openOfferIds.add(addressEntries.keySet().iterator().next());
+        getOfferFundingAddress();
+        assertEquals(21, addressEntries.size());
+    }
+
+    @Test
+    public void testWithdrawRequiresUnlockedWallet() throws IOException {
+        when(wallet.isEncrypted()).thenReturn(true);
+        JsonObject params = new JsonObject();
+        params.addProperty("amount", "0.1");
+        params.addProperty("fromAddress", "a");
+        params.addProperty("toAddress", "b");
+        assertEquals(RpcApi.WALLET_LOCKED, RpcTestClient.getErrorCode(client.call("withdraw", params)));
+    }
+
+    @Test
+    public void testWalletGetsLockedAfterTimeout() throws IOException {
+        KeyParameter aesKey = new KeyParameter(new byte[32]);
+        KeyCrypterScrypt keyCrypter = mock(KeyCrypterScrypt.class);
+        when(keyCrypter.deriveKey(anyString())).thenReturn(aesKey);
+        when(wallet.getKeyCrypter()).thenReturn(keyCrypter);
+        when(wallet.checkAESKey(aesKey)).thenReturn(true);
+
+        JsonObject params = new JsonObject();
+        params.addProperty("password", "password");
+        params.addProperty("timeout", "1");
+        assertTrue(RpcTestClient.getResult(client.call("unlockWallet", params)).getAsBoolean());
+        verify(tradeWalletService).setAesKey(aesKey);
+        verify(tradeWalletService, timeout(5000)).setAesKey(null);
+    }
+
+    @Test
+    public void testUnlockTimeoutIsBounded() throws IOException {
+        when(wallet.getKeyCrypter()).thenReturn(mock(KeyCrypterScrypt.class));
+        JsonObject params = new JsonObject();
+        params.addProperty("password", "password");
+        params.addProperty("timeout", String.valueOf(Long.MAX_VALUE));
+        assertEquals(RpcServer.INVALID_PARAMS, RpcTestClient.getErrorCode(client.call("unlockWallet", params)));
+        verify(tradeWalletService, never()).setAesKey(any(KeyParameter.class));
+    }
+
+    @Test
+    public void testLockWallet() throws IOException {
+        assertTrue(RpcTestClient.getResult(client.call("lockWallet", new JsonObject())).getAsBoolean());
+        verify(tradeWalletService).setAesKey(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPlaceOffersReportsFailure() throws IOException {
+        doAnswer(invocation -> {
+            ((ErrorMessageHandler) invocation.getArguments()[2]).handleErrorMessage("Duplicate offer id a");
+            return null;
+        }).when(openOfferManager).onPlaceOffers(anyListOf(Offer.class), any(TransactionResultHandler.class),
+                any(ErrorMessageHandler.class));
+
+        JsonArray offers = new JsonArray();
+        offers.add(createOfferParams("a"));
+        offers.add(createOfferParams("b"));
+        JsonObject params = new JsonObject();
+        params.add("offers", offers);
+        assertEquals(RpcApi.OPERATION_FAILED, RpcTestClient.getErrorCode(client.call("placeOffers", params)));
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(openOfferManager).onPlaceOffers(captor.capture(), any(TransactionResultHandler.class),
+                any(ErrorMessageHandler.class));
+        List<Offer> placedOffers = captor.getValue();
+        assertEquals(2, placedOffers.size());
+        assertEquals("a", placedOffers.get(0).getId());
+        assertEquals("b", placedOffers.get(1).getId());
+    }
+
+    @Test
+    public void testNumOffersPerBatchIsBounded() throws IOException {
+        JsonArray offers = new JsonArray();
+        for (int i = 0; i < 21; i++)
+            offers.add(createOfferParams(String.valueOf(i)));
+        JsonObject params = new JsonObject();
+        params.add("offers", offers);
+        assertEquals(RpcServer.INVALID_PARAMS, RpcTestClient.getErrorCode(client.call("placeOffers", params)));
+
+        params.add("offers", new JsonArray());
+        assertEquals(RpcServer.INVALID_PARAMS, RpcTestClient.getErrorCode(client.call("placeOffers", params)));
+        verify(openOfferManager, never()).onPlaceOffers(anyListOf(Offer.class), any(TransactionResultHandler.class),
+                any(ErrorMessageHandler.class));
+    }
+
+    private static JsonObject createOfferParams(String offerId) {
+        JsonObject params = new JsonObject();
+        params.addProperty("offerId", offerId);
+        params.addProperty("paymentAccountId", "paymentAccountId");
+        params.addProperty("currencyCode", "EUR");
+        params.addProperty("direction", Offer.Direction.SELL.name());
+        params.addProperty("price", "300");
+        params.addProperty("amount", "0.1");
+        return params;
+    }
+
+    private JsonObject getOfferFundingAddress() throws IOException {
+        return RpcTestClient.getResult(client.call("getOfferFundingAddress", new JsonObject())).getAsJsonObject();
+    }
+
+    private static AddressEntry createAddressEntry() {
+        Address address = new ECKey().toAddress(RegTestParams.get());
+        AddressEntry addressEntry = mock(AddressEntry.class);
+        when(addressEntry.getAddress()).thenReturn(address);
+        when(addressEntry.getAddressString()).thenReturn(address.toString());
+        return addressEntry;
+    }
+}
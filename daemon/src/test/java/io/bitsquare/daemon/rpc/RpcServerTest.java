@@ -0,0 +1,120 @@
+package io.bitsquare.daemon.rpc;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RpcServerTest {
+    private File cookieFile;
+    private RpcServer rpcServer;
+
+    @Before
+    public void setup() throws IOException {
+        cookieFile = new File(Files.createTempDirectory("RpcServerTest").toFile(), RpcServer.COOKIE_FILE_NAME);
+        rpcServer = new RpcServer(0, cookieFile);
+        rpcServer.registerMethod("echo", request -> request.respond(new JsonPrimitive(request.getString("value"))));
+        rpcServer.registerMethod("fail", request -> {
+            throw new RpcException(-31000, "Failed");
+        });
+        rpcServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        rpcServer.shutDown();
+        cookieFile.getParentFile().delete();
+    }
+
+    @Test
+    public void testCookieFile() throws IOException {
+        assertEquals(64, Files.readAllBytes(cookieFile.toPath()).length);
+        rpcServer.shutDown();
+        assertFalse(cookieFile.exists());
+    }
+
+    @Test
+    public void testCallsAfterAuthentication() throws IOException {
+        try (RpcTestClient client = new RpcTestClient(rpcServer.getPort())) {
+            assertTrue(RpcTestClient.getResult(client.authenticate(cookieFile)).getAsBoolean());
+            assertEquals("a", RpcTestClient.getResult(client.call("echo", echoParams("a"))).getAsString());
+            assertEquals(-31000, RpcTestClient.getErrorCode(client.call("fail", new JsonObject())));
+            assertEquals(RpcServer.METHOD_NOT_FOUND, RpcTestClient.getErrorCode(client.call("unknown", new JsonObject())));
+            assertEquals(RpcServer.INVALID_PARAMS, RpcTestClient.getErrorCode(client.call("echo", new JsonObject())));
+            // An invalid request which is valid JSON does not disconnect the client
+            client.sendLine("{\"id\":7}");
+            assertEquals(RpcServer.INVALID_REQUEST, RpcTestClient.getErrorCode(client.readResponse()));
+            assertEquals("b", RpcTestClient.getResult(client.call("echo", echoParams("b"))).getAsString());
+        }
+    }
+
+    @Test
+    public void testMethodsRequireAuthentication() throws IOException {
+        try (RpcTestClient client = new RpcTestClient(rpcServer.getPort())) {
+            assertEquals(RpcServer.UNAUTHORIZED, RpcTestClient.getErrorCode(client.call("echo", echoParams("a"))));
+            assertNull(client.readResponse());
+        }
+    }
+
+    @Test
+    public void testWrongTokenIsRejected() throws IOException {
+        try (RpcTestClient client = new RpcTestClient(rpcServer.getPort())) {
+            JsonObject params = new JsonObject();
+            params.addProperty("token", "0000");
+            assertEquals(RpcServer.UNAUTHORIZED, RpcTestClient.getErrorCode(client.call(RpcServer.AUTHENTICATE, params)));
+            assertNull(client.readResponse());
+        }
+    }
+
+    // A browser can be tricked into posting to our port. The JSON body after the HTTP headers must never get executed.
+    @Test
+    public void testParseErrorDisconnects() throws IOException {
+        try (RpcTestClient client = new RpcTestClient(rpcServer.getPort())) {
+            client.authenticate(cookieFile);
+            client.sendLine("POST / HTTP/1.1");
+            client.sendLine("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":{\"value\":\"a\"}}");
+            assertEquals(RpcServer.PARSE_ERROR, RpcTestClient.getErrorCode(client.readResponse()));
+            assertNull(client.readResponse());
+        }
+    }
+
+    @Test
+    public void testTooLongRequestDisconnects() throws IOException {
+        try (RpcTestClient client = new RpcTestClient(rpcServer.getPort())) {
+            client.authenticate(cookieFile);
+            // A request of the max. length is accepted
+            String value = repeat('a', RpcServer.MAX_REQUEST_LENGTH - echoRequest("").length());
+            client.sendLine(echoRequest(value));
+            assertEquals(value, RpcTestClient.getResult(client.readResponse()).getAsString());
+
+            // We don't send a line feed, so the server reads everything we sent before it disconnects
+            client.send(repeat('a', RpcServer.MAX_REQUEST_LENGTH + 1));
+            assertEquals(RpcServer.INVALID_REQUEST, RpcTestClient.getErrorCode(client.readResponse()));
+            assertNull(client.readResponse());
+        }
+    }
+
+    private static String echoRequest(String value) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"echo\",\"params\":{\"value\":\"" + value + "\"}}";
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static JsonObject echoParams(String value) {
+        JsonObject params = new JsonObject();
+        params.addProperty("value", value);
+        return params;
+    }
+}
@@ -0,0 +1,74 @@
+package io.bitsquare.daemon.rpc;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// Minimal blocking client for tests. Reads the response of each call directly, so don't use it with subscriptions.
+public class RpcTestClient implements Closeable {
+    private final Socket socket;
+    private final BufferedReader reader;
+    private final Writer writer;
+    private int id;
+
+    public RpcTestClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(10000);
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    public JsonObject authenticate(File cookieFile) throws IOException {
+        JsonObject params = new JsonObject();
+        params.addProperty("token", new String(Files.readAllBytes(cookieFile.toPath()), StandardCharsets.UTF_8));
+        return call(RpcServer.AUTHENTICATE, params);
+    }
+
+    public JsonObject call(String method, JsonObject params) throws IOException {
+        JsonObject request = new JsonObject();
+        request.addProperty("jsonrpc", "2.0");
+        request.addProperty("id", ++id);
+        request.addProperty("method", method);
+        request.add("params", params);
+        sendLine(request.toString());
+        return readResponse();
+    }
+
+    public void sendLine(String line) throws IOException {
+        send(line + '\n');
+    }
+
+    public void send(String data) throws IOException {
+        writer.write(data);
+        writer.flush();
+    }
+
+    // Returns null if the server closed the connection
+    public JsonObject readResponse() throws IOException {
+        String line = reader.readLine();
+        return line != null ? new JsonParser().parse(line).getAsJsonObject() : null;
+    }
+
+    public static JsonElement getResult(JsonObject response) {
+        if (response.has("error"))
+            throw new AssertionError("Unexpected error response " + response);
+        return response.get("result");
+    }
+
+    public static int getErrorCode(JsonObject response) {
+        if (!response.has("error"))
+            throw new AssertionError("Expected an error response but got " + response);
+        return response.getAsJsonObject("error").get("code").getAsInt();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -38,6 +38,7 @@ import io.bitsquare.gui.popups.SendAlertMessagePopup;
 import io.bitsquare.gui.util.ImageUtil;
 import io.bitsquare.p2p.P2PService;
 import io.bitsquare.storage.Storage;
+import io.bitsquare.trade.TradeManager;
 import io.bitsquare.trade.offer.OpenOfferManager;
 import javafx.application.Application;
 import javafx.application.Platform;
@@ -303,12 +304,13 @@ public class BitsquareApp extends Application {
         log.debug("gracefulShutDown");
         try {
             if (injector != null) {
+                injector.getInstance(TradeManager.class).shutDown();
                 OpenOfferManager openOfferManager = injector.getInstance(OpenOfferManager.class);
                 openOfferManager.shutDown(() -> {
                     P2PService p2PService = injector.getInstance(P2PService.class);
                     p2PService.shutDown(() -> {
                         WalletService walletService = injector.getInstance(WalletService.class);
-                        walletService.shutDownDone.addListener((observable, oldValue, newValue) -> {
+                        walletService.shutDownDone.addListener((oldValue, newValue) -> {
                             bitsquareAppModule.close(injector);
                             resultHandler.handleResult();
                         });
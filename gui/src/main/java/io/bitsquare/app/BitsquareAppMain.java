@@ -106,6 +106,10 @@ public class BitsquareAppMain extends BitsquareExecutable {
         parser.accepts(ProgramArguments.USE_LOCALHOST, description("Use localhost network for development", false))
                 .withRequiredArg()
                 .ofType(boolean.class);
+        parser.accepts(ProgramArguments.FAST_TOR_RESTART,
+                description("Start with the persisted hidden service before its descriptor is published", true))
+                .withRequiredArg()
+                .ofType(boolean.class);
         parser.accepts(ProgramArguments.DEV_TEST, description("Enable arbitrator dev priv key", false))
                 .withRequiredArg()
                 .ofType(boolean.class);
@@ -17,10 +17,14 @@
 
 package io.bitsquare.gui.main;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import com.google.inject.Inject;
 import io.bitsquare.alert.Alert;
 import io.bitsquare.alert.AlertManager;
 import io.bitsquare.app.BitsquareApp;
+import io.bitsquare.app.StartupOrchestrator;
+import io.bitsquare.app.StartupPhases;
 import io.bitsquare.app.Version;
 import io.bitsquare.arbitration.ArbitratorManager;
 import io.bitsquare.arbitration.Dispute;
@@ -29,6 +33,7 @@ import io.bitsquare.btc.AddressEntry;
 import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.btc.listeners.BalanceListener;
+import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.gui.common.model.ViewModel;
 import io.bitsquare.gui.components.BalanceTextField;
 import io.bitsquare.gui.components.BalanceWithConfirmationTextField;
@@ -37,20 +42,18 @@ import io.bitsquare.gui.popups.DisplayAlertMessagePopup;
 import io.bitsquare.gui.popups.Popup;
 import io.bitsquare.gui.popups.WalletPasswordPopup;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.p2p.P2PService;
 import io.bitsquare.p2p.P2PServiceListener;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.TradeManager;
-import io.bitsquare.trade.offer.OpenOffer;
 import io.bitsquare.trade.offer.OpenOfferManager;
 import io.bitsquare.user.Preferences;
 import io.bitsquare.user.User;
 import javafx.beans.property.*;
-import javafx.collections.ListChangeListener;
 import org.bitcoinj.core.*;
 import org.bitcoinj.store.BlockStoreException;
-import org.fxmisc.easybind.EasyBind;
-import org.fxmisc.easybind.monadic.MonadicBinding;
+import org.jetbrains.annotations.NotNull;
 import org.reactfx.util.FxTimer;
 import org.reactfx.util.Timer;
 import org.slf4j.Logger;
@@ -82,6 +85,7 @@ class MainViewModel implements ViewModel {
     private final AlertManager alertManager;
     private final WalletPasswordPopup walletPasswordPopup;
     private final BSFormatter formatter;
+    private final KeyRing keyRing;
 
     // BTC network
     final StringProperty blockchainSyncInfo = new SimpleStringProperty("Initializing");
@@ -114,7 +118,7 @@ class MainViewModel implements ViewModel {
 
     private Timer blockchainSyncTimeoutTimer;
     private Timer lostP2PConnectionTimeoutTimer;
-    private MonadicBinding<Boolean> allServicesDone;
+    private final StartupOrchestrator startupOrchestrator = new StartupOrchestrator();
     private User user;
     private int numBTCPeers = 0;
     //private Timer lostBTCConnectionTimeoutTimer;
@@ -129,8 +133,9 @@ class MainViewModel implements ViewModel {
                          ArbitratorManager arbitratorManager, P2PService p2PService, TradeManager tradeManager,
                          OpenOfferManager openOfferManager, DisputeManager disputeManager, Preferences preferences,
                          User user, AlertManager alertManager, WalletPasswordPopup walletPasswordPopup,
-                         BSFormatter formatter) {
+                         BSFormatter formatter, KeyRing keyRing) {
         this.user = user;
+        this.keyRing = keyRing;
         log.debug("in");
         this.walletService = walletService;
         this.tradeWalletService = tradeWalletService;
@@ -167,15 +172,29 @@ class MainViewModel implements ViewModel {
     public void initializeAllServices() {
         log.trace("initializeAllServices");
 
-        BooleanProperty walletInitialized = initBitcoinWallet();
-        BooleanProperty p2pNetWorkReady = initP2PNetwork();
+        // Keys, wallet and tor start concurrently. The P2P phases are completed by the P2PServiceListener.
+        startupOrchestrator
+                .addPhase(StartupPhases.KEYS, null)
+                .addPhase(StartupPhases.WALLET, this::initBitcoinWallet)
+                .addPhase(StartupPhases.TOR_NODE, this::initP2PNetwork)
+                .addPhase(StartupPhases.HIDDEN_SERVICE, null, StartupPhases.TOR_NODE)
+                .addPhase(StartupPhases.P2P_DATA, null, StartupPhases.HIDDEN_SERVICE);
 
-        // need to store it to not get garbage collected
-        allServicesDone = EasyBind.combine(walletInitialized, p2pNetWorkReady, (a, b) -> a && b);
-        allServicesDone.subscribe((observable, oldValue, newValue) -> {
-            if (newValue)
-                onAllServicesInitialized();
+        Futures.addCallback(keyRing.getLoadFuture(), new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                startupOrchestrator.complete(StartupPhases.KEYS);
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                startupOrchestrator.fail(StartupPhases.KEYS, throwable);
+            }
         });
+
+        // Failures are shown by the phases themselves
+        startupOrchestrator.start(this::onAllServicesInitialized,
+                throwable -> log.error("Starting the services failed. " + throwable.getMessage()));
     }
 
 
@@ -183,12 +202,12 @@ class MainViewModel implements ViewModel {
     // Initialisation
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private BooleanProperty initP2PNetwork() {
-        final BooleanProperty p2pNetWorkReady = new SimpleBooleanProperty();
+    private void initP2PNetwork() {
         splashP2PNetworkInfo.set("Connecting to Tor network...");
         p2PService.start(new P2PServiceListener() {
             @Override
             public void onTorNodeReady() {
+                startupOrchestrator.complete(StartupPhases.TOR_NODE);
                 splashP2PNetworkInfo.set("Tor node created.");
                 p2PNetworkInfo.set(splashP2PNetworkInfo.get());
                 p2PNetworkIconId.set("image-connection-tor");
@@ -196,6 +215,7 @@ class MainViewModel implements ViewModel {
 
             @Override
             public void onHiddenServicePublished() {
+                startupOrchestrator.complete(StartupPhases.HIDDEN_SERVICE);
                 splashP2PNetworkInfo.set("Hidden Service published.");
                 p2PNetworkInfo.set(splashP2PNetworkInfo.get());
             }
@@ -208,14 +228,14 @@ class MainViewModel implements ViewModel {
                 } else {
                     updateP2pNetworkInfo();
                 }
-                p2pNetWorkReady.set(true);
+                startupOrchestrator.complete(StartupPhases.P2P_DATA);
             }
 
             @Override
             public void onNoSeedNodeAvailable() {
                 splashP2PNetworkInfo.set("No seed node available.");
                 p2PNetworkInfo.set(splashP2PNetworkInfo.get());
-                p2pNetWorkReady.set(true);
+                startupOrchestrator.complete(StartupPhases.P2P_DATA);
             }
 
             @Override
@@ -229,17 +249,16 @@ class MainViewModel implements ViewModel {
             public void onSetupFailed(Throwable throwable) {
                 p2PNetworkErrorMsg.set("Connecting to the P2P network failed. " + throwable.getMessage());
                 splashP2PNetworkProgress.set(0);
+                startupOrchestrator.fail(StartupPhases.TOR_NODE, throwable);
             }
         });
-
-        return p2pNetWorkReady;
     }
 
-    private BooleanProperty initBitcoinWallet() {
+    private void initBitcoinWallet() {
         if (walletService.downloadPercentageProperty().get() > -1)
             startBlockchainSyncTimeout();
 
-        EasyBind.subscribe(walletService.downloadPercentageProperty(), newValue -> setBitcoinNetworkSyncProgress((double) newValue));
+        FxProperties.subscribe(walletService.downloadPercentageProperty(), this::setBitcoinNetworkSyncProgress);
         
        /* walletService.downloadPercentageProperty().addListener((ov, oldValue, newValue) -> {
             setBitcoinNetworkSyncProgress((double) newValue);
@@ -248,9 +267,9 @@ class MainViewModel implements ViewModel {
         // Sometimes we don't get the updates, so add an additional setter after 2 seconds
         FxTimer.runLater(Duration.ofMillis(2000), () -> setBitcoinNetworkSyncProgress(walletService.downloadPercentageProperty().get()));*/
 
-        walletService.numPeersProperty().addListener((observable, oldValue, newValue) -> {
+        walletService.numPeersProperty().addListener((oldValue, newValue) -> {
             log.debug("Bitcoin peers " + newValue);
-            numBTCPeers = (int) newValue;
+            numBTCPeers = newValue;
             numBTCPeersAsString.set(String.valueOf(newValue) + " peers");
             if (blockchainSyncProgress.get() >= 1 && numBTCPeers > 0)
                 blockchainSyncInfoFooter.set("Bitcoin network: Peers: " + numBTCPeers);
@@ -271,14 +290,12 @@ class MainViewModel implements ViewModel {
                 walletServiceErrorMsg.set(null);
             }*/
         });
-        final BooleanProperty walletInitialized = new SimpleBooleanProperty();
         walletService.initialize(null,
                 () -> {
                     log.trace("wallet initialized");
-                    walletInitialized.set(true);
+                    startupOrchestrator.complete(StartupPhases.WALLET);
                 },
                 errorMessage -> setWalletServiceException(errorMessage));
-        return walletInitialized;
     }
 
     private void onAllServicesInitialized() {
@@ -286,9 +303,8 @@ class MainViewModel implements ViewModel {
 
 
         // disputeManager
-        disputeManager.getDisputesAsObservableList().addListener((ListChangeListener<Dispute>) change -> {
-            change.next();
-            addDisputeClosedChangeListener(change.getAddedSubList());
+        disputeManager.getDisputesAsObservableList().addListener((added, removed) -> {
+            addDisputeClosedChangeListener(added);
             updateDisputeStates();
         });
         addDisputeClosedChangeListener(disputeManager.getDisputesAsObservableList());
@@ -297,11 +313,10 @@ class MainViewModel implements ViewModel {
 
 
         // tradeManager
-        tradeManager.getTrades().addListener((ListChangeListener<Trade>) c -> updateBalance());
+        tradeManager.getTrades().addListener((added, removed) -> updateBalance());
 
-        tradeManager.getTrades().addListener((ListChangeListener<Trade>) change -> {
-            change.next();
-            addDisputeStateListeners(change.getAddedSubList());
+        tradeManager.getTrades().addListener((added, removed) -> {
+            addDisputeStateListeners(added);
             pendingTradesChanged();
         });
         pendingTradesChanged();
@@ -330,7 +345,7 @@ class MainViewModel implements ViewModel {
                 if (tradeManager.pendingTradesInitializedProperty().get() && isSplashScreenRemoved.get())
                     applyTradePeriodState();
             });
-            tradeManager.pendingTradesInitializedProperty().addListener((observable, oldValue, newValue) -> {
+            tradeManager.pendingTradesInitializedProperty().addListener((oldValue, newValue) -> {
                 if (tradeManager.pendingTradesInitializedProperty().get() && isSplashScreenRemoved.get())
                     applyTradePeriodState();
             });
@@ -346,12 +361,12 @@ class MainViewModel implements ViewModel {
 
 
         // openOfferManager
-        openOfferManager.getOpenOffers().addListener((ListChangeListener<OpenOffer>) c -> updateBalance());
+        openOfferManager.getOpenOffers().addListener((added, removed) -> updateBalance());
         openOfferManager.onAllServicesInitialized();
 
 
         // alertManager
-        alertManager.alertMessageProperty().addListener((observable, oldValue, newValue) -> displayAlertIfPresent(newValue));
+        alertManager.alertMessageProperty().addListener((oldValue, newValue) -> displayAlertIfPresent(newValue));
         displayAlertIfPresent(alertManager.alertMessageProperty().get());
 
 
@@ -375,7 +390,7 @@ class MainViewModel implements ViewModel {
                     .show();
 
         // update nr of peers in footer
-        p2PService.getNumAuthenticatedPeers().addListener((observable, oldValue, newValue) -> updateP2pNetworkInfo());
+        p2PService.getNumAuthenticatedPeers().addListener((oldValue, newValue) -> updateP2pNetworkInfo());
 
         // now show app
         showAppScreen.set(true);
@@ -420,8 +435,7 @@ class MainViewModel implements ViewModel {
                 .map(tradable -> tradable.getOffer().getId())
                 .collect(Collectors.toList());
 
-        result.addAll(walletService.getAddressEntryList().stream()
-                .filter(e -> walletService.getBalanceForAddress(e.getAddress()).isPositive())
+        result.addAll(walletService.getFundedAddressEntries().stream()
                 .filter(e -> !reservedTrades.contains(e.getOfferId()))
                 .collect(Collectors.toList()));
 
@@ -527,7 +541,7 @@ class MainViewModel implements ViewModel {
     }
 
     private void addDisputeClosedChangeListener(List<? extends Dispute> list) {
-        list.stream().forEach(e -> e.isClosedProperty().addListener((observable, oldValue, newValue) -> {
+        list.stream().forEach(e -> e.isClosedProperty().addListener((oldValue, newValue) -> {
             if (newValue)
                 updateDisputeStates();
         }));
@@ -554,7 +568,7 @@ class MainViewModel implements ViewModel {
     }
 
     private void addDisputeStateListeners(List<? extends Trade> addedTrades) {
-        addedTrades.stream().forEach(trade -> trade.disputeStateProperty().addListener((observable, oldValue, newValue) -> {
+        addedTrades.stream().forEach(trade -> trade.disputeStateProperty().addListener((oldValue, newValue) -> {
             switch (newValue) {
                 case NONE:
                     break;
@@ -25,20 +25,20 @@ import io.bitsquare.btc.WalletService;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableViewModel;
 import io.bitsquare.locale.LanguageUtil;
-import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.P2PService;
 import io.bitsquare.user.User;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Utils;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 class ArbitratorRegistrationViewModel extends ActivatableViewModel {
     private final ArbitratorManager arbitratorManager;
@@ -53,7 +53,7 @@ class ArbitratorRegistrationViewModel extends ActivatableViewModel {
     final ObservableList<String> languageCodes = FXCollections.observableArrayList(LanguageUtil.getDefaultLanguageLocaleAsCode());
     final ObservableList<String> allLanguageCodes = FXCollections.observableArrayList(LanguageUtil.getAllLanguageCodes());
     private boolean allDataValid;
-    private final MapChangeListener<Address, Arbitrator> arbitratorMapChangeListener;
+    private final CollectionListener<Arbitrator> arbitratorMapChangeListener;
     private ECKey registrationKey;
     StringProperty registrationPubKeyAsHex = new SimpleStringProperty();
 
@@ -73,9 +73,9 @@ class ArbitratorRegistrationViewModel extends ActivatableViewModel {
         this.walletService = walletService;
         this.keyRing = keyRing;
 
-        arbitratorMapChangeListener = new MapChangeListener<Address, Arbitrator>() {
+        arbitratorMapChangeListener = new CollectionListener<Arbitrator>() {
             @Override
-            public void onChanged(Change<? extends Address, ? extends Arbitrator> change) {
+            public void onChanged(List<Arbitrator> added, List<Arbitrator> removed) {
                 Arbitrator myRegisteredArbitrator = user.getRegisteredArbitrator();
                 myArbitratorProperty.set(myRegisteredArbitrator);
 
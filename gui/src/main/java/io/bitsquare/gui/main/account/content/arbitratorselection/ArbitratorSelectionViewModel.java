@@ -21,14 +21,13 @@ import com.google.inject.Inject;
 import io.bitsquare.arbitration.Arbitrator;
 import io.bitsquare.arbitration.ArbitratorManager;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.gui.util.BSFormatter;
 import io.bitsquare.locale.LanguageUtil;
-import io.bitsquare.p2p.Address;
 import io.bitsquare.user.Preferences;
 import io.bitsquare.user.User;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.stream.Collectors;
@@ -42,7 +41,7 @@ class ArbitratorSelectionViewModel extends ActivatableDataModel {
     final ObservableList<String> languageCodes = FXCollections.observableArrayList();
     final ObservableList<ArbitratorListItem> arbitratorListItems = FXCollections.observableArrayList();
     final ObservableList<String> allLanguageCodes = FXCollections.observableArrayList(LanguageUtil.getAllLanguageCodes());
-    private final MapChangeListener<Address, Arbitrator> arbitratorMapChangeListener;
+    private final CollectionListener<Arbitrator> arbitratorMapChangeListener;
 
     @Inject
     public ArbitratorSelectionViewModel(User user, ArbitratorManager arbitratorManager, Preferences preferences,
@@ -53,7 +52,7 @@ class ArbitratorSelectionViewModel extends ActivatableDataModel {
         this.keyRing = keyRing;
         this.formatter = formatter;
 
-        arbitratorMapChangeListener = change -> applyArbitratorMap();
+        arbitratorMapChangeListener = (added, removed) -> applyArbitratorMap();
     }
 
     private void applyArbitratorMap() {
@@ -18,23 +18,23 @@
 package io.bitsquare.gui.main.account.content.paymentsaccount;
 
 import com.google.inject.Inject;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.payment.PaymentAccount;
 import io.bitsquare.user.User;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.SetChangeListener;
 
 class PaymentAccountDataModel extends ActivatableDataModel {
 
     private final User user;
     final ObservableList<PaymentAccount> paymentAccounts = FXCollections.observableArrayList();
-    private final SetChangeListener<PaymentAccount> setChangeListener;
+    private final CollectionListener<PaymentAccount> setChangeListener;
 
     @Inject
     public PaymentAccountDataModel(User user) {
         this.user = user;
-        setChangeListener = change -> paymentAccounts.setAll(user.getPaymentAccounts());
+        setChangeListener = (added, removed) -> paymentAccounts.setAll(user.getPaymentAccounts());
     }
 
     @Override
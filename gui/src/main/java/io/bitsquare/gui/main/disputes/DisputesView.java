@@ -20,15 +20,14 @@ package io.bitsquare.gui.main.disputes;
 import io.bitsquare.arbitration.Arbitrator;
 import io.bitsquare.arbitration.ArbitratorManager;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.Navigation;
 import io.bitsquare.gui.common.model.Activatable;
 import io.bitsquare.gui.common.view.*;
 import io.bitsquare.gui.main.MainView;
 import io.bitsquare.gui.main.disputes.arbitrator.ArbitratorDisputeView;
 import io.bitsquare.gui.main.disputes.trader.TraderDisputeView;
-import io.bitsquare.p2p.Address;
 import javafx.beans.value.ChangeListener;
-import javafx.collections.MapChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
@@ -50,7 +49,7 @@ public class DisputesView extends ActivatableViewAndModel<TabPane, Activatable>
     private ChangeListener<Tab> tabChangeListener;
     private Tab currentTab;
     private final ViewLoader viewLoader;
-    private MapChangeListener<Address, Arbitrator> arbitratorMapChangeListener;
+    private CollectionListener<Arbitrator> arbitratorMapChangeListener;
 
     @Inject
     public DisputesView(CachingViewLoader viewLoader, Navigation navigation, ArbitratorManager arbitratorManager, KeyRing keyRing) {
@@ -75,7 +74,7 @@ public class DisputesView extends ActivatableViewAndModel<TabPane, Activatable>
                 navigation.navigateTo(MainView.class, DisputesView.class, ArbitratorDisputeView.class);
         };
 
-        arbitratorMapChangeListener = change -> updateArbitratorsDisputesTabDisableState();
+        arbitratorMapChangeListener = (added, removed) -> updateArbitratorsDisputesTabDisableState();
     }
 
     private void updateArbitratorsDisputesTabDisableState() {
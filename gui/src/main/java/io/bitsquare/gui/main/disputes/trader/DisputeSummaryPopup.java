@@ -28,11 +28,13 @@ import io.bitsquare.btc.exceptions.TransactionVerificationException;
 import io.bitsquare.common.util.Tuple2;
 import io.bitsquare.gui.popups.Popup;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.gui.util.Layout;
 import io.bitsquare.gui.util.Transitions;
 import io.bitsquare.trade.Contract;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.ObjectBinding;
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.VPos;
 import javafx.scene.control.*;
@@ -165,9 +167,11 @@ public class DisputeSummaryPopup extends Popup {
             applyTradeAmountRadioButtonStates();
         } else {
             applyPayoutAmounts(disputeResult.feePaymentPolicyProperty().get(), tradeAmountToggleGroup.selectedToggleProperty().get());
+            ReadOnlyObjectProperty<DisputeResult.FeePaymentPolicy> feePaymentPolicyProperty =
+                    FxProperties.toFx(disputeResult.feePaymentPolicyProperty());
             ObjectBinding<Tuple2<DisputeResult.FeePaymentPolicy, Toggle>> changed = Bindings.createObjectBinding(
-                    () -> new Tuple2(disputeResult.feePaymentPolicyProperty().get(), tradeAmountToggleGroup.selectedToggleProperty().get()),
-                    disputeResult.feePaymentPolicyProperty(),
+                    () -> new Tuple2(feePaymentPolicyProperty.get(), tradeAmountToggleGroup.selectedToggleProperty().get()),
+                    feePaymentPolicyProperty,
                     tradeAmountToggleGroup.selectedToggleProperty());
             changed.addListener((observable, oldValue, newValue) -> {
                 applyPayoutAmounts(newValue.first, newValue.second);
@@ -209,9 +213,9 @@ public class DisputeSummaryPopup extends Popup {
         CheckBox idVerificationCheckBox = new CheckBox("ID Verification");
         CheckBox screenCastCheckBox = new CheckBox("Video/Screencast");
 
-        tamperProofCheckBox.selectedProperty().bindBidirectional(disputeResult.tamperProofEvidenceProperty());
-        idVerificationCheckBox.selectedProperty().bindBidirectional(disputeResult.idVerificationProperty());
-        screenCastCheckBox.selectedProperty().bindBidirectional(disputeResult.screenCastProperty());
+        FxProperties.bindBidirectional(tamperProofCheckBox.selectedProperty(), disputeResult.tamperProofEvidenceProperty());
+        FxProperties.bindBidirectional(idVerificationCheckBox.selectedProperty(), disputeResult.idVerificationProperty());
+        FxProperties.bindBidirectional(screenCastCheckBox.selectedProperty(), disputeResult.screenCastProperty());
 
         FlowPane checkBoxPane = new FlowPane();
         checkBoxPane.setHgap(20);
@@ -314,7 +318,7 @@ public class DisputeSummaryPopup extends Popup {
         summaryNotesTextArea = new TextArea();
         summaryNotesTextArea.setPromptText("Add summary notes");
         summaryNotesTextArea.setWrapText(true);
-        summaryNotesTextArea.textProperty().bindBidirectional(disputeResult.summaryNotesProperty());
+        FxProperties.bindBidirectional(summaryNotesTextArea.textProperty(), disputeResult.summaryNotesProperty());
         GridPane.setRowIndex(summaryNotesTextArea, rowIndex);
         GridPane.setColumnIndex(summaryNotesTextArea, 1);
         gridPane.getChildren().add(summaryNotesTextArea);
@@ -20,6 +20,7 @@ package io.bitsquare.gui.main.disputes.trader;
 import com.google.common.io.ByteStreams;
 import de.jensd.fx.fontawesome.AwesomeDude;
 import de.jensd.fx.fontawesome.AwesomeIcon;
+import io.bitsquare.arbitration.AttachmentStore;
 import io.bitsquare.arbitration.Dispute;
 import io.bitsquare.arbitration.DisputeManager;
 import io.bitsquare.arbitration.messages.DisputeMailMessage;
@@ -35,8 +36,8 @@ import io.bitsquare.gui.popups.ContractPopup;
 import io.bitsquare.gui.popups.Popup;
 import io.bitsquare.gui.popups.TradeDetailsPopup;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.gui.util.GUIUtil;
-import io.bitsquare.p2p.network.Connection;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.TradeManager;
 import javafx.beans.property.ReadOnlyObjectWrapper;
@@ -150,7 +151,7 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
 
     @Override
     protected void activate() {
-        FilteredList<Dispute> filteredList = new FilteredList<>(disputeManager.getDisputesAsObservableList());
+        FilteredList<Dispute> filteredList = new FilteredList<>(FxProperties.toFx(disputeManager.getDisputesAsObservableList()));
         setFilteredListPredicate(filteredList);
         SortedList<Dispute> sortedList = new SortedList(filteredList);
         sortedList.setComparator((o1, o2) -> o1.getOpeningDate().compareTo(o2.getOpeningDate()));
@@ -200,12 +201,12 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
             sendMsgProgressIndicator.setManaged(true);
         });
 
-        disputeMailMessage.arrivedProperty().addListener((observable, oldValue, newValue) -> {
+        disputeMailMessage.arrivedProperty().addListener((oldValue, newValue) -> {
             if (newValue) {
                 hideSendMsgInfo(timer);
             }
         });
-        disputeMailMessage.storedInMailboxProperty().addListener((observable, oldValue, newValue) -> {
+        disputeMailMessage.storedInMailboxProperty().addListener((oldValue, newValue) -> {
             if (newValue) {
                 sendMsgInfoLabel.setVisible(true);
                 sendMsgInfoLabel.setManaged(true);
@@ -244,11 +245,16 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
                     URL url = result.toURI().toURL();
                     try (InputStream inputStream = url.openStream()) {
                         byte[] filesAsBytes = ByteStreams.toByteArray(inputStream);
-                        if (filesAsBytes.length <= Connection.getMaxMsgSize()) {
-                            tempAttachments.add(new DisputeMailMessage.Attachment(result.getName(), filesAsBytes));
-                            inputTextArea.setText(inputTextArea.getText() + "\n[Attachment " + result.getName() + "]");
+                        if (filesAsBytes.length <= AttachmentStore.MAX_ATTACHMENT_SIZE) {
+                            disputeManager.createAttachment(result.getName(), filesAsBytes, attachment -> {
+                                tempAttachments.add(attachment);
+                                inputTextArea.setText(inputTextArea.getText() + "\n[Attachment " + result.getName() + "]");
+                            }, (errorMessage, throwable) -> {
+                                log.error(errorMessage);
+                                new Popup().error("Storing the attachment failed.\n" + errorMessage).show();
+                            });
                         } else {
-                            new Popup().error("The max. allowed file size is 100 kB.").show();
+                            new Popup().error("The max. allowed file size is 10 MB.").show();
                         }
                     } catch (java.io.IOException e) {
                         e.printStackTrace();
@@ -265,6 +271,20 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
     }
 
     private void onOpenAttachment(DisputeMailMessage.Attachment attachment) {
+        disputeManager.getAttachmentContent(attachment, contentOptional -> {
+            if (contentOptional.isPresent())
+                saveAttachment(attachment, contentOptional.get());
+            else {
+                new Popup().information("The attachment has not been received completely yet.").show();
+                disputeManager.requestMissingAttachments();
+            }
+        }, (errorMessage, throwable) -> {
+            log.error("Reading attachment failed. " + errorMessage);
+            new Popup().error("Reading the attachment failed.\n" + errorMessage).show();
+        });
+    }
+
+    private void saveAttachment(DisputeMailMessage.Attachment attachment, byte[] content) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save file to disk");
         fileChooser.setInitialFileName(attachment.getFileName());
@@ -273,7 +293,7 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
         File file = fileChooser.showSaveDialog(stage);
         if (file != null) {
             try (FileOutputStream fileOutputStream = new FileOutputStream(file.getAbsolutePath())) {
-                fileOutputStream.write(attachment.getBytes());
+                fileOutputStream.write(content);
             } catch (IOException e) {
                 e.printStackTrace();
                 System.out.println(e.getMessage());
@@ -300,7 +320,7 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
             AnchorPane.setBottomAnchor(tableGroupHeadline, 0d);
             AnchorPane.setLeftAnchor(tableGroupHeadline, 0d);
 
-            ObservableList<DisputeMailMessage> list = dispute.getDisputeMailMessagesAsObservableList();
+            ObservableList<DisputeMailMessage> list = FxProperties.toFx(dispute.getDisputeMailMessagesAsObservableList());
             SortedList<DisputeMailMessage> sortedList = new SortedList(list);
             sortedList.setComparator((o1, o2) -> o1.getDate().compareTo(o2.getDate()));
             list.addListener((ListChangeListener<DisputeMailMessage>) c -> scrollToBottom());
@@ -342,7 +362,7 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
             sendMsgProgressIndicator.setVisible(false);
             sendMsgProgressIndicator.setManaged(false);
 
-            dispute.isClosedProperty().addListener((observable, oldValue, newValue) -> {
+            dispute.isClosedProperty().addListener((oldValue, newValue) -> {
                 messagesInputBox.setVisible(!newValue);
                 messagesInputBox.setManaged(!newValue);
                 AnchorPane.setBottomAnchor(messageListView, newValue ? 0d : 120d);
@@ -736,7 +756,7 @@ public class TraderDisputeView extends ActivatableView<VBox, Void> {
                             public void updateItem(final Dispute item, boolean empty) {
                                 super.updateItem(item, empty);
                                 if (item != null && !empty) {
-                                    item.isClosedProperty().addListener((observable, oldValue, newValue) -> {
+                                    item.isClosedProperty().addListener((oldValue, newValue) -> {
                                         setText(newValue ? "Closed" : "Open");
                                         getTableRow().setOpacity(newValue ? 0.4 : 1);
                                     });
@@ -19,7 +19,6 @@ package io.bitsquare.gui.main.funds.withdrawal;
 
 import com.google.common.util.concurrent.FutureCallback;
 import io.bitsquare.app.BitsquareApp;
-import io.bitsquare.btc.AddressEntry;
 import io.bitsquare.btc.FeePolicy;
 import io.bitsquare.btc.Restrictions;
 import io.bitsquare.btc.WalletService;
@@ -245,14 +244,11 @@ public class WithdrawalView extends ActivatableView<VBox, Void> {
     private void fillList() {
         addressList.clear();
 
-        List<AddressEntry> addressEntryList = walletService.getAddressEntryList();
-
         List<String> reservedTrades = Stream.concat(openOfferManager.getOpenOffers().stream(), tradeManager.getTrades().stream())
                 .map(tradable -> tradable.getOffer().getId())
                 .collect(Collectors.toList());
 
-        addressList.addAll(addressEntryList.stream()
-                .filter(e -> walletService.getBalanceForAddress(e.getAddress()).isPositive())
+        addressList.addAll(walletService.getFundedAddressEntries().stream()
                 .filter(e -> !reservedTrades.contains(e.getOfferId()))
                 .map(anAddressEntryList -> new WithdrawalListItem(anAddressEntryList, walletService, formatter))
                 .collect(Collectors.toList()));
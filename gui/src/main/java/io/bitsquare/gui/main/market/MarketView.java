@@ -21,14 +21,12 @@ import io.bitsquare.common.UserThread;
 import io.bitsquare.common.util.Tuple2;
 import io.bitsquare.gui.common.view.ActivatableViewAndModel;
 import io.bitsquare.gui.common.view.FxmlView;
-import io.bitsquare.gui.main.offer.offerbook.OfferBookListItem;
 import io.bitsquare.gui.util.BSFormatter;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.trade.offer.Offer;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -52,7 +50,6 @@ public class MarketView extends ActivatableViewAndModel<TabPane, MarketViewModel
 
     private NumberAxis xAxis, yAxis;
     XYChart.Series seriesBuy, seriesSell;
-    private ListChangeListener<OfferBookListItem> changeListener;
     private BSFormatter formatter;
     private TableView<Offer> buyOfferTableView;
     private TableView<Offer> sellOfferTableView;
@@ -71,8 +68,6 @@ public class MarketView extends ActivatableViewAndModel<TabPane, MarketViewModel
     public MarketView(MarketViewModel model, BSFormatter formatter) {
         super(model);
         this.formatter = formatter;
-
-        changeListener = c -> updateChartData();
     }
 
     @Override
@@ -125,12 +120,8 @@ public class MarketView extends ActivatableViewAndModel<TabPane, MarketViewModel
         currencyComboBox.setItems(model.getTradeCurrencies());
         currencyComboBox.getSelectionModel().select(model.getTradeCurrency());
         currencyComboBox.setVisibleRowCount(Math.min(currencyComboBox.getItems().size(), 25));
-        currencyComboBox.setOnAction(e -> {
-            model.onSetTradeCurrency(currencyComboBox.getSelectionModel().getSelectedItem());
-            updateChartData();
-        });
+        currencyComboBox.setOnAction(e -> model.onSetTradeCurrency(currencyComboBox.getSelectionModel().getSelectedItem()));
 
-        model.getOfferBookListItems().addListener(changeListener);
         tradeCurrencySubscriber = EasyBind.subscribe(model.tradeCurrency,
                 newValue -> {
                     String code = newValue.getCode();
@@ -143,13 +134,10 @@ public class MarketView extends ActivatableViewAndModel<TabPane, MarketViewModel
 
         buyOfferTableView.setItems(model.getBuyOfferList());
         sellOfferTableView.setItems(model.getSellOfferList());
-
-        updateChartData();
     }
 
     @Override
     protected void deactivate() {
-        model.getOfferBookListItems().removeListener(changeListener);
         tradeCurrencySubscriber.unsubscribe();
     }
 
@@ -274,15 +262,10 @@ public class MarketView extends ActivatableViewAndModel<TabPane, MarketViewModel
         areaChart.setMinHeight(300);
         areaChart.setPadding(new Insets(0, 30, 10, 0));
         areaChart.getData().addAll(seriesBuy, seriesSell);
-    }
-
-
-    private void updateChartData() {
-        seriesBuy.getData().clear();
-        seriesSell.getData().clear();
 
-        seriesBuy.getData().addAll(model.getBuyData());
-        seriesSell.getData().addAll(model.getSellData());
+        // The model updates the data in place when the market depth changes
+        seriesBuy.setData(model.getBuyData());
+        seriesSell.setData(model.getSellData());
     }
 
 
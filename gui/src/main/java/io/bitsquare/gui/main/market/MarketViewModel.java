@@ -17,36 +17,36 @@
 
 package io.bitsquare.gui.main.market;
 
-import com.google.common.math.LongMath;
 import com.google.inject.Inject;
 import io.bitsquare.gui.common.model.ActivatableViewModel;
-import io.bitsquare.gui.main.offer.offerbook.OfferBook;
-import io.bitsquare.gui.main.offer.offerbook.OfferBookListItem;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.locale.CurrencyUtil;
 import io.bitsquare.locale.TradeCurrency;
+import io.bitsquare.trade.offer.MarketDepth;
 import io.bitsquare.trade.offer.Offer;
+import io.bitsquare.trade.offer.OrderBook;
 import io.bitsquare.user.Preferences;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.chart.XYChart;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.utils.Fiat;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 class MarketViewModel extends ActivatableViewModel {
 
-    private final OfferBook offerBook;
+    private final OrderBook orderBook;
+    private final MarketDepth marketDepth;
     private final Preferences preferences;
 
     final ObjectProperty<TradeCurrency> tradeCurrency = new SimpleObjectProperty<>(CurrencyUtil.getDefaultTradeCurrency());
-    private final List<XYChart.Data> buyData = new ArrayList();
-    private final List<XYChart.Data> sellData = new ArrayList();
-    private final ObservableList<OfferBookListItem> offerBookListItems;
-    private final ListChangeListener<OfferBookListItem> listChangeListener;
+    private final ObservableList<XYChart.Data> buyData = FXCollections.observableArrayList();
+    private final ObservableList<XYChart.Data> sellData = FXCollections.observableArrayList();
+    private final MarketDepth.Listener marketDepthListener;
     private final ObservableList<Offer> buyOfferList = FXCollections.observableArrayList();
     private final ObservableList<Offer> sellOfferList = FXCollections.observableArrayList();
 
@@ -56,73 +56,50 @@ class MarketViewModel extends ActivatableViewModel {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     @Inject
-    public MarketViewModel(OfferBook offerBook, Preferences preferences) {
-        this.offerBook = offerBook;
+    public MarketViewModel(OrderBook orderBook, MarketDepth marketDepth, Preferences preferences) {
+        this.orderBook = orderBook;
+        this.marketDepth = marketDepth;
         this.preferences = preferences;
 
-        offerBookListItems = offerBook.getOfferBookListItems();
-        listChangeListener = c -> updateChartData(offerBookListItems);
+        // We get batched changes, so at startup we don't redraw the chart for each received offer
+        marketDepthListener = changes -> {
+            String currencyCode = getCurrencyCode();
+            if (changes.stream().anyMatch(e -> e.currencyCode.equals(currencyCode)))
+                updateChartData();
+        };
     }
 
     @Override
     protected void activate() {
-        offerBookListItems.addListener(listChangeListener);
-        offerBook.fillOfferBookListItems();
+        marketDepth.addListener(marketDepthListener);
+        updateChartData();
     }
 
     @Override
     protected void deactivate() {
-        offerBookListItems.removeListener(listChangeListener);
+        marketDepth.removeListener(marketDepthListener);
     }
 
-    private void updateChartData(ObservableList<OfferBookListItem> offerBookListItems) {
-        List<Offer> offerList = offerBookListItems.stream()
-                .map(e -> e.getOffer())
-                .collect(Collectors.toList());
-
-        buyOfferList.clear();
-        buyOfferList.addAll(offerList
-                .stream()
-                .filter(e -> e.getCurrencyCode().equals(tradeCurrency.get().getCode())
-                        && e.getDirection().equals(Offer.Direction.BUY))
-                .sorted((o1, o2) -> {
-                    long a = o1.getPrice().value;
-                    long b = o2.getPrice().value;
-                    if (a != b)
-                        return a < b ? 1 : -1;
-                    return 0;
-                })
-                .collect(Collectors.toList()));
-        iterateBuyOffers(buyOfferList, Offer.Direction.BUY, buyData);
-
-        sellOfferList.clear();
-        sellOfferList.addAll(offerList
-                .stream()
-                .filter(e -> e.getCurrencyCode().equals(tradeCurrency.get().getCode())
-                        && e.getDirection().equals(Offer.Direction.SELL))
-                .sorted((o1, o2) -> {
-                    long a = o1.getPrice().value;
-                    long b = o2.getPrice().value;
-                    if (a != b)
-                        return a > b ? 1 : -1;
-                    return 0;
-                })
-                .collect(Collectors.toList()));
-        iterateBuyOffers(sellOfferList, Offer.Direction.SELL, sellData);
+    private void updateChartData() {
+        String currencyCode = getCurrencyCode();
+        buyOfferList.setAll(orderBook.getOffers(currencyCode, Offer.Direction.BUY));
+        sellOfferList.setAll(orderBook.getOffers(currencyCode, Offer.Direction.SELL));
+        fillChartData(currencyCode, Offer.Direction.BUY, buyData);
+        fillChartData(currencyCode, Offer.Direction.SELL, sellData);
     }
 
-    private void iterateBuyOffers(List<Offer> sortedList, Offer.Direction direction, List<XYChart.Data> data) {
-        data.clear();
-        double accumulatedAmount = 0;
-        for (Offer offer : sortedList) {
-            double price = (double) offer.getPrice().value / LongMath.pow(10, offer.getPrice().smallestUnitExponent());
-            double amount = (double) offer.getAmount().value / LongMath.pow(10, offer.getAmount().smallestUnitExponent());
-            accumulatedAmount += amount;
+    private void fillChartData(String currencyCode, Offer.Direction direction, ObservableList<XYChart.Data> data) {
+        List<XYChart.Data> list = new ArrayList<>();
+        marketDepth.getCumulativeLevels(currencyCode, direction).forEach((price, accumulatedAmount) -> {
+            XYChart.Data point = new XYChart.Data((double) price / Math.pow(10, Fiat.SMALLEST_UNIT_EXPONENT),
+                    (double) accumulatedAmount / Math.pow(10, Coin.SMALLEST_UNIT_EXPONENT));
+            // The levels are sorted from the best price on, the chart needs ascending prices
             if (direction.equals(Offer.Direction.BUY))
-                data.add(0, new XYChart.Data(price, accumulatedAmount));
+                list.add(0, point);
             else
-                data.add(new XYChart.Data(price, accumulatedAmount));
-        }
+                list.add(point);
+        });
+        data.setAll(list);
     }
 
 
@@ -132,18 +109,18 @@ class MarketViewModel extends ActivatableViewModel {
 
     public void onSetTradeCurrency(TradeCurrency tradeCurrency) {
         this.tradeCurrency.set(tradeCurrency);
-        updateChartData(offerBookListItems);
+        updateChartData();
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public List<XYChart.Data> getBuyData() {
+    public ObservableList<XYChart.Data> getBuyData() {
         return buyData;
     }
 
-    public List<XYChart.Data> getSellData() {
+    public ObservableList<XYChart.Data> getSellData() {
         return sellData;
     }
 
@@ -151,10 +128,6 @@ class MarketViewModel extends ActivatableViewModel {
         return tradeCurrency.get().getCode();
     }
 
-    public ObservableList<OfferBookListItem> getOfferBookListItems() {
-        return offerBookListItems;
-    }
-
     public ObservableList<Offer> getBuyOfferList() {
         return buyOfferList;
     }
@@ -164,7 +137,7 @@ class MarketViewModel extends ActivatableViewModel {
     }
 
     public ObservableList<TradeCurrency> getTradeCurrencies() {
-        return preferences.getTradeCurrenciesAsObservable();
+        return FxProperties.toFx(preferences.getTradeCurrenciesAsObservable());
     }
 
     public TradeCurrency getTradeCurrency() {
@@ -25,9 +25,11 @@ import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.btc.listeners.BalanceListener;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.gui.popups.WalletPasswordPopup;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.locale.Country;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.p2p.P2PService;
@@ -41,7 +43,6 @@ import io.bitsquare.user.User;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.SetChangeListener;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.utils.ExchangeRate;
 import org.bitcoinj.utils.Fiat;
@@ -73,7 +74,7 @@ class CreateOfferDataModel extends ActivatableDataModel {
     private final Coin networkFeeAsCoin;
     private final Coin securityDepositAsCoin;
     private final BalanceListener balanceListener;
-    private final SetChangeListener<PaymentAccount> paymentAccountsChangeListener;
+    private final CollectionListener<PaymentAccount> paymentAccountsChangeListener;
 
     private Offer.Direction direction;
 
@@ -128,7 +129,7 @@ class CreateOfferDataModel extends ActivatableDataModel {
             }
         };
 
-        paymentAccountsChangeListener = change -> paymentAccounts.setAll(user.getPaymentAccounts());
+        paymentAccountsChangeListener = (added, removed) -> paymentAccounts.setAll(user.getPaymentAccounts());
     }
 
 
@@ -151,7 +152,7 @@ class CreateOfferDataModel extends ActivatableDataModel {
     }
 
     private void addBindings() {
-        btcCode.bind(preferences.btcDenominationProperty());
+        btcCode.bind(FxProperties.toFx(preferences.btcDenominationProperty()));
     }
 
     private void removeBindings() {
@@ -19,6 +19,7 @@ package io.bitsquare.gui.main.offer.createoffer;
 
 import io.bitsquare.app.BitsquareApp;
 import io.bitsquare.arbitration.Arbitrator;
+import io.bitsquare.common.observable.PropertyListener;
 import io.bitsquare.gui.common.model.ActivatableWithDataModel;
 import io.bitsquare.gui.common.model.ViewModel;
 import io.bitsquare.gui.util.BSFormatter;
@@ -94,7 +95,7 @@ class CreateOfferViewModel extends ActivatableWithDataModel<CreateOfferDataModel
     private ChangeListener<Boolean> isWalletFundedListener;
     private ChangeListener<Boolean> requestPlaceOfferSuccessListener;
     private ChangeListener<String> requestPlaceOfferErrorMessageListener;
-    private ChangeListener<String> errorMessageListener;
+    private PropertyListener<String> errorMessageListener;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -300,7 +301,7 @@ class CreateOfferViewModel extends ActivatableWithDataModel<CreateOfferDataModel
         isPlaceOfferSpinnerVisible.set(true);
         requestPlaceOfferSuccess.set(false);
 
-        errorMessageListener = (observable, oldValue, newValue) -> {
+        errorMessageListener = (oldValue, newValue) -> {
             if (newValue != null) {
                 if (offer.getState() == Offer.State.OFFER_FEE_PAID)
                     this.errorMessage.set(newValue +
@@ -22,6 +22,7 @@ import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
 import io.bitsquare.gui.common.model.ActivatableViewModel;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.locale.BSResources;
 import io.bitsquare.locale.CountryUtil;
 import io.bitsquare.locale.CurrencyUtil;
@@ -94,7 +95,7 @@ class OfferBookViewModel extends ActivatableViewModel {
 
     @Override
     protected void activate() {
-        btcCode.bind(preferences.btcDenominationProperty());
+        btcCode.bind(FxProperties.toFx(preferences.btcDenominationProperty()));
         offerBookListItems.addListener(listChangeListener);
         offerBook.fillOfferBookListItems();
         filterList();
@@ -152,7 +153,7 @@ class OfferBookViewModel extends ActivatableViewModel {
     }
 
     public ObservableList<TradeCurrency> getTradeCurrencies() {
-        ObservableList<TradeCurrency> list = preferences.getTradeCurrenciesAsObservable();
+        ObservableList<TradeCurrency> list = FxProperties.toFx(preferences.getTradeCurrenciesAsObservable());
        /* list.add(0, new AllTradeCurrenciesEntry());*/
         return list;
     }
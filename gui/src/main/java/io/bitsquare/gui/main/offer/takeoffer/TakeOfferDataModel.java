@@ -25,6 +25,7 @@ import io.bitsquare.btc.listeners.BalanceListener;
 import io.bitsquare.common.handlers.ResultHandler;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.gui.popups.WalletPasswordPopup;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.payment.PaymentAccount;
 import io.bitsquare.payment.PaymentMethod;
@@ -230,7 +231,7 @@ class TakeOfferDataModel extends ActivatableDataModel {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private void addBindings() {
-        btcCode.bind(preferences.btcDenominationProperty());
+        btcCode.bind(FxProperties.toFx(preferences.btcDenominationProperty()));
     }
 
     private void removeBindings() {
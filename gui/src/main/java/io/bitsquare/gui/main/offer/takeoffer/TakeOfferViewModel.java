@@ -19,6 +19,7 @@ package io.bitsquare.gui.main.offer.takeoffer;
 
 import io.bitsquare.arbitration.Arbitrator;
 import io.bitsquare.common.UserThread;
+import io.bitsquare.common.observable.PropertyListener;
 import io.bitsquare.gui.common.model.ActivatableWithDataModel;
 import io.bitsquare.gui.common.model.ViewModel;
 import io.bitsquare.gui.util.BSFormatter;
@@ -83,10 +84,10 @@ class TakeOfferViewModel extends ActivatableWithDataModel<TakeOfferDataModel> im
     private ChangeListener<String> amountListener;
     private ChangeListener<Coin> amountAsCoinListener;
     private ChangeListener<Boolean> isWalletFundedListener;
-    private ChangeListener<Trade.State> tradeStateListener;
-    private ChangeListener<String> tradeErrorListener;
-    private ChangeListener<Offer.State> offerStateListener;
-    private ChangeListener<String> offerErrorListener;
+    private PropertyListener<Trade.State> tradeStateListener;
+    private PropertyListener<String> tradeErrorListener;
+    private PropertyListener<Offer.State> offerStateListener;
+    private PropertyListener<String> offerErrorListener;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -159,7 +160,7 @@ class TakeOfferViewModel extends ActivatableWithDataModel<TakeOfferDataModel> im
         addressAsString = dataModel.getAddressEntry().getAddress().toString();
         address.set(dataModel.getAddressEntry().getAddress());
 
-        offerErrorListener = (observable, oldValue, newValue) -> {
+        offerErrorListener = (oldValue, newValue) -> {
             if (newValue != null)
                 errorMessage.set(newValue);
         };
@@ -387,9 +388,9 @@ class TakeOfferViewModel extends ActivatableWithDataModel<TakeOfferDataModel> im
         };
         amountAsCoinListener = (ov, oldValue, newValue) -> amount.set(formatter.formatCoin(newValue));
         isWalletFundedListener = (ov, oldValue, newValue) -> updateButtonDisableState();
-        tradeStateListener = (ov, oldValue, newValue) -> applyTradeState(newValue);
-        tradeErrorListener = (ov, oldValue, newValue) -> applyTradeErrorMessage(newValue);
-        offerStateListener = (ov, oldValue, newValue) -> applyOfferState(newValue);
+        tradeStateListener = (oldValue, newValue) -> applyTradeState(newValue);
+        tradeErrorListener = (oldValue, newValue) -> applyTradeErrorMessage(newValue);
+        offerStateListener = (oldValue, newValue) -> applyOfferState(newValue);
     }
 
     private void addListeners() {
@@ -18,12 +18,12 @@
 package io.bitsquare.gui.main.portfolio.closedtrades;
 
 import com.google.inject.Inject;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.trade.Tradable;
 import io.bitsquare.trade.closed.ClosedTradableManager;
 import io.bitsquare.trade.offer.Offer;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.stream.Collectors;
@@ -32,13 +32,13 @@ class ClosedTradesDataModel extends ActivatableDataModel {
     private final ClosedTradableManager closedTradableManager;
 
     private final ObservableList<ClosedTradableListItem> list = FXCollections.observableArrayList();
-    private final ListChangeListener<Tradable> tradesListChangeListener;
+    private final CollectionListener<Tradable> tradesListChangeListener;
 
     @Inject
     public ClosedTradesDataModel(ClosedTradableManager closedTradableManager) {
         this.closedTradableManager = closedTradableManager;
 
-        tradesListChangeListener = change -> applyList();
+        tradesListChangeListener = (added, removed) -> applyList();
     }
 
     @Override
@@ -18,12 +18,12 @@
 package io.bitsquare.gui.main.portfolio.failedtrades;
 
 import com.google.inject.Inject;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.trade.Trade;
 import io.bitsquare.trade.failed.FailedTradesManager;
 import io.bitsquare.trade.offer.Offer;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.stream.Collectors;
@@ -33,13 +33,13 @@ class FailedTradesDataModel extends ActivatableDataModel {
     private final FailedTradesManager failedTradesManager;
 
     private final ObservableList<FailedTradesListItem> list = FXCollections.observableArrayList();
-    private final ListChangeListener<Trade> tradesListChangeListener;
+    private final CollectionListener<Trade> tradesListChangeListener;
 
     @Inject
     public FailedTradesDataModel(FailedTradesManager failedTradesManager) {
         this.failedTradesManager = failedTradesManager;
 
-        tradesListChangeListener = change -> applyList();
+        tradesListChangeListener = (added, removed) -> applyList();
     }
 
     @Override
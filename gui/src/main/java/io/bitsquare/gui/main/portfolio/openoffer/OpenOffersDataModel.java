@@ -20,12 +20,12 @@ package io.bitsquare.gui.main.portfolio.openoffer;
 import com.google.inject.Inject;
 import io.bitsquare.common.handlers.ErrorMessageHandler;
 import io.bitsquare.common.handlers.ResultHandler;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.trade.offer.Offer;
 import io.bitsquare.trade.offer.OpenOffer;
 import io.bitsquare.trade.offer.OpenOfferManager;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.stream.Collectors;
@@ -34,13 +34,13 @@ class OpenOffersDataModel extends ActivatableDataModel {
     private final OpenOfferManager openOfferManager;
 
     private final ObservableList<OpenOfferListItem> list = FXCollections.observableArrayList();
-    private final ListChangeListener<OpenOffer> tradesListChangeListener;
+    private final CollectionListener<OpenOffer> tradesListChangeListener;
 
     @Inject
     public OpenOffersDataModel(OpenOfferManager openOfferManager) {
         this.openOfferManager = openOfferManager;
 
-        tradesListChangeListener = change -> applyList();
+        tradesListChangeListener = (added, removed) -> applyList();
     }
 
     @Override
@@ -25,6 +25,7 @@ import io.bitsquare.btc.TradeWalletService;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.observable.CollectionListener;
 import io.bitsquare.gui.Navigation;
 import io.bitsquare.gui.common.model.ActivatableDataModel;
 import io.bitsquare.gui.main.MainView;
@@ -40,7 +41,6 @@ import io.bitsquare.user.Preferences;
 import io.bitsquare.user.User;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import org.bitcoinj.core.BlockChainListener;
 import org.bitcoinj.core.Coin;
@@ -64,7 +64,7 @@ public class PendingTradesDataModel extends ActivatableDataModel {
 
     private final ObservableList<PendingTradesListItem> list = FXCollections.observableArrayList();
     private PendingTradesListItem selectedItem;
-    private final ListChangeListener<Trade> tradesListChangeListener;
+    private final CollectionListener<Trade> tradesListChangeListener;
     private boolean isOfferer;
 
     private final ObjectProperty<Trade> tradeProperty = new SimpleObjectProperty<>();
@@ -91,7 +91,7 @@ public class PendingTradesDataModel extends ActivatableDataModel {
         this.navigation = navigation;
         this.walletPasswordPopup = walletPasswordPopup;
 
-        tradesListChangeListener = change -> onListChanged();
+        tradesListChangeListener = (added, removed) -> onListChanged();
     }
 
     @Override
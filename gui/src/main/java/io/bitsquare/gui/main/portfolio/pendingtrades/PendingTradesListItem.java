@@ -17,6 +17,7 @@
 
 package io.bitsquare.gui.main.portfolio.pendingtrades;
 
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.trade.Trade;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import org.bitcoinj.core.Coin;
@@ -49,17 +50,11 @@ public class PendingTradesListItem {
     }
 
     public ReadOnlyObjectProperty<Coin> tradeAmountProperty() {
-        if (trade instanceof Trade)
-            return trade.tradeAmountProperty();
-        else
-            return trade.tradeAmountProperty();
+        return FxProperties.toFx(trade.tradeAmountProperty());
     }
 
     public ReadOnlyObjectProperty<Fiat> tradeVolumeProperty() {
-        if (trade instanceof Trade)
-            return trade.tradeVolumeProperty();
-        else
-            return trade.tradeVolumeProperty();
+        return FxProperties.toFx(trade.tradeVolumeProperty());
     }
 
     public Date getDate() {
@@ -22,6 +22,7 @@ import io.bitsquare.btc.FeePolicy;
 import io.bitsquare.gui.common.model.ActivatableWithDataModel;
 import io.bitsquare.gui.common.model.ViewModel;
 import io.bitsquare.gui.util.BSFormatter;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.gui.util.validation.*;
 import io.bitsquare.locale.BSResources;
 import io.bitsquare.p2p.P2PService;
@@ -130,7 +131,7 @@ public class PendingTradesViewModel extends ActivatableWithDataModel<PendingTrad
             tradeStateSubscription.unsubscribe();
 
         if (dataModel.getTrade() != null) {
-            tradeStateSubscription = EasyBind.subscribe(dataModel.getTrade().stateProperty(), newValue -> {
+            tradeStateSubscription = FxProperties.subscribe(dataModel.getTrade().stateProperty(), newValue -> {
                 if (newValue != null) {
                     applyState(newValue);
                 }
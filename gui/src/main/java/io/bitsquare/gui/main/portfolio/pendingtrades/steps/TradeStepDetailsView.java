@@ -22,6 +22,7 @@ import io.bitsquare.gui.components.TitledGroupBg;
 import io.bitsquare.gui.main.help.Help;
 import io.bitsquare.gui.main.help.HelpId;
 import io.bitsquare.gui.main.portfolio.pendingtrades.PendingTradesViewModel;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.gui.util.Layout;
 import io.bitsquare.trade.Trade;
 import javafx.geometry.HPos;
@@ -109,19 +110,19 @@ public abstract class TradeStepDetailsView extends AnchorPane {
     public void doActivate() {
         trade = model.getTrade();
 
-        errorMessageSubscription = EasyBind.subscribe(trade.errorMessageProperty(), newValue -> {
+        errorMessageSubscription = FxProperties.subscribe(trade.errorMessageProperty(), newValue -> {
             if (newValue != null) {
                 addErrorLabel();
             }
         });
 
-        disputeStateSubscription = EasyBind.subscribe(trade.disputeStateProperty(), newValue -> {
+        disputeStateSubscription = FxProperties.subscribe(trade.disputeStateProperty(), newValue -> {
             if (newValue != null) {
                 updateDisputeState(newValue);
             }
         });
 
-        tradePeriodStateSubscription = EasyBind.subscribe(trade.getTradePeriodStateProperty(), newValue -> {
+        tradePeriodStateSubscription = FxProperties.subscribe(trade.getTradePeriodStateProperty(), newValue -> {
             if (newValue != null) {
                 updateTradePeriodState(newValue);
             }
@@ -186,7 +187,7 @@ public abstract class TradeStepDetailsView extends AnchorPane {
             infoLabel = addMultilineLabel(gridPane, gridRow, Layout.FIRST_ROW_AND_GROUP_DISTANCE);
         }
         infoTitledGroupBg.setText("Error message");
-        infoLabel.setText(trade.errorMessageProperty().getValue()
+        infoLabel.setText(trade.errorMessageProperty().get()
                 + "\n\nPlease report the problem to your arbitrator. He will forward it to the developers to investigate the problem.\n" +
                 "After the problem has be analysed you will get back all the funds you paid in.\n" +
                 "There will be no arbitration fee charged if it was a technical error.");
@@ -19,6 +19,7 @@ package io.bitsquare.gui.main.settings.application;
 
 import com.google.inject.Inject;
 import io.bitsquare.gui.common.model.ActivatableViewModel;
+import io.bitsquare.gui.util.FxProperties;
 import io.bitsquare.locale.LanguageUtil;
 import io.bitsquare.locale.TradeCurrency;
 import io.bitsquare.user.BlockChainExplorer;
@@ -46,7 +47,7 @@ class PreferencesViewModel extends ActivatableViewModel {
         this.preferences = preferences;
 
         blockExplorers = FXCollections.observableArrayList(preferences.getBlockChainExplorers());
-        tradeCurrencies = preferences.getTradeCurrenciesAsObservable();
+        tradeCurrencies = FxProperties.toFx(preferences.getTradeCurrenciesAsObservable());
         languageCodes = FXCollections.observableArrayList(LanguageUtil.getAllLanguageCodes());
     }
 
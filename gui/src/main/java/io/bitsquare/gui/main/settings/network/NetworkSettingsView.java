@@ -21,6 +21,7 @@ import io.bitsquare.app.BitsquareApp;
 import io.bitsquare.btc.BitcoinNetwork;
 import io.bitsquare.btc.WalletService;
 import io.bitsquare.common.UserThread;
+import io.bitsquare.common.observable.PropertyListener;
 import io.bitsquare.gui.common.model.Activatable;
 import io.bitsquare.gui.common.view.ActivatableViewAndModel;
 import io.bitsquare.gui.common.view.FxmlView;
@@ -32,7 +33,6 @@ import io.bitsquare.p2p.P2PServiceListener;
 import io.bitsquare.p2p.network.LocalhostNetworkNode;
 import io.bitsquare.p2p.seed.SeedNodesRepository;
 import io.bitsquare.user.Preferences;
-import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -68,8 +68,8 @@ public class NetworkSettingsView extends ActivatableViewAndModel<GridPane, Activ
     Label bitcoinPeersLabel, authenticatedPeersLabel;
 
     private P2PServiceListener p2PServiceListener;
-    private ChangeListener<Number> numAuthenticatedPeersChangeListener;
-    private ChangeListener<List<Peer>> bitcoinPeersChangeListener;
+    private PropertyListener<Integer> numAuthenticatedPeersChangeListener;
+    private PropertyListener<List<Peer>> bitcoinPeersChangeListener;
     private Set<Address> seedNodeAddresses;
 
     @Inject
@@ -143,11 +143,11 @@ public class NetworkSettingsView extends ActivatableViewAndModel<GridPane, Activ
             onionAddress.setText(address.getFullAddress());
         }
 
-        bitcoinPeersChangeListener = (observable, oldValue, newValue) -> updateBitcoinPeersTextArea();
+        bitcoinPeersChangeListener = (oldValue, newValue) -> updateBitcoinPeersTextArea();
         walletService.connectedPeersProperty().addListener(bitcoinPeersChangeListener);
         updateBitcoinPeersTextArea();
 
-        numAuthenticatedPeersChangeListener = (observable, oldValue, newValue) -> updateAuthenticatedPeersTextArea();
+        numAuthenticatedPeersChangeListener = (oldValue, newValue) -> updateAuthenticatedPeersTextArea();
         p2PService.getNumAuthenticatedPeers().addListener(numAuthenticatedPeersChangeListener);
         updateAuthenticatedPeersTextArea();
     }
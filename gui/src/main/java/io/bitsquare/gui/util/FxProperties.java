@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.gui.util;
+
+import io.bitsquare.common.observable.*;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.Property;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.fxmisc.easybind.Subscription;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Adapts the observable properties and lists of the core domain model to JavaFX.
+// Core changes them on the UserThread, which is the JavaFX application thread in the GUI.
+public class FxProperties {
+
+    // Returns a JavaFX property following the given property, e.g. for binding it to a table cell.
+    // We only keep a weak reference to the JavaFX property, so adapters for short living list items don't leak.
+    public static <T> ReadOnlyObjectProperty<T> toFx(ReadOnlyObservableProperty<T> property) {
+        ObjectProperty<T> fxProperty = new SimpleObjectProperty<>(property.get());
+        WeakReference<ObjectProperty<T>> fxPropertyReference = new WeakReference<>(fxProperty);
+        property.addListener(new PropertyListener<T>() {
+            @Override
+            public void onChanged(T oldValue, T newValue) {
+                ObjectProperty<T> target = fxPropertyReference.get();
+                if (target != null)
+                    target.set(newValue);
+                else
+                    property.removeListener(this);
+            }
+        });
+        return fxProperty;
+    }
+
+    // Returns a JavaFX list following the given list, e.g. as the items of a table or wrapped into a FilteredList.
+    // Like with toFx we only keep a weak reference to the JavaFX list.
+    public static <E> ObservableList<E> toFx(ObservableArrayList<E> list) {
+        ObservableList<E> fxList = FXCollections.observableArrayList(list);
+        WeakReference<ObservableList<E>> fxListReference = new WeakReference<>(fxList);
+        list.addListener(new CollectionListener<E>() {
+            @Override
+            public void onChanged(List<E> added, List<E> removed) {
+                ObservableList<E> target = fxListReference.get();
+                if (target != null)
+                    target.setAll(list);
+                else
+                    list.removeListener(this);
+            }
+        });
+        return fxList;
+    }
+
+    // Keeps the JavaFX property (e.g. the selected property of a CheckBox) and the given property in sync, starting
+    // with the value of the given property. Returns the subscription to unbind them.
+    public static <T> Subscription bindBidirectional(Property<T> fxProperty, ObservableProperty<T> property) {
+        fxProperty.setValue(property.get());
+        PropertyListener<T> listener = (oldValue, newValue) -> fxProperty.setValue(newValue);
+        property.addListener(listener);
+        ChangeListener<T> fxListener = (observable, oldValue, newValue) -> property.set(newValue);
+        fxProperty.addListener(fxListener);
+        return () -> {
+            property.removeListener(listener);
+            fxProperty.removeListener(fxListener);
+        };
+    }
+
+    // Same as EasyBind.subscribe: The subscriber is called with the current value and then with each change.
+    public static <T> Subscription subscribe(ReadOnlyObservableProperty<T> property, Consumer<? super T> subscriber) {
+        subscriber.accept(property.get());
+        PropertyListener<T> listener = (oldValue, newValue) -> subscriber.accept(newValue);
+        property.addListener(listener);
+        return () -> property.removeListener(listener);
+    }
+}
@@ -1,11 +1,13 @@
 package io.bitsquare.p2p;
 
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
 import io.bitsquare.common.crypto.Hash;
 
 import java.io.Serializable;
 import java.util.regex.Pattern;
 
-public class Address implements Serializable {
+public class Address implements Serializable, CanonicalEncodable {
     public final String hostName;
     public final int port;
     transient private byte[] addressPrefixHash;
@@ -32,6 +34,13 @@ public class Address implements Serializable {
         return addressPrefixHash;
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("Address")
+                .writeString(hostName)
+                .writeInt(port);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -46,6 +46,9 @@ public class P2PModule extends AppModule {
         Boolean useLocalhost = env.getProperty(ProgramArguments.USE_LOCALHOST, boolean.class, false);
         bind(boolean.class).annotatedWith(Names.named(ProgramArguments.USE_LOCALHOST)).toInstance(useLocalhost);
 
+        Boolean fastTorRestart = env.getProperty(ProgramArguments.FAST_TOR_RESTART, boolean.class, true);
+        bind(boolean.class).annotatedWith(Names.named(ProgramArguments.FAST_TOR_RESTART)).toInstance(fastTorRestart);
+
         File torDir = new File(env.getRequiredProperty(ProgramArguments.TOR_DIR));
         bind(File.class).annotatedWith(named(ProgramArguments.TOR_DIR)).toInstance(torDir);
 
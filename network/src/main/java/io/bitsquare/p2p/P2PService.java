@@ -11,11 +11,14 @@ import io.bitsquare.common.ByteArray;
 import io.bitsquare.common.crypto.CryptoException;
 import io.bitsquare.common.crypto.KeyRing;
 import io.bitsquare.common.crypto.PubKeyRing;
+import io.bitsquare.common.observable.ObservableProperty;
+import io.bitsquare.common.observable.ReadOnlyObservableProperty;
 import io.bitsquare.crypto.EncryptionService;
 import io.bitsquare.crypto.SealedAndSignedMessage;
 import io.bitsquare.p2p.messaging.*;
 import io.bitsquare.p2p.network.*;
 import io.bitsquare.p2p.peers.AuthenticationListener;
+import io.bitsquare.p2p.peers.ConnectionWarmUpManager;
 import io.bitsquare.p2p.peers.PeerManager;
 import io.bitsquare.p2p.peers.RequestDataManager;
 import io.bitsquare.p2p.seed.SeedNodesRepository;
@@ -26,9 +29,6 @@ import io.bitsquare.p2p.storage.data.ExpirablePayload;
 import io.bitsquare.p2p.storage.data.ProtectedData;
 import io.bitsquare.p2p.storage.data.ProtectedMailboxData;
 import io.bitsquare.storage.Storage;
-import javafx.beans.property.*;
-import org.fxmisc.easybind.EasyBind;
-import org.fxmisc.easybind.monadic.MonadicBinding;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -49,30 +49,34 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
     private final int port;
     private final File torDir;
     private final boolean useLocalhost;
+    private final boolean fastTorRestart;
     private final Optional<EncryptionService> optionalEncryptionService;
     private final Optional<KeyRing> optionalKeyRing;
 
     // set in init
     private NetworkNode networkNode;
     private PeerManager peerManager;
+    private ConnectionWarmUpManager connectionWarmUpManager;
     private P2PDataStorage dataStorage;
 
-    private final CopyOnWriteArraySet<DecryptedMailListener> decryptedMailListeners = new CopyOnWriteArraySet<>();
+    private final DecryptedMailDispatcher decryptedMailDispatcher = new DecryptedMailDispatcher();
     private final CopyOnWriteArraySet<DecryptedMailboxListener> decryptedMailboxListeners = new CopyOnWriteArraySet<>();
     private final CopyOnWriteArraySet<P2PServiceListener> p2pServiceListeners = new CopyOnWriteArraySet<>();
     private final Map<DecryptedMsgWithPubKey, ProtectedMailboxData> mailboxMap = new HashMap<>();
     private final Set<Address> authenticatedPeerAddresses = new HashSet<>();
     private final CopyOnWriteArraySet<Runnable> shutDownResultHandlers = new CopyOnWriteArraySet<>();
-    private final BooleanProperty hiddenServicePublished = new SimpleBooleanProperty();
-    private final BooleanProperty requestingDataCompleted = new SimpleBooleanProperty();
-    private final BooleanProperty firstPeerAuthenticated = new SimpleBooleanProperty();
-    private final IntegerProperty numAuthenticatedPeers = new SimpleIntegerProperty(0);
+    private final ObservableProperty<Integer> numAuthenticatedPeers = new ObservableProperty<>(0);
+    private boolean hiddenServicePublished;
+    private boolean requestingDataCompleted;
+    private boolean firstPeerAuthenticated;
+    private boolean readyForAuthentication;
+    private long startTs;
+    private long timeToHiddenServicePublished = -1;
+    private long timeToFirstPeerAuthenticated = -1;
 
     private Address connectedSeedNode;
     private volatile boolean shutDownInProgress;
     private boolean shutDownComplete;
-    @SuppressWarnings("FieldCanBeLocal")
-    private MonadicBinding<Boolean> readyForAuthentication;
     private final Storage<Address> dbStorage;
     private Address myOnionAddress;
     private RequestDataManager requestDataManager;
@@ -88,6 +92,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
                       @Named(ProgramArguments.PORT_KEY) int port,
                       @Named(ProgramArguments.TOR_DIR) File torDir,
                       @Named(ProgramArguments.USE_LOCALHOST) boolean useLocalhost,
+                      @Named(ProgramArguments.FAST_TOR_RESTART) boolean fastTorRestart,
                       @Named(ProgramArguments.NETWORK_ID) int networkId,
                       @Named("storage.dir") File storageDir,
                       @Nullable EncryptionService encryptionService,
@@ -96,6 +101,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         this.port = port;
         this.torDir = torDir;
         this.useLocalhost = useLocalhost;
+        this.fastTorRestart = fastTorRestart;
 
         optionalEncryptionService = encryptionService == null ? Optional.empty() : Optional.of(encryptionService);
         optionalKeyRing = keyRing == null ? Optional.empty() : Optional.of(keyRing);
@@ -105,6 +111,17 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         init(networkId, storageDir);
     }
 
+    public P2PService(SeedNodesRepository seedNodesRepository,
+                      int port,
+                      File torDir,
+                      boolean useLocalhost,
+                      int networkId,
+                      File storageDir,
+                      @Nullable EncryptionService encryptionService,
+                      @Nullable KeyRing keyRing) {
+        this(seedNodesRepository, port, torDir, useLocalhost, false, networkId, storageDir, encryptionService, keyRing);
+    }
+
     // Used for seed node
     public P2PService(SeedNodesRepository seedNodesRepository,
                       int port,
@@ -126,45 +143,39 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         seedNodeAddresses = seedNodesRepository.geSeedNodeAddresses(useLocalhost, networkId);
 
         // network node
-        networkNode = useLocalhost ? new LocalhostNetworkNode(port) : new TorNetworkNode(port, torDir);
+        networkNode = useLocalhost ? new LocalhostNetworkNode(port, fastTorRestart) : new TorNetworkNode(port, torDir, fastTorRestart);
         networkNode.addConnectionListener(this);
         networkNode.addMessageListener(this);
 
         // peer group 
-        peerManager = new PeerManager(networkNode);
+        peerManager = new PeerManager(networkNode, storageDir);
         peerManager.setSeedNodeAddresses(seedNodeAddresses);
         peerManager.addAuthenticationListener(this);
 
+        connectionWarmUpManager = new ConnectionWarmUpManager(networkNode, peerManager);
+
         // P2P network data storage 
         dataStorage = new P2PDataStorage(peerManager, networkNode, storageDir);
         dataStorage.addHashMapChangedListener(this);
+        peerManager.setDataDigestSupplier(() -> dataStorage.getDataDigest());
 
         // Request initial data manager
-        requestDataManager = new RequestDataManager(networkNode, dataStorage, peerManager, new RequestDataManager.Listener() {
-            @Override
-            public void onNoSeedNodeAvailable() {
-                p2pServiceListeners.stream().forEach(e -> e.onNoSeedNodeAvailable());
-            }
+        requestDataManager = new RequestDataManager(networkNode, dataStorage, peerManager, storageDir,
+                new RequestDataManager.Listener() {
+                    @Override
+                    public void onNoSeedNodeAvailable() {
+                        p2pServiceListeners.stream().forEach(e -> e.onNoSeedNodeAvailable());
+                    }
 
-            @Override
-            public void onDataReceived(Address seedNode) {
-                connectedSeedNode = seedNode;
-                requestingDataCompleted.set(true);
-                p2pServiceListeners.stream().forEach(e -> e.onRequestingDataCompleted());
-            }
-        });
+                    @Override
+                    public void onDataReceived(Address seedNode) {
+                        connectedSeedNode = seedNode;
+                        requestingDataCompleted = true;
+                        checkReadyForAuthentication();
+                        p2pServiceListeners.stream().forEach(e -> e.onRequestingDataCompleted());
+                    }
+                });
         peerManager.addAuthenticationListener(requestDataManager);
-
-        // Test multiple states to check when we are ready for authenticateSeedNode
-        readyForAuthentication = EasyBind.combine(hiddenServicePublished, requestingDataCompleted, firstPeerAuthenticated,
-                (hiddenServicePublished, requestingDataCompleted, firstPeerAuthenticated)
-                        -> hiddenServicePublished && requestingDataCompleted && !firstPeerAuthenticated);
-        readyForAuthentication.subscribe((observable, oldValue, newValue) -> {
-            // we need to have both the initial data delivered and the hidden service published before we 
-            // authenticate to a seed node. 
-            if (newValue)
-                authenticateSeedNode();
-        });
     }
 
 
@@ -188,6 +199,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         if (listener != null)
             addP2PServiceListener(listener);
 
+        startTs = System.currentTimeMillis();
         networkNode.start(this);
     }
 
@@ -204,6 +216,9 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             if (peerManager != null)
                 peerManager.shutDown();
 
+            if (connectionWarmUpManager != null)
+                connectionWarmUpManager.shutDown();
+
             if (requestDataManager != null)
                 requestDataManager.shutDown();
 
@@ -231,6 +246,10 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
      * RequestDataManager.Listener.onDataReceived && onHiddenServicePublished -> authenticateSeedNode()
      * RequestDataManager.onPeerAddressAuthenticated -> RequestDataManager.requestDataFromAuthenticatedSeedNode()
      * <p>
+     * With a fast tor restart our address is already known at onTorNodeReady, so we authenticate at
+     * RequestDataManager.Listener.onDataReceived. The seed node retries to connect back to us until our hidden
+     * service is published.
+     * <p>
      * Variant 2 (no seed node available):
      * onTorNodeReady -> requestDataManager.requestData
      * RequestDataManager.Listener.onNoSeedNodeAvailable && onHiddenServicePublished -> retry after 20-30 until
@@ -261,7 +280,10 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             dbStorage.queueUpForSave(myOnionAddress);
         }
 
-        hiddenServicePublished.set(true);
+        hiddenServicePublished = true;
+        timeToHiddenServicePublished = System.currentTimeMillis() - startTs;
+        log.info("Hidden service published after {} ms", timeToHiddenServicePublished);
+        checkReadyForAuthentication();
 
         p2pServiceListeners.stream().forEach(e -> e.onHiddenServicePublished());
     }
@@ -272,6 +294,17 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         p2pServiceListeners.stream().forEach(e -> e.onSetupFailed(throwable));
     }
 
+    // We need to have both the initial data delivered and our address before we authenticate to a seed node. Our
+    // address is known when the hidden service is published or with a fast tor restart already at onTorNodeReady.
+    // We only react on the change to ready.
+    private void checkReadyForAuthentication() {
+        boolean hasAddress = hiddenServicePublished || networkNode.getAddress() != null;
+        boolean ready = hasAddress && requestingDataCompleted && !firstPeerAuthenticated;
+        if (ready && !readyForAuthentication)
+            authenticateSeedNode();
+        readyForAuthentication = ready;
+    }
+
     private void authenticateSeedNode() {
         Log.traceCall();
         checkNotNull(connectedSeedNode != null, "connectedSeedNode must not be null");
@@ -308,8 +341,12 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         Log.traceCall();
         authenticatedPeerAddresses.add(peerAddress);
 
-        if (!firstPeerAuthenticated.get()) {
-            firstPeerAuthenticated.set(true);
+        if (!firstPeerAuthenticated) {
+            firstPeerAuthenticated = true;
+            timeToFirstPeerAuthenticated = System.currentTimeMillis() - startTs;
+            log.info("First peer authenticated after {} ms (fastTorRestart={})", timeToFirstPeerAuthenticated,
+                    fastTorRestart);
+            checkReadyForAuthentication();
             p2pServiceListeners.stream().forEach(e -> e.onFirstPeerAuthenticated());
         }
 
@@ -340,8 +377,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
 
                         log.info("Received SealedAndSignedMessage and decrypted it: " + decryptedMsgWithPubKey);
                         connection.getPeerAddressOptional().ifPresent(peerAddresses ->
-                                decryptedMailListeners.stream().forEach(
-                                        e -> e.onMailMessage(decryptedMsgWithPubKey, peerAddresses)));
+                                decryptedMailDispatcher.dispatch(decryptedMsgWithPubKey, peerAddresses));
                     } else {
                         log.info("Wrong receiverAddressMaskHash. The message is not intended for us.");
                     }
@@ -418,6 +454,14 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
     }
 
 
+    // Authenticate speculatively to peers we expect to send direct messages to soon, so the first message does not
+    // need to wait for a new circuit.
+    public void warmUpConnections(Collection<Address> peerAddresses) {
+        Log.traceCall();
+        connectionWarmUpManager.warmUp(peerAddresses);
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // MailboxMessages
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -633,11 +677,20 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public void addDecryptedMailListener(DecryptedMailListener listener) {
-        decryptedMailListeners.add(listener);
+        decryptedMailDispatcher.addListener(listener);
     }
 
     public void removeDecryptedMailListener(DecryptedMailListener listener) {
-        decryptedMailListeners.remove(listener);
+        decryptedMailDispatcher.removeListener(listener);
+    }
+
+    // The listener only gets RoutableMailMessages with the given routing id (trade or offer id)
+    public void addDecryptedMailListener(String routingId, DecryptedMailListener listener) {
+        decryptedMailDispatcher.addListener(routingId, listener);
+    }
+
+    public void removeDecryptedMailListener(String routingId, DecryptedMailListener listener) {
+        decryptedMailDispatcher.removeListener(routingId, listener);
     }
 
     public void addDecryptedMailboxListener(DecryptedMailboxListener listener) {
@@ -666,7 +719,17 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public boolean getFirstPeerAuthenticated() {
-        return firstPeerAuthenticated.get();
+        return firstPeerAuthenticated;
+    }
+
+    // Time from start until the hidden service was published in ms or -1 if not published yet
+    public long getTimeToHiddenServicePublished() {
+        return timeToHiddenServicePublished;
+    }
+
+    // Time from start until the first peer was authenticated in ms or -1 if no peer is authenticated yet
+    public long getTimeToFirstPeerAuthenticated() {
+        return timeToFirstPeerAuthenticated;
     }
 
     public NetworkNode getNetworkNode() {
@@ -677,6 +740,14 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         return peerManager;
     }
 
+    public RequestDataManager getRequestDataManager() {
+        return requestDataManager;
+    }
+
+    public ConnectionWarmUpManager getConnectionWarmUpManager() {
+        return connectionWarmUpManager;
+    }
+
     public Address getAddress() {
         return networkNode.getAddress();
     }
@@ -685,7 +756,7 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         return authenticatedPeerAddresses;
     }
 
-    public ReadOnlyIntegerProperty getNumAuthenticatedPeers() {
+    public ReadOnlyObservableProperty<Integer> getNumAuthenticatedPeers() {
         return numAuthenticatedPeers;
     }
 
@@ -0,0 +1,59 @@
+package io.bitsquare.p2p.messaging;
+
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.Message;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+// Delivers decrypted mail messages to the listeners.
+// Listeners for all messages (e.g. the handlers for initial requests) get every message. Listeners registered for a
+// routing id (trade or offer id) only get the RoutableMailMessages with that id. A node with many open trades and
+// offer checks only pays a map lookup per message instead of calling the listener of each protocol.
+public class DecryptedMailDispatcher {
+    private final CopyOnWriteArraySet<DecryptedMailListener> listeners = new CopyOnWriteArraySet<>();
+    private final ConcurrentHashMap<String, Set<DecryptedMailListener>> routedListeners = new ConcurrentHashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void dispatch(DecryptedMsgWithPubKey decryptedMsgWithPubKey, Address peerAddress) {
+        Message message = decryptedMsgWithPubKey.message;
+        if (message instanceof RoutableMailMessage) {
+            String routingId = ((RoutableMailMessage) message).getRoutingId();
+            if (routingId != null) {
+                Set<DecryptedMailListener> set = routedListeners.get(routingId);
+                if (set != null)
+                    set.stream().forEach(e -> e.onMailMessage(decryptedMsgWithPubKey, peerAddress));
+            }
+        }
+
+        listeners.stream().forEach(e -> e.onMailMessage(decryptedMsgWithPubKey, peerAddress));
+    }
+
+    public void addListener(DecryptedMailListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DecryptedMailListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void addListener(String routingId, DecryptedMailListener listener) {
+        routedListeners.computeIfAbsent(routingId, k -> new CopyOnWriteArraySet<>()).add(listener);
+    }
+
+    public void removeListener(String routingId, DecryptedMailListener listener) {
+        routedListeners.computeIfPresent(routingId, (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public int getNumRoutingIds() {
+        return routedListeners.size();
+    }
+}
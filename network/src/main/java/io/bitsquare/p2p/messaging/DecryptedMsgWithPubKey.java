@@ -24,7 +24,7 @@ import java.security.PublicKey;
 
 public final class DecryptedMsgWithPubKey implements MailMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private final int networkId = Version.NETWORK_ID;
     public final Message message;
@@ -0,0 +1,8 @@
+package io.bitsquare.p2p.messaging;
+
+// A MailMessage which belongs to a trade or offer. It gets delivered to the listeners registered for its routing id
+// in addition to the listeners for all messages.
+public interface RoutableMailMessage extends MailMessage {
+
+    String getRoutingId();
+}
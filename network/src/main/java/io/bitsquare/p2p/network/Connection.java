@@ -4,7 +4,6 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.bitsquare.app.Log;
 import io.bitsquare.app.Version;
-import io.bitsquare.common.ByteArrayUtils;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
@@ -47,13 +46,14 @@ public class Connection implements MessageListener {
 
     private final String portInfo;
     private final String uid = UUID.randomUUID().toString();
-    private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+    // One thread for the InputHandler and one for the writer of the StreamMultiplexer
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
     // holder of state shared between InputHandler and Connection
     private final SharedSpace sharedSpace;
 
     // set in init
     private InputHandler inputHandler;
-    private ObjectOutputStream objectOutputStream;
+    private StreamMultiplexer streamMultiplexer;
 
     // mutable data, set from other threads but not changed internally.
     private Optional<Address> peerAddressOptional = Optional.empty();
@@ -91,18 +91,22 @@ public class Connection implements MessageListener {
 
         try {
             socket.setSoTimeout(SOCKET_TIMEOUT);
-            // Need to access first the ObjectOutputStream otherwise the ObjectInputStream would block
-            // See: https://stackoverflow.com/questions/5658089/java-creating-a-new-objectinputstream-blocks/5658109#5658109
-            // When you construct an ObjectInputStream, in the constructor the class attempts to read a header that 
-            // the associated ObjectOutputStream on the other end of the connection has written.
-            // It will not return until that header has been read. 
-            objectOutputStream = new ObjectOutputStream(socket.getOutputStream());
-            ObjectInputStream objectInputStream = new ObjectInputStream(socket.getInputStream());
-
+            // A peer with another protocol version could not read our frames, so we write our version before the
+            // first frame and the InputHandler checks the version of the peer
+            DataOutputStream protocolVersionOutputStream = new DataOutputStream(socket.getOutputStream());
+            protocolVersionOutputStream.writeLong(Version.NETWORK_PROTOCOL_VERSION);
+            protocolVersionOutputStream.flush();
+
+            // All messages are sent as frames of the multiplexed channels, so a large message does not block the
+            // socket for the small ones
+            streamMultiplexer = new StreamMultiplexer(socket.getInputStream(), socket.getOutputStream(),
+                    MAX_MSG_SIZE, portInfo);
+            executor.submit(streamMultiplexer);
 
             // We create a thread for handling inputStream data
-            inputHandler = new InputHandler(sharedSpace, objectInputStream, portInfo, this, useCompression);
-            singleThreadExecutor.submit(inputHandler);
+            inputHandler = new InputHandler(sharedSpace, socket.getInputStream(), streamMultiplexer, portInfo, this,
+                    useCompression);
+            executor.submit(inputHandler);
         } catch (IOException e) {
             sharedSpace.handleConnectionException(e);
         }
@@ -138,22 +142,17 @@ public class Connection implements MessageListener {
                         "Write object to outputStream to peer: {} (uid={})\nmessage={}"
                         + "\n>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>\n", peerAddress, uid, message);
 
-                Object objectToWrite;
+                byte[] bytesToWrite;
                 if (useCompression) {
-                    byte[] messageAsBytes = ByteArrayUtils.objectToByteArray(message);
-                    // log.trace("Write object uncompressed data size: " + messageAsBytes.length);
-                    byte[] compressed = Utils.compress(message);
-                    //log.trace("Write object compressed data size: " + compressed.length);
-                    objectToWrite = compressed;
+                    bytesToWrite = Utils.compress(message);
+                    //log.trace("Write object compressed data size: " + bytesToWrite.length);
                 } else {
-                    // log.trace("Write object data size: " + ByteArrayUtils.objectToByteArray(message).length);
-                    objectToWrite = message;
+                    bytesToWrite = serialize(message);
+                    // log.trace("Write object data size: " + bytesToWrite.length);
                 }
                 if (!stopped) {
-                    synchronized (objectOutputStream) {
-                        objectOutputStream.writeObject(objectToWrite);
-                        objectOutputStream.flush();
-                    }
+                    // Blocks until the message is written, frames of other channels might get written in between
+                    streamMultiplexer.send(StreamMultiplexer.Channel.of(message, bytesToWrite.length), bytesToWrite);
                     sharedSpace.updateLastActivityDate();
                 }
             } catch (IOException e) {
@@ -165,6 +164,14 @@ public class Connection implements MessageListener {
         }
     }
 
+    private byte[] serialize(Message message) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(message);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
     public void reportIllegalRequest(IllegalRequest illegalRequest) {
         Log.traceCall();
         sharedSpace.reportIllegalRequest(illegalRequest);
@@ -281,6 +288,8 @@ public class Connection implements MessageListener {
         sharedSpace.stop();
         if (inputHandler != null)
             inputHandler.stop();
+        if (streamMultiplexer != null)
+            streamMultiplexer.stop();
         isAuthenticated = false;
     }
 
@@ -301,7 +310,7 @@ public class Connection implements MessageListener {
             log.error("Exception at shutdown. " + e.getMessage());
             e.printStackTrace();
         } finally {
-            MoreExecutors.shutdownAndAwaitTermination(singleThreadExecutor, 500, TimeUnit.MILLISECONDS);
+            MoreExecutors.shutdownAndAwaitTermination(executor, 500, TimeUnit.MILLISECONDS);
 
             log.debug("Connection shutdown complete " + this.toString());
             // keep UserThread.execute as its not clear if that is called from a non-UserThread
@@ -478,18 +487,20 @@ public class Connection implements MessageListener {
         private static final Logger log = LoggerFactory.getLogger(InputHandler.class);
 
         private final SharedSpace sharedSpace;
-        private final ObjectInputStream objectInputStream;
+        private final InputStream inputStream;
+        private final StreamMultiplexer streamMultiplexer;
         private final String portInfo;
         private final MessageListener messageListener;
         private final boolean useCompression;
 
         private volatile boolean stopped;
 
-        public InputHandler(SharedSpace sharedSpace, ObjectInputStream objectInputStream, String portInfo, MessageListener messageListener, boolean useCompression) {
+        public InputHandler(SharedSpace sharedSpace, InputStream inputStream, StreamMultiplexer streamMultiplexer, String portInfo, MessageListener messageListener, boolean useCompression) {
             this.useCompression = useCompression;
             Log.traceCall();
             this.sharedSpace = sharedSpace;
-            this.objectInputStream = objectInputStream;
+            this.inputStream = inputStream;
+            this.streamMultiplexer = streamMultiplexer;
             this.portInfo = portInfo;
             this.messageListener = messageListener;
         }
@@ -504,46 +515,33 @@ public class Connection implements MessageListener {
             Log.traceCall();
             try {
                 Thread.currentThread().setName("InputHandler-" + portInfo);
+                if (!isPeersProtocolVersionValid())
+                    return;
+
                 while (!stopped && !Thread.currentThread().isInterrupted()) {
                     try {
                         log.trace("InputHandler waiting for incoming messages connection=" + sharedSpace.getConnectionInfo());
-                        Object rawInputObject = objectInputStream.readObject();
+                        // The multiplexer checks the max. size while it reassembles the frames
+                        byte[] data = streamMultiplexer.readMessage();
                         log.trace("New data arrived at inputHandler.Connection=" + sharedSpace.getConnectionInfo());
 
-                        log.info("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
-                                "New data arrived at inputHandler.\nReceived object={}"
-                                + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n", rawInputObject);
-
-                        int size = ByteArrayUtils.objectToByteArray(rawInputObject).length;
-                        if (size > getMaxMsgSize()) {
-                            sharedSpace.reportIllegalRequest(IllegalRequest.MaxSizeExceeded);
-                            return;
-                        }
-
                         Serializable serializable = null;
                         if (useCompression) {
-                            if (rawInputObject instanceof byte[]) {
-                                byte[] compressedObjectAsBytes = (byte[]) rawInputObject;
-                                size = compressedObjectAsBytes.length;
-                                //log.trace("Read object compressed data size: " + size);
-                                serializable = Utils.decompress(compressedObjectAsBytes);
-                            } else {
-                                sharedSpace.reportIllegalRequest(IllegalRequest.InvalidDataType);
-                            }
+                            //log.trace("Read object compressed data size: " + data.length);
+                            serializable = Utils.decompress(data);
                         } else {
+                            Object rawInputObject = deserialize(data);
                             if (rawInputObject instanceof Serializable) {
                                 serializable = (Serializable) rawInputObject;
                             } else {
                                 sharedSpace.reportIllegalRequest(IllegalRequest.InvalidDataType);
                             }
                         }
-                        //log.trace("Read object decompressed data size: " + ByteArrayUtils.objectToByteArray(serializable).length);
 
-                        // compressed size might be bigger theoretically so we check again after decompression
-                        if (size > getMaxMsgSize()) {
-                            sharedSpace.reportIllegalRequest(IllegalRequest.MaxSizeExceeded);
-                            return;
-                        }
+                        log.info("\n\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n" +
+                                "New data arrived at inputHandler.\nReceived object={}"
+                                + "\n<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<<\n", serializable);
+
                         if (!(serializable instanceof Message)) {
                             sharedSpace.reportIllegalRequest(IllegalRequest.InvalidDataType);
                             return;
@@ -563,6 +561,10 @@ public class Connection implements MessageListener {
                         } else if (!stopped) {
                             messageListener.onMessage(message, null);
                         }
+                    } catch (StreamMultiplexer.MaxSizeExceededException e) {
+                        log.warn(e.getMessage());
+                        sharedSpace.reportIllegalRequest(IllegalRequest.MaxSizeExceeded);
+                        return;
                     } catch (IOException | ClassNotFoundException e) {
                         stopped = true;
                         sharedSpace.handleConnectionException(e);
@@ -575,6 +577,30 @@ public class Connection implements MessageListener {
             }
         }
 
+        // The peer writes its protocol version before the first frame. We read it unbuffered, so the StreamMultiplexer
+        // gets the frames from the start.
+        private boolean isPeersProtocolVersionValid() {
+            try {
+                long peersProtocolVersion = new DataInputStream(inputStream).readLong();
+                if (peersProtocolVersion == Version.NETWORK_PROTOCOL_VERSION)
+                    return true;
+
+                log.warn("Peer uses network protocol version {} but we use version {}.", peersProtocolVersion,
+                        Version.NETWORK_PROTOCOL_VERSION);
+                sharedSpace.reportIllegalRequest(IllegalRequest.WrongProtocolVersion);
+            } catch (IOException e) {
+                stopped = true;
+                sharedSpace.handleConnectionException(e);
+            }
+            return false;
+        }
+
+        private Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                return objectInputStream.readObject();
+            }
+        }
+
         @Override
         public String toString() {
             return "InputHandler{" +
@@ -5,7 +5,8 @@ public enum IllegalRequest {
     MaxSizeExceeded(1),
     NotAuthenticated(1),
     InvalidDataType(1),
-    WrongNetworkId(1);
+    WrongNetworkId(1),
+    WrongProtocolVersion(1);
 
     public final int maxTolerance;
 
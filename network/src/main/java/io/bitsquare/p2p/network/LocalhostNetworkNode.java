@@ -29,6 +29,7 @@ public class LocalhostNetworkNode extends NetworkNode {
 
     private static volatile int simulateTorDelayTorNode = 100;
     private static volatile int simulateTorDelayHiddenService = 500;
+    private final boolean fastRestart;
     private Address address;
 
     public static void setSimulateTorDelayTorNode(int simulateTorDelayTorNode) {
@@ -45,8 +46,15 @@ public class LocalhostNetworkNode extends NetworkNode {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public LocalhostNetworkNode(int port) {
+        this(port, false);
+    }
+
+    // Simulates the fast restart of the TorNetworkNode: Our address is known at onTorNodeReady, but peers can only
+    // connect to us after the simulated delay of the hidden service publication.
+    public LocalhostNetworkNode(int port, boolean fastRestart) {
         super(port);
         Log.traceCall();
+        this.fastRestart = fastRestart;
     }
 
     @Override
@@ -60,6 +68,9 @@ public class LocalhostNetworkNode extends NetworkNode {
         //Tor delay simulation
         createTorNode(torNode -> {
             Log.traceCall("torNode created");
+            if (fastRestart)
+                address = new Address("localhost", servicePort);
+
             setupListeners.stream().forEach(e -> e.onTorNodeReady());
 
             // Create Hidden Service (takes about 40 sec.)
@@ -101,7 +112,7 @@ public class LocalhostNetworkNode extends NetworkNode {
 
     private void createTorNode(final Consumer<TorNode> resultHandler) {
         Log.traceCall();
-        ListenableFuture<TorNode<JavaOnionProxyManager, JavaOnionProxyContext>> future = executorService.submit(() -> {
+        ListenableFuture<TorNode<JavaOnionProxyManager, JavaOnionProxyContext>> future = executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
             Utilities.setThreadName("NetworkNode:CreateTorNode");
             try {
                 long ts = System.currentTimeMillis();
@@ -137,7 +148,7 @@ public class LocalhostNetworkNode extends NetworkNode {
 
     private void createHiddenService(final Consumer<HiddenServiceDescriptor> resultHandler) {
         Log.traceCall();
-        ListenableFuture<HiddenServiceDescriptor> future = executorService.submit(() -> {
+        ListenableFuture<HiddenServiceDescriptor> future = executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
             Utilities.setThreadName("NetworkNode:CreateHiddenService");
             try {
                 long ts = System.currentTimeMillis();
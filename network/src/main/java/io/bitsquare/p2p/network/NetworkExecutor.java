@@ -0,0 +1,198 @@
+package io.bitsquare.p2p.network;
+
+import com.google.common.util.concurrent.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Executes the blocking network tasks with explicit admission control.
+// Each task class has its own thread pool with a bounded queue, so a burst of sends can't starve connection setup
+// or the server. If a queue is full the task is rejected and the returned future fails immediately with a
+// RejectedExecutionException (we never return a future which would never complete).
+// Callers can check hasCapacity to back off before submitting and getMetrics reports the saturation per task class.
+public class NetworkExecutor {
+    private static final Logger log = LoggerFactory.getLogger(NetworkExecutor.class);
+
+    private static final long KEEP_ALIVE_SEC = 120;
+
+    public enum TaskClass {
+        // Create a socket and send the first message, can take a while when using tor
+        CONNECT(20, 100),
+        // Send a message over an existing connection
+        SEND(20, 500),
+        // Server, tor setup and shutdown. The server is running as long as the node is up.
+        CONTROL(8, 16);
+
+        private final int numThreads;
+        private final int queueCapacity;
+
+        TaskClass(int numThreads, int queueCapacity) {
+            this.numThreads = numThreads;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    private final Map<TaskClass, Lane> lanes = new EnumMap<>(TaskClass.class);
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public NetworkExecutor(String name) {
+        for (TaskClass taskClass : TaskClass.values())
+            lanes.put(taskClass, new Lane(name, taskClass, taskClass.numThreads, taskClass.queueCapacity));
+    }
+
+    // Used by tests to run with small limits
+    NetworkExecutor(String name, int numThreads, int queueCapacity) {
+        for (TaskClass taskClass : TaskClass.values())
+            lanes.put(taskClass, new Lane(name, taskClass, numThreads, queueCapacity));
+    }
+
+    // Like MoreExecutors.shutdownAndAwaitTermination for all task classes: We give running tasks half of the timeout
+    // to complete and interrupt them after that. Tasks submitted after shutDown are rejected.
+    public void shutDown(long timeout, TimeUnit timeUnit) {
+        lanes.values().stream().forEach(e -> e.executor.shutdown());
+        long halfTimeoutNanos = timeUnit.toNanos(timeout) / 2;
+        try {
+            if (!awaitTermination(halfTimeoutNanos)) {
+                lanes.values().stream().forEach(e -> e.executor.shutdownNow());
+                if (!awaitTermination(halfTimeoutNanos))
+                    log.warn("Network tasks did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            lanes.values().stream().forEach(lane -> lane.executor.shutdownNow());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public <T> ListenableFuture<T> submit(TaskClass taskClass, Callable<T> task) {
+        Lane lane = lanes.get(taskClass);
+        try {
+            ListenableFuture<T> future = lane.executor.submit(task);
+            lane.submitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            long rejected = lane.rejected.incrementAndGet();
+            // Avoid flooding the log in a burst
+            if (rejected == 1 || rejected % 100 == 0)
+                log.warn("Network task rejected. {}", lane.getMetrics());
+            return Futures.immediateFailedFuture(
+                    new RejectedExecutionException("Network is saturated, " + taskClass + " task rejected"));
+        }
+    }
+
+    public ListenableFuture<?> submit(TaskClass taskClass, Runnable task) {
+        return submit(taskClass, Executors.callable(task));
+    }
+
+    public boolean hasCapacity(TaskClass taskClass) {
+        return lanes.get(taskClass).queue.remainingCapacity() > 0;
+    }
+
+    public Metrics getMetrics(TaskClass taskClass) {
+        return lanes.get(taskClass).getMetrics();
+    }
+
+    // A rejected task is caused by our own saturation and not by the peer, so callers must not treat it as a peer
+    // failure (e.g. removing the peer)
+    public static boolean isRejected(Throwable throwable) {
+        return throwable instanceof RejectedExecutionException
+                || (throwable != null && throwable.getCause() instanceof RejectedExecutionException);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean awaitTermination(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (Lane lane : lanes.values()) {
+            if (!lane.executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+                return false;
+        }
+        return true;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Metrics
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Snapshot of the state of one task class
+    public static class Metrics {
+        public final TaskClass taskClass;
+        public final int activeThreads;
+        public final int maxThreads;
+        public final int queued;
+        public final int queueCapacity;
+        public final long submitted;
+        public final long rejected;
+
+        private Metrics(TaskClass taskClass, int activeThreads, int maxThreads, int queued, int queueCapacity,
+                        long submitted, long rejected) {
+            this.taskClass = taskClass;
+            this.activeThreads = activeThreads;
+            this.maxThreads = maxThreads;
+            this.queued = queued;
+            this.queueCapacity = queueCapacity;
+            this.submitted = submitted;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "taskClass=" + taskClass +
+                    ", activeThreads=" + activeThreads + "/" + maxThreads +
+                    ", queued=" + queued + "/" + queueCapacity +
+                    ", submitted=" + submitted +
+                    ", rejected=" + rejected +
+                    '}';
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Lane
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class Lane {
+        private final TaskClass taskClass;
+        private final BlockingQueue<Runnable> queue;
+        private final ThreadPoolExecutor threadPoolExecutor;
+        private final ListeningExecutorService executor;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Lane(String name, TaskClass taskClass, int numThreads, int queueCapacity) {
+            this.taskClass = taskClass;
+            ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat(name + "-" + taskClass + "-%d")
+                    .setDaemon(true)
+                    .build();
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            // Core size = max size, otherwise a ThreadPoolExecutor only adds threads when the queue is full
+            threadPoolExecutor = new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE_SEC, TimeUnit.SECONDS,
+                    queue, threadFactory, new ThreadPoolExecutor.AbortPolicy());
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            executor = MoreExecutors.listeningDecorator(threadPoolExecutor);
+        }
+
+        Metrics getMetrics() {
+            return new Metrics(taskClass, threadPoolExecutor.getActiveCount(), threadPoolExecutor.getMaximumPoolSize(),
+                    queue.size(), queue.size() + queue.remainingCapacity(), submitted.get(), rejected.get());
+        }
+    }
+}
@@ -3,7 +3,6 @@ package io.bitsquare.p2p.network;
 import com.google.common.util.concurrent.*;
 import io.bitsquare.app.Log;
 import io.bitsquare.common.UserThread;
-import io.bitsquare.common.util.Utilities;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
 import org.jetbrains.annotations.NotNull;
@@ -35,7 +34,7 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
     private final CopyOnWriteArraySet<ConnectionListener> connectionListeners = new CopyOnWriteArraySet<>();
     protected final CopyOnWriteArraySet<SetupListener> setupListeners = new CopyOnWriteArraySet<>();
-    protected ListeningExecutorService executorService;
+    protected NetworkExecutor executor;
     private Server server;
 
     private volatile boolean shutDownInProgress;
@@ -94,11 +93,13 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
             final SettableFuture<Connection> resultFuture = SettableFuture.create();
             final boolean[] timeoutOccurred = new boolean[1];
             timeoutOccurred[0] = false;
-            ListenableFuture<Connection> future = executorService.submit(() -> {
+            ListenableFuture<Connection> future = executor.submit(NetworkExecutor.TaskClass.CONNECT, () -> {
                 Thread.currentThread().setName("NetworkNode:SendMessage-to-" + peerAddress);
                 try {
                     // can take a while when using tor
+                    long ts = System.currentTimeMillis();
                     Socket socket = createSocket(peerAddress);
+                    log.info("Creating socket to peer {} took {} ms.", peerAddress, System.currentTimeMillis() - ts);
                     if (timeoutOccurred[0])
                         throw new TimeoutException("Timeout occurred when tried to create Socket to peer: " + peerAddress);
 
@@ -163,7 +164,8 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
     public SettableFuture<Connection> sendMessage(Connection connection, Message message) {
         Log.traceCall("message: " + message + " to connection: " + connection);
         // connection.sendMessage might take a bit (compression, write to stream), so we use a thread to not block
-        ListenableFuture<Connection> future = executorService.submit(() -> {
+        // If the executor is saturated the future fails with a RejectedExecutionException
+        ListenableFuture<Connection> future = executor.submit(NetworkExecutor.TaskClass.SEND, () -> {
             Thread.currentThread().setName("NetworkNode:SendMessage-to-" + connection.getUid());
             try {
                 connection.sendMessage(message);
@@ -185,6 +187,17 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
         return resultFuture;
     }
 
+    // Callers sending many messages (e.g. broadcast) can use it to back off before the executor rejects the tasks
+    public boolean hasSendCapacity() {
+        return executor != null && executor.hasCapacity(NetworkExecutor.TaskClass.SEND)
+                && executor.hasCapacity(NetworkExecutor.TaskClass.CONNECT);
+    }
+
+    @Nullable
+    public NetworkExecutor getExecutor() {
+        return executor;
+    }
+
     public Set<Connection> getAllConnections() {
         Log.traceCall();
         Set<Connection> set = new HashSet<>(inBoundConnections);
@@ -300,7 +313,7 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
 
     protected void createExecutorService() {
         Log.traceCall();
-        executorService = Utilities.getListeningExecutorService("NetworkNode-" + servicePort, 20, 50, 120L);
+        executor = new NetworkExecutor("NetworkNode-" + servicePort);
     }
 
     protected void startServer(ServerSocket serverSocket) {
@@ -330,7 +343,7 @@ public abstract class NetworkNode implements MessageListener, ConnectionListener
         server = new Server(serverSocket,
                 NetworkNode.this,
                 startServerConnectionListener);
-        executorService.submit(server);
+        executor.submit(NetworkExecutor.TaskClass.CONTROL, server);
     }
 
     private Optional<Connection> lookupOutboundConnection(Address peerAddress) {
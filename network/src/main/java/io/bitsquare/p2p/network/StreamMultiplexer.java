@@ -0,0 +1,337 @@
+package io.bitsquare.p2p.network;
+
+import io.bitsquare.p2p.Message;
+import io.bitsquare.p2p.messaging.MailMessage;
+import io.bitsquare.p2p.network.messages.CloseConnectionMessage;
+import io.bitsquare.p2p.peers.messages.auth.AuthenticationMessage;
+import io.bitsquare.p2p.peers.messages.data.DataRequest;
+import io.bitsquare.p2p.peers.messages.data.DataResponse;
+import io.bitsquare.p2p.peers.messages.maintenance.MaintenanceMessage;
+import io.bitsquare.p2p.peers.messages.peers.PeerExchangeMessage;
+import io.bitsquare.p2p.storage.messages.DataBroadcastMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+// Multiplexes several logical channels over the single socket of a Connection.
+// A message is written as a sequence of frames of at most MAX_FRAME_SIZE bytes. The writer picks the next frame from
+// the channel with the highest priority which has data and send credit, so a large DataResponse or a dispute with
+// attachments gets interleaved with pings and trade messages instead of blocking the socket until it is written.
+// Flow control is per channel: a sender must not have more than WINDOW_SIZE bytes of a channel in flight. The
+// receiver returns the credit with a WINDOW_UPDATE frame once it has read half of the window. That bounds the bulk
+// data which can be queued in the socket and tor buffers ahead of a control message.
+// Frame: type (byte), channel (byte), length (int), payload. A WINDOW_UPDATE has no payload, the length is the credit.
+// Messages of the same channel are written in the order they are sent, messages of different channels are not.
+public class StreamMultiplexer implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(StreamMultiplexer.class);
+
+    static final int MAX_FRAME_SIZE = 16 * 1024;
+    static final int WINDOW_SIZE = 256 * 1024;
+    // Mail messages larger than that (e.g. disputes with attachments) are sent on the BULK channel
+    static final int BULK_THRESHOLD = 64 * 1024;
+
+    private static final byte FRAME_DATA = 0;
+    private static final byte FRAME_DATA_LAST = 1;
+    private static final byte FRAME_WINDOW_UPDATE = 2;
+
+    // In order of priority
+    public enum Channel {
+        // Authentication, maintenance, peer exchange and closing the connection
+        CONTROL,
+        // Direct messages like the trade protocol messages
+        TRADE,
+        // Initial data and the broadcasts of the P2P data storage
+        DATA_SYNC,
+        // Large direct messages
+        BULK;
+
+        public static Channel of(Message message, int size) {
+            if (message instanceof AuthenticationMessage || message instanceof MaintenanceMessage
+                    || message instanceof PeerExchangeMessage || message instanceof CloseConnectionMessage)
+                return CONTROL;
+            else if (message instanceof DataRequest || message instanceof DataResponse
+                    || message instanceof DataBroadcastMessage)
+                return DATA_SYNC;
+            else if (message instanceof MailMessage && size > BULK_THRESHOLD)
+                return BULK;
+            else
+                return TRADE;
+        }
+    }
+
+    private static final Channel[] CHANNELS = Channel.values();
+
+    private final DataInputStream inputStream;
+    private final DataOutputStream outputStream;
+    private final int maxMessageSize;
+    private final String portInfo;
+
+    // Guarded by lock, shared between the sending threads, the writer and the reading thread
+    private final Object lock = new Object();
+    private final Map<Channel, Deque<OutgoingMessage>> sendQueues = new EnumMap<>(Channel.class);
+    private final Map<Channel, Integer> sendCredits = new EnumMap<>(Channel.class);
+    private final Map<Channel, Integer> pendingWindowUpdates = new EnumMap<>(Channel.class);
+    private boolean stopped;
+
+    // Only accessed by the reading thread
+    private final Map<Channel, ByteArrayOutputStream> receiveBuffers = new EnumMap<>(Channel.class);
+    private final Map<Channel, Integer> receivedSinceWindowUpdate = new EnumMap<>(Channel.class);
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public StreamMultiplexer(InputStream inputStream, OutputStream outputStream, int maxMessageSize, String portInfo) {
+        this.inputStream = new DataInputStream(new BufferedInputStream(inputStream));
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream, MAX_FRAME_SIZE + 6));
+        this.maxMessageSize = maxMessageSize;
+        this.portInfo = portInfo;
+
+        for (Channel channel : CHANNELS) {
+            sendQueues.put(channel, new ArrayDeque<>());
+            sendCredits.put(channel, WINDOW_SIZE);
+            pendingWindowUpdates.put(channel, 0);
+            receiveBuffers.put(channel, new ByteArrayOutputStream());
+            receivedSinceWindowUpdate.put(channel, 0);
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Called from various threads. Blocks until the message is completely written to the socket.
+    public void send(Channel channel, byte[] data) throws IOException {
+        OutgoingMessage outgoingMessage = new OutgoingMessage(data);
+        synchronized (lock) {
+            if (stopped)
+                throw new EOFException("StreamMultiplexer is already stopped");
+            sendQueues.get(channel).add(outgoingMessage);
+            lock.notifyAll();
+        }
+
+        try {
+            outgoingMessage.written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending on channel " + channel);
+        }
+        if (outgoingMessage.exception != null)
+            throw outgoingMessage.exception;
+    }
+
+    // Called from the InputHandler thread. Blocks until a message on any channel is complete.
+    public byte[] readMessage() throws IOException {
+        while (true) {
+            byte type = inputStream.readByte();
+            Channel channel = toChannel(inputStream.readByte());
+            int length = inputStream.readInt();
+
+            if (type == FRAME_WINDOW_UPDATE) {
+                if (length <= 0)
+                    throw new StreamCorruptedException("Invalid window update " + length);
+                synchronized (lock) {
+                    int credit = sendCredits.get(channel);
+                    // The peer can only return the credit we have used, more is a protocol violation. The exception
+                    // closes the connection.
+                    if (length > WINDOW_SIZE - credit)
+                        throw new StreamCorruptedException("Window update " + length + " on channel " + channel
+                                + " exceeds the window size. credit=" + credit);
+                    sendCredits.put(channel, credit + length);
+                    lock.notifyAll();
+                }
+            } else if (type == FRAME_DATA || type == FRAME_DATA_LAST) {
+                if (length < 0 || length > MAX_FRAME_SIZE)
+                    throw new StreamCorruptedException("Invalid frame length " + length);
+
+                ByteArrayOutputStream buffer = receiveBuffers.get(channel);
+                if (buffer.size() + length > maxMessageSize)
+                    throw new MaxSizeExceededException("Message on channel " + channel + " exceeds "
+                            + maxMessageSize + " bytes");
+
+                byte[] payload = new byte[length];
+                inputStream.readFully(payload);
+                buffer.write(payload);
+                onDataReceived(channel, length);
+
+                if (type == FRAME_DATA_LAST) {
+                    byte[] data = buffer.toByteArray();
+                    buffer.reset();
+                    log.trace("Received message of {} bytes on channel {}", data.length, channel);
+                    return data;
+                }
+            } else {
+                throw new StreamCorruptedException("Invalid frame type " + type);
+            }
+        }
+    }
+
+    // Fails all messages which are not written yet and ends the writer
+    public void stop() {
+        synchronized (lock) {
+            if (!stopped) {
+                stopped = true;
+                failPendingMessages(new EOFException("StreamMultiplexer stopped"));
+                lock.notifyAll();
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Writer
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void run() {
+        Thread.currentThread().setName("StreamMultiplexer-" + portInfo);
+        Frame frame = null;
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while ((frame = nextFrame()) == null && !stopped)
+                        lock.wait();
+                    if (stopped)
+                        return;
+                }
+
+                outputStream.writeByte(frame.type);
+                outputStream.writeByte(frame.channel.ordinal());
+                outputStream.writeInt(frame.length);
+                if (frame.outgoingMessage != null)
+                    outputStream.write(frame.outgoingMessage.data, frame.offset, frame.length);
+                outputStream.flush();
+
+                if (frame.type == FRAME_DATA_LAST)
+                    frame.outgoingMessage.written.countDown();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        } catch (IOException e) {
+            log.debug("Writing to the socket failed. " + e.getMessage());
+            synchronized (lock) {
+                stopped = true;
+                // The sending threads get the exception and shut down the connection
+                failPendingMessages(e);
+                // The message of the last frame is not in the queue anymore
+                if (frame != null && frame.outgoingMessage != null && frame.outgoingMessage.written.getCount() > 0) {
+                    frame.outgoingMessage.exception = e;
+                    frame.outgoingMessage.written.countDown();
+                }
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Called with the lock held. Window updates go first, then a frame of the first channel with data and credit.
+    private Frame nextFrame() {
+        for (Channel channel : CHANNELS) {
+            int windowUpdate = pendingWindowUpdates.get(channel);
+            if (windowUpdate > 0) {
+                pendingWindowUpdates.put(channel, 0);
+                return new Frame(FRAME_WINDOW_UPDATE, channel, null, 0, windowUpdate);
+            }
+        }
+
+        for (Channel channel : CHANNELS) {
+            OutgoingMessage outgoingMessage = sendQueues.get(channel).peek();
+            int credit = sendCredits.get(channel);
+            if (outgoingMessage != null && credit > 0) {
+                int remaining = outgoingMessage.data.length - outgoingMessage.offset;
+                int length = Math.min(Math.min(MAX_FRAME_SIZE, remaining), credit);
+                int offset = outgoingMessage.offset;
+                outgoingMessage.offset += length;
+                sendCredits.put(channel, credit - length);
+
+                boolean last = outgoingMessage.offset == outgoingMessage.data.length;
+                if (last)
+                    sendQueues.get(channel).poll();
+                return new Frame(last ? FRAME_DATA_LAST : FRAME_DATA, channel, outgoingMessage, offset, length);
+            }
+        }
+        return null;
+    }
+
+    // Called from the reading thread
+    private void onDataReceived(Channel channel, int length) {
+        int received = receivedSinceWindowUpdate.get(channel) + length;
+        if (received >= WINDOW_SIZE / 2) {
+            receivedSinceWindowUpdate.put(channel, 0);
+            synchronized (lock) {
+                pendingWindowUpdates.put(channel, pendingWindowUpdates.get(channel) + received);
+                lock.notifyAll();
+            }
+        } else {
+            receivedSinceWindowUpdate.put(channel, received);
+        }
+    }
+
+    // Called with the lock held
+    private void failPendingMessages(IOException exception) {
+        sendQueues.values().stream().forEach(queue -> {
+            queue.stream().forEach(outgoingMessage -> {
+                outgoingMessage.exception = exception;
+                outgoingMessage.written.countDown();
+            });
+            queue.clear();
+        });
+    }
+
+    private Channel toChannel(int index) throws StreamCorruptedException {
+        if (index < 0 || index >= CHANNELS.length)
+            throw new StreamCorruptedException("Invalid channel " + index);
+        return CHANNELS[index];
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Inner classes
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static class MaxSizeExceededException extends IOException {
+        public MaxSizeExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private static class OutgoingMessage {
+        private final byte[] data;
+        private final CountDownLatch written = new CountDownLatch(1);
+        // Guarded by lock
+        private int offset;
+        private volatile IOException exception;
+
+        OutgoingMessage(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private static class Frame {
+        private final byte type;
+        private final Channel channel;
+        private final OutgoingMessage outgoingMessage;
+        private final int offset;
+        private final int length;
+
+        Frame(byte type, Channel channel, OutgoingMessage outgoingMessage, int offset, int length) {
+            this.type = type;
+            this.channel = channel;
+            this.outgoingMessage = outgoingMessage;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package io.bitsquare.p2p.network;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.msopentech.thali.java.toronionproxy.JavaOnionProxyContext;
 import com.msopentech.thali.java.toronionproxy.JavaOnionProxyManager;
 import io.bitsquare.app.Log;
@@ -37,6 +36,7 @@ public class TorNetworkNode extends NetworkNode {
     private static final long SHUT_DOWN_TIMEOUT = 5000;
 
     private final File torDir;
+    private final boolean fastRestart;
     private TorNode torNetworkNode;
     private HiddenServiceDescriptor hiddenServiceDescriptor;
     private Timer shutDownTimeoutTimer;
@@ -50,9 +50,18 @@ public class TorNetworkNode extends NetworkNode {
     // /////////////////////////////////////////////////////////////////////////////////////////
 
     public TorNetworkNode(int servicePort, File torDir) {
+        this(servicePort, torDir, false);
+    }
+
+    // With fastRestart we load our persisted hidden service key and start the server before we report the tor node as
+    // ready, so our address is known at onTorNodeReady and we can start with our outbound work (data requests,
+    // authentication requests) about 40 sec. earlier. Peers can only connect to us once the descriptor is published,
+    // which is reported as before with onHiddenServicePublished.
+    public TorNetworkNode(int servicePort, File torDir, boolean fastRestart) {
         super(servicePort);
         Log.traceCall();
         this.torDir = torDir;
+        this.fastRestart = fastRestart;
     }
 
 
@@ -73,17 +82,25 @@ public class TorNetworkNode extends NetworkNode {
             Log.traceCall("torNode created");
             TorNetworkNode.this.torNetworkNode = torNode;
 
-            setupListeners.stream().forEach(e -> e.onTorNodeReady());
+            // Tor keeps the key of our hidden service in torDir, so it only has to be created at the first start
+            boolean useFastRestart = fastRestart && hasPersistedHiddenServiceKey();
+            if (!useFastRestart)
+                setupListeners.stream().forEach(e -> e.onTorNodeReady());
 
-            // Create Hidden Service (takes about 40 sec.)
+            // Create Hidden Service (takes about 40 sec. until it is published)
             createHiddenService(torNode,
                     Utils.findFreeSystemPort(),
                     servicePort,
+                    useFastRestart,
                     hiddenServiceDescriptor -> {
-                        Log.traceCall("hiddenService created");
-                        TorNetworkNode.this.hiddenServiceDescriptor = hiddenServiceDescriptor;
-
-                        startServer(hiddenServiceDescriptor.getServerSocket());
+                        Log.traceCall("hiddenService created, fast restart");
+                        startHiddenService(hiddenServiceDescriptor);
+                        setupListeners.stream().forEach(e -> e.onTorNodeReady());
+                    },
+                    hiddenServiceDescriptor -> {
+                        Log.traceCall("hiddenService published");
+                        if (!useFastRestart)
+                            startHiddenService(hiddenServiceDescriptor);
                         setupListeners.stream().forEach(e -> e.onHiddenServicePublished());
                     });
         });
@@ -116,8 +133,8 @@ public class TorNetworkNode extends NetworkNode {
             shutDownExecutorService();
         }, SHUT_DOWN_TIMEOUT, TimeUnit.MILLISECONDS);
 
-        if (executorService != null) {
-            executorService.submit(() -> {
+        if (executor != null) {
+            executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
                 Utilities.setThreadName("TorNetworkNodeShutDownSuperClass");
                 UserThread.execute(() -> {
                     // We want to stay in UserThread
@@ -129,9 +146,9 @@ public class TorNetworkNode extends NetworkNode {
                 });
             });
         } else {
-            log.error("executorService must not be null at shutDown");
+            log.error("executor must not be null at shutDown");
         }
-        executorService.submit(() -> {
+        executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
             Utilities.setThreadName("NetworkNode:torNodeShutdown");
             try {
                 long ts = System.currentTimeMillis();
@@ -167,13 +184,13 @@ public class TorNetworkNode extends NetworkNode {
             Utilities.setThreadName("NetworkNode:shutDownExecutorService");
             try {
                 long ts = System.currentTimeMillis();
-                log.debug("Shutdown executorService");
-                MoreExecutors.shutdownAndAwaitTermination(executorService, 500, TimeUnit.MILLISECONDS);
-                log.debug("Shutdown executorService done after " + (System.currentTimeMillis() - ts) + " ms.");
+                log.debug("Shutdown executor");
+                executor.shutDown(500, TimeUnit.MILLISECONDS);
+                log.debug("Shutdown executor done after " + (System.currentTimeMillis() - ts) + " ms.");
                 log.info("Shutdown completed");
                 shutDownCompleteHandler.run();
             } catch (Throwable t) {
-                log.error("Shutdown executorService failed with exception: " + t.getMessage());
+                log.error("Shutdown executor failed with exception: " + t.getMessage());
                 t.printStackTrace();
                 shutDownCompleteHandler.run();
             }
@@ -203,7 +220,7 @@ public class TorNetworkNode extends NetworkNode {
 
     private void createTorNode(final File torDir, final Consumer<TorNode> resultHandler) {
         Log.traceCall();
-        ListenableFuture<TorNode<JavaOnionProxyManager, JavaOnionProxyContext>> future = executorService.submit(() -> {
+        ListenableFuture<TorNode<JavaOnionProxyManager, JavaOnionProxyContext>> future = executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
             Utilities.setThreadName("TorNetworkNode:CreateTorNode");
             try {
                 long ts = System.currentTimeMillis();
@@ -236,13 +253,20 @@ public class TorNetworkNode extends NetworkNode {
         });
     }
 
-    private void createHiddenService(TorNode torNode, int localPort, int servicePort,
-                                     Consumer<HiddenServiceDescriptor> resultHandler) {
+    private void startHiddenService(HiddenServiceDescriptor hiddenServiceDescriptor) {
+        this.hiddenServiceDescriptor = hiddenServiceDescriptor;
+        startServer(hiddenServiceDescriptor.getServerSocket());
+    }
+
+    // createdHandler is only called in fast restart mode, publishedHandler is always called
+    private void createHiddenService(TorNode torNode, int localPort, int servicePort, boolean useFastRestart,
+                                     Consumer<HiddenServiceDescriptor> createdHandler,
+                                     Consumer<HiddenServiceDescriptor> publishedHandler) {
         Log.traceCall();
-        ListenableFuture<Object> future = executorService.submit(() -> {
+        long ts = System.currentTimeMillis();
+        ListenableFuture<HiddenServiceDescriptor> future = executor.submit(NetworkExecutor.TaskClass.CONTROL, () -> {
             Utilities.setThreadName("TorNetworkNode:CreateHiddenService");
             try {
-                long ts = System.currentTimeMillis();
                 log.debug("Create hidden service");
                 HiddenServiceDescriptor hiddenServiceDescriptor = torNode.createHiddenService(localPort, servicePort);
 
@@ -253,17 +277,24 @@ public class TorNetworkNode extends NetworkNode {
                             "\nTook " + (System.currentTimeMillis() - ts) + " ms"
                             + "\n############################################################\n");
 
-                    UserThread.execute(() -> resultHandler.accept(hiddenServiceDescriptor));
+                    UserThread.execute(() -> publishedHandler.accept(hiddenServiceDescriptor));
                 });
 
-                return null;
+                return hiddenServiceDescriptor;
             } catch (Throwable t) {
                 throw t;
             }
         });
-        Futures.addCallback(future, new FutureCallback<Object>() {
-            public void onSuccess(Object hiddenServiceDescriptor) {
-                log.debug("HiddenServiceDescriptor created. Wait for publishing.");
+        Futures.addCallback(future, new FutureCallback<HiddenServiceDescriptor>() {
+            public void onSuccess(HiddenServiceDescriptor hiddenServiceDescriptor) {
+                if (useFastRestart) {
+                    log.info("Fast restart: We use our persisted hidden service "
+                            + hiddenServiceDescriptor.getFullAddress() + " while the descriptor gets published. Took "
+                            + (System.currentTimeMillis() - ts) + " ms");
+                    UserThread.execute(() -> createdHandler.accept(hiddenServiceDescriptor));
+                } else {
+                    log.debug("HiddenServiceDescriptor created. Wait for publishing.");
+                }
             }
 
             public void onFailure(@NotNull Throwable throwable) {
@@ -274,4 +305,11 @@ public class TorNetworkNode extends NetworkNode {
             }
         });
     }
+
+    // Tor writes the private key and the hostname into the hiddenservice directory of torDir when the hidden service is
+    // created. That directory is kept when tor gets reinstalled or its cached state gets deleted.
+    private boolean hasPersistedHiddenServiceKey() {
+        File hiddenServiceDir = new File(torDir, "hiddenservice");
+        return new File(hiddenServiceDir, "private_key").exists() && new File(hiddenServiceDir, "hostname").exists();
+    }
 }
@@ -6,7 +6,7 @@ import io.bitsquare.p2p.Message;
 
 public final class CloseConnectionMessage implements Message {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private final int networkId = Version.NETWORK_ID;
     public Address peerAddress;
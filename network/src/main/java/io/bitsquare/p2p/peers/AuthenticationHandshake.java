@@ -1,9 +1,11 @@
 package io.bitsquare.p2p.peers;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import io.bitsquare.app.Log;
+import io.bitsquare.common.ByteArray;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
@@ -25,24 +27,36 @@ import java.util.function.Supplier;
 // client: send AuthenticationRequest to seedNode
 // seedNode: close connection
 // seedNode: send AuthenticationChallenge to client on a new connection to test if address is correct
+// (retried until CONNECT_BACK_TIMEOUT, as after a fast tor restart the client's hidden service might not be published yet)
 // client: authentication to seedNode done if nonce verification is ok
 // client: AuthenticationFinalResponse to seedNode
 // seedNode: authentication to client done if nonce verification is ok
+// AuthenticationChallenge and AuthenticationFinalResponse carry the reported peers and a digest of the sender's data,
+// so after the authentication both sides can push the data the other is missing without another request.
 
 public class AuthenticationHandshake implements MessageListener {
     private static final Logger log = LoggerFactory.getLogger(AuthenticationHandshake.class);
 
+    private static final long TIMEOUT = 30 * 1000;
+    @VisibleForTesting
+    public static long CONNECT_BACK_TIMEOUT = 60 * 1000;
+    @VisibleForTesting
+    public static long CONNECT_BACK_RETRY_DELAY = 2000;
+
     private final NetworkNode networkNode;
     private final Address myAddress;
     private final Address peerAddress;
-    private final Supplier<Set<ReportedPeer>> authenticatedAndReportedPeersSupplier;
+    private final Supplier<HashSet<ReportedPeer>> authenticatedAndReportedPeersSupplier;
     private final BiConsumer<HashSet<ReportedPeer>, Connection> addReportedPeersConsumer;
+    private final Supplier<HashMap<ByteArray, Integer>> dataDigestSupplier;
 
     private final long startAuthTs;
+    private Optional<HashMap<ByteArray, Integer>> peersDataDigestOptional = Optional.empty();
     private long nonce = 0;
     private boolean stopped;
     private Optional<SettableFuture<Connection>> resultFutureOptional = Optional.empty();
     private Timer timeoutTimer;
+    private Timer connectBackTimer;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -52,11 +66,13 @@ public class AuthenticationHandshake implements MessageListener {
     public AuthenticationHandshake(NetworkNode networkNode,
                                    Address myAddress,
                                    Address peerAddress,
-                                   Supplier<Set<ReportedPeer>> authenticatedAndReportedPeersSupplier,
-                                   BiConsumer<HashSet<ReportedPeer>, Connection> addReportedPeersConsumer) {
+                                   Supplier<HashSet<ReportedPeer>> authenticatedAndReportedPeersSupplier,
+                                   BiConsumer<HashSet<ReportedPeer>, Connection> addReportedPeersConsumer,
+                                   Supplier<HashMap<ByteArray, Integer>> dataDigestSupplier) {
         Log.traceCall("peerAddress " + peerAddress);
         this.authenticatedAndReportedPeersSupplier = authenticatedAndReportedPeersSupplier;
         this.addReportedPeersConsumer = addReportedPeersConsumer;
+        this.dataDigestSupplier = dataDigestSupplier;
         this.networkNode = networkNode;
         this.myAddress = myAddress;
         this.peerAddress = peerAddress;
@@ -96,9 +112,11 @@ public class AuthenticationHandshake implements MessageListener {
                         log.trace("Received authenticationChallenge from " + peerAddress);
                         boolean verified = nonce != 0 && nonce == authenticationChallenge.requesterNonce;
                         if (verified) {
+                            peersDataDigestOptional = Optional.ofNullable(authenticationChallenge.dataDigest);
                             AuthenticationFinalResponse authenticationFinalResponse = new AuthenticationFinalResponse(myAddress,
                                     authenticationChallenge.responderNonce,
-                                    new HashSet<>(authenticatedAndReportedPeersSupplier.get()));
+                                    authenticatedAndReportedPeersSupplier.get(),
+                                    dataDigestSupplier.get());
                             SettableFuture<Connection> future = networkNode.sendMessage(peerAddress, authenticationFinalResponse);
                             log.trace("Sent AuthenticationFinalResponse {} to {}", authenticationFinalResponse, peerAddress);
                             Futures.addCallback(future, new FutureCallback<Connection>() {
@@ -137,6 +155,7 @@ public class AuthenticationHandshake implements MessageListener {
                         log.trace("Received AuthenticationFinalResponse from " + peerAddress + " at " + myAddress);
                         boolean verified = nonce != 0 && nonce == authenticationFinalResponse.responderNonce;
                         if (verified) {
+                            peersDataDigestOptional = Optional.ofNullable(authenticationFinalResponse.dataDigest);
                             addReportedPeersConsumer.accept(authenticationFinalResponse.reportedPeers, connection);
                             log.info("AuthenticationComplete: Peer with address " + peerAddress
                                     + " authenticated (" + connection.getUid() + "). Took "
@@ -205,12 +224,14 @@ public class AuthenticationHandshake implements MessageListener {
             }
         });
 
+        // The peer retries to connect back to us until CONNECT_BACK_TIMEOUT
+        long timeout = TIMEOUT + CONNECT_BACK_TIMEOUT;
         timeoutTimer = UserThread.runAfter(() -> {
             failed(new AuthenticationException("Authentication to peer "
                     + peerAddress
                     + " failed because of a timeout. " +
-                    "We did not get an AuthenticationChallenge message responded after 30 sec."));
-        }, 30, TimeUnit.SECONDS);
+                    "We did not get an AuthenticationChallenge message responded after " + timeout / 1000 + " sec."));
+        }, timeout, TimeUnit.MILLISECONDS);
 
         return resultFutureOptional.get();
     }
@@ -244,37 +265,17 @@ public class AuthenticationHandshake implements MessageListener {
                     // inconsistent state
                     log.trace("respondToAuthenticationRequest: connection.shutDown complete. peerAddress=" + peerAddress + " / myAddress=" + myAddress);
 
-                    // we send additionally the reported and authenticated peers to save one message in the protocol.
-                    AuthenticationChallenge authenticationChallenge = new AuthenticationChallenge(myAddress,
-                            authenticationRequest.requesterNonce,
-                            getAndSetNonce(),
-                            new HashSet<>(authenticatedAndReportedPeersSupplier.get()));
-                    SettableFuture<Connection> future = networkNode.sendMessage(peerAddress, authenticationChallenge);
-                    Futures.addCallback(future, new FutureCallback<Connection>() {
-                        @Override
-                        public void onSuccess(Connection connection) {
-                            log.trace("AuthenticationChallenge successfully sent");
-
-                            // We use passive connectionType for connections created from received authentication 
-                            // requests from other peers 
-                            connection.setConnectionPriority(ConnectionPriority.PASSIVE);
-                        }
-
-                        @Override
-                        public void onFailure(@NotNull Throwable throwable) {
-                            log.warn("Failure at sending AuthenticationChallenge to {}. It might be that the peer went offline. Exception={}", peerAddress, throwable.getMessage());
-                            failed(throwable);
-                        }
-                    });
+                    sendAuthenticationChallenge(authenticationRequest, System.currentTimeMillis());
 
+                    // We might retry to connect back until CONNECT_BACK_TIMEOUT
+                    long timeout = TIMEOUT + CONNECT_BACK_TIMEOUT;
                     timeoutTimer = UserThread.runAfter(() -> {
                         failed(new AuthenticationException("Authentication of peer "
                                 + peerAddress
                                 + " failed because of a timeout. " +
-                                "We did not get an AuthenticationFinalResponse message responded after 30 sec.\n" +
-                                ""));
-                    }, 30, TimeUnit.SECONDS);
-
+                                "We did not get an AuthenticationFinalResponse message responded after "
+                                + timeout / 1000 + " sec."));
+                    }, timeout, TimeUnit.MILLISECONDS);
                 } else {
                     log.info("AuthenticationHandshake (peerAddress={}) already shut down before we could sent " +
                             "AuthenticationChallenge. That might happen in rare cases.", peerAddress);
@@ -285,6 +286,49 @@ public class AuthenticationHandshake implements MessageListener {
     }
 
 
+    private void sendAuthenticationChallenge(AuthenticationRequest authenticationRequest, long startConnectBackTs) {
+        Log.traceCall("peerAddress " + peerAddress);
+        // we send additionally the reported and authenticated peers and the digest of our data to save
+        // messages in the protocol.
+        AuthenticationChallenge authenticationChallenge = new AuthenticationChallenge(myAddress,
+                authenticationRequest.requesterNonce,
+                getAndSetNonce(),
+                authenticatedAndReportedPeersSupplier.get(),
+                dataDigestSupplier.get());
+        SettableFuture<Connection> future = networkNode.sendMessage(peerAddress, authenticationChallenge);
+        Futures.addCallback(future, new FutureCallback<Connection>() {
+            @Override
+            public void onSuccess(Connection connection) {
+                log.trace("AuthenticationChallenge successfully sent");
+
+                // We use passive connectionType for connections created from received authentication
+                // requests from other peers
+                connection.setConnectionPriority(ConnectionPriority.PASSIVE);
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (stopped)
+                    return;
+
+                if (System.currentTimeMillis() - startConnectBackTs < CONNECT_BACK_TIMEOUT) {
+                    // After a fast tor restart the peer requests authentication before his hidden service is
+                    // published, so we try again until it is reachable.
+                    log.info("Sending AuthenticationChallenge to {} failed. It might be that his hidden service is " +
+                            "not published yet. We try again. Exception={}", peerAddress, throwable.getMessage());
+                    connectBackTimer = UserThread.runAfter(() -> {
+                        if (!stopped)
+                            sendAuthenticationChallenge(authenticationRequest, startConnectBackTs);
+                    }, CONNECT_BACK_RETRY_DELAY, TimeUnit.MILLISECONDS);
+                } else {
+                    log.warn("Failure at sending AuthenticationChallenge to {}. It might be that the peer went offline. Exception={}", peerAddress, throwable.getMessage());
+                    failed(throwable);
+                }
+            }
+        });
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Cancel 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -305,6 +349,15 @@ public class AuthenticationHandshake implements MessageListener {
         return resultFutureOptional;
     }
 
+    // Is empty if the peer does not support sending the data digest at authentication
+    public Optional<HashMap<ByteArray, Integer>> getPeersDataDigestOptional() {
+        return peersDataDigestOptional;
+    }
+
+    public long getStartAuthTs() {
+        return startAuthTs;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
@@ -344,6 +397,9 @@ public class AuthenticationHandshake implements MessageListener {
         if (timeoutTimer != null)
             timeoutTimer.cancel();
 
+        if (connectBackTimer != null)
+            connectBackTimer.cancel();
+
         networkNode.removeMessageListener(this);
     }
 }
@@ -0,0 +1,12 @@
+package io.bitsquare.p2p.peers;
+
+import java.util.Collection;
+import java.util.List;
+
+// Decides which authenticated peers we disconnect if we have more connections than we want.
+public interface ConnectionEvictionPolicy {
+
+    // Returns the peers to disconnect to get down to targetSize authenticated peers in one pass.
+    // Might return less peers if not enough peers are allowed to get evicted.
+    List<Peer> selectPeersToEvict(Collection<Peer> authenticatedPeers, int targetSize);
+}
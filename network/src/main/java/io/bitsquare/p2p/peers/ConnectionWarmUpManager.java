@@ -0,0 +1,209 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.app.Log;
+import io.bitsquare.common.UserThread;
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.network.Connection;
+import io.bitsquare.p2p.network.ConnectionListener;
+import io.bitsquare.p2p.network.ConnectionPriority;
+import io.bitsquare.p2p.network.NetworkNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Keeps authenticated connections to peers we expect to message soon (offerer of the offer on screen, arbitrators).
+// Building a circuit to a hidden service takes several seconds, so we start the authentication speculatively and
+// in parallel before the first message is sent. Warm connections are protected from the connection limit cleanup
+// until they have been idle for IDLE_TIMEOUT.
+// Run in UserThread
+public class ConnectionWarmUpManager implements ConnectionListener, AuthenticationListener {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionWarmUpManager.class);
+
+    private static final long IDLE_TIMEOUT = 3 * 60 * 1000;
+    private static final int MAX_WARM_PEERS = 6;
+
+    private final NetworkNode networkNode;
+    private final PeerManager peerManager;
+
+    // peerAddress -> time when we requested the warm up (or the last use)
+    private final Map<Address, Long> warmPeers = new HashMap<>();
+    // peerAddress -> time when we started the authentication
+    private final Map<Address, Long> pendingWarmUps = new HashMap<>();
+    private final Map<Address, Long> circuitBuildDurations = new HashMap<>();
+    private long totalCircuitBuildDuration;
+    private int numCircuitsBuilt;
+
+    private Timer idleCheckTimer;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public ConnectionWarmUpManager(NetworkNode networkNode, PeerManager peerManager) {
+        this.networkNode = networkNode;
+        this.peerManager = peerManager;
+
+        networkNode.addConnectionListener(this);
+        peerManager.addAuthenticationListener(this);
+        startIdleCheckTimer();
+    }
+
+    public void shutDown() {
+        Log.traceCall();
+        if (idleCheckTimer != null)
+            idleCheckTimer.cancel();
+
+        networkNode.removeConnectionListener(this);
+        peerManager.removeAuthenticationListener(this);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void warmUp(Collection<Address> peerAddresses) {
+        Log.traceCall("peerAddresses=" + peerAddresses);
+        Address myAddress = networkNode.getAddress();
+        if (myAddress == null || peerManager.getAuthenticatedPeers().isEmpty()) {
+            log.debug("We are not authenticated yet and skip the warm up of connections.");
+            return;
+        }
+
+        peerAddresses.stream()
+                .filter(e -> e != null && !e.equals(myAddress))
+                .distinct()
+                .forEach(this::warmUp);
+    }
+
+    public void warmUp(Address peerAddress) {
+        Log.traceCall("peerAddress=" + peerAddress);
+        long now = System.currentTimeMillis();
+        Peer peer = peerManager.getAuthenticatedPeers().get(peerAddress);
+        if (peer != null) {
+            // Already connected, we only extend the lifetime of the warm connection
+            warmPeers.put(peerAddress, now);
+            protect(peer.connection);
+        } else if (!peerManager.isInAuthenticationProcess(peerAddress) && !pendingWarmUps.containsKey(peerAddress)) {
+            if (warmPeers.size() + pendingWarmUps.size() < MAX_WARM_PEERS) {
+                log.info("We start to warm up a connection to peer {}.", peerAddress);
+                warmPeers.put(peerAddress, now);
+                pendingWarmUps.put(peerAddress, now);
+                // Each authentication runs on its own connection so multiple warm ups get built in parallel
+                peerManager.authenticateToDirectMessagePeer(peerAddress,
+                        null,
+                        () -> {
+                            log.info("Warm up of connection to peer {} failed.", peerAddress);
+                            pendingWarmUps.remove(peerAddress);
+                            warmPeers.remove(peerAddress);
+                        });
+            } else {
+                log.debug("We have already {} warm connections. We don't warm up a connection to {}.",
+                        MAX_WARM_PEERS, peerAddress);
+            }
+        }
+    }
+
+    public Optional<Long> getCircuitBuildDuration(Address peerAddress) {
+        return Optional.ofNullable(circuitBuildDurations.get(peerAddress));
+    }
+
+    public long getAverageCircuitBuildDuration() {
+        return numCircuitsBuilt > 0 ? totalCircuitBuildDuration / numCircuitsBuilt : 0;
+    }
+
+    public Set<Address> getWarmPeers() {
+        return warmPeers.keySet();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // AuthenticationListener implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onPeerAuthenticated(Address peerAddress, Connection connection) {
+        Long startTs = pendingWarmUps.remove(peerAddress);
+        if (startTs != null) {
+            long duration = System.currentTimeMillis() - startTs;
+            circuitBuildDurations.put(peerAddress, duration);
+            totalCircuitBuildDuration += duration;
+            numCircuitsBuilt++;
+            log.info("Warm connection to peer {} established. Took {} ms (average {} ms).",
+                    peerAddress, duration, getAverageCircuitBuildDuration());
+        }
+
+        if (warmPeers.containsKey(peerAddress))
+            protect(connection);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // ConnectionListener implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onConnection(Connection connection) {
+    }
+
+    @Override
+    public void onDisconnect(Reason reason, Connection connection) {
+        connection.getPeerAddressOptional().ifPresent(peerAddress -> {
+            if (!pendingWarmUps.containsKey(peerAddress))
+                warmPeers.remove(peerAddress);
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void protect(Connection connection) {
+        // We use the same priority as for connections used for direct messages to avoid that the connection
+        // gets closed when we exceed the connection limit.
+        if (connection.getConnectionPriority() != ConnectionPriority.AUTH_REQUEST)
+            connection.setConnectionPriority(ConnectionPriority.DIRECT_MSG);
+    }
+
+    private void startIdleCheckTimer() {
+        if (idleCheckTimer != null)
+            idleCheckTimer.cancel();
+
+        idleCheckTimer = UserThread.runAfter(() -> {
+            releaseIdleConnections();
+            startIdleCheckTimer();
+        }, 30, TimeUnit.SECONDS);
+    }
+
+    private void releaseIdleConnections() {
+        long now = System.currentTimeMillis();
+        Map<Address, Peer> authenticatedPeers = peerManager.getAuthenticatedPeers();
+        new HashSet<>(warmPeers.keySet()).stream()
+                .filter(peerAddress -> !pendingWarmUps.containsKey(peerAddress))
+                .forEach(peerAddress -> {
+                    Peer peer = authenticatedPeers.get(peerAddress);
+                    if (peer == null) {
+                        warmPeers.remove(peerAddress);
+                    } else {
+                        long lastActivity = Math.max(warmPeers.get(peerAddress),
+                                peer.connection.getLastActivityDate().getTime());
+                        if (now - lastActivity > IDLE_TIMEOUT) {
+                            log.debug("Warm connection to peer {} is idle. We release it.", peerAddress);
+                            warmPeers.remove(peerAddress);
+                            // We don't close it but let the connection limit cleanup handle it like any other
+                            // connection initiated by us
+                            if (peer.connection.getConnectionPriority() == ConnectionPriority.DIRECT_MSG)
+                                peer.connection.setConnectionPriority(ConnectionPriority.ACTIVE);
+                        }
+                    }
+                });
+    }
+}
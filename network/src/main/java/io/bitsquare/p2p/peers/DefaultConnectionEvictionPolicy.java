@@ -0,0 +1,115 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.network.ConnectionPriority;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// Evicts the least useful peers first. The connection priority defines how far we go down with each class:
+// PASSIVE connections get closed down to the target size, ACTIVE connections only down to maxConnectionsNormalPriority
+// and DIRECT_MSG connections only down to maxConnectionsHighPriority. AUTH_REQUEST connections and protected peers
+// (e.g. other seed nodes if we are a seed node) are never closed.
+// Inside a priority class we prefer to keep peers which have sent us data, have been active recently and have a
+// low round trip time.
+public class DefaultConnectionEvictionPolicy implements ConnectionEvictionPolicy {
+    // 1 data message received outweighs 1 minute of inactivity
+    private static final double DATA_MESSAGE_WEIGHT = 60 * 1000;
+    // 1 sec. round trip time weighs like 1 minute of inactivity
+    private static final double ROUND_TRIP_TIME_WEIGHT = 60;
+    private static final int MAX_COUNTED_DATA_MESSAGES = 20;
+
+    private final int maxConnectionsNormalPriority;
+    private final int maxConnectionsHighPriority;
+    private final Predicate<Address> isProtected;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public DefaultConnectionEvictionPolicy(int maxConnectionsNormalPriority,
+                                           int maxConnectionsHighPriority,
+                                           Predicate<Address> isProtected) {
+        this.maxConnectionsNormalPriority = maxConnectionsNormalPriority;
+        this.maxConnectionsHighPriority = maxConnectionsHighPriority;
+        this.isProtected = isProtected;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // ConnectionEvictionPolicy implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public List<Peer> selectPeersToEvict(Collection<Peer> authenticatedPeers, int targetSize) {
+        int size = authenticatedPeers.size();
+        if (size <= targetSize)
+            return Collections.emptyList();
+
+        // The score depends on the time of the call, so we don't keep the peers sorted between calls but compute the
+        // score once per peer and sort the few candidates by priority class and score.
+        long now = System.currentTimeMillis();
+        List<ScoredPeer> candidates = new ArrayList<>(size);
+        for (Peer peer : authenticatedPeers) {
+            ConnectionPriority priority = peer.connection.getConnectionPriority();
+            if (peer.address != null && priority != ConnectionPriority.AUTH_REQUEST && !isProtected.test(peer.address))
+                candidates.add(new ScoredPeer(peer, priority, getScore(peer, now)));
+        }
+        candidates.sort((a, b) -> a.priority != b.priority ?
+                a.priority.compareTo(b.priority) :
+                Double.compare(a.score, b.score));
+
+        List<Peer> result = new ArrayList<>();
+        for (ScoredPeer candidate : candidates) {
+            if (size <= getLimit(candidate.priority, targetSize))
+                continue;
+            result.add(candidate.peer);
+            size--;
+        }
+        return result;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // We close connections of that priority only as long as we have more than that
+    private int getLimit(ConnectionPriority priority, int targetSize) {
+        switch (priority) {
+            case PASSIVE:
+                return targetSize;
+            case ACTIVE:
+                return Math.max(targetSize, maxConnectionsNormalPriority);
+            default:
+                return Math.max(targetSize, maxConnectionsHighPriority);
+        }
+    }
+
+    // Higher is better
+    private double getScore(Peer peer, long now) {
+        double inactivity = now - peer.connection.getLastActivityDate().getTime();
+        double dataContribution = Math.min(peer.getNumDataMessagesReceived(), MAX_COUNTED_DATA_MESSAGES)
+                * DATA_MESSAGE_WEIGHT;
+        double latencyPenalty = Math.max(peer.getRoundTripTime(), 0) * ROUND_TRIP_TIME_WEIGHT;
+        return dataContribution - inactivity - latencyPenalty;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // ScoredPeer
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static class ScoredPeer {
+        private final Peer peer;
+        private final ConnectionPriority priority;
+        private final double score;
+
+        ScoredPeer(Peer peer, ConnectionPriority priority, double score) {
+            this.peer = peer;
+            this.priority = priority;
+            this.score = score;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
 import io.bitsquare.p2p.network.Connection;
 import io.bitsquare.p2p.network.MessageListener;
+import io.bitsquare.p2p.network.NetworkExecutor;
 import io.bitsquare.p2p.network.NetworkNode;
 import io.bitsquare.p2p.peers.messages.maintenance.MaintenanceMessage;
 import io.bitsquare.p2p.peers.messages.maintenance.PingMessage;
@@ -77,7 +78,8 @@ public class MaintenanceManager implements MessageListener {
                     @Override
                     public void onFailure(@NotNull Throwable throwable) {
                         log.info("PongMessage sending failed " + throwable.getMessage());
-                        connection.getPeerAddressOptional().ifPresent(peerAddress -> removePeerConsumer.accept(peerAddress));
+                        if (!NetworkExecutor.isRejected(throwable))
+                            connection.getPeerAddressOptional().ifPresent(peerAddress -> removePeerConsumer.accept(peerAddress));
                     }
                 });
             } else if (message instanceof PongMessage) {
@@ -87,6 +89,8 @@ public class MaintenanceManager implements MessageListener {
                         if (((PongMessage) message).nonce != peer.pingNonce) {
                             log.warn("PongMessage invalid: self/peer " + networkNode.getAddress() + "/" + peerAddress);
                             removePeerConsumer.accept(peer.address);
+                        } else {
+                            peer.onPongReceived();
                         }
                     }
                 });
@@ -112,6 +116,7 @@ public class MaintenanceManager implements MessageListener {
             connectedPeersList.stream()
                     .filter(e -> (new Date().getTime() - e.connection.getLastActivityDate().getTime()) > INACTIVITY_PERIOD_BEFORE_PING)
                     .forEach(e -> UserThread.runAfterRandomDelay(() -> {
+                        e.onPingSent();
                         SettableFuture<Connection> future = networkNode.sendMessage(e.connection, new PingMessage(e.pingNonce));
                         Futures.addCallback(future, new FutureCallback<Connection>() {
                             @Override
@@ -122,7 +127,8 @@ public class MaintenanceManager implements MessageListener {
                             @Override
                             public void onFailure(@NotNull Throwable throwable) {
                                 log.info("PingMessage sending failed " + throwable.getMessage());
-                                removePeerConsumer.accept(e.address);
+                                if (!NetworkExecutor.isRejected(throwable))
+                                    removePeerConsumer.accept(e.address);
                             }
                         });
                     }, 2, 4, TimeUnit.SECONDS));
@@ -14,6 +14,11 @@ public class Peer {
     public final Address address;
     public final long pingNonce;
 
+    // Statistics used for deciding which connections we close if we have too many. Accessed only from UserThread.
+    private long pingSentTs;
+    private long roundTripTime = -1;
+    private int numDataMessagesReceived;
+
     public Peer(Connection connection, Address address) {
         this.connection = connection;
         this.address = address;
@@ -21,6 +26,30 @@ public class Peer {
         pingNonce = new Random().nextLong();
     }
 
+    public void onPingSent() {
+        pingSentTs = System.currentTimeMillis();
+    }
+
+    public void onPongReceived() {
+        if (pingSentTs > 0) {
+            roundTripTime = System.currentTimeMillis() - pingSentTs;
+            pingSentTs = 0;
+        }
+    }
+
+    // -1 if we have not got a pong yet
+    public long getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    public void onDataMessageReceived() {
+        numDataMessagesReceived++;
+    }
+
+    public int getNumDataMessagesReceived() {
+        return numDataMessagesReceived;
+    }
+
     @Override
     public int hashCode() {
         return address != null ? address.hashCode() : 0;
@@ -41,6 +70,8 @@ public class Peer {
         return "Peer{" +
                 "address=" + address +
                 ", pingNonce=" + pingNonce +
+                ", roundTripTime=" + roundTripTime +
+                ", numDataMessagesReceived=" + numDataMessagesReceived +
                 ", connection=" + connection +
                 '}';
     }
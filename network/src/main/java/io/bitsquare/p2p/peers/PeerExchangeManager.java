@@ -9,6 +9,7 @@ import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
 import io.bitsquare.p2p.network.Connection;
 import io.bitsquare.p2p.network.MessageListener;
+import io.bitsquare.p2p.network.NetworkExecutor;
 import io.bitsquare.p2p.network.NetworkNode;
 import io.bitsquare.p2p.peers.messages.peers.GetPeersRequest;
 import io.bitsquare.p2p.peers.messages.peers.GetPeersResponse;
@@ -30,7 +31,7 @@ public class PeerExchangeManager implements MessageListener {
     private static final Logger log = LoggerFactory.getLogger(PeerExchangeManager.class);
 
     private final NetworkNode networkNode;
-    private final Supplier<Set<ReportedPeer>> authenticatedAndReportedPeersSupplier;
+    private final Supplier<HashSet<ReportedPeer>> authenticatedAndReportedPeersSupplier;
     private final Supplier<Map<Address, Peer>> authenticatedPeersSupplier;
     private final Consumer<Address> removePeerConsumer;
     private final BiConsumer<HashSet<ReportedPeer>, Connection> addReportedPeersConsumer;
@@ -43,7 +44,7 @@ public class PeerExchangeManager implements MessageListener {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public PeerExchangeManager(NetworkNode networkNode,
-                               Supplier<Set<ReportedPeer>> authenticatedAndReportedPeersSupplier,
+                               Supplier<HashSet<ReportedPeer>> authenticatedAndReportedPeersSupplier,
                                Supplier<Map<Address, Peer>> authenticatedPeersSupplier,
                                Consumer<Address> removePeerConsumer,
                                BiConsumer<HashSet<ReportedPeer>, Connection> addReportedPeersConsumer) {
@@ -80,7 +81,7 @@ public class PeerExchangeManager implements MessageListener {
                 log.trace("Received peers: " + reportedPeers);
 
                 SettableFuture<Connection> future = networkNode.sendMessage(connection,
-                        new GetPeersResponse(new HashSet<>(authenticatedAndReportedPeersSupplier.get())));
+                        new GetPeersResponse(authenticatedAndReportedPeersSupplier.get()));
                 Futures.addCallback(future, new FutureCallback<Connection>() {
                     @Override
                     public void onSuccess(Connection connection) {
@@ -90,7 +91,8 @@ public class PeerExchangeManager implements MessageListener {
                     @Override
                     public void onFailure(@NotNull Throwable throwable) {
                         log.info("GetPeersResponse sending failed " + throwable.getMessage());
-                        removePeerConsumer.accept(getPeersRequestMessage.senderAddress);
+                        if (!NetworkExecutor.isRejected(throwable))
+                            removePeerConsumer.accept(getPeersRequestMessage.senderAddress);
                     }
                 });
                 addReportedPeersConsumer.accept(reportedPeers, connection);
@@ -121,7 +123,7 @@ public class PeerExchangeManager implements MessageListener {
             connectedPeersList.stream()
                     .forEach(e -> UserThread.runAfterRandomDelay(() -> {
                         SettableFuture<Connection> future = networkNode.sendMessage(e.connection,
-                                new GetPeersRequest(networkNode.getAddress(), new HashSet<>(authenticatedAndReportedPeersSupplier.get())));
+                                new GetPeersRequest(networkNode.getAddress(), authenticatedAndReportedPeersSupplier.get()));
                         Futures.addCallback(future, new FutureCallback<Connection>() {
                             @Override
                             public void onSuccess(Connection connection) {
@@ -131,7 +133,8 @@ public class PeerExchangeManager implements MessageListener {
                             @Override
                             public void onFailure(@NotNull Throwable throwable) {
                                 log.info("sendGetPeersRequest sending failed " + throwable.getMessage());
-                                removePeerConsumer.accept(e.address);
+                                if (!NetworkExecutor.isRejected(throwable))
+                                    removePeerConsumer.accept(e.address);
                             }
                         });
                     }, 3, 5, TimeUnit.SECONDS));
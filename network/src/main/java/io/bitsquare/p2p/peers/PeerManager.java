@@ -4,6 +4,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import io.bitsquare.app.Log;
+import io.bitsquare.common.ByteArray;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
@@ -11,16 +12,17 @@ import io.bitsquare.p2p.network.*;
 import io.bitsquare.p2p.peers.messages.auth.AuthenticationRejection;
 import io.bitsquare.p2p.peers.messages.auth.AuthenticationRequest;
 import io.bitsquare.p2p.storage.messages.DataBroadcastMessage;
+import io.bitsquare.storage.Storage;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -46,6 +48,12 @@ public class PeerManager implements MessageListener, ConnectionListener {
     }
 
     private static final int MAX_REPORTED_PEERS = 1000;
+    // Number of seed nodes we authenticate to in parallel at startup. The first to succeed continues the bootstrap.
+    private static final int MAX_PARALLEL_SEED_NODE_AUTHENTICATIONS = 3;
+    // Reported peers are merged at every peer exchange, we collect the changes before we persist them
+    private static final long PERSIST_PEERS_DELAY_SEC = 30;
+    // The lastActivityDate of the authenticated peers in the cached set gets refreshed after that time
+    private static final long PEERS_SNAPSHOT_MAX_AGE = 60 * 1000;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -58,12 +66,26 @@ public class PeerManager implements MessageListener, ConnectionListener {
 
     private final CopyOnWriteArraySet<AuthenticationListener> authenticationListeners = new CopyOnWriteArraySet<>();
     private final Map<Address, Peer> authenticatedPeers = new HashMap<>();
-    private final Set<ReportedPeer> reportedPeers = new HashSet<>();
+    private final ReportedPeerTable reportedPeers = new ReportedPeerTable(MAX_REPORTED_PEERS);
+    @Nullable
+    private final Storage<ArrayList> peersStorage;
     private final Map<Address, AuthenticationHandshake> authenticationHandshakes = new HashMap<>();
+    // Data digests we got from peers at authentication. Consumed by the RequestDataManager.
+    private final Map<Address, HashMap<ByteArray, Integer>> peersDataDigests = new HashMap<>();
+    private Supplier<HashMap<ByteArray, Integer>> dataDigestSupplier = () -> null;
+    private ConnectionEvictionPolicy connectionEvictionPolicy;
     private final List<Address> remainingSeedNodes = new ArrayList<>();
     private Optional<Set<Address>> seedNodeAddressesOptional = Optional.empty();
     private Timer connectToSeedNodeTimer;
     private boolean isSeedNode;
+    private int numPendingFirstSeedNodeAuthentications;
+    private boolean firstSeedNodeAuthenticated;
+    private Timer persistPeersTimer;
+    // Snapshot of the authenticated and reported peers sent with each authentication and peer exchange message.
+    // Reset at any change of the peers.
+    @Nullable
+    private HashSet<ReportedPeer> authenticatedAndReportedPeersSnapshot;
+    private long authenticatedAndReportedPeersSnapshotTs;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -71,10 +93,24 @@ public class PeerManager implements MessageListener, ConnectionListener {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public PeerManager(NetworkNode networkNode) {
+        this(networkNode, null);
+    }
+
+    public PeerManager(NetworkNode networkNode, @Nullable File storageDir) {
         Log.traceCall();
 
         this.networkNode = networkNode;
 
+        // We persist the known peers so that we can connect to the network even if no seed node is available
+        if (storageDir != null) {
+            peersStorage = new Storage<>(storageDir);
+            ArrayList<ReportedPeer> persistedPeers = peersStorage.initAndGetPersisted("ReportedPeers");
+            if (persistedPeers != null)
+                persistedPeers.stream().forEach(reportedPeers::merge);
+        } else {
+            peersStorage = null;
+        }
+
         networkNode.addMessageListener(this);
         networkNode.addConnectionListener(this);
 
@@ -87,6 +123,10 @@ public class PeerManager implements MessageListener, ConnectionListener {
                 address -> removePeer(address),
                 (newReportedPeers, connection) -> addToReportedPeers(newReportedPeers, connection));
 
+        connectionEvictionPolicy = new DefaultConnectionEvictionPolicy(MAX_CONNECTIONS_NORMAL_PRIORITY,
+                MAX_CONNECTIONS_HIGH_PRIORITY,
+                this::isProtectedFromEviction);
+
         startConnectToSeedNodeTimer();
     }
 
@@ -94,6 +134,14 @@ public class PeerManager implements MessageListener, ConnectionListener {
         this.isSeedNode = isSeedNode;
     }
 
+    public void setConnectionEvictionPolicy(ConnectionEvictionPolicy connectionEvictionPolicy) {
+        this.connectionEvictionPolicy = connectionEvictionPolicy;
+    }
+
+    public void setDataDigestSupplier(Supplier<HashMap<ByteArray, Integer>> dataDigestSupplier) {
+        this.dataDigestSupplier = dataDigestSupplier;
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // ConnectionListener implementation
@@ -134,8 +182,15 @@ public class PeerManager implements MessageListener, ConnectionListener {
 
     @Override
     public void onMessage(Message message, Connection connection) {
-        if (message instanceof AuthenticationRequest)
+        if (message instanceof AuthenticationRequest) {
             processAuthenticationRequest((AuthenticationRequest) message, connection);
+        } else if (message instanceof DataBroadcastMessage) {
+            connection.getPeerAddressOptional().ifPresent(peerAddress -> {
+                Peer peer = authenticatedPeers.get(peerAddress);
+                if (peer != null)
+                    peer.onDataMessageReceived();
+            });
+        }
     }
 
 
@@ -151,7 +206,15 @@ public class PeerManager implements MessageListener, ConnectionListener {
                     .filter(e -> !e.address.equals(sender))
                     .forEach(peer -> UserThread.runAfterRandomDelay(() -> {
                                 // as we use a delay we need to check again if our peer is still in the authenticated list
-                                if (authenticatedPeers.containsValue(peer)) {
+                                if (!authenticatedPeers.containsValue(peer)) {
+                                    log.debug("Peer is not in our authenticated list anymore. " +
+                                            "That can happen as we use a delay in the loop for the broadcast. " +
+                                            "Peer.address={}", peer.address);
+                                } else if (!networkNode.hasSendCapacity()) {
+                                    // If our network executor is saturated we skip that peer instead of getting the
+                                    // task rejected. Other peers will relay the message to it.
+                                    log.info("Broadcast to {} skipped as the network is saturated.", peer.address);
+                                } else {
                                     final Address address = peer.address;
                                     log.trace("Broadcast message from " + getMyAddress() + " to " + address + ".");
                                     SettableFuture<Connection> future = networkNode.sendMessage(address, message);
@@ -164,13 +227,12 @@ public class PeerManager implements MessageListener, ConnectionListener {
                                         @Override
                                         public void onFailure(@NotNull Throwable throwable) {
                                             log.info("Broadcast failed. " + throwable.getMessage());
-                                            UserThread.execute(() -> removePeer(address));
+                                            // If our network executor is saturated it is not the fault of the peer.
+                                            // Other peers will relay the message to it.
+                                            if (!NetworkExecutor.isRejected(throwable))
+                                                UserThread.execute(() -> removePeer(address));
                                         }
                                     });
-                                } else {
-                                    log.debug("Peer is not in our authenticated list anymore. " +
-                                            "That can happen as we use a delay in the loop for the broadcast. " +
-                                            "Peer.address={}", peer.address);
                                 }
                             },
                             10, 100, TimeUnit.MILLISECONDS));
@@ -190,12 +252,23 @@ public class PeerManager implements MessageListener, ConnectionListener {
 
         if (connectToSeedNodeTimer != null)
             connectToSeedNodeTimer.cancel();
+
+        // We write the pending changes of the peers now
+        if (persistPeersTimer != null) {
+            persistPeersTimer.cancel();
+            persistPeersTimer = null;
+            doPersistPeers();
+        }
     }
 
     public void addAuthenticationListener(AuthenticationListener listener) {
         authenticationListeners.add(listener);
     }
 
+    public void removeAuthenticationListener(AuthenticationListener listener) {
+        authenticationListeners.remove(listener);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Process incoming authentication messages
@@ -222,7 +295,8 @@ public class PeerManager implements MessageListener, ConnectionListener {
                         getMyAddress(),
                         peerAddress,
                         () -> getAuthenticatedAndReportedPeers(),
-                        (newReportedPeers, connection1) -> addToReportedPeers(newReportedPeers, connection1)
+                        (newReportedPeers, connection1) -> addToReportedPeers(newReportedPeers, connection1),
+                        dataDigestSupplier
                 );
                 authenticationHandshakes.put(peerAddress, authenticationHandshake);
                 SettableFuture<Connection> future = authenticationHandshake.respondToAuthenticationRequest(message, connection);
@@ -281,9 +355,18 @@ public class PeerManager implements MessageListener, ConnectionListener {
         Log.traceCall();
         checkArgument(seedNodeAddressesOptional.isPresent(),
                 "seedNodeAddresses must be set before calling authenticateToSeedNode");
-        remainingSeedNodes.remove(peerAddress);
         remainingSeedNodes.addAll(seedNodeAddressesOptional.get());
+        remainingSeedNodes.remove(peerAddress);
         authenticateToFirstSeedNode(peerAddress);
+
+        // We don't wait for a slow or offline seed node but try more of them at once
+        for (int i = 1; i < MAX_PARALLEL_SEED_NODE_AUTHENTICATIONS; i++) {
+            Optional<Address> seedNodeOptional = getAndRemoveNotAuthenticatingSeedNode();
+            if (seedNodeOptional.isPresent())
+                authenticateToFirstSeedNode(seedNodeOptional.get());
+            else
+                break;
+        }
     }
 
     private void authenticateToFirstSeedNode(Address peerAddress) {
@@ -292,32 +375,40 @@ public class PeerManager implements MessageListener, ConnectionListener {
 
             if (!authenticationHandshakes.containsKey(peerAddress)) {
                 log.info("We try to authenticate to seed node {}.", peerAddress);
+                numPendingFirstSeedNodeAuthentications++;
                 authenticate(peerAddress, new FutureCallback<Connection>() {
                     @Override
                     public void onSuccess(Connection connection) {
-                        log.info("We got our first seed node authenticated. " +
-                                "We try if there are reported peers available to authenticate.");
-
+                        numPendingFirstSeedNodeAuthentications--;
                         addAuthenticatedPeer(connection, peerAddress);
-                        authenticateToRemainingReportedPeer();
+                        if (!firstSeedNodeAuthenticated) {
+                            log.info("We got our first seed node authenticated. " +
+                                    "We try if there are reported peers available to authenticate.");
+                            firstSeedNodeAuthenticated = true;
+                            authenticateToRemainingReportedPeer();
+                        }
                     }
 
                     @Override
                     public void onFailure(@NotNull Throwable throwable) {
+                        numPendingFirstSeedNodeAuthentications--;
                         log.info("Authentication to " + peerAddress + " failed at authenticateToFirstSeedNode." +
                                 "\nThat is expected if seed nodes are offline." +
                                 "\nException:" + throwable.toString());
 
                         handleAuthenticationFailure(peerAddress, throwable);
 
-                        Optional<Address> seedNodeOptional = getAndRemoveNotAuthenticatingSeedNode();
-                        if (seedNodeOptional.isPresent()) {
-                            log.info("We try another random seed node for first authentication attempt.");
-                            authenticateToFirstSeedNode(seedNodeOptional.get());
-                        } else {
-                            log.info("There are no seed nodes available for authentication. " +
-                                    "We try if there are reported peers available to authenticate.");
-                            authenticateToRemainingReportedPeer();
+                        // If another seed node got authenticated in the meantime the bootstrap continues from there
+                        if (!firstSeedNodeAuthenticated) {
+                            Optional<Address> seedNodeOptional = getAndRemoveNotAuthenticatingSeedNode();
+                            if (seedNodeOptional.isPresent()) {
+                                log.info("We try another random seed node for first authentication attempt.");
+                                authenticateToFirstSeedNode(seedNodeOptional.get());
+                            } else if (numPendingFirstSeedNodeAuthentications == 0) {
+                                log.info("There are no seed nodes available for authentication. " +
+                                        "We try if there are reported peers available to authenticate.");
+                                authenticateToRemainingReportedPeer();
+                            }
                         }
                     }
                 });
@@ -566,7 +657,8 @@ public class PeerManager implements MessageListener, ConnectionListener {
                     getMyAddress(),
                     peerAddress,
                     () -> getAuthenticatedAndReportedPeers(),
-                    (newReportedPeers, connection) -> addToReportedPeers(newReportedPeers, connection)
+                    (newReportedPeers, connection) -> addToReportedPeers(newReportedPeers, connection),
+                    dataDigestSupplier
             );
             authenticationHandshakes.put(peerAddress, authenticationHandshake);
             SettableFuture<Connection> authenticationFuture = authenticationHandshake.requestAuthentication();
@@ -582,6 +674,10 @@ public class PeerManager implements MessageListener, ConnectionListener {
         connection.setPeerAddress(peerAddress);
         connection.setAuthenticated();
 
+        AuthenticationHandshake authenticationHandshake = authenticationHandshakes.get(peerAddress);
+        if (authenticationHandshake != null)
+            authenticationHandshake.getPeersDataDigestOptional().ifPresent(dataDigest -> peersDataDigests.put(peerAddress, dataDigest));
+
         removeFromAuthenticationHandshakes(peerAddress);
 
         log.info("\n\n############################################################\n" +
@@ -592,8 +688,10 @@ public class PeerManager implements MessageListener, ConnectionListener {
                 + "\n############################################################\n");
 
         authenticatedPeers.put(peerAddress, new Peer(connection, peerAddress));
+        onPeersChanged();
 
         removeFromReportedPeers(peerAddress);
+        persistPeers();
 
         if (!checkIfConnectedPeersExceeds(MAX_CONNECTIONS_LOW_PRIORITY))
             printAuthenticatedPeers();
@@ -602,7 +700,7 @@ public class PeerManager implements MessageListener, ConnectionListener {
     }
 
     void handleAuthenticationFailure(@Nullable Address peerAddress, Throwable throwable) {
-        if (throwable instanceof AuthenticationException)
+        if (throwable instanceof AuthenticationException || NetworkExecutor.isRejected(throwable))
             removeFromAuthenticationHandshakes(peerAddress);
         else
             removePeer(peerAddress);
@@ -612,13 +710,15 @@ public class PeerManager implements MessageListener, ConnectionListener {
         Log.traceCall("peerAddress=" + peerAddress);
         if (peerAddress != null) {
             removeFromAuthenticationHandshakes(peerAddress);
+            peersDataDigests.remove(peerAddress);
             removeFromReportedPeers(peerAddress);
             removeFromAuthenticatedPeers(peerAddress);
         }
     }
 
     private void removeFromReportedPeers(Address peerAddress) {
-        reportedPeers.remove(new ReportedPeer(peerAddress));
+        if (reportedPeers.remove(peerAddress))
+            onPeersChanged();
     }
 
     private void removeFromAuthenticationHandshakes(@Nullable Address peerAddress) {
@@ -627,8 +727,10 @@ public class PeerManager implements MessageListener, ConnectionListener {
     }
 
     private void removeFromAuthenticatedPeers(@Nullable Address peerAddress) {
-        if (authenticatedPeers.containsKey(peerAddress))
+        if (authenticatedPeers.containsKey(peerAddress)) {
             authenticatedPeers.remove(peerAddress);
+            onPeersChanged();
+        }
         printAuthenticatedPeers();
     }
 
@@ -645,58 +747,20 @@ public class PeerManager implements MessageListener, ConnectionListener {
         Log.traceCall();
         int size = authenticatedPeers.size();
         if (size > limit) {
-            Set<Connection> allConnections = networkNode.getAllConnections();
-            int allConnectionsSize = allConnections.size();
-            log.info("We have {} connections open (authenticatedPeers={}). Lets remove the passive connections" +
-                    " which have not been active recently.", allConnectionsSize, size);
-            // TODO Investigate inconsistency which between size and allConnectionsSize sometimes.
-          /*  if (size != allConnectionsSize) {
-                log.warn("authenticatedPeers.size()!=allConnections.size(). There is some inconsistency.");
-                log.debug("authenticatedPeers={}", authenticatedPeers);
-                log.debug("networkNode.getAllConnections()={}", networkNode.getAllConnections());
-            }*/
-
-            // If we are a seed node we don't remove other seed nodes to keep the core network well connected
-            List<Connection> authenticatedConnections = allConnections.stream()
-                    .filter(e -> e.isAuthenticated())
-                    .filter(e -> e.getConnectionPriority() == ConnectionPriority.PASSIVE)
-                    .filter(e -> !isSeedNode || !isAuthConnectionSeedNode(e))
-                    .collect(Collectors.toList());
-
-            if (authenticatedConnections.size() == 0) {
-                log.debug("There are no passive connections for closing. We check if we are exceeding " +
-                        "MAX_CONNECTIONS_NORMAL ({}) ", PeerManager.MAX_CONNECTIONS_NORMAL_PRIORITY);
-                if (size > PeerManager.MAX_CONNECTIONS_NORMAL_PRIORITY) {
-                    authenticatedConnections = allConnections.stream()
-                            .filter(e -> e.isAuthenticated())
-                            .filter(e -> e.getConnectionPriority() == ConnectionPriority.PASSIVE || e.getConnectionPriority() == ConnectionPriority.ACTIVE)
-                            .filter(e -> !isSeedNode || !isAuthConnectionSeedNode(e))
-                            .collect(Collectors.toList());
-
-                    if (authenticatedConnections.size() == 0) {
-                        log.debug("There are no passive or active connections for closing. We check if we are exceeding " +
-                                "MAX_CONNECTIONS_HIGH ({}) ", PeerManager.MAX_CONNECTIONS_HIGH_PRIORITY);
-                        if (size > PeerManager.MAX_CONNECTIONS_HIGH_PRIORITY) {
-                            authenticatedConnections = allConnections.stream()
-                                    .filter(e -> e.isAuthenticated())
-                                    .filter(e -> e.getConnectionPriority() != ConnectionPriority.AUTH_REQUEST)
-                                    .filter(e -> !isSeedNode || !isAuthConnectionSeedNode(e))
-                                    .collect(Collectors.toList());
-                        }
-                    }
-                }
-            }
-
-            if (authenticatedConnections.size() > 0) {
-                authenticatedConnections.sort((o1, o2) -> o1.getLastActivityDate().compareTo(o2.getLastActivityDate()));
-                log.info("Number of connections exceeding MAX_CONNECTIONS. Current size=" + authenticatedConnections.size());
-                Connection connection = authenticatedConnections.remove(0);
-                log.info("We are going to shut down the oldest connection with last activity date="
-                        + connection.getLastActivityDate() + " / connection=" + connection);
-                connection.shutDown(() -> UserThread.runAfterRandomDelay(() -> checkIfConnectedPeersExceeds(limit), 10, 50, TimeUnit.MILLISECONDS));
+            log.info("We have {} connections open (authenticatedPeers={}). Lets remove the connections " +
+                    "which are least useful to us.", networkNode.getAllConnections().size(), size);
+            List<Peer> peersToEvict = connectionEvictionPolicy.selectPeersToEvict(authenticatedPeers.values(), limit);
+            if (!peersToEvict.isEmpty()) {
+                log.info("Number of connections exceeding limit of {}. We shut down {} connections.",
+                        limit, peersToEvict.size());
+                peersToEvict.stream().forEach(peer -> {
+                    log.info("We are going to shut down the connection with last activity date="
+                            + peer.connection.getLastActivityDate() + " / connection=" + peer.connection);
+                    peer.connection.shutDown();
+                });
                 return true;
             } else {
-                log.debug("authenticatedConnections.size() == 0. That might happen in rare cases. (checkIfConnectedPeersExceeds)");
+                log.debug("No connection can be closed. That might happen in rare cases. (checkIfConnectedPeersExceeds)");
                 return false;
             }
         } else {
@@ -705,8 +769,9 @@ public class PeerManager implements MessageListener, ConnectionListener {
         }
     }
 
-    private boolean isAuthConnectionSeedNode(Connection e) {
-        return e.getPeerAddressOptional().isPresent() && seedNodeAddressesOptional.isPresent() && seedNodeAddressesOptional.get().contains(e.getPeerAddressOptional().get());
+    // If we are a seed node we don't remove other seed nodes to keep the core network well connected
+    private boolean isProtectedFromEviction(Address peerAddress) {
+        return isSeedNode && seedNodeAddressesOptional.isPresent() && seedNodeAddressesOptional.get().contains(peerAddress);
     }
 
 
@@ -714,15 +779,18 @@ public class PeerManager implements MessageListener, ConnectionListener {
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public Set<ReportedPeer> getAuthenticatedAndReportedPeers() {
-        Set<ReportedPeer> all = new HashSet<>(reportedPeers);
-        Set<ReportedPeer> authenticated = authenticatedPeers.values().stream()
-                .filter(e -> e.address != null)
-                .filter(e -> !seedNodeAddressesOptional.isPresent() || !seedNodeAddressesOptional.get().contains(e.address))
-                .map(e -> new ReportedPeer(e.address, new Date()))
-                .collect(Collectors.toSet());
-        all.addAll(authenticated);
-        return all;
+    // Returns a copy of the snapshot, so a caller or a message holding the set cannot change the snapshot.
+    // Copying is cheap compared to rebuilding it from the reported and authenticated peers.
+    public HashSet<ReportedPeer> getAuthenticatedAndReportedPeers() {
+        long now = System.currentTimeMillis();
+        if (authenticatedAndReportedPeersSnapshot == null
+                || now - authenticatedAndReportedPeersSnapshotTs > PEERS_SNAPSHOT_MAX_AGE) {
+            HashSet<ReportedPeer> all = new HashSet<>(reportedPeers.getAll());
+            addAuthenticatedPeers(all);
+            authenticatedAndReportedPeersSnapshot = all;
+            authenticatedAndReportedPeersSnapshotTs = now;
+        }
+        return new HashSet<>(authenticatedAndReportedPeersSnapshot);
     }
 
     public Map<Address, Peer> getAuthenticatedPeers() {
@@ -733,6 +801,11 @@ public class PeerManager implements MessageListener, ConnectionListener {
         return authenticationHandshakes.containsKey(address);
     }
 
+    // Returns the data digest the peer has sent at authentication. Is empty if the peer does not support it.
+    public Optional<HashMap<ByteArray, Integer>> getAndRemovePeersDataDigest(Address peerAddress) {
+        return Optional.ofNullable(peersDataDigests.remove(peerAddress));
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Reported peers
@@ -746,72 +819,58 @@ public class PeerManager implements MessageListener, ConnectionListener {
         if (reportedPeersToAdd.size() > (MAX_REPORTED_PEERS + MAX_CONNECTIONS_LOW_PRIORITY * 3)) {
             connection.shutDown();
         } else {
-            // In case we have one of the peers already we adjust the lastActivityDate by adjusting the date to the mid 
-            // of the lastActivityDate of our already stored peer and the reported one
-            Map<Address, ReportedPeer> reportedPeersMap = reportedPeers.stream()
-                    .collect(Collectors.toMap(e -> e.address, Function.identity()));
-            Set<ReportedPeer> adjustedReportedPeers = new HashSet<>();
+            // The table adjusts the lastActivityDate of already known peers in place and evicts peers if it is full
             reportedPeersToAdd.stream()
                     .filter(e -> !e.address.equals(getMyAddress()))
                     .filter(e -> !seedNodeAddressesOptional.isPresent() || !seedNodeAddressesOptional.get().contains(e.address))
                     .filter(e -> !authenticatedPeers.containsKey(e.address))
-                    .forEach(e -> {
-                        if (reportedPeersMap.containsKey(e.address)) {
-                            long adjustedTime = (e.lastActivityDate.getTime() +
-                                    reportedPeersMap.get(e.address).lastActivityDate.getTime()) / 2;
-                            adjustedReportedPeers.add(new ReportedPeer(e.address,
-                                    new Date(adjustedTime)));
-                        } else {
-                            adjustedReportedPeers.add(e);
-                        }
-                    });
-
-            reportedPeers.addAll(adjustedReportedPeers);
-            purgeReportedPeersIfExceeds();
+                    .forEach(reportedPeers::merge);
+            onPeersChanged();
+            persistPeers();
         }
 
         printReportedPeers();
     }
 
-    private void purgeReportedPeersIfExceeds() {
-        Log.traceCall();
-        int size = reportedPeers.size();
-        if (size > MAX_REPORTED_PEERS) {
-            log.trace("We have more then {} reported peers. size={}. " +
-                    "We remove random peers from the reported peers list.", MAX_REPORTED_PEERS, size);
-            int diff = size - MAX_REPORTED_PEERS;
-            List<ReportedPeer> list = new ArrayList<>(reportedPeers);
-            // we dont use sorting by lastActivityDate to avoid attack vectors and keep it more random
-            //log.debug("Peers before sort " + list);
-            //list.sort((a, b) -> a.lastActivityDate.compareTo(b.lastActivityDate));
-            //log.debug("Peers after sort  " + list);
-            for (int i = 0; i < diff; i++) {
-                ReportedPeer toRemove = getAndRemoveRandomReportedPeer(list);
-                reportedPeers.remove(toRemove);
-            }
-        } else {
-            log.trace("No need to purge reported peers. We don't have more then {} reported peers yet.", MAX_REPORTED_PEERS);
+    private void onPeersChanged() {
+        authenticatedAndReportedPeersSnapshot = null;
+    }
+
+    private void persistPeers() {
+        if (peersStorage != null && persistPeersTimer == null) {
+            persistPeersTimer = UserThread.runAfter(() -> {
+                persistPeersTimer = null;
+                doPersistPeers();
+            }, PERSIST_PEERS_DELAY_SEC);
         }
     }
 
+    private void doPersistPeers() {
+        if (peersStorage != null) {
+            // We store the authenticated peers as well as they are the best candidates after a restart
+            ArrayList<ReportedPeer> peersToPersist = new ArrayList<>(reportedPeers.getAll());
+            addAuthenticatedPeers(peersToPersist);
+            peersStorage.queueUpForSave(peersToPersist);
+        }
+    }
+
+    private void addAuthenticatedPeers(Collection<ReportedPeer> collection) {
+        Date now = new Date();
+        authenticatedPeers.keySet().stream()
+                .filter(e -> !seedNodeAddressesOptional.isPresent() || !seedNodeAddressesOptional.get().contains(e))
+                .forEach(e -> collection.add(new ReportedPeer(e, now)));
+    }
+
     @Nullable
     Address getMyAddress() {
         return networkNode.getAddress();
     }
 
-    private ReportedPeer getAndRemoveRandomReportedPeer(List<ReportedPeer> list) {
-        checkArgument(!list.isEmpty(), "List must not be empty");
-        return list.remove(new Random().nextInt(list.size()));
-    }
-
     private Optional<ReportedPeer> getAndRemoveNotAuthenticatingReportedPeer() {
-        Optional<ReportedPeer> reportedPeer = Optional.empty();
-        List<ReportedPeer> list = new ArrayList<>(reportedPeers);
-        authenticationHandshakes.keySet().stream().forEach(e -> list.remove(new ReportedPeer(e)));
-        authenticatedPeers.keySet().stream().forEach(e -> list.remove(new ReportedPeer(e)));
-        if (!list.isEmpty())
-            reportedPeer = Optional.of(getAndRemoveRandomReportedPeer(list));
-
+        Set<Address> excluded = new HashSet<>(authenticationHandshakes.keySet());
+        excluded.addAll(authenticatedPeers.keySet());
+        Optional<ReportedPeer> reportedPeer = reportedPeers.getRandomPeer(excluded);
+        reportedPeer.ifPresent(e -> removeFromReportedPeers(e.address));
         return reportedPeer;
     }
 
@@ -851,7 +910,7 @@ public class PeerManager implements MessageListener, ConnectionListener {
     private void printReportedPeers() {
         StringBuilder result = new StringBuilder("\n\n------------------------------------------------------------\n" +
                 "Reported peers for node " + getMyAddress() + ":");
-        reportedPeers.stream().forEach(e -> result.append("\n").append(e));
+        reportedPeers.getAll().stream().forEach(e -> result.append("\n").append(e));
         result.append("\n------------------------------------------------------------\n");
         log.info(result.toString());
     }
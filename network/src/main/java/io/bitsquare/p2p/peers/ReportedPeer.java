@@ -8,7 +8,7 @@ import java.util.Date;
 
 public class ReportedPeer implements Serializable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final Address address;
     public final Date lastActivityDate;
@@ -0,0 +1,127 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.p2p.Address;
+
+import java.util.*;
+
+// Bounded table of the peers reported to us by other peers.
+// Entries are kept in a list with an address -> index map, so lookup, update, removal and random sampling are O(1)
+// (removal swaps the last entry into the freed slot).
+// If the table is full we evict the least recently active peer out of a few randomly sampled ones. We don't sort the
+// whole table by lastActivityDate to not let a peer flood us with fresh dates to push out all other peers.
+// Not thread safe. Run in UserThread
+public class ReportedPeerTable {
+    private static final int SAMPLE_SIZE = 5;
+
+    private final int maxSize;
+    private final Random random = new Random();
+    private final List<ReportedPeer> entries = new ArrayList<>();
+    private final Map<Address, Integer> indexByAddress = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public ReportedPeerTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // In case we have the peer already we adjust the lastActivityDate to the mid of the lastActivityDate of our
+    // already stored peer and the reported one.
+    public void merge(ReportedPeer reportedPeer) {
+        Integer index = indexByAddress.get(reportedPeer.address);
+        if (index != null) {
+            ReportedPeer existing = entries.get(index);
+            if (reportedPeer.lastActivityDate != null && existing.lastActivityDate != null) {
+                long adjustedTime = (reportedPeer.lastActivityDate.getTime() + existing.lastActivityDate.getTime()) / 2;
+                entries.set(index, new ReportedPeer(reportedPeer.address, new Date(adjustedTime)));
+            } else if (existing.lastActivityDate == null) {
+                entries.set(index, reportedPeer);
+            }
+        } else {
+            if (entries.size() >= maxSize)
+                evict();
+
+            indexByAddress.put(reportedPeer.address, entries.size());
+            entries.add(reportedPeer);
+        }
+    }
+
+    public boolean remove(Address address) {
+        Integer index = indexByAddress.remove(address);
+        if (index != null) {
+            int lastIndex = entries.size() - 1;
+            ReportedPeer last = entries.remove(lastIndex);
+            if (index != lastIndex) {
+                entries.set(index, last);
+                indexByAddress.put(last.address, index);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public boolean contains(Address address) {
+        return indexByAddress.containsKey(address);
+    }
+
+    // Returns a random peer which is not excluded, or empty if all peers are excluded.
+    // The table is usually much larger than the excluded set (peers in authentication or authenticated), so random
+    // probing is cheaper than copying the table. We fall back to a scan if probing fails.
+    public Optional<ReportedPeer> getRandomPeer(Set<Address> excluded) {
+        int size = entries.size();
+        if (size == 0)
+            return Optional.empty();
+
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            ReportedPeer candidate = entries.get(random.nextInt(size));
+            if (!excluded.contains(candidate.address))
+                return Optional.of(candidate);
+        }
+
+        return entries.stream()
+                .filter(e -> !excluded.contains(e.address))
+                .findAny();
+    }
+
+    public Collection<ReportedPeer> getAll() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void evict() {
+        ReportedPeer oldest = null;
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            ReportedPeer candidate = entries.get(random.nextInt(entries.size()));
+            if (oldest == null || isOlder(candidate, oldest))
+                oldest = candidate;
+        }
+        remove(oldest.address);
+    }
+
+    private boolean isOlder(ReportedPeer a, ReportedPeer b) {
+        if (a.lastActivityDate == null)
+            return b.lastActivityDate != null;
+        else
+            return b.lastActivityDate != null && a.lastActivityDate.before(b.lastActivityDate);
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import io.bitsquare.app.Log;
+import io.bitsquare.common.ByteArray;
 import io.bitsquare.common.UserThread;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.Message;
@@ -13,18 +14,19 @@ import io.bitsquare.p2p.network.MessageListener;
 import io.bitsquare.p2p.network.NetworkNode;
 import io.bitsquare.p2p.peers.messages.data.DataRequest;
 import io.bitsquare.p2p.peers.messages.data.DataResponse;
+import io.bitsquare.p2p.seed.SeedNodeStats;
 import io.bitsquare.p2p.storage.P2PDataStorage;
 import io.bitsquare.p2p.storage.data.ProtectedData;
+import io.bitsquare.storage.Storage;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
-import static com.google.common.base.Preconditions.checkArgument;
-
 public class RequestDataManager implements MessageListener, AuthenticationListener {
     private static final Logger log = LoggerFactory.getLogger(RequestDataManager.class);
 
@@ -40,26 +42,49 @@ public class RequestDataManager implements MessageListener, AuthenticationListen
     }
 
 
+    // Number of seed nodes we request the data from at the same time. The first response wins.
+    private static final int PARALLEL_REQUESTS = 3;
+
     private final NetworkNode networkNode;
     private final P2PDataStorage dataStorage;
     private final PeerManager peerManager;
     private final Listener listener;
-
+    private final Storage<HashMap> statsStorage;
+
+    private final HashMap<Address, SeedNodeStats> seedNodeStatsMap = new HashMap<>();
+    // Seed nodes we have sent a DataRequest but did not get the response yet, with the time of the request
+    private final Map<Address, Long> pendingRequests = new HashMap<>();
+    private final Map<Address, Connection> pendingConnections = new HashMap<>();
+    // Requests where we are still connecting to the seed node
+    private final Map<Address, SettableFuture<Connection>> pendingConnects = new HashMap<>();
+    // Connects of canceled requests. We close the connection when it gets established.
+    private final Set<SettableFuture<Connection>> canceledConnects = new HashSet<>();
+    private final List<Address> remainingSeedNodeAddresses = new ArrayList<>();
+    // Peers we are authenticated with and expect a push of missing data from, with the time of authentication
+    private final Map<Address, Long> pendingDataPushes = new HashMap<>();
     private Optional<Address> optionalConnectedSeedNodeAddress = Optional.empty();
     private Optional<Collection<Address>> optionalSeedNodeAddresses = Optional.empty();
     private boolean isSeedNode;
+    private long requestDataStartTs;
+    private long lastAuthenticationToDataDuration = -1;
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public RequestDataManager(NetworkNode networkNode, P2PDataStorage dataStorage, PeerManager peerManager, Listener listener) {
+    public RequestDataManager(NetworkNode networkNode, P2PDataStorage dataStorage, PeerManager peerManager,
+                              File storageDir, Listener listener) {
         this.networkNode = networkNode;
         this.dataStorage = dataStorage;
         this.peerManager = peerManager;
         this.listener = listener;
 
+        statsStorage = new Storage<>(storageDir);
+        HashMap<Address, SeedNodeStats> persisted = statsStorage.initAndGetPersisted("SeedNodeStats");
+        if (persisted != null)
+            seedNodeStatsMap.putAll(persisted);
+
         networkNode.addMessageListener(this);
     }
 
@@ -79,56 +104,169 @@ public class RequestDataManager implements MessageListener, AuthenticationListen
     }
 
     public void requestData(Collection<Address> seedNodeAddresses) {
+        Log.traceCall(seedNodeAddresses.toString());
         if (!optionalSeedNodeAddresses.isPresent())
             optionalSeedNodeAddresses = Optional.of(seedNodeAddresses);
 
-        Log.traceCall(seedNodeAddresses.toString());
-        if (!seedNodeAddresses.isEmpty()) {
-            List<Address> remainingSeedNodeAddresses = new ArrayList<>(seedNodeAddresses);
-            Collections.shuffle(remainingSeedNodeAddresses);
-            Address candidate = remainingSeedNodeAddresses.get(0);
-            if (!peerManager.isInAuthenticationProcess(candidate)) {
-                // We only remove it if it is not in the process of authentication
-                remainingSeedNodeAddresses.remove(0);
-                log.info("We try to send a GetAllDataMessage request to a random seed node. " + candidate);
-
-                SettableFuture<Connection> future = networkNode.sendMessage(candidate, new DataRequest());
-                Futures.addCallback(future, new FutureCallback<Connection>() {
-                    @Override
-                    public void onSuccess(@Nullable Connection connection) {
-                        log.info("Send GetAllDataMessage to " + candidate + " succeeded.");
-                        checkArgument(!optionalConnectedSeedNodeAddress.isPresent(), "We have already a connectedSeedNode. That must not happen.");
-                        optionalConnectedSeedNodeAddress = Optional.of(candidate);
-                    }
-
-                    @Override
-                    public void onFailure(@NotNull Throwable throwable) {
-                        log.info("Send GetAllDataMessage to " + candidate + " failed. " +
-                                "That is expected if the seed node is offline. " +
-                                "Exception:" + throwable.getMessage());
-                        if (!remainingSeedNodeAddresses.isEmpty())
-                            log.trace("We try to connect another random seed node from our remaining list. " + remainingSeedNodeAddresses);
-
-                        requestData(remainingSeedNodeAddresses);
-                    }
-                });
-            } else {
-                log.info("The seed node ({}) is in the process of authentication.\n" +
-                        "We will try again after a pause of 3-5 sec.", candidate);
+        // We start a new round, any earlier result is not valid anymore
+        optionalConnectedSeedNodeAddress = Optional.empty();
+        pendingRequests.clear();
+        pendingConnections.clear();
+        pendingConnects.clear();
+        remainingSeedNodeAddresses.clear();
+        remainingSeedNodeAddresses.addAll(getSortedSeedNodeAddresses(seedNodeAddresses));
+        requestDataStartTs = System.currentTimeMillis();
+
+        sendDataRequests();
+    }
+
+    public Map<Address, SeedNodeStats> getSeedNodeStatsMap() {
+        return seedNodeStatsMap;
+    }
+
+    // Time between the authentication and the arrival of the data the peer has pushed to us. -1 if not measured yet.
+    public long getLastAuthenticationToDataDuration() {
+        return lastAuthenticationToDataDuration;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Request data
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // We send the DataRequest to several seed nodes in parallel so an offline seed node does not cost us a full
+    // connect timeout. Whoever responds first is used as our connected seed node.
+    private void sendDataRequests() {
+        Log.traceCall();
+        if (optionalConnectedSeedNodeAddress.isPresent())
+            return;
+
+        List<Address> authenticatingSeedNodes = new ArrayList<>();
+        while (pendingRequests.size() < PARALLEL_REQUESTS && !remainingSeedNodeAddresses.isEmpty()) {
+            Address candidate = remainingSeedNodeAddresses.remove(0);
+            if (!peerManager.isInAuthenticationProcess(candidate))
+                sendDataRequest(candidate);
+            else
+                authenticatingSeedNodes.add(candidate);
+        }
+
+        if (pendingRequests.isEmpty()) {
+            if (!authenticatingSeedNodes.isEmpty()) {
+                log.info("The seed nodes ({}) are in the process of authentication.\n" +
+                        "We will try again after a pause of 3-5 sec.", authenticatingSeedNodes);
                 listener.onNoSeedNodeAvailable();
-                UserThread.runAfterRandomDelay(() -> requestData(remainingSeedNodeAddresses),
+                UserThread.runAfterRandomDelay(() -> requestData(authenticatingSeedNodes),
                         3, 5, TimeUnit.SECONDS);
+            } else {
+                log.info("There is no seed node available for requesting data. " +
+                        "That is expected if no seed node is online.\n" +
+                        "We will try again after a pause of 10-20 sec.");
+                listener.onNoSeedNodeAvailable();
+                UserThread.runAfterRandomDelay(() -> requestData(optionalSeedNodeAddresses.get()),
+                        10, 20, TimeUnit.SECONDS);
             }
         } else {
-            log.info("There is no seed node available for requesting data. " +
-                    "That is expected if no seed node is online.\n" +
-                    "We will try again after a pause of 10-20 sec.");
-            listener.onNoSeedNodeAvailable();
-            UserThread.runAfterRandomDelay(() -> requestData(optionalSeedNodeAddresses.get()),
-                    10, 20, TimeUnit.SECONDS);
+            // Seed nodes we skipped because they are authenticating get another chance later in that round
+            remainingSeedNodeAddresses.addAll(authenticatingSeedNodes);
         }
     }
 
+    private void sendDataRequest(Address candidate) {
+        log.info("We try to send a GetAllDataMessage request to seed node " + candidate);
+        pendingRequests.put(candidate, System.currentTimeMillis());
+        SettableFuture<Connection> future = networkNode.sendMessage(candidate, new DataRequest());
+        pendingConnects.put(candidate, future);
+        Futures.addCallback(future, new FutureCallback<Connection>() {
+            @Override
+            public void onSuccess(@Nullable Connection connection) {
+                log.info("Send GetAllDataMessage to " + candidate + " succeeded.");
+                pendingConnects.remove(candidate, future);
+                if (connection != null) {
+                    if (canceledConnects.remove(future))
+                        closeUnusedConnection(candidate, connection);
+                    else if (pendingRequests.containsKey(candidate))
+                        pendingConnections.put(candidate, connection);
+                }
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                log.info("Send GetAllDataMessage to " + candidate + " failed. " +
+                        "That is expected if the seed node is offline. " +
+                        "Exception:" + throwable.getMessage());
+                pendingConnects.remove(candidate, future);
+                canceledConnects.remove(future);
+                if (pendingRequests.remove(candidate) != null) {
+                    pendingConnections.remove(candidate);
+                    getSeedNodeStats(candidate).onFailure();
+                    persistStats();
+
+                    if (!remainingSeedNodeAddresses.isEmpty())
+                        log.trace("We try to connect another seed node from our remaining list. " + remainingSeedNodeAddresses);
+
+                    sendDataRequests();
+                }
+            }
+        });
+    }
+
+    private void onDataResponseFromPendingRequest(Address peerAddress, long requestTs) {
+        long latency = System.currentTimeMillis() - requestTs;
+        getSeedNodeStats(peerAddress).onSuccess(latency);
+        persistStats();
+
+        if (!optionalConnectedSeedNodeAddress.isPresent()) {
+            log.info("We got the data from seed node {} after {} ms ({} ms since we started requesting data).",
+                    peerAddress, latency, System.currentTimeMillis() - requestDataStartTs);
+            optionalConnectedSeedNodeAddress = Optional.of(peerAddress);
+            cancelPendingRequests();
+        }
+    }
+
+    // We close the connections to the seed nodes which have not responded yet. The winner's connection is kept
+    // as it will be used for the authentication. Connects which are still in progress get closed when they complete.
+    private void cancelPendingRequests() {
+        pendingConnections.entrySet().stream().forEach(e -> closeUnusedConnection(e.getKey(), e.getValue()));
+        canceledConnects.addAll(pendingConnects.values());
+        pendingRequests.clear();
+        pendingConnections.clear();
+        pendingConnects.clear();
+        remainingSeedNodeAddresses.clear();
+    }
+
+    private void closeUnusedConnection(Address seedNodeAddress, Connection connection) {
+        boolean isConnectedSeedNode = optionalConnectedSeedNodeAddress.isPresent()
+                && optionalConnectedSeedNodeAddress.get().equals(seedNodeAddress);
+        if (!isConnectedSeedNode && !peerManager.isInAuthenticationProcess(seedNodeAddress)
+                && !connection.isAuthenticated()) {
+            log.debug("We cancel the pending DataRequest to seed node {}.", seedNodeAddress);
+            connection.shutDown();
+        }
+    }
+
+    // Seed nodes with the best history first. We always add one random seed node from the rest to keep learning
+    // about nodes we have not used recently and to spread the load.
+    private List<Address> getSortedSeedNodeAddresses(Collection<Address> seedNodeAddresses) {
+        List<Address> list = new ArrayList<>(seedNodeAddresses);
+        Collections.shuffle(list);
+        list.sort((a, b) -> Double.compare(getSeedNodeStats(a).getScore(), getSeedNodeStats(b).getScore()));
+        if (list.size() > PARALLEL_REQUESTS) {
+            int randomIndex = PARALLEL_REQUESTS - 1 + new Random().nextInt(list.size() - PARALLEL_REQUESTS + 1);
+            list.add(PARALLEL_REQUESTS - 1, list.remove(randomIndex));
+        }
+        return list;
+    }
+
+    private SeedNodeStats getSeedNodeStats(Address seedNodeAddress) {
+        if (!seedNodeStatsMap.containsKey(seedNodeAddress))
+            seedNodeStatsMap.put(seedNodeAddress, new SeedNodeStats());
+        return seedNodeStatsMap.get(seedNodeAddress);
+    }
+
+    private void persistStats() {
+        statsStorage.queueUpForSave(new HashMap<>(seedNodeStatsMap));
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // MessageListener implementation
@@ -145,10 +283,29 @@ public class RequestDataManager implements MessageListener, AuthenticationListen
             Log.traceCall(message.toString());
             DataResponse dataResponse = (DataResponse) message;
             HashSet<ProtectedData> set = dataResponse.set;
-            // we keep that connection open as the bootstrapping peer will use that for the authentication
-            // as we are not authenticated yet the data adding will not be broadcasted 
-            connection.getPeerAddressOptional().ifPresent(peerAddress -> set.stream().forEach(e -> dataStorage.add(e, peerAddress)));
-            optionalConnectedSeedNodeAddress.ifPresent(connectedSeedNodeAddress -> listener.onDataReceived(connectedSeedNodeAddress));
+            connection.getPeerAddressOptional().ifPresent(peerAddress -> {
+                Long requestTs = pendingRequests.remove(peerAddress);
+                pendingConnections.remove(peerAddress);
+                if (requestTs != null)
+                    onDataResponseFromPendingRequest(peerAddress, requestTs);
+
+                Long authenticatedTs = pendingDataPushes.remove(peerAddress);
+                if (authenticatedTs != null) {
+                    lastAuthenticationToDataDuration = System.currentTimeMillis() - authenticatedTs;
+                    log.info("We got {} missing entries pushed from peer {} {} ms after authentication.",
+                            set.size(), peerAddress, lastAuthenticationToDataDuration);
+                }
+
+                // we keep that connection open as the bootstrapping peer will use that for the authentication
+                // as we are not authenticated yet the data adding will not be broadcasted 
+                // Late responses of other seed nodes are still useful as they might have data we missed
+                set.stream().forEach(e -> dataStorage.add(e, peerAddress));
+
+                optionalConnectedSeedNodeAddress.ifPresent(connectedSeedNodeAddress -> {
+                    if (connectedSeedNodeAddress.equals(peerAddress))
+                        listener.onDataReceived(connectedSeedNodeAddress);
+                });
+            });
         }
     }
 
@@ -159,6 +316,25 @@ public class RequestDataManager implements MessageListener, AuthenticationListen
 
     @Override
     public void onPeerAuthenticated(Address peerAddress, Connection connection) {
+        Optional<HashMap<ByteArray, Integer>> peersDataDigestOptional = peerManager.getAndRemovePeersDataDigest(peerAddress);
+        if (peersDataDigestOptional.isPresent()) {
+            // The peer has sent us its data digest at authentication and will push us what we are missing,
+            // so we don't need to request the data again. We push the peer what it is missing.
+            HashMap<ByteArray, Integer> peersDataDigest = peersDataDigestOptional.get();
+            Map<ByteArray, ProtectedData> map = dataStorage.getMap();
+            boolean weAreMissingData = peersDataDigest.entrySet().stream()
+                    .anyMatch(e -> !map.containsKey(e.getKey()) || map.get(e.getKey()).sequenceNumber < e.getValue());
+            if (weAreMissingData)
+                pendingDataPushes.put(peerAddress, System.currentTimeMillis());
+
+            HashSet<ProtectedData> missingData = dataStorage.getMissingData(peersDataDigest);
+            if (!missingData.isEmpty()) {
+                log.info("We push {} entries the peer {} is missing.", missingData.size(), peerAddress);
+                networkNode.sendMessage(connection, new DataResponse(missingData));
+            }
+            return;
+        }
+
         if (isSeedNode && dataStorage.getMap().isEmpty()) {
             // We are the seed node and entering the network we request the data from the peer
             UserThread.runAfterRandomDelay(()
@@ -1,24 +1,33 @@
 package io.bitsquare.p2p.peers.messages.auth;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.ByteArray;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.peers.ReportedPeer;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
 import java.util.HashSet;
 
 public final class AuthenticationChallenge extends AuthenticationMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long requesterNonce;
     public final long responderNonce;
     public final HashSet<ReportedPeer> reportedPeers;
+    // Hash of payload -> sequence number of our data. Lets the peer push us the data we are missing right after
+    // the authentication. Is null if sent from a peer not supporting it or having too much data for a digest.
+    @Nullable
+    public final HashMap<ByteArray, Integer> dataDigest;
 
-    public AuthenticationChallenge(Address senderAddress, long requesterNonce, long responderNonce, HashSet<ReportedPeer> reportedPeers) {
+    public AuthenticationChallenge(Address senderAddress, long requesterNonce, long responderNonce,
+                                   HashSet<ReportedPeer> reportedPeers, @Nullable HashMap<ByteArray, Integer> dataDigest) {
         super(senderAddress);
         this.requesterNonce = requesterNonce;
         this.responderNonce = responderNonce;
         this.reportedPeers = reportedPeers;
+        this.dataDigest = dataDigest;
     }
 
     @Override
@@ -27,6 +36,7 @@ public final class AuthenticationChallenge extends AuthenticationMessage {
                 ", requesterNonce=" + requesterNonce +
                 ", responderNonce=" + responderNonce +
                 ", reportedPeers=" + reportedPeers +
+                ", dataDigest.size()=" + (dataDigest != null ? dataDigest.size() : "null") +
                 super.toString() + "} ";
     }
 }
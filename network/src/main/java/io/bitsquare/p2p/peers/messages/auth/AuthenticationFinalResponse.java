@@ -1,22 +1,30 @@
 package io.bitsquare.p2p.peers.messages.auth;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.ByteArray;
 import io.bitsquare.p2p.Address;
 import io.bitsquare.p2p.peers.ReportedPeer;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
 import java.util.HashSet;
 
 public final class AuthenticationFinalResponse extends AuthenticationMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long responderNonce;
     public final HashSet<ReportedPeer> reportedPeers;
+    // See AuthenticationChallenge.dataDigest
+    @Nullable
+    public final HashMap<ByteArray, Integer> dataDigest;
 
-    public AuthenticationFinalResponse(Address senderAddress, long responderNonce, HashSet<ReportedPeer> reportedPeers) {
+    public AuthenticationFinalResponse(Address senderAddress, long responderNonce, HashSet<ReportedPeer> reportedPeers,
+                                       @Nullable HashMap<ByteArray, Integer> dataDigest) {
         super(senderAddress);
         this.responderNonce = responderNonce;
         this.reportedPeers = reportedPeers;
+        this.dataDigest = dataDigest;
     }
 
     @Override
@@ -25,6 +33,7 @@ public final class AuthenticationFinalResponse extends AuthenticationMessage {
                 "address=" + senderAddress +
                 ", responderNonce=" + responderNonce +
                 ", reportedPeers=" + reportedPeers +
+                ", dataDigest.size()=" + (dataDigest != null ? dataDigest.size() : "null") +
                 super.toString() + "} ";
     }
 }
@@ -5,7 +5,7 @@ import io.bitsquare.p2p.Address;
 
 public final class AuthenticationRequest extends AuthenticationMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long requesterNonce;
 
@@ -8,7 +8,7 @@ import java.util.HashSet;
 
 public final class DataResponse implements Message {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
     private final int networkId = Version.NETWORK_ID;
     
     public final HashSet<ProtectedData> set;
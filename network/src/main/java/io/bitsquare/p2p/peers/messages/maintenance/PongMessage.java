@@ -4,7 +4,7 @@ import io.bitsquare.app.Version;
 
 public final class PongMessage extends MaintenanceMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final long nonce;
 
@@ -7,7 +7,7 @@ import java.util.HashSet;
 
 public final class GetPeersResponse extends PeerExchangeMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final HashSet<ReportedPeer> reportedPeers;
 
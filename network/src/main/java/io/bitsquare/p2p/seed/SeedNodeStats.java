@@ -0,0 +1,58 @@
+package io.bitsquare.p2p.seed;
+
+import io.bitsquare.app.Version;
+
+import java.io.Serializable;
+
+/**
+ * Latency and success history of a seed node. Used to order the seed nodes we contact at startup.
+ * Values are exponential moving averages so that recent behaviour counts more than old one.
+ */
+public class SeedNodeStats implements Serializable {
+    // That object is saved to disc. We need to take care of changes to not break deserialization.
+    private static final long serialVersionUID = Version.LOCAL_DB_VERSION;
+
+    private static final double WEIGHT = 0.3;
+    private static final long DEFAULT_LATENCY = 20 * 1000;
+
+    private double averageLatency = DEFAULT_LATENCY;
+    private double successRate = 0.5;
+    private int numRequests;
+
+    public void onSuccess(long latency) {
+        averageLatency = numRequests == 0 ? latency : averageLatency * (1 - WEIGHT) + latency * WEIGHT;
+        successRate = successRate * (1 - WEIGHT) + WEIGHT;
+        numRequests++;
+    }
+
+    public void onFailure() {
+        successRate = successRate * (1 - WEIGHT);
+        numRequests++;
+    }
+
+    // Expected time until we get the data from that seed node. Lower is better.
+    public double getScore() {
+        return averageLatency / Math.max(successRate, 0.05);
+    }
+
+    public long getAverageLatency() {
+        return (long) averageLatency;
+    }
+
+    public double getSuccessRate() {
+        return successRate;
+    }
+
+    public int getNumRequests() {
+        return numRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "SeedNodeStats{" +
+                "averageLatency=" + getAverageLatency() +
+                ", successRate=" + successRate +
+                ", numRequests=" + numRequests +
+                '}';
+    }
+}
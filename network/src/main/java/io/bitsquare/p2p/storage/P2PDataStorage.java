@@ -38,6 +38,12 @@ public class P2PDataStorage implements MessageListener {
     @VisibleForTesting
     public static int CHECK_TTL_INTERVAL = 10 * 60 * 1000;
 
+    // An entry of the data digest takes about 60 bytes serialized, so the digest stays at about 1.2 MB and the
+    // authentication messages with the reported peers fit into Connection.getMaxMsgSize(). With more data we send no
+    // digest and the peer requests the data after the authentication.
+    @VisibleForTesting
+    public static final int MAX_DATA_DIGEST_ENTRIES = 20000;
+
     private final PeerManager peerManager;
     private final Map<ByteArray, ProtectedData> map = new HashMap<>();
     private final CopyOnWriteArraySet<HashMapChangedListener> hashMapChangedListeners = new CopyOnWriteArraySet<>();
@@ -246,6 +252,30 @@ public class P2PDataStorage implements MessageListener {
         return map;
     }
 
+    // Hash of payload -> sequence number for all our entries. Sent at authentication so the peer can tell
+    // which data we are missing. Is null if we have more than MAX_DATA_DIGEST_ENTRIES entries.
+    @Nullable
+    public HashMap<ByteArray, Integer> getDataDigest() {
+        if (map.size() > MAX_DATA_DIGEST_ENTRIES) {
+            log.info("We have {} entries, too many for sending a data digest.", map.size());
+            return null;
+        }
+
+        HashMap<ByteArray, Integer> dataDigest = new HashMap<>();
+        map.entrySet().stream().forEach(e -> dataDigest.put(e.getKey(), e.getValue().sequenceNumber));
+        return dataDigest;
+    }
+
+    // Entries the peer does not have or has only with a lower sequence number
+    public HashSet<ProtectedData> getMissingData(Map<ByteArray, Integer> peersDataDigest) {
+        HashSet<ProtectedData> missingData = new HashSet<>();
+        map.entrySet().stream()
+                .filter(e -> !peersDataDigest.containsKey(e.getKey())
+                        || peersDataDigest.get(e.getKey()) < e.getValue().sequenceNumber)
+                .forEach(e -> missingData.add(e.getValue()));
+        return missingData;
+    }
+
     public ProtectedData getDataWithSignedSeqNr(ExpirablePayload payload, KeyPair ownerStoragePubKey)
             throws CryptoException {
         Log.traceCall();
@@ -1,8 +1,13 @@
 package io.bitsquare.p2p.storage.data;
 
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
+import io.bitsquare.common.util.Utilities;
+
 import java.io.Serializable;
 
-public class DataAndSeqNr implements Serializable {
+// The object which gets signed by the data owner. The signature is created and verified over its canonical encoding.
+public class DataAndSeqNr implements Serializable, CanonicalEncodable {
     public final Serializable data;
     public final int sequenceNumber;
 
@@ -11,6 +16,17 @@ public class DataAndSeqNr implements Serializable {
         this.sequenceNumber = sequenceNumber;
     }
 
+    // Payloads without canonical encoding are included with their Java serialisation
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("DataAndSeqNr")
+                .writeInt(sequenceNumber);
+        if (data instanceof CanonicalEncodable)
+            encoder.write((CanonicalEncodable) data);
+        else
+            encoder.writeBytes(data != null ? Utilities.serialize(data) : null);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,19 +1,26 @@
 package io.bitsquare.p2p.storage.data;
 
 import io.bitsquare.app.Version;
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
+import io.bitsquare.common.crypto.PublicKeyCache;
 import io.bitsquare.crypto.SealedAndSignedMessage;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.security.PublicKey;
 
-public final class ExpirableMailboxPayload implements ExpirablePayload {
+public final class ExpirableMailboxPayload implements ExpirablePayload, CanonicalEncodable {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     private static final long TTL = 10 * 24 * 60 * 60 * 1000; // 10 days
 
     public final SealedAndSignedMessage sealedAndSignedMessage;
-    public final PublicKey senderStoragePublicKey;
-    public final PublicKey receiverStoragePublicKey;
+    // Serialized as encoded bytes and decoded by the PublicKeyCache, see writeObject
+    transient public PublicKey senderStoragePublicKey;
+    transient public PublicKey receiverStoragePublicKey;
 
     public ExpirableMailboxPayload(SealedAndSignedMessage sealedAndSignedMessage, PublicKey senderStoragePublicKey, PublicKey receiverStoragePublicKey) {
         this.sealedAndSignedMessage = sealedAndSignedMessage;
@@ -21,11 +28,31 @@ public final class ExpirableMailboxPayload implements ExpirablePayload {
         this.receiverStoragePublicKey = receiverStoragePublicKey;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        PublicKeyCache.writePublicKey(out, senderStoragePublicKey);
+        PublicKeyCache.writePublicKey(out, receiverStoragePublicKey);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        senderStoragePublicKey = PublicKeyCache.readRequiredPublicKey(in, "senderStoragePublicKey");
+        receiverStoragePublicKey = PublicKeyCache.readRequiredPublicKey(in, "receiverStoragePublicKey");
+    }
+
     @Override
     public long getTTL() {
         return TTL;
     }
 
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("ExpirableMailboxPayload")
+                .write(sealedAndSignedMessage)
+                .writePublicKey(senderStoragePublicKey)
+                .writePublicKey(receiverStoragePublicKey);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,21 +1,28 @@
 package io.bitsquare.p2p.storage.data;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.bitsquare.common.crypto.CanonicalEncodable;
+import io.bitsquare.common.crypto.CanonicalEncoder;
+import io.bitsquare.common.crypto.PublicKeyCache;
+import io.bitsquare.common.util.Utilities;
 import io.bitsquare.p2p.storage.P2PDataStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.security.PublicKey;
 import java.util.Date;
 
-public class ProtectedData implements Serializable {
+public class ProtectedData implements Serializable, CanonicalEncodable {
     private static final Logger log = LoggerFactory.getLogger(P2PDataStorage.class);
 
     public final ExpirablePayload expirablePayload;
     transient public long ttl;
-    public final PublicKey ownerStoragePubKey;
+    // Serialized as encoded bytes and decoded by the PublicKeyCache, see writeObject
+    transient public PublicKey ownerStoragePubKey;
     public final int sequenceNumber;
     public final byte[] signature;
     @VisibleForTesting
@@ -30,16 +37,38 @@ public class ProtectedData implements Serializable {
         this.date = new Date();
     }
 
+    // A missing payload or a key we can't decode fails the deserialization, we must never end up with a half
+    // initialized object in the storage
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
-        try {
-            in.defaultReadObject();
-            ttl = expirablePayload.getTTL();
-            date = new Date();
-
-        } catch (Throwable t) {
-            log.error("Exception at readObject: " + t.getMessage());
-            t.printStackTrace();
-        }
+        in.defaultReadObject();
+        ownerStoragePubKey = PublicKeyCache.readRequiredPublicKey(in, "ownerStoragePubKey");
+        if (expirablePayload == null)
+            throw new InvalidObjectException("expirablePayload must not be null");
+
+        ttl = expirablePayload.getTTL();
+        date = new Date();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        PublicKeyCache.writePublicKey(out, ownerStoragePubKey);
+    }
+
+    // ttl and date are local values and not part of the encoding
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("ProtectedData");
+        encodeFields(encoder);
+    }
+
+    protected void encodeFields(CanonicalEncoder encoder) {
+        if (expirablePayload instanceof CanonicalEncodable)
+            encoder.write((CanonicalEncodable) expirablePayload);
+        else
+            encoder.writeBytes(Utilities.serialize(expirablePayload));
+        encoder.writePublicKey(ownerStoragePubKey)
+                .writeInt(sequenceNumber)
+                .writeBytes(signature);
     }
 
     public boolean isExpired() {
@@ -1,17 +1,21 @@
 package io.bitsquare.p2p.storage.data;
 
+import io.bitsquare.common.crypto.CanonicalEncoder;
+import io.bitsquare.common.crypto.PublicKeyCache;
 import io.bitsquare.p2p.storage.P2PDataStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.security.PublicKey;
 import java.util.Date;
 
 public class ProtectedMailboxData extends ProtectedData {
     private static final Logger log = LoggerFactory.getLogger(P2PDataStorage.class);
 
-    public final PublicKey receiversPubKey;
+    // Serialized as encoded bytes and decoded by the PublicKeyCache, see writeObject
+    transient public PublicKey receiversPubKey;
 
     public ProtectedMailboxData(ExpirableMailboxPayload data, long ttl, PublicKey ownerStoragePubKey, int sequenceNumber, byte[] signature, PublicKey receiversPubKey) {
         super(data, ttl, ownerStoragePubKey, sequenceNumber, signature);
@@ -20,24 +24,31 @@ public class ProtectedMailboxData extends ProtectedData {
     }
 
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
-        try {
-            in.defaultReadObject();
-            ttl = expirablePayload.getTTL();
-
-            // in case the reported creation date is in the future 
-            // we reset the date to the current time
-            if (date.getTime() > new Date().getTime()) {
-                log.warn("Date of object is in future. " +
-                        "That might be ok as clocks are not synced but could be also a spam attack. " +
-                        "date=" + date + " / now=" + new Date());
-                date = new Date();
-            }
-            date = new Date();
+        in.defaultReadObject();
+        receiversPubKey = PublicKeyCache.readRequiredPublicKey(in, "receiversPubKey");
+        ttl = expirablePayload.getTTL();
 
-        } catch (Throwable t) {
-            log.error("Exception at readObject: " + t.getMessage());
-            t.printStackTrace();
+        // in case the reported creation date is in the future 
+        // we reset the date to the current time
+        if (date.getTime() > new Date().getTime()) {
+            log.warn("Date of object is in future. " +
+                    "That might be ok as clocks are not synced but could be also a spam attack. " +
+                    "date=" + date + " / now=" + new Date());
+            date = new Date();
         }
+        date = new Date();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        PublicKeyCache.writePublicKey(out, receiversPubKey);
+    }
+
+    @Override
+    public void encode(CanonicalEncoder encoder) {
+        encoder.writeString("ProtectedMailboxData");
+        encodeFields(encoder);
+        encoder.writePublicKey(receiversPubKey);
     }
 
     public boolean isExpired() {
@@ -5,7 +5,7 @@ import io.bitsquare.p2p.storage.data.ProtectedData;
 
 public final class RemoveDataMessage extends DataBroadcastMessage {
     // That object is sent over the wire, so we need to take care of version compatibility.
-    private static final long serialVersionUID = Version.NETWORK_PROTOCOL_VERSION;
+    private static final long serialVersionUID = Version.NETWORK_OBJECT_VERSION;
 
     public final ProtectedData data;
 
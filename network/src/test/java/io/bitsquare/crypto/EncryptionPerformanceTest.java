@@ -0,0 +1,79 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.crypto;
+
+import io.bitsquare.common.crypto.CryptoException;
+import io.bitsquare.common.crypto.Encryption;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.Security;
+import java.util.Random;
+
+// Logs the MB/s of encrypting and decrypting payloads of 1 kB to 5 MB with AES-GCM.
+// Ignored for automated tests
+@Ignore
+public class EncryptionPerformanceTest {
+    private static final Logger log = LoggerFactory.getLogger(EncryptionPerformanceTest.class);
+
+    private static final int[] PAYLOAD_SIZES = {1024, 64 * 1024, 1024 * 1024, 5 * 1024 * 1024};
+    private static final int BYTES_PER_RUN = 50 * 1024 * 1024;
+
+    private SecretKey secretKey;
+
+    @Before
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(Encryption.SYM_KEY_ALGO, "BC");
+        keyGenerator.init(256);
+        secretKey = keyGenerator.generateKey();
+    }
+
+    @Test
+    public void testThroughput() throws CryptoException {
+        for (int size : PAYLOAD_SIZES) {
+            byte[] payload = createPayload(size);
+            int iterations = Math.max(10, BYTES_PER_RUN / size);
+            // Warm up
+            run(payload, iterations);
+
+            long duration = run(payload, iterations);
+            log.info("Payload of {} bytes: AES-GCM {} MB/s", size, (long) size * iterations * 1000 / Math.max(1, duration));
+        }
+    }
+
+    // Duration in ns
+    private long run(byte[] payload, int iterations) throws CryptoException {
+        long ts = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            Encryption.decryptPayloadWithAead(Encryption.encryptPayloadWithAead(payload, secretKey), secretKey);
+        return System.nanoTime() - ts;
+    }
+
+    private byte[] createPayload(int size) {
+        byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        return payload;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Bitsquare.
+ *
+ * Bitsquare is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bitsquare is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bitsquare. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.bitsquare.crypto;
+
+import io.bitsquare.common.crypto.*;
+import io.bitsquare.common.util.Utilities;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class EncryptionTest {
+    private SecretKey secretKey;
+
+    @Before
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(Encryption.SYM_KEY_ALGO, "BC");
+        keyGenerator.init(256);
+        secretKey = keyGenerator.generateKey();
+    }
+
+    @Test
+    public void testAeadRoundTrip() throws CryptoException {
+        for (int size : new int[]{0, 1, 1024, 5 * 1024 * 1024}) {
+            byte[] payload = createPayload(size);
+            assertArrayEquals(payload, Encryption.decryptPayloadWithAead(Encryption.encryptPayloadWithAead(payload, secretKey), secretKey));
+        }
+    }
+
+    // The Serializable overload streams the object through the cipher
+    @Test
+    public void testAeadRoundTripOfSerializable() throws CryptoException {
+        ArrayList<String> object = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        byte[] decrypted = Encryption.decryptPayloadWithAead(Encryption.encryptPayloadWithAead(object, secretKey), secretKey);
+        assertEquals(object, Utilities.deserialize(decrypted));
+    }
+
+    @Test(expected = CryptoException.class)
+    public void testAeadTamperedPayload() throws CryptoException {
+        byte[] encrypted = Encryption.encryptPayloadWithAead(createPayload(1024), secretKey);
+        encrypted[encrypted.length / 2] ^= 1;
+        Encryption.decryptPayloadWithAead(encrypted, secretKey);
+    }
+
+    @Test(expected = CryptoException.class)
+    public void testAeadTooShort() throws CryptoException {
+        Encryption.decryptPayloadWithAead(new byte[20], secretKey);
+    }
+
+    @Test
+    public void testHybridRoundTrip() throws CryptoException {
+        KeyPair signatureKeyPair = Sig.generateKeyPair();
+        KeyPair encryptionKeyPair = Encryption.generateKeyPair();
+        String payload = "test payload";
+
+        SealedAndSigned sealedAndSigned = Encryption.encryptHybridWithSignature(payload, signatureKeyPair,
+                encryptionKeyPair.getPublic());
+        DecryptedPayloadWithPubKey decrypted = Encryption.decryptHybridWithSignature(sealedAndSigned,
+                encryptionKeyPair.getPrivate());
+
+        assertEquals(payload, decrypted.payload);
+        assertEquals(signatureKeyPair.getPublic(), decrypted.sigPublicKey);
+    }
+
+    // The signature covers the encrypted payload, so a modification is detected before we decrypt
+    @Test(expected = CryptoException.class)
+    public void testHybridTamperedPayload() throws CryptoException {
+        KeyPair signatureKeyPair = Sig.generateKeyPair();
+        KeyPair encryptionKeyPair = Encryption.generateKeyPair();
+        SealedAndSigned sealedAndSigned = Encryption.encryptHybridWithSignature("test payload", signatureKeyPair,
+                encryptionKeyPair.getPublic());
+        sealedAndSigned.encryptedPayload[sealedAndSigned.encryptedPayload.length / 2] ^= 1;
+
+        Encryption.decryptHybridWithSignature(sealedAndSigned, encryptionKeyPair.getPrivate());
+    }
+
+    private byte[] createPayload(int size) {
+        byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        return payload;
+    }
+}
@@ -0,0 +1,146 @@
+package io.bitsquare.p2p;
+
+import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.crypto.KeyStorage;
+import io.bitsquare.crypto.EncryptionService;
+import io.bitsquare.p2p.network.LocalhostNetworkNode;
+import io.bitsquare.p2p.seed.SeedNode;
+import io.bitsquare.p2p.seed.SeedNodesRepository;
+import io.bitsquare.p2p.storage.HashMapChangedListener;
+import io.bitsquare.p2p.storage.data.ProtectedData;
+import io.bitsquare.p2p.storage.mocks.MockData;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.Security;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Runs a seed node and 2 nodes on localhost, so it does not need tor
+public class DataPushAfterAuthenticationTest {
+    private static final Logger log = LoggerFactory.getLogger(DataPushAfterAuthenticationTest.class);
+
+    private Set<Address> seedNodes;
+    private File dir2, dir3;
+    private KeyRing keyRing2, keyRing3;
+    private SeedNode seedNode;
+    private P2PService p2PService2, p2PService3;
+
+    @Before
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        dir2 = createTempDir("temp_tests2");
+        dir3 = createTempDir("temp_tests3");
+
+        LocalhostNetworkNode.setSimulateTorDelayTorNode(10);
+        LocalhostNetworkNode.setSimulateTorDelayHiddenService(100);
+
+        keyRing2 = new KeyRing(new KeyStorage(dir2));
+        keyRing3 = new KeyRing(new KeyStorage(dir3));
+
+        seedNodes = new HashSet<>();
+        seedNode = TestUtils.getAndStartSeedNode(8001, true, seedNodes);
+        p2PService2 = TestUtils.getAndAuthenticateP2PService(8002, new EncryptionService(keyRing2), keyRing2, true,
+                seedNodes);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (seedNode != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            seedNode.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+        if (p2PService2 != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            p2PService2.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+        if (p2PService3 != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            p2PService3.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+    }
+
+    // Measures the time from the authentication of a new node to the arrival of the data it is missing. mockData2 is
+    // added after the new node got the initial data, so it only reaches the new node by the push which follows the
+    // data digest sent with the authentication messages (or by the broadcast if the seed node got it later).
+    @Test
+    public void testAuthenticationToFirstDataLatency() throws InterruptedException {
+        MockData mockData1 = new MockData("mockData1", keyRing2.getSignatureKeyPair().getPublic());
+        Assert.assertTrue(p2PService2.addData(mockData1));
+
+        SeedNodesRepository seedNodesRepository = new SeedNodesRepository();
+        seedNodesRepository.setLocalhostSeedNodeAddresses(seedNodes);
+        p2PService3 = new P2PService(seedNodesRepository, 8003, new File("seed_node_8003"), true,
+                2, dir3, new EncryptionService(keyRing3), keyRing3);
+
+        MockData mockData2 = new MockData("mockData2", keyRing2.getSignatureKeyPair().getPublic());
+        CountDownLatch latch = new CountDownLatch(2);
+        long[] timeStamps = new long[2];
+        p2PService3.addHashSetChangedListener(new HashMapChangedListener() {
+            @Override
+            public void onAdded(ProtectedData entry) {
+                if (mockData2.equals(entry.expirablePayload) && timeStamps[1] == 0) {
+                    timeStamps[1] = System.currentTimeMillis();
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void onRemoved(ProtectedData entry) {
+            }
+        });
+        p2PService3.start(new P2PServiceListener() {
+            @Override
+            public void onRequestingDataCompleted() {
+                Assert.assertTrue(p2PService2.addData(mockData2));
+            }
+
+            @Override
+            public void onNoSeedNodeAvailable() {
+            }
+
+            @Override
+            public void onTorNodeReady() {
+            }
+
+            @Override
+            public void onFirstPeerAuthenticated() {
+                timeStamps[0] = System.currentTimeMillis();
+                latch.countDown();
+            }
+
+            @Override
+            public void onHiddenServicePublished() {
+            }
+
+            @Override
+            public void onSetupFailed(Throwable throwable) {
+            }
+        });
+        Assert.assertTrue("Pushed data did not arrive in time", latch.await(30, TimeUnit.SECONDS));
+
+        log.info("First authenticated peer to pushed data: {} ms. Measured by RequestDataManager: {} ms.",
+                timeStamps[1] - timeStamps[0],
+                p2PService3.getRequestDataManager().getLastAuthenticationToDataDuration());
+        Assert.assertEquals(2, p2PService3.getDataMap().size());
+    }
+
+    private static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        dir.delete();
+        dir.mkdir();
+        return dir;
+    }
+}
@@ -0,0 +1,143 @@
+package io.bitsquare.p2p;
+
+import io.bitsquare.common.crypto.KeyRing;
+import io.bitsquare.common.crypto.KeyStorage;
+import io.bitsquare.crypto.EncryptionService;
+import io.bitsquare.p2p.network.LocalhostNetworkNode;
+import io.bitsquare.p2p.peers.AuthenticationHandshake;
+import io.bitsquare.p2p.seed.SeedNode;
+import io.bitsquare.p2p.seed.SeedNodesRepository;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.Security;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Runs a seed node and 2 nodes on localhost with a simulated delay of the hidden service publication. One node uses
+// the fast tor restart, so it requests authentication before its hidden service is published and the seed node has
+// to retry to connect back to it.
+public class FastTorRestartTest {
+    private static final Logger log = LoggerFactory.getLogger(FastTorRestartTest.class);
+    private static final int HIDDEN_SERVICE_DELAY = 3000;
+    // The seed node waits 2 sec. before it connects back to a node which requested authentication
+    private static final int CONNECT_BACK_DELAY = 2000;
+    // The localhost seed nodes of a network are the ones with a port ending with the network id
+    private static final int NETWORK_ID = 1;
+
+    private long defaultConnectBackRetryDelay;
+    private File dir2, dir3;
+    private SeedNode seedNode;
+    private P2PService p2PService2, p2PService3;
+
+    @Before
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        dir2 = createTempDir("temp_tests2");
+        dir3 = createTempDir("temp_tests3");
+
+        LocalhostNetworkNode.setSimulateTorDelayTorNode(10);
+        LocalhostNetworkNode.setSimulateTorDelayHiddenService(HIDDEN_SERVICE_DELAY);
+        defaultConnectBackRetryDelay = AuthenticationHandshake.CONNECT_BACK_RETRY_DELAY;
+        AuthenticationHandshake.CONNECT_BACK_RETRY_DELAY = 200;
+
+        seedNode = TestUtils.getAndStartSeedNode(8001, true, new HashSet<>());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        AuthenticationHandshake.CONNECT_BACK_RETRY_DELAY = defaultConnectBackRetryDelay;
+        LocalhostNetworkNode.setSimulateTorDelayHiddenService(500);
+
+        if (seedNode != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            seedNode.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+        if (p2PService2 != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            p2PService2.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+        if (p2PService3 != null) {
+            CountDownLatch shutDownLatch = new CountDownLatch(1);
+            p2PService3.shutDown(() -> shutDownLatch.countDown());
+            shutDownLatch.await();
+        }
+    }
+
+    @Test
+    public void testFastRestartAuthenticatesEarlier() throws InterruptedException {
+        p2PService2 = startAndAwaitFirstPeerAuthenticated(8003, false, dir2);
+        long normalAfterPublished = p2PService2.getTimeToFirstPeerAuthenticated()
+                - p2PService2.getTimeToHiddenServicePublished();
+
+        p2PService3 = startAndAwaitFirstPeerAuthenticated(8005, true, dir3);
+        long fastAfterPublished = p2PService3.getTimeToFirstPeerAuthenticated()
+                - p2PService3.getTimeToHiddenServicePublished();
+
+        log.info("First peer authenticated after the hidden service was published: {} ms, with fast restart: {} ms",
+                normalAfterPublished, fastAfterPublished);
+        // Without fast restart we can only request authentication once our hidden service is published
+        Assert.assertTrue(normalAfterPublished >= CONNECT_BACK_DELAY);
+        // With fast restart the request and the connect back delay overlap with the publication
+        Assert.assertTrue(fastAfterPublished < CONNECT_BACK_DELAY);
+        Assert.assertTrue(p2PService3.getTimeToFirstPeerAuthenticated() < p2PService2.getTimeToFirstPeerAuthenticated());
+    }
+
+    private P2PService startAndAwaitFirstPeerAuthenticated(int port, boolean fastTorRestart, File dir)
+            throws InterruptedException {
+        SeedNodesRepository seedNodesRepository = new SeedNodesRepository();
+        seedNodesRepository.setLocalhostSeedNodeAddresses(new HashSet<>(Collections.singleton(new Address("localhost:8001"))));
+        KeyRing keyRing = new KeyRing(new KeyStorage(dir));
+        P2PService p2PService = new P2PService(seedNodesRepository, port, new File("seed_node_" + port), true,
+                fastTorRestart, NETWORK_ID, dir, new EncryptionService(keyRing), keyRing);
+
+        CountDownLatch latch = new CountDownLatch(2);
+        p2PService.start(new P2PServiceListener() {
+            @Override
+            public void onRequestingDataCompleted() {
+            }
+
+            @Override
+            public void onNoSeedNodeAvailable() {
+            }
+
+            @Override
+            public void onTorNodeReady() {
+            }
+
+            @Override
+            public void onFirstPeerAuthenticated() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onHiddenServicePublished() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onSetupFailed(Throwable throwable) {
+            }
+        });
+        Assert.assertTrue("No peer authenticated in time", latch.await(30, TimeUnit.SECONDS));
+        return p2PService;
+    }
+
+    private static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        dir.delete();
+        dir.mkdir();
+        return dir;
+    }
+}
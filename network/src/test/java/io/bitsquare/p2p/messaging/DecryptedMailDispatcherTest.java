@@ -0,0 +1,66 @@
+package io.bitsquare.p2p.messaging;
+
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.mocks.MockMessage;
+import io.bitsquare.p2p.mocks.MockRoutableMailMessage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DecryptedMailDispatcherTest {
+    private static final Logger log = LoggerFactory.getLogger(DecryptedMailDispatcherTest.class);
+
+    private final Address peerAddress = new Address("localhost", 8001);
+
+    @Test
+    public void testRouting() {
+        DecryptedMailDispatcher dispatcher = new DecryptedMailDispatcher();
+        AtomicInteger routedCounter = new AtomicInteger();
+        AtomicInteger allCounter = new AtomicInteger();
+        DecryptedMailListener routedListener = (decryptedMsgWithPubKey, peerAddress) -> routedCounter.incrementAndGet();
+        dispatcher.addListener("id1", routedListener);
+        dispatcher.addListener((decryptedMsgWithPubKey, peerAddress) -> allCounter.incrementAndGet());
+
+        dispatcher.dispatch(new DecryptedMsgWithPubKey(new MockRoutableMailMessage("id1"), null), peerAddress);
+        dispatcher.dispatch(new DecryptedMsgWithPubKey(new MockRoutableMailMessage("id2"), null), peerAddress);
+        dispatcher.dispatch(new DecryptedMsgWithPubKey(new MockMessage("msg"), null), peerAddress);
+        Assert.assertEquals(1, routedCounter.get());
+        Assert.assertEquals(3, allCounter.get());
+
+        dispatcher.removeListener("id1", routedListener);
+        Assert.assertEquals(0, dispatcher.getNumRoutingIds());
+        dispatcher.dispatch(new DecryptedMsgWithPubKey(new MockRoutableMailMessage("id1"), null), peerAddress);
+        Assert.assertEquals(1, routedCounter.get());
+    }
+
+    @Test
+    public void testDispatchToManyProtocols() {
+        int numProtocols = 1000;
+        int numMessages = 10000;
+        DecryptedMailDispatcher dispatcher = new DecryptedMailDispatcher();
+        int[] counters = new int[numProtocols];
+        for (int i = 0; i < numProtocols; i++) {
+            final int index = i;
+            dispatcher.addListener(String.valueOf(i), (decryptedMsgWithPubKey, peerAddress) -> counters[index]++);
+        }
+
+        DecryptedMsgWithPubKey[] messages = new DecryptedMsgWithPubKey[numMessages];
+        for (int i = 0; i < numMessages; i++) {
+            messages[i] = new DecryptedMsgWithPubKey(new MockRoutableMailMessage(String.valueOf(i % numProtocols)), null);
+        }
+
+        long ts = System.nanoTime();
+        for (DecryptedMsgWithPubKey message : messages) {
+            dispatcher.dispatch(message, peerAddress);
+        }
+        log.info("Dispatching {} messages to {} protocols took {} ms", numMessages, numProtocols,
+                (System.nanoTime() - ts) / 1_000_000);
+
+        for (int counter : counters) {
+            Assert.assertEquals(numMessages / numProtocols, counter);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.bitsquare.p2p.mocks;
+
+import io.bitsquare.app.Version;
+import io.bitsquare.p2p.messaging.RoutableMailMessage;
+
+public final class MockRoutableMailMessage implements RoutableMailMessage {
+    private final int networkId = Version.NETWORK_ID;
+    public final String id;
+
+    public MockRoutableMailMessage(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public int networkId() {
+        return networkId;
+    }
+
+    @Override
+    public String getRoutingId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "MockRoutableMailMessage{" +
+                "id='" + id + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package io.bitsquare.p2p.network;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NetworkExecutorTest {
+    private static final Logger log = LoggerFactory.getLogger(NetworkExecutorTest.class);
+
+    // Simulates a broadcast burst: far more send tasks than threads and queue slots. Every future has to complete,
+    // either with the result or with a RejectedExecutionException.
+    @Test
+    public void testNoHangingFuturesUnderLoad() throws InterruptedException {
+        int numTasks = 2000;
+        NetworkExecutor executor = new NetworkExecutor("NetworkExecutorTest", 4, 20);
+        CountDownLatch latch = new CountDownLatch(numTasks);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < numTasks; i++) {
+            final int index = i;
+            ListenableFuture<Integer> future = executor.submit(NetworkExecutor.TaskClass.SEND, () -> {
+                Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+                return index;
+            });
+            futures.add(future);
+            Futures.addCallback(future, new FutureCallback<Integer>() {
+                @Override
+                public void onSuccess(Integer result) {
+                    succeeded.incrementAndGet();
+                    latch.countDown();
+                }
+
+                @Override
+                public void onFailure(@NotNull Throwable throwable) {
+                    if (throwable instanceof RejectedExecutionException)
+                        rejected.incrementAndGet();
+                    else
+                        failed.incrementAndGet();
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue("Futures left hanging: " + latch.getCount(), latch.await(30, TimeUnit.SECONDS));
+        NetworkExecutor.Metrics metrics = executor.getMetrics(NetworkExecutor.TaskClass.SEND);
+        log.info("Load test: succeeded={}, rejected={}, {}", succeeded.get(), rejected.get(), metrics);
+
+        assertEquals(0, failed.get());
+        assertEquals(numTasks, succeeded.get() + rejected.get());
+        assertTrue(rejected.get() > 0);
+        assertEquals(succeeded.get(), metrics.submitted);
+        assertEquals(rejected.get(), metrics.rejected);
+        assertTrue(futures.stream().allMatch(ListenableFuture::isDone));
+
+        // Other task classes are not affected by the saturation of SEND
+        assertEquals(0, executor.getMetrics(NetworkExecutor.TaskClass.CONNECT).rejected);
+        executor.shutDown(500, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testBackPressure() throws InterruptedException {
+        NetworkExecutor executor = new NetworkExecutor("NetworkExecutorTest", 1, 2);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(NetworkExecutor.TaskClass.CONNECT, () -> {
+            started.countDown();
+            Uninterruptibles.awaitUninterruptibly(blocker);
+        });
+        started.await();
+        assertTrue(executor.hasCapacity(NetworkExecutor.TaskClass.CONNECT));
+        executor.submit(NetworkExecutor.TaskClass.CONNECT, () -> {
+        });
+        executor.submit(NetworkExecutor.TaskClass.CONNECT, () -> {
+        });
+        assertFalse(executor.hasCapacity(NetworkExecutor.TaskClass.CONNECT));
+        assertTrue(executor.hasCapacity(NetworkExecutor.TaskClass.SEND));
+
+        ListenableFuture<?> future = executor.submit(NetworkExecutor.TaskClass.CONNECT, () -> {
+        });
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("Expected RejectedExecutionException");
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        blocker.countDown();
+        executor.shutDown(500, TimeUnit.MILLISECONDS);
+
+        // After shut down tasks are rejected as well instead of being dropped
+        assertTrue(executor.submit(NetworkExecutor.TaskClass.SEND, () -> {
+        }).isDone());
+    }
+}
@@ -0,0 +1,181 @@
+package io.bitsquare.p2p.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class StreamMultiplexerTest {
+    private static final int MAX_MSG_SIZE = 5 * 1024 * 1024;
+    // type (byte), channel (byte), length (int)
+    private static final int FRAME_HEADER_SIZE = 6;
+
+    private ExecutorService executor;
+    private Socket socket1, socket2;
+    private ObservedOutputStream outputStream1;
+    private StreamMultiplexer multiplexer1, multiplexer2;
+
+    @Before
+    public void setup() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            socket1 = new Socket("localhost", serverSocket.getLocalPort());
+            socket2 = serverSocket.accept();
+        }
+        outputStream1 = new ObservedOutputStream(socket1.getOutputStream());
+        multiplexer1 = new StreamMultiplexer(socket1.getInputStream(), outputStream1, MAX_MSG_SIZE, "1");
+        multiplexer2 = new StreamMultiplexer(socket2.getInputStream(), socket2.getOutputStream(), MAX_MSG_SIZE, "2");
+        executor.submit(multiplexer1);
+        executor.submit(multiplexer2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        multiplexer1.stop();
+        multiplexer2.stop();
+        socket1.close();
+        socket2.close();
+        executor.shutdownNow();
+    }
+
+    // A message larger than the window only gets through if the receiver returns the credit
+    @Test
+    public void testLargeMessageWithFlowControl() throws Exception {
+        byte[] data = createData(3 * StreamMultiplexer.WINDOW_SIZE + 123, 1);
+        // The window updates of multiplexer2 are read by multiplexer1, so both sides need to read
+        executor.submit(() -> {
+            while (true)
+                multiplexer1.readMessage();
+        });
+        Future<?> sent = executor.submit(() -> {
+            multiplexer1.send(StreamMultiplexer.Channel.BULK, data);
+            return null;
+        });
+
+        assertArrayEquals(data, multiplexer2.readMessage());
+        sent.get(10, TimeUnit.SECONDS);
+    }
+
+    // A small control message sent after a large bulk message has started gets completed first
+    @Test
+    public void testControlMessageOvertakesBulkMessage() throws Exception {
+        byte[] bulk = createData(4 * 1024 * 1024, 1);
+        byte[] ping = createData(100, 2);
+        executor.submit(() -> {
+            while (true)
+                multiplexer1.readMessage();
+        });
+        // As we don't read yet the bulk sender can only write the frames of one window
+        int windowFrameBytes = StreamMultiplexer.WINDOW_SIZE / StreamMultiplexer.MAX_FRAME_SIZE
+                * (StreamMultiplexer.MAX_FRAME_SIZE + FRAME_HEADER_SIZE);
+        CountDownLatch creditUsed = outputStream1.whenWritten(windowFrameBytes);
+        CountDownLatch pingWritten = outputStream1.whenWritten(windowFrameBytes + FRAME_HEADER_SIZE + ping.length);
+        executor.submit(() -> {
+            multiplexer1.send(StreamMultiplexer.Channel.BULK, bulk);
+            return null;
+        });
+        assertTrue(creditUsed.await(10, TimeUnit.SECONDS));
+        executor.submit(() -> {
+            multiplexer1.send(StreamMultiplexer.Channel.CONTROL, ping);
+            return null;
+        });
+        assertTrue(pingWritten.await(10, TimeUnit.SECONDS));
+
+        assertArrayEquals(ping, multiplexer2.readMessage());
+        assertArrayEquals(bulk, multiplexer2.readMessage());
+    }
+
+    @Test
+    public void testMaxSizeExceeded() throws Exception {
+        StreamMultiplexer receiver = new StreamMultiplexer(socket2.getInputStream(), socket2.getOutputStream(),
+                StreamMultiplexer.MAX_FRAME_SIZE, "receiver");
+        executor.submit(() -> {
+            multiplexer1.send(StreamMultiplexer.Channel.TRADE, createData(StreamMultiplexer.MAX_FRAME_SIZE + 1, 3));
+            return null;
+        });
+        try {
+            receiver.readMessage();
+            fail("Expected MaxSizeExceededException");
+        } catch (StreamMultiplexer.MaxSizeExceededException ignore) {
+        }
+    }
+
+    // The peer must not return more credit than we have used
+    @Test(expected = StreamCorruptedException.class)
+    public void testWindowUpdateAboveWindowSizeFails() throws IOException {
+        DataOutputStream outputStream = new DataOutputStream(socket2.getOutputStream());
+        outputStream.writeByte(2);
+        outputStream.writeByte(StreamMultiplexer.Channel.TRADE.ordinal());
+        outputStream.writeInt(1);
+        outputStream.flush();
+
+        multiplexer1.readMessage();
+    }
+
+    @Test
+    public void testSendAfterStopFails() {
+        multiplexer1.stop();
+        try {
+            multiplexer1.send(StreamMultiplexer.Channel.CONTROL, createData(10, 4));
+            fail("Expected IOException");
+        } catch (IOException ignore) {
+        }
+    }
+
+    private byte[] createData(int size, int value) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) value);
+        data[size - 1] = (byte) (value + 1);
+        return data;
+    }
+
+    // Counts the bytes the multiplexer writes to the socket, so we know which frames it has written
+    private static class ObservedOutputStream extends FilterOutputStream {
+        private final Map<CountDownLatch, Long> latches = new HashMap<>();
+        private long numBytesWritten;
+
+        ObservedOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        synchronized CountDownLatch whenWritten(long numBytes) {
+            CountDownLatch latch = new CountDownLatch(1);
+            if (numBytesWritten >= numBytes)
+                latch.countDown();
+            else
+                latches.put(latch, numBytes);
+            return latch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            onWritten(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            onWritten(len);
+            out.write(b, off, len);
+        }
+
+        private synchronized void onWritten(int numBytes) {
+            numBytesWritten += numBytes;
+            latches.entrySet().removeIf(entry -> {
+                if (numBytesWritten < entry.getValue())
+                    return false;
+                entry.getKey().countDown();
+                return true;
+            });
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.network.Connection;
+import io.bitsquare.p2p.network.ConnectionPriority;
+import io.bitsquare.p2p.network.NetworkNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class ConnectionWarmUpManagerTest {
+    private final Address myAddress = new Address("localhost", 8000);
+    private final Address seedNodeAddress = new Address("localhost", 8001);
+
+    private NetworkNode networkNode;
+    private PeerManager peerManager;
+    private Map<Address, Peer> authenticatedPeers;
+    private ConnectionWarmUpManager connectionWarmUpManager;
+
+    @Before
+    public void setup() {
+        networkNode = mock(NetworkNode.class);
+        when(networkNode.getAddress()).thenReturn(myAddress);
+        peerManager = mock(PeerManager.class);
+        authenticatedPeers = new HashMap<>();
+        authenticatedPeers.put(seedNodeAddress, new Peer(mock(Connection.class), seedNodeAddress));
+        when(peerManager.getAuthenticatedPeers()).thenReturn(authenticatedPeers);
+        connectionWarmUpManager = new ConnectionWarmUpManager(networkNode, peerManager);
+    }
+
+    @After
+    public void tearDown() {
+        connectionWarmUpManager.shutDown();
+    }
+
+    @Test
+    public void testShutDownRemovesListeners() {
+        verify(networkNode).addConnectionListener(connectionWarmUpManager);
+        verify(peerManager).addAuthenticationListener(connectionWarmUpManager);
+
+        connectionWarmUpManager.shutDown();
+
+        verify(networkNode).removeConnectionListener(connectionWarmUpManager);
+        verify(peerManager).removeAuthenticationListener(connectionWarmUpManager);
+    }
+
+    @Test
+    public void testWarmUpOncePerPeer() {
+        Address peerAddress = new Address("localhost", 8002);
+        connectionWarmUpManager.warmUp(Arrays.asList(peerAddress, peerAddress, myAddress, null));
+        connectionWarmUpManager.warmUp(Collections.singletonList(peerAddress));
+
+        verify(peerManager, times(1)).authenticateToDirectMessagePeer(eq(peerAddress), (Runnable) isNull(), any(Runnable.class));
+        verify(peerManager, never()).authenticateToDirectMessagePeer(eq(myAddress), any(Runnable.class), any(Runnable.class));
+        assertEquals(Collections.singleton(peerAddress), connectionWarmUpManager.getWarmPeers());
+    }
+
+    @Test
+    public void testNoWarmUpBeforeAuthenticated() {
+        authenticatedPeers.clear();
+        connectionWarmUpManager.warmUp(Collections.singletonList(new Address("localhost", 8002)));
+
+        verify(peerManager, never()).authenticateToDirectMessagePeer(any(Address.class), any(Runnable.class), any(Runnable.class));
+        assertTrue(connectionWarmUpManager.getWarmPeers().isEmpty());
+    }
+
+    @Test
+    public void testNumWarmPeersIsBounded() {
+        List<Address> peerAddresses = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            peerAddresses.add(new Address("localhost", 9000 + i));
+        connectionWarmUpManager.warmUp(peerAddresses);
+
+        verify(peerManager, times(6)).authenticateToDirectMessagePeer(any(Address.class), (Runnable) isNull(), any(Runnable.class));
+        assertEquals(6, connectionWarmUpManager.getWarmPeers().size());
+    }
+
+    @Test
+    public void testAuthenticatedWarmPeerIsProtected() {
+        Address peerAddress = new Address("localhost", 8002);
+        connectionWarmUpManager.warmUp(Collections.singletonList(peerAddress));
+
+        Connection connection = mock(Connection.class);
+        when(connection.getConnectionPriority()).thenReturn(ConnectionPriority.ACTIVE);
+        connectionWarmUpManager.onPeerAuthenticated(peerAddress, connection);
+
+        verify(connection).setConnectionPriority(ConnectionPriority.DIRECT_MSG);
+        assertTrue(connectionWarmUpManager.getCircuitBuildDuration(peerAddress).isPresent());
+    }
+
+    @Test
+    public void testFailedWarmUpIsRemoved() {
+        Address peerAddress = new Address("localhost", 8002);
+        connectionWarmUpManager.warmUp(Collections.singletonList(peerAddress));
+
+        ArgumentCaptor<Runnable> faultHandler = ArgumentCaptor.forClass(Runnable.class);
+        verify(peerManager).authenticateToDirectMessagePeer(eq(peerAddress), (Runnable) isNull(), faultHandler.capture());
+        faultHandler.getValue().run();
+
+        assertTrue(connectionWarmUpManager.getWarmPeers().isEmpty());
+        assertFalse(connectionWarmUpManager.getCircuitBuildDuration(peerAddress).isPresent());
+    }
+}
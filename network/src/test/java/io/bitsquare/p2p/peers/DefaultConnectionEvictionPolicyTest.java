@@ -0,0 +1,96 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.network.Connection;
+import io.bitsquare.p2p.network.ConnectionPriority;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultConnectionEvictionPolicyTest {
+    private static final long MINUTE = 60 * 1000;
+
+    private final Address protectedAddress = new Address("localhost", 9999);
+    private DefaultConnectionEvictionPolicy policy;
+    private long now;
+    private int port;
+
+    @Before
+    public void setup() {
+        policy = new DefaultConnectionEvictionPolicy(4, 6, protectedAddress::equals);
+        now = System.currentTimeMillis();
+        port = 8000;
+    }
+
+    @Test
+    public void testNothingToEvictBelowTarget() {
+        List<Peer> peers = Arrays.asList(createPeer(ConnectionPriority.PASSIVE, 1), createPeer(ConnectionPriority.PASSIVE, 2));
+        Assert.assertTrue(policy.selectPeersToEvict(peers, 2).isEmpty());
+    }
+
+    @Test
+    public void testLeastActivePassivePeersFirst() {
+        Peer recent = createPeer(ConnectionPriority.PASSIVE, 1);
+        Peer oldest = createPeer(ConnectionPriority.PASSIVE, 10);
+        Peer old = createPeer(ConnectionPriority.PASSIVE, 5);
+
+        List<Peer> evicted = policy.selectPeersToEvict(Arrays.asList(recent, oldest, old), 1);
+
+        Assert.assertEquals(Arrays.asList(oldest, old), evicted);
+    }
+
+    @Test
+    public void testPeerWhichSentDataIsKept() {
+        Peer withData = createPeer(ConnectionPriority.PASSIVE, 5);
+        withData.onDataMessageReceived();
+        Peer withoutData = createPeer(ConnectionPriority.PASSIVE, 5);
+
+        Assert.assertEquals(Collections.singletonList(withoutData),
+                policy.selectPeersToEvict(Arrays.asList(withData, withoutData), 1));
+    }
+
+    @Test
+    public void testPriorityLimits() {
+        List<Peer> peers = new ArrayList<>();
+        Peer passive = createPeer(ConnectionPriority.PASSIVE, 1);
+        peers.add(passive);
+        List<Peer> active = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            active.add(createPeer(ConnectionPriority.ACTIVE, 10 + i));
+        peers.addAll(active);
+        for (int i = 0; i < 3; i++)
+            peers.add(createPeer(ConnectionPriority.DIRECT_MSG, 20 + i));
+
+        // 8 peers, target 2: the passive peer goes, then ACTIVE peers only down to 4 connections, DIRECT_MSG peers
+        // are kept as we are below the high limit of 6 then
+        List<Peer> evicted = policy.selectPeersToEvict(peers, 2);
+
+        Assert.assertEquals(Arrays.asList(passive, active.get(3), active.get(2), active.get(1)), evicted);
+    }
+
+    @Test
+    public void testAuthRequestAndProtectedPeersAreNeverEvicted() {
+        Peer authRequest = createPeer(ConnectionPriority.AUTH_REQUEST, 100);
+        Peer protectedPeer = new Peer(createConnection(ConnectionPriority.PASSIVE, 100), protectedAddress);
+        Peer passive = createPeer(ConnectionPriority.PASSIVE, 1);
+
+        Assert.assertEquals(Collections.singletonList(passive),
+                policy.selectPeersToEvict(Arrays.asList(authRequest, protectedPeer, passive), 0));
+    }
+
+    private Peer createPeer(ConnectionPriority priority, long minutesInactive) {
+        return new Peer(createConnection(priority, minutesInactive), new Address("localhost", port++));
+    }
+
+    private Connection createConnection(ConnectionPriority priority, long minutesInactive) {
+        Connection connection = mock(Connection.class);
+        when(connection.getConnectionPriority()).thenReturn(priority);
+        when(connection.getLastActivityDate()).thenReturn(new Date(now - minutesInactive * MINUTE));
+        return connection;
+    }
+}
@@ -0,0 +1,71 @@
+package io.bitsquare.p2p.peers;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.Message;
+import io.bitsquare.p2p.network.Connection;
+import io.bitsquare.p2p.network.NetworkNode;
+import io.bitsquare.p2p.peers.messages.maintenance.PingMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MaintenanceManagerTest {
+    private final Address peerAddress = new Address("localhost", 8001);
+
+    private NetworkNode networkNode;
+    private Connection connection;
+    private List<Address> removedPeers;
+    private MaintenanceManager maintenanceManager;
+
+    @Before
+    public void setup() {
+        networkNode = mock(NetworkNode.class);
+        connection = mock(Connection.class);
+        when(connection.getPeerAddressOptional()).thenReturn(Optional.of(peerAddress));
+        removedPeers = new ArrayList<>();
+        maintenanceManager = new MaintenanceManager(networkNode, HashMap::new, removedPeers::add);
+    }
+
+    @After
+    public void tearDown() {
+        maintenanceManager.shutDown();
+    }
+
+    @Test
+    public void testRejectedPongDoesNotRemovePeer() {
+        failPong(new RejectedExecutionException("Network is saturated, SEND task rejected"));
+
+        assertTrue(removedPeers.isEmpty());
+    }
+
+    @Test
+    public void testFailedPongRemovesPeer() {
+        failPong(new IOException("Connection reset"));
+
+        assertEquals(1, removedPeers.size());
+        assertEquals(peerAddress, removedPeers.get(0));
+    }
+
+    private void failPong(Throwable throwable) {
+        SettableFuture<Connection> future = SettableFuture.create();
+        when(networkNode.sendMessage(eq(connection), any(Message.class))).thenReturn(future);
+
+        maintenanceManager.onMessage(new PingMessage(1), connection);
+        future.setException(throwable);
+    }
+}
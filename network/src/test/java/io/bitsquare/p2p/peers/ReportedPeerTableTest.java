@@ -0,0 +1,62 @@
+package io.bitsquare.p2p.peers;
+
+import io.bitsquare.p2p.Address;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+public class ReportedPeerTableTest {
+
+    @Test
+    public void testMergeAdjustsLastActivityDate() {
+        ReportedPeerTable table = new ReportedPeerTable(10);
+        Address address = new Address("localhost", 8001);
+        table.merge(new ReportedPeer(address, new Date(1000)));
+        table.merge(new ReportedPeer(address, new Date(3000)));
+
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(2000, table.getAll().iterator().next().lastActivityDate.getTime());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        ReportedPeerTable table = new ReportedPeerTable(10);
+        for (int i = 0; i < 100; i++) {
+            table.merge(new ReportedPeer(new Address("localhost", 8000 + i), new Date(i)));
+        }
+        Assert.assertEquals(10, table.size());
+        // The newest entry is never evicted when it gets added
+        Assert.assertTrue(table.contains(new Address("localhost", 8099)));
+    }
+
+    @Test
+    public void testRemoveAndRandomPeer() {
+        ReportedPeerTable table = new ReportedPeerTable(10);
+        Address address1 = new Address("localhost", 8001);
+        Address address2 = new Address("localhost", 8002);
+        Address address3 = new Address("localhost", 8003);
+        table.merge(new ReportedPeer(address1, new Date()));
+        table.merge(new ReportedPeer(address2, new Date()));
+        table.merge(new ReportedPeer(address3, new Date()));
+
+        Assert.assertTrue(table.remove(address1));
+        Assert.assertFalse(table.remove(address1));
+        Assert.assertTrue(table.contains(address2));
+        Assert.assertTrue(table.contains(address3));
+
+        Set<Address> excluded = new HashSet<>();
+        excluded.add(address2);
+        for (int i = 0; i < 20; i++) {
+            Optional<ReportedPeer> randomPeer = table.getRandomPeer(excluded);
+            Assert.assertTrue(randomPeer.isPresent());
+            Assert.assertEquals(address3, randomPeer.get().address);
+        }
+
+        excluded.add(address3);
+        Assert.assertFalse(table.getRandomPeer(excluded).isPresent());
+    }
+}
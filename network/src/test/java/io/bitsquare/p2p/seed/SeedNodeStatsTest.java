@@ -0,0 +1,88 @@
+package io.bitsquare.p2p.seed;
+
+import io.bitsquare.p2p.Address;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SeedNodeStatsTest {
+
+    @Test
+    public void testFastAndReliableSeedNodeScoresBest() {
+        SeedNodeStats unknown = new SeedNodeStats();
+        SeedNodeStats fast = createStats(500, 3, 0);
+        SeedNodeStats slow = createStats(5000, 3, 0);
+        SeedNodeStats offline = createStats(500, 0, 3);
+
+        assertTrue(fast.getScore() < slow.getScore());
+        assertTrue(slow.getScore() < unknown.getScore());
+        // A seed node which never responded ranks after one we don't know yet
+        assertTrue(unknown.getScore() < offline.getScore());
+    }
+
+    @Test
+    public void testFirstSuccessReplacesDefaultLatency() {
+        SeedNodeStats stats = new SeedNodeStats();
+        stats.onSuccess(1000);
+        assertEquals(1000, stats.getAverageLatency());
+        assertEquals(1, stats.getNumRequests());
+
+        // Moving average, the recent latency has a weight of 0.3
+        stats.onSuccess(2000);
+        assertEquals(1300, stats.getAverageLatency());
+    }
+
+    @Test
+    public void testRecentBehaviourCountsMore() {
+        SeedNodeStats recovered = createStats(1000, 0, 5);
+        for (int i = 0; i < 5; i++)
+            recovered.onSuccess(1000);
+
+        SeedNodeStats degraded = createStats(1000, 5, 0);
+        for (int i = 0; i < 5; i++)
+            degraded.onFailure();
+
+        assertEquals(10, recovered.getNumRequests());
+        assertEquals(10, degraded.getNumRequests());
+        assertTrue(recovered.getSuccessRate() > degraded.getSuccessRate());
+        assertTrue(recovered.getScore() < degraded.getScore());
+    }
+
+    @Test
+    public void testScoreOfAlwaysFailingSeedNodeIsBounded() {
+        SeedNodeStats stats = new SeedNodeStats();
+        for (int i = 0; i < 100; i++)
+            stats.onFailure();
+
+        assertTrue(stats.getSuccessRate() < 0.05);
+        assertEquals(stats.getAverageLatency() / 0.05, stats.getScore(), 1);
+    }
+
+    @Test
+    public void testOrderingByScore() {
+        Address fast = new Address("localhost:8001");
+        Address slow = new Address("localhost:8002");
+        Address unknown = new Address("localhost:8003");
+        Address offline = new Address("localhost:8004");
+        Map<Address, SeedNodeStats> statsMap = new HashMap<>();
+        statsMap.put(fast, createStats(500, 3, 0));
+        statsMap.put(slow, createStats(5000, 3, 0));
+        statsMap.put(unknown, new SeedNodeStats());
+        statsMap.put(offline, createStats(500, 0, 3));
+
+        List<Address> addresses = new ArrayList<>(Arrays.asList(offline, unknown, slow, fast));
+        addresses.sort((a, b) -> Double.compare(statsMap.get(a).getScore(), statsMap.get(b).getScore()));
+        assertEquals(Arrays.asList(fast, slow, unknown, offline), addresses);
+    }
+
+    private static SeedNodeStats createStats(long latency, int numSuccesses, int numFailures) {
+        SeedNodeStats stats = new SeedNodeStats();
+        for (int i = 0; i < numSuccesses; i++)
+            stats.onSuccess(latency);
+        for (int i = 0; i < numFailures; i++)
+            stats.onFailure();
+        return stats;
+    }
+}
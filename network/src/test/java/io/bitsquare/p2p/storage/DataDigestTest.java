@@ -0,0 +1,91 @@
+package io.bitsquare.p2p.storage;
+
+import io.bitsquare.common.ByteArray;
+import io.bitsquare.common.util.Utilities;
+import io.bitsquare.p2p.Address;
+import io.bitsquare.p2p.network.Connection;
+import io.bitsquare.p2p.network.NetworkNode;
+import io.bitsquare.p2p.peers.PeerManager;
+import io.bitsquare.p2p.peers.ReportedPeer;
+import io.bitsquare.p2p.peers.messages.auth.AuthenticationChallenge;
+import io.bitsquare.p2p.storage.data.ProtectedData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class DataDigestTest {
+    // Like PeerManager.MAX_REPORTED_PEERS
+    private static final int NUM_REPORTED_PEERS = 1000;
+
+    private final Random random = new Random(1);
+    private File dir;
+    private P2PDataStorage dataStorage;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile("temp_tests", "");
+        dir.delete();
+        dir.mkdir();
+        dataStorage = new P2PDataStorage(mock(PeerManager.class), mock(NetworkNode.class), dir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        dataStorage.shutDown();
+        Utilities.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testMaxDigestFitsIntoMessage() throws IOException {
+        fillMap(P2PDataStorage.MAX_DATA_DIGEST_ENTRIES);
+        HashMap<ByteArray, Integer> dataDigest = dataStorage.getDataDigest();
+        assertNotNull(dataDigest);
+        assertEquals(P2PDataStorage.MAX_DATA_DIGEST_ENTRIES, dataDigest.size());
+
+        HashSet<ReportedPeer> reportedPeers = new HashSet<>();
+        for (int i = 0; i < NUM_REPORTED_PEERS; i++)
+            reportedPeers.add(new ReportedPeer(new Address(randomOnionHost(), 9999)));
+        AuthenticationChallenge message = new AuthenticationChallenge(new Address(randomOnionHost(), 9999),
+                random.nextLong(), random.nextLong(), reportedPeers, dataDigest);
+
+        // Uncompressed, random hashes don't compress anyway
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(message);
+        }
+        assertTrue("Message size " + byteArrayOutputStream.size(),
+                byteArrayOutputStream.size() < Connection.getMaxMsgSize());
+    }
+
+    @Test
+    public void testNoDigestAboveMax() {
+        fillMap(P2PDataStorage.MAX_DATA_DIGEST_ENTRIES + 1);
+        assertNull(dataStorage.getDataDigest());
+    }
+
+    private void fillMap(int numEntries) {
+        for (int i = 0; i < numEntries; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            dataStorage.getMap().put(new ByteArray(hash), new ProtectedData(null, 0, null, i, null));
+        }
+    }
+
+    private String randomOnionHost() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 16; i++)
+            sb.append((char) ('a' + random.nextInt(26)));
+        return sb.append(".onion").toString();
+    }
+}